@@ -0,0 +1,100 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Класс BaselineCheck сравнивает результаты JMH в формате JSON с сохраненным baseline и завершается с ошибкой,
+ * если время выполнения или объем выделенной памяти на операцию (gc.alloc.rate.norm) какого-либо бенчмарка
+ * вырос больше допустимого порога.
+ * <p>
+ * Использование: {@code java -cp target/benchmarks.jar com.cryptodatacollector.benchmarks.BaselineCheck
+ * results.json baseline.json [порог в процентах]}
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class BaselineCheck {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineCheck() {
+    }
+
+    /**
+     * Точка входа.
+     *
+     * @param args Путь к результатам, путь к baseline и необязательный порог в процентах (по умолчанию 20).
+     * @throws IOException Если не удалось прочитать файлы.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BaselineCheck <results.json> <baseline.json> [threshold percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.2;
+        Map<String, double[]> results = load(Path.of(args[0]));
+        Map<String, double[]> baseline = load(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, double[]> entry : new TreeMap<>(results).entrySet()) {
+            double[] base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("NEW   %s: %.3f%n", entry.getKey(), entry.getValue()[0]);
+                continue;
+            }
+            double[] current = entry.getValue();
+            boolean slower = current[0] > base[0] * (1 + threshold);
+            boolean allocates = !Double.isNaN(base[1]) && !Double.isNaN(current[1])
+                    && current[1] > base[1] * (1 + threshold);
+            System.out.printf("%s %s: score %.3f (baseline %.3f), alloc %.0f B/op (baseline %.0f B/op)%n",
+                    slower || allocates ? "WORSE" : "OK   ", entry.getKey(), current[0], base[0], current[1], base[1]);
+            if (slower || allocates) {
+                regressions++;
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmarks regressed by more than " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Загружает результаты: для каждого бенчмарка с параметрами - среднее время и память на операцию.
+     */
+    private static Map<String, double[]> load(Path path) throws IOException {
+        Map<String, double[]> scores = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                String key = run.get("benchmark").getAsString();
+                if (run.has("params")) {
+                    key += run.getAsJsonObject("params").toString();
+                }
+                double score = run.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+                double alloc = Double.NaN;
+                JsonObject secondary = run.getAsJsonObject("secondaryMetrics");
+                if (secondary != null) {
+                    for (Map.Entry<String, JsonElement> metric : secondary.entrySet()) {
+                        if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                            alloc = metric.getValue().getAsJsonObject().get("score").getAsDouble();
+                        }
+                    }
+                }
+                scores.put(key, new double[]{score, alloc});
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,116 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.cryptodatacollector.elastic.BulkIndexer;
+import com.cryptodatacollector.elastic.BulkIndexerSettings;
+import com.cryptodatacollector.elastic.BulkIndexingResult;
+import com.cryptodatacollector.elastic.ElasticsearchClient;
+import com.cryptodatacollector.elastic.QuoteDocumentCodec;
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк пути индексации: построение _bulk запроса из котировок и полная отправка через BulkIndexer
+ * в заглушку Elasticsearch внутри процесса, включая разбор ответа. bulkIndexBytes отправляет котировки Quote,
+ * сериализованные в буферы пула, как это делает CryptoDataIndexer.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkIndexBenchmark {
+    private static final String INDEX = "crypto_data-2024.06.01";
+
+    @Param({"100", "5000", "10000"})
+    public int listings;
+
+    private List<CryptoCurrency> quotes;
+    private List<Quote> compactQuotes;
+    private Gson gson;
+    private StubElasticsearch stub;
+    private RestHighLevelClient client;
+    private ElasticsearchClient elasticsearchClient;
+    private BulkIndexerSettings settings;
+
+    @Setup
+    public void setUp() throws IOException {
+        quotes = ListingsFixture.quotes(listings);
+        compactQuotes = ListingsFixture.compactQuotes(listings);
+        gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+        stub = new StubElasticsearch();
+        client = stub.client();
+        elasticsearchClient = new ElasticsearchClient(client);
+        settings = new BulkIndexerSettings(1000, 5L * 1024 * 1024, 1000, 2, 30000);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public long buildBulkRequest() {
+        BulkRequest request = new BulkRequest();
+        for (CryptoCurrency quote : quotes) {
+            request.add(new IndexRequest(INDEX).id(documentId(quote)).source(gson.toJson(quote), XContentType.JSON));
+        }
+        return request.estimatedSizeInBytes();
+    }
+
+    @Benchmark
+    public BulkIndexingResult bulkIndex() throws IOException {
+        BulkIndexer bulkIndexer = elasticsearchClient.bulkIndexer(settings);
+        for (CryptoCurrency quote : quotes) {
+            bulkIndexer.add(INDEX, documentId(quote), gson.toJson(quote));
+        }
+        bulkIndexer.close();
+        return bulkIndexer.getResult();
+    }
+
+    @Benchmark
+    public BulkIndexingResult bulkIndexBytes() throws IOException {
+        BulkIndexer bulkIndexer = elasticsearchClient.bulkIndexer(settings);
+        for (Quote quote : compactQuotes) {
+            bulkIndexer.add(INDEX, quote.getCoinId() + "_" + quote.getLastUpdated(),
+                    out -> QuoteDocumentCodec.write(out, quote));
+        }
+        bulkIndexer.close();
+        return bulkIndexer.getResult();
+    }
+
+    private static String documentId(CryptoCurrency quote) {
+        return quote.getId() + "_" + quote.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,111 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.cryptodatacollector.api.ListingsResponseParser;
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.Quote;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Класс ListingsFixture строит ответы CoinMarketCap API заданного размера для бенчмарков.
+ * За основу берутся записанные записи ответа listings/latest из fixtures/listings-sample.json,
+ * которые размножаются с уникальными идентификаторами, символами и ценами, сохраняя структуру и размер полей.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class ListingsFixture {
+    private static final String SAMPLE = "/fixtures/listings-sample.json";
+
+    private ListingsFixture() {
+    }
+
+    /**
+     * Строит тело ответа listings/latest с указанным количеством записей.
+     *
+     * @param listings Количество записей.
+     * @return Тело ответа в UTF-8.
+     */
+    public static byte[] response(int listings) {
+        JsonObject sample = loadSample();
+        JsonArray templates = sample.getAsJsonArray("data");
+
+        JsonArray data = new JsonArray();
+        for (int i = 0; i < listings; i++) {
+            JsonObject listing = templates.get(i % templates.size()).getAsJsonObject().deepCopy();
+            int generation = i / templates.size();
+            listing.addProperty("id", listing.get("id").getAsInt() + generation * 100000);
+            listing.addProperty("cmc_rank", i + 1);
+            if (generation > 0) {
+                listing.addProperty("symbol", listing.get("symbol").getAsString() + generation);
+                listing.addProperty("name", listing.get("name").getAsString() + " " + generation);
+            }
+            JsonObject quote = listing.getAsJsonObject("quote").getAsJsonObject("USD");
+            BigDecimal factor = BigDecimal.ONE.add(BigDecimal.valueOf(i % 97, 3));
+            quote.addProperty("price", quote.get("price").getAsBigDecimal().multiply(factor));
+            data.add(listing);
+        }
+
+        JsonObject response = new JsonObject();
+        response.add("status", sample.get("status"));
+        response.add("data", data);
+        return response.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Возвращает котировки, полученные разбором ответа с указанным количеством записей.
+     *
+     * @param listings Количество записей.
+     * @return Список котировок.
+     */
+    public static List<CryptoCurrency> quotes(int listings) {
+        List<CryptoCurrency> quotes = new ArrayList<>(listings);
+        try {
+            new ListingsResponseParser("USD").parse(new ByteArrayInputStream(response(listings)), quotes::add);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return quotes;
+    }
+
+    /**
+     * Возвращает котировки в компактном представлении, полученные разбором ответа с указанным количеством записей.
+     *
+     * @param listings Количество записей.
+     * @return Список котировок.
+     */
+    public static List<Quote> compactQuotes(int listings) {
+        List<Quote> quotes = new ArrayList<>(listings);
+        try {
+            new ListingsResponseParser("USD").parseQuotes(new ByteArrayInputStream(response(listings)), quotes::add);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return quotes;
+    }
+
+    private static JsonObject loadSample() {
+        try (InputStream in = ListingsFixture.class.getResourceAsStream(SAMPLE)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture " + SAMPLE + " is missing");
+            }
+            return JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.cryptodatacollector.api.ListingsPage;
+import com.cryptodatacollector.api.ListingsResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк разбора ответа listings/latest: parseQuotes - разбор в компактные Quote, который fetchCryptoData
+ * выполняет над телом каждой страницы, parse - тот же разбор с преобразованием записей в CryptoCurrency.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListingsParseBenchmark {
+
+    @Param({"100", "5000", "10000"})
+    public int listings;
+
+    private byte[] response;
+    private ListingsResponseParser parser;
+
+    @Setup
+    public void setUp() {
+        response = ListingsFixture.response(listings);
+        parser = new ListingsResponseParser("USD");
+    }
+
+    @Benchmark
+    public ListingsPage parse(Blackhole blackhole) throws IOException {
+        return parser.parse(new ByteArrayInputStream(response), blackhole::consume);
+    }
+
+    @Benchmark
+    public ListingsPage parseQuotes(Blackhole blackhole) throws IOException {
+        return parser.parseQuotes(new ByteArrayInputStream(response), blackhole::consume);
+    }
+}
@@ -0,0 +1,203 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.cryptodatacollector.analysis.CryptoDataAnalyzer;
+import com.cryptodatacollector.analysis.RollingWindowAnalytics;
+import com.cryptodatacollector.api.CoinMarketCapApiClient;
+import com.cryptodatacollector.cluster.ClusterCoordinator;
+import com.cryptodatacollector.cluster.ClusterSettings;
+import com.cryptodatacollector.cluster.InMemoryMembershipStore;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.pipeline.CollectionPipeline;
+import com.cryptodatacollector.pipeline.StageMetrics;
+import com.cryptodatacollector.service.CryptoDataService;
+import com.cryptodatacollector.util.EnvConfig;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс LoadTestRunner выполняет нагрузочный тест всего сборщика в одном процессе: конвейер CollectionPipeline
+ * загружает котировки синтетического рынка из StubCoinMarketCap и индексирует их в StubElasticsearch.
+ * По окончании выводятся сквозная пропускная способность, перцентили длительности цикла и потребление памяти.
+ * Запуск: {@code java -cp target/benchmarks.jar com.cryptodatacollector.benchmarks.LoadTestRunner}.
+ * Параметры теста и сборщика задаются системными свойствами, например {@code -DLOADTEST_COINS=10000}.
+ * При LOADTEST_NODES больше 1 запускается несколько экземпляров сборщика, которые делят рейтинг через
+ * ClusterCoordinator с общим хранилищем участников в памяти.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class LoadTestRunner {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private LoadTestRunner() {
+    }
+
+    /**
+     * Точка входа нагрузочного теста.
+     *
+     * @param args Аргументы командной строки (не используются).
+     * @throws Exception Если не удалось запустить заглушки или дождаться завершения циклов.
+     */
+    public static void main(String[] args) throws Exception {
+        int coins = EnvConfig.getInt("LOADTEST_COINS", 5000);
+        int cycles = EnvConfig.getInt("LOADTEST_CYCLES", 30);
+        int nodes = EnvConfig.getInt("LOADTEST_NODES", 1);
+        long cycleIntervalMillis = EnvConfig.getLong("LOADTEST_CYCLE_INTERVAL_MILLIS", 1000);
+        SyntheticMarket market = new SyntheticMarket(coins,
+                EnvConfig.getLong("LOADTEST_UPDATE_INTERVAL_MILLIS", 1000),
+                Double.parseDouble(EnvConfig.getString("LOADTEST_UPDATE_PROBABILITY", "0.5")),
+                Double.parseDouble(EnvConfig.getString("LOADTEST_VOLATILITY", "0.002")),
+                EnvConfig.getLong("LOADTEST_SEED", 42));
+
+        try (StubCoinMarketCap coinMarketCap = new StubCoinMarketCap(market);
+             StubElasticsearch elasticsearch = new StubElasticsearch();
+             RestHighLevelClient client = elasticsearch.client()) {
+            // Параметры задаются до создания сервисов сборщика, которые читают их при инициализации
+            System.setProperty("API_URL", coinMarketCap.getListingsUrl());
+            System.setProperty("API_KEY", "loadtest");
+            System.setProperty("LISTINGS_LIMIT", String.valueOf(coins));
+            System.setProperty("API_CALLS_PER_MINUTE", "0");
+            System.setProperty("API_CREDITS_PER_CYCLE", "0");
+            System.setProperty("INDEX_RETENTION_PERIODS", "0");
+            System.setProperty("SPOOL_ENABLED", "false");
+
+            InMemoryMembershipStore membershipStore = new InMemoryMembershipStore();
+            List<ClusterCoordinator> coordinators = new ArrayList<>();
+            List<CollectionPipeline> pipelines = new ArrayList<>();
+            for (int node = 0; node < nodes; node++) {
+                ClusterCoordinator coordinator = null;
+                if (nodes > 1) {
+                    ClusterSettings settings = ClusterSettings.fromEnv();
+                    settings.setNodeId("loadtest-" + node);
+                    coordinator = new ClusterCoordinator(membershipStore, settings).start();
+                    coordinators.add(coordinator);
+                }
+                RollingWindowAnalytics rollingWindowAnalytics = new RollingWindowAnalytics();
+                pipelines.add(new CollectionPipeline(
+                        new CryptoDataService(client, rollingWindowAnalytics, new CoinMarketCapApiClient(coordinator)),
+                        new CryptoDataAnalyzer(client, rollingWindowAnalytics)));
+            }
+            while (membershipStore.members().size() < coordinators.size()) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            resetPeakUsage();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long startedAt = System.nanoTime();
+            int[] startedByNode = new int[nodes];
+            for (int i = 0; i < cycles; i++) {
+                for (int node = 0; node < nodes; node++) {
+                    if (pipelines.get(node).trigger()) {
+                        startedByNode[node]++;
+                    }
+                }
+                long nextCycle = startedAt + TimeUnit.MILLISECONDS.toNanos(cycleIntervalMillis * (i + 1));
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, nextCycle - System.nanoTime()));
+            }
+            int started = 0;
+            for (int node = 0; node < nodes; node++) {
+                while (indexedCycles(pipelines.get(node)) < startedByNode[node]) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                started += startedByNode[node];
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+            List<StageMetrics> stages = new ArrayList<>();
+            for (CollectionPipeline pipeline : pipelines) {
+                stages.addAll(pipeline.getMetrics());
+                pipeline.close();
+            }
+            coordinators.forEach(ClusterCoordinator::close);
+
+            double seconds = elapsedNanos / 1e9;
+            System.out.println();
+            System.out.printf("Load test: %d coins, %d nodes, %d cycles every %d ms, %d node cycles started, %d skipped, "
+                            + "%.1f s%n",
+                    coins, nodes, cycles, cycleIntervalMillis, started, cycles * nodes - started, seconds);
+            System.out.printf("CoinMarketCap stub: %d requests, %d listings (%.0f quotes/s)%n",
+                    coinMarketCap.getRequests(), coinMarketCap.getListings(), coinMarketCap.getListings() / seconds);
+            System.out.printf("Elasticsearch stub: %d documents indexed (%.0f docs/s)%n",
+                    elasticsearch.getDocuments(), elasticsearch.getDocuments() / seconds);
+            for (StageMetrics stage : stages) {
+                System.out.println("Stage " + stage);
+            }
+            printLatency("Cycle latency (fetch start to last document indexed)",
+                    Metrics.histogram("collection_cycle_seconds",
+                            "Time from the start of a collection cycle until all its quotes are indexed"));
+            printLatency("Fetch of all listings pages",
+                    Metrics.histogram("cmc_fetch_seconds", "Time to fetch all listings pages of one collection cycle"));
+
+            System.gc();
+            long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            System.out.printf("Memory: heap after GC %.1f MiB, peak heap %.1f MiB (sum of pool peaks), max heap %.1f MiB, "
+                            + "%d GCs taking %d ms%n",
+                    mebibytes(heapUsed), mebibytes(peakHeapUsage()),
+                    mebibytes(Runtime.getRuntime().maxMemory()), gcCount() - gcCountBefore,
+                    gcMillis() - gcMillisBefore);
+        }
+        System.exit(0);
+    }
+
+    private static long indexedCycles(CollectionPipeline pipeline) {
+        return pipeline.getMetrics().stream()
+                .filter(stage -> stage.getStage().equals("index"))
+                .mapToLong(StageMetrics::getCompletedCycles)
+                .sum();
+    }
+
+    private static void printLatency(String title, LatencyHistogram histogram) {
+        StringBuilder line = new StringBuilder(title).append(": ").append(histogram.getCount()).append(" samples");
+        for (double quantile : QUANTILES) {
+            line.append(String.format(", p%s %.1f ms",
+                    BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString(),
+                    histogram.quantile(quantile) / 1e6));
+        }
+        System.out.println(line);
+    }
+
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static double mebibytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
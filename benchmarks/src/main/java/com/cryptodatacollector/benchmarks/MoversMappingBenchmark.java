@@ -0,0 +1,96 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.cryptodatacollector.analysis.CryptoDataAnalyzer;
+import com.cryptodatacollector.analysis.MarketMovers;
+import com.cryptodatacollector.model.CryptoCurrency;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк преобразования результатов анализатора: разбор ответа агрегации terms + top_hits
+ * с последней котировкой каждой криптовалюты в объекты CryptoCurrency и выбор лидеров роста и падения.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoversMappingBenchmark {
+
+    @Param({"100", "5000", "10000"})
+    public int listings;
+
+    private StubElasticsearch stub;
+    private RestHighLevelClient client;
+    private CryptoDataAnalyzer analyzer;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = new StubElasticsearch();
+        stub.setSearchResponse(moversResponse(ListingsFixture.quotes(listings)));
+        client = stub.client();
+        analyzer = new CryptoDataAnalyzer(client);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public MarketMovers movers() throws IOException {
+        return analyzer.getMovers(Duration.ofDays(1), 10);
+    }
+
+    private static String moversResponse(List<CryptoCurrency> quotes) {
+        StringBuilder json = new StringBuilder("{\"took\":3,\"timed_out\":false,"
+                + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":" + quotes.size() + ",\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]},"
+                + "\"aggregations\":{\"sterms#symbols\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+                + "\"buckets\":[");
+        for (int i = 0; i < quotes.size(); i++) {
+            CryptoCurrency quote = quotes.get(i);
+            long lastUpdated = quote.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli();
+            long timestamp = quote.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"key\":\"").append(quote.getSymbol()).append("\",\"doc_count\":1,")
+                    .append("\"top_hits#latest\":{\"hits\":{\"total\":{\"value\":1,\"relation\":\"eq\"},\"max_score\":null,")
+                    .append("\"hits\":[{\"_index\":\"crypto_data-2024.06.01\",\"_type\":\"_doc\",\"_id\":\"")
+                    .append(quote.getId()).append('_').append(lastUpdated).append("\",\"_score\":null,\"fields\":{")
+                    .append("\"id\":[\"").append(quote.getId()).append("\"],")
+                    .append("\"name\":[\"").append(quote.getName()).append("\"],")
+                    .append("\"symbol\":[\"").append(quote.getSymbol()).append("\"],")
+                    .append("\"price\":[").append(quote.getPrice().doubleValue()).append("],")
+                    .append("\"volume24h\":[").append(quote.getVolume24h().doubleValue()).append("],")
+                    .append("\"percentChange24h\":[").append(quote.getPercentChange24h().doubleValue()).append("],")
+                    .append("\"timestamp\":[\"").append(timestamp).append("\"],")
+                    .append("\"lastUpdated\":[\"").append(lastUpdated).append("\"]},")
+                    .append("\"sort\":[").append(lastUpdated).append("]}]}}}");
+        }
+        return json.append("]}}}").toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.cryptodatacollector.elastic.JsonBytesWriter;
+import com.cryptodatacollector.elastic.QuoteDocumentCodec;
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк сериализации котировок в JSON документы Elasticsearch: encodeBytes - запись QuoteDocumentCodec в байты,
+ * которой пользуется CryptoDataIndexer, encode - то же со строкой на выходе, serialize - прежняя сериализация
+ * CryptoCurrency через Gson и LocalDateTimeAdapter.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "5000", "10000"})
+    public int listings;
+
+    private List<CryptoCurrency> quotes;
+    private List<Quote> compactQuotes;
+    private Gson gson;
+    private final JsonBytesWriter writer = new JsonBytesWriter();
+
+    @Setup
+    public void setUp() {
+        quotes = ListingsFixture.quotes(listings);
+        compactQuotes = ListingsFixture.compactQuotes(listings);
+        gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+    }
+
+    @Benchmark
+    public void serialize(Blackhole blackhole) {
+        for (CryptoCurrency quote : quotes) {
+            blackhole.consume(gson.toJson(quote));
+        }
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (Quote quote : compactQuotes) {
+            blackhole.consume(QuoteDocumentCodec.toJson(quote));
+        }
+    }
+
+    @Benchmark
+    public void encodeBytes(Blackhole blackhole) {
+        for (Quote quote : compactQuotes) {
+            QuoteDocumentCodec.write(writer.reset(), quote);
+            blackhole.consume(writer.length());
+        }
+    }
+}
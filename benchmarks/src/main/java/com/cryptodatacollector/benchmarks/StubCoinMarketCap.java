@@ -0,0 +1,125 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Класс StubCoinMarketCap - заглушка CoinMarketCap API внутри процесса, которая отдает страницы SyntheticMarket
+ * по контракту /v1/cryptocurrency/listings/latest: параметры start и limit, ключ в заголовке X-CMC_PRO_API_KEY,
+ * ответ в gzip, если клиент его поддерживает. Кредиты и ограничения на количество запросов не применяются.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class StubCoinMarketCap implements Closeable {
+    static final String LISTINGS_PATH = "/v1/cryptocurrency/listings/latest";
+
+    private final SyntheticMarket market;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong listings = new AtomicLong();
+
+    /**
+     * Запускает заглушку на свободном локальном порту.
+     *
+     * @param market Модель рынка.
+     * @throws IOException Если не удалось открыть порт.
+     */
+    public StubCoinMarketCap(SyntheticMarket market) throws IOException {
+        this.market = market;
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(4);
+        server.createContext(LISTINGS_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Возвращает адрес метода listings/latest, который нужно указать в параметре API_URL.
+     *
+     * @return URL метода.
+     */
+    public String getListingsUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + LISTINGS_PATH;
+    }
+
+    /**
+     * Возвращает количество обработанных запросов.
+     *
+     * @return Количество запросов.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Возвращает общее количество отданных котировок.
+     *
+     * @return Количество котировок.
+     */
+    public long getListings() {
+        return listings.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        requests.incrementAndGet();
+        if (exchange.getRequestHeaders().getFirst("X-CMC_PRO_API_KEY") == null) {
+            send(exchange, 401, ("{\"status\":{\"error_code\":1002,"
+                    + "\"error_message\":\"API key missing.\",\"credit_count\":0}}").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        int start = 1;
+        int limit = 100;
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("start=")) {
+                    start = Integer.parseInt(parameter.substring(6));
+                }
+                else if (parameter.startsWith("limit=")) {
+                    limit = Integer.parseInt(parameter.substring(6));
+                }
+            }
+        }
+        listings.addAndGet(Math.max(0, Math.min(limit, market.getCoins() - start + 1)));
+        send(exchange, 200, market.listings(start, limit, System.currentTimeMillis()));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(status, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody(), 8192)) {
+                out.write(body);
+            }
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.cryptodatacollector.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс StubElasticsearch - заглушка Elasticsearch внутри процесса бенчмарка. Она отвечает на _bulk запросы
+ * успешным результатом по каждому документу, а на _search и на каждый запрос _msearch - заранее подготовленным
+ * ответом, поэтому бенчмарки измеряют работу клиента, а не кластера. Запросы HEAD (проверка существования
+ * индексов и псевдонимов) всегда успешны, а изменения индексов, шаблонов и псевдонимов подтверждаются без действий,
+ * поэтому заглушка подходит и для нагрузочного тестирования всего сборщика.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class StubElasticsearch implements Closeable {
+    private static final String INFO = "{\"name\":\"stub\",\"cluster_name\":\"stub\",\"cluster_uuid\":\"stub\","
+            + "\"version\":{\"number\":\"7.17.0\",\"build_flavor\":\"default\",\"build_type\":\"docker\","
+            + "\"build_hash\":\"bee86328705acaa9a6daede7140defd4d9ec56bd\",\"build_date\":\"2022-01-28T08:36:04.875279988Z\","
+            + "\"build_snapshot\":false,\"lucene_version\":\"8.11.1\",\"minimum_wire_compatibility_version\":\"6.8.0\","
+            + "\"minimum_index_compatibility_version\":\"6.0.0-beta1\"},\"tagline\":\"You Know, for Search\"}";
+    // Пустой результат с агрегацией symbols, которую читают запросы аналитики и лидеров рынка
+    private static final String EMPTY_SEARCH = "{\"took\":1,\"timed_out\":false,"
+            + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+            + "\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]},"
+            + "\"aggregations\":{\"sterms#symbols\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+            + "\"buckets\":[]}}}";
+    private static final byte[] ACKNOWLEDGED = "{\"acknowledged\":true,\"shards_acknowledged\":true}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AtomicLong documents = new AtomicLong();
+    private volatile String searchResponse = EMPTY_SEARCH;
+
+    /**
+     * Запускает заглушку на свободном локальном порту.
+     *
+     * @throws IOException Если не удалось открыть порт.
+     */
+    public StubElasticsearch() throws IOException {
+        // Без TCP_NODELAY задержка подтверждения TCP добавляет к каждому ответу десятки миллисекунд
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Создает клиент, подключенный к заглушке.
+     *
+     * @return Экземпляр RestHighLevelClient.
+     */
+    public RestHighLevelClient client() {
+        return new RestHighLevelClient(RestClient.builder(
+                new HttpHost(server.getAddress().getHostString(), server.getAddress().getPort())));
+    }
+
+    /**
+     * Задает ответ на поисковые запросы.
+     *
+     * @param json Тело ответа.
+     */
+    public void setSearchResponse(String json) {
+        this.searchResponse = json;
+    }
+
+    /**
+     * Возвращает количество документов, полученных в _bulk запросах.
+     *
+     * @return Количество документов.
+     */
+    public long getDocuments() {
+        return documents.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        byte[] body;
+        if (path.endsWith("/_bulk")) {
+            body = bulkResponse(exchange.getRequestBody());
+        }
+        else if (path.endsWith("/_msearch")) {
+            body = multiSearchResponse(exchange.getRequestBody(), searchResponse);
+        }
+        else if (path.endsWith("/_search")) {
+            exchange.getRequestBody().readAllBytes();
+            body = searchResponse.getBytes(StandardCharsets.UTF_8);
+        }
+        else if (method.equals("HEAD")) {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        else if (!method.equals("GET")) {
+            exchange.getRequestBody().readAllBytes();
+            body = ACKNOWLEDGED;
+        }
+        else {
+            exchange.getRequestBody().readAllBytes();
+            body = INFO.getBytes(StandardCharsets.UTF_8);
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] multiSearchResponse(InputStream requestBody, String item) throws IOException {
+        int searches = lines(requestBody.readAllBytes()) / 2;
+        String itemWithStatus = item.substring(0, item.lastIndexOf('}')) + ",\"status\":200}";
+        StringBuilder response = new StringBuilder("{\"took\":1,\"responses\":[");
+        for (int i = 0; i < searches; i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append(itemWithStatus);
+        }
+        return response.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] bulkResponse(InputStream requestBody) throws IOException {
+        int lines = lines(requestBody.readAllBytes());
+        documents.addAndGet(lines / 2);
+
+        StringBuilder response = new StringBuilder("{\"took\":1,\"errors\":false,\"items\":[");
+        for (int i = 0; i < lines / 2; i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append("{\"index\":{\"_index\":\"crypto_data\",\"_type\":\"_doc\",\"_id\":\"").append(i)
+                    .append("\",\"_version\":1,\"result\":\"created\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},")
+                    .append("\"_seq_no\":").append(i).append(",\"_primary_term\":1,\"status\":201}}");
+        }
+        return response.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lines(byte[] request) {
+        int lines = 0;
+        for (byte b : request) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,134 @@
+package com.cryptodatacollector.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Класс SyntheticMarket моделирует рынок из заданного количества криптовалют для нагрузочного тестирования.
+ * Цены меняются случайным блужданием: на каждом шаге рынка каждая криптовалюта с заданной вероятностью получает
+ * новую цену и новое время обновления, остальные котировки остаются прежними. Шаги вычисляются по времени
+ * при обращении к рынку, поэтому частота обновлений не зависит от частоты запросов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class SyntheticMarket {
+    private final int coins;
+    private final long updateIntervalMillis;
+    private final double updateProbability;
+    private final double volatility;
+    private final Random random;
+    private final double[] prices;
+    private final double[] openPrices;
+    private final double[] volumes;
+    private final long[] lastUpdated;
+    private long nextUpdate;
+
+    /**
+     * Конструктор класса SyntheticMarket.
+     *
+     * @param coins                Количество криптовалют.
+     * @param updateIntervalMillis Интервал между шагами рынка.
+     * @param updateProbability    Вероятность того, что котировка изменится на очередном шаге.
+     * @param volatility           Стандартное отклонение логарифмического изменения цены за один шаг.
+     * @param seed                 Начальное значение генератора случайных чисел.
+     */
+    public SyntheticMarket(int coins, long updateIntervalMillis, double updateProbability, double volatility, long seed) {
+        this.coins = coins;
+        this.updateIntervalMillis = updateIntervalMillis;
+        this.updateProbability = updateProbability;
+        this.volatility = volatility;
+        this.random = new Random(seed);
+        this.prices = new double[coins];
+        this.openPrices = new double[coins];
+        this.volumes = new double[coins];
+        this.lastUpdated = new long[coins];
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < coins; i++) {
+            // Цены распределены от десятков тысяч долларов у первых криптовалют до долей цента у последних
+            prices[i] = 50000 * Math.pow(10, -6.0 * i / Math.max(coins, 1)) * (0.5 + random.nextDouble());
+            openPrices[i] = prices[i];
+            volumes[i] = 1e10 / (i + 1) * (0.5 + random.nextDouble());
+            lastUpdated[i] = now;
+        }
+        this.nextUpdate = now + updateIntervalMillis;
+    }
+
+    /**
+     * Возвращает количество криптовалют.
+     *
+     * @return Количество криптовалют.
+     */
+    public int getCoins() {
+        return coins;
+    }
+
+    /**
+     * Формирует ответ listings/latest для страницы рынка. Криптовалюты упорядочены по рангу, как в CoinMarketCap API.
+     *
+     * @param start Номер первой криптовалюты, начиная с 1.
+     * @param limit Количество криптовалют на странице.
+     * @param now   Текущее время в миллисекундах UTC.
+     * @return Тело ответа в UTF-8.
+     */
+    public synchronized byte[] listings(int start, int limit, long now) {
+        advance(now);
+        int from = Math.max(start - 1, 0);
+        int to = Math.min(coins, from + limit);
+
+        StringBuilder out = new StringBuilder(64 + (to - from) * 640);
+        out.append("{\"status\":{\"timestamp\":\"").append(Instant.ofEpochMilli(now))
+                .append("\",\"error_code\":0,\"error_message\":null,\"elapsed\":10,\"credit_count\":")
+                .append(Math.max(1, (to - from + 199) / 200))
+                .append(",\"notice\":null,\"total_count\":").append(coins).append("},\"data\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.append(',');
+            }
+            String updated = Instant.ofEpochMilli(lastUpdated[i]).toString();
+            out.append("{\"id\":").append(i + 1)
+                    .append(",\"name\":\"Synthetic Coin ").append(i + 1)
+                    .append("\",\"symbol\":\"SYN").append(i + 1)
+                    .append("\",\"slug\":\"synthetic-coin-").append(i + 1)
+                    .append("\",\"num_market_pairs\":").append(1 + i % 500)
+                    .append(",\"date_added\":\"2020-01-01T00:00:00.000Z\",\"tags\":[\"synthetic\"]")
+                    .append(",\"max_supply\":null,\"circulating_supply\":").append(1e9 / (i + 1))
+                    .append(",\"total_supply\":").append(1e9 / (i + 1))
+                    .append(",\"platform\":null,\"cmc_rank\":").append(i + 1)
+                    .append(",\"last_updated\":\"").append(updated)
+                    .append("\",\"quote\":{\"USD\":{\"price\":").append(prices[i])
+                    .append(",\"volume_24h\":").append(volumes[i])
+                    .append(",\"percent_change_1h\":").append(percentChange(i) / 24)
+                    .append(",\"percent_change_24h\":").append(percentChange(i))
+                    .append(",\"percent_change_7d\":").append(percentChange(i) * 3)
+                    .append(",\"market_cap\":").append(prices[i] * 1e9 / (i + 1))
+                    .append(",\"last_updated\":\"").append(updated).append("\"}}}");
+        }
+        return out.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Выполняет шаги рынка, наступившие к указанному времени. Если рынок отстал больше чем на один шаг,
+     * пропущенные шаги объединяются в один, чтобы редкие запросы не требовали пересчета всей истории.
+     */
+    private void advance(long now) {
+        if (now < nextUpdate) {
+            return;
+        }
+        long step = nextUpdate + (now - nextUpdate) / updateIntervalMillis * updateIntervalMillis;
+        for (int i = 0; i < coins; i++) {
+            if (random.nextDouble() < updateProbability) {
+                prices[i] *= Math.exp(volatility * random.nextGaussian());
+                volumes[i] *= Math.exp(volatility * random.nextGaussian());
+                lastUpdated[i] = step;
+            }
+        }
+        nextUpdate = step + updateIntervalMillis;
+    }
+
+    private double percentChange(int coin) {
+        return (prices[coin] / openPrices[coin] - 1) * 100;
+    }
+}
@@ -1,18 +1,56 @@
 package com.cryptodatacollector;
 
 import com.cryptodatacollector.analysis.CryptoDataAnalyzer;
-
+import com.cryptodatacollector.analysis.QueryCache;
+import com.cryptodatacollector.analysis.RollingWindowAnalytics;
+import com.cryptodatacollector.api.CoinMarketCapApiClient;
+import com.cryptodatacollector.api.QuoteSource;
+import com.cryptodatacollector.api.QuoteSourceType;
+import com.cryptodatacollector.api.WebSocketQuoteSource;
+import com.cryptodatacollector.backfill.BackfillResult;
+import com.cryptodatacollector.backfill.BackfillRunner;
+import com.cryptodatacollector.backfill.BackfillSettings;
+import com.cryptodatacollector.cluster.ClusterCoordinator;
+import com.cryptodatacollector.cluster.ClusterSettings;
+import com.cryptodatacollector.cluster.ElasticsearchMembershipStore;
+import com.cryptodatacollector.columnar.ColumnarQuoteStore;
+import com.cryptodatacollector.columnar.ColumnarStoreSettings;
+import com.cryptodatacollector.elastic.CryptoDataIndexer;
+import com.cryptodatacollector.export.ExportSettings;
+import com.cryptodatacollector.export.QuoteExporter;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.metrics.MetricsServer;
+import com.cryptodatacollector.pipeline.CollectionPipeline;
+import com.cryptodatacollector.rollup.CandleRollup;
+import com.cryptodatacollector.scheduler.CollectionTier;
 import com.cryptodatacollector.scheduler.DataCollectionScheduler;
 import com.cryptodatacollector.service.CryptoDataService;
+import com.cryptodatacollector.util.EnvConfig;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.quartz.SchedulerException;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Главный класс приложения, который инициализирует сервисы для сбора, анализа и индексации данных о криптовалютах.
  * Он также запускает планировщик задач для периодического выполнения этих операций.
+ * При запуске с аргументами {@code backfill <каталог>...} приложение вместо сбора данных загружает
+ * архивы ответов API из указанных каталогов и завершает работу, а с аргументами {@code export <файл>} выгружает
+ * котировки из Elasticsearch в файл NDJSON или CSV.
+ * Источник котировок выбирается параметром QUOTE_SOURCE: POLLING периодически загружает весь список
+ * из CoinMarketCap API, STREAMING получает обновления через WebSocket и индексирует их каждые
+ * STREAM_FLUSH_INTERVAL_MILLIS миллисекунд.
+ * При CLUSTER_ENABLED=true несколько экземпляров в режиме POLLING делят рейтинг криптовалют между собой
+ * через отметки о работе в Elasticsearch.
+ * Результаты аналитических запросов кэшируются в QueryCache до индексации новых котировок.
+ * При COLUMNAR_STORE_ENABLED=true котировки дополнительно записываются в локальное колоночное хранилище.
  *
  * @author debugByPrintln
  * @version 1.0
@@ -21,10 +59,12 @@ public class Main {
     /**
      * Точка входа в приложение.
      *
-     * @param args Аргументы командной строки (не используются).
+     * @param args Аргументы командной строки: пусто для сбора данных, backfill и каталоги с архивами
+     *             или export и файл выгрузки.
      * @throws SchedulerException Если произошла ошибка при запуске планировщика задач.
+     * @throws IOException        Если произошла ошибка при загрузке архивов или выгрузке котировок.
      */
-    public static void main(String[] args) throws SchedulerException {
+    public static void main(String[] args) throws SchedulerException, IOException {
         String elasticsearchHost = System.getenv("ELASTICSEARCH_HOST");
         if (elasticsearchHost == null) {
             elasticsearchHost = "http://localhost:9200";
@@ -34,12 +74,116 @@ public class Main {
                 RestClient.builder(HttpHost.create(elasticsearchHost))
         );
 
-        CryptoDataService cryptoDataService = new CryptoDataService(client);
-        CryptoDataAnalyzer cryptoDataAnalyzer = new CryptoDataAnalyzer(client);
+        if (args.length > 0 && args[0].equals("backfill")) {
+            backfill(client, Arrays.stream(args).skip(1).map(Path::of).collect(Collectors.toList()));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            export(client, args);
+            return;
+        }
+
+        RollingWindowAnalytics rollingWindowAnalytics = new RollingWindowAnalytics();
+        QuoteSourceType quoteSourceType = QuoteSourceType.valueOf(EnvConfig.getString("QUOTE_SOURCE", "POLLING"));
+        ClusterCoordinator clusterCoordinator = null;
+        if (EnvConfig.getBoolean("CLUSTER_ENABLED", false) && quoteSourceType == QuoteSourceType.POLLING) {
+            clusterCoordinator = new ClusterCoordinator(new ElasticsearchMembershipStore(client), ClusterSettings.fromEnv())
+                    .start();
+            // Отметка остановленного экземпляра удаляется сразу, не дожидаясь истечения CLUSTER_MEMBER_TTL_MILLIS
+            Runtime.getRuntime().addShutdownHook(new Thread(clusterCoordinator::close));
+        }
+        QuoteSource quoteSource = quoteSourceType == QuoteSourceType.STREAMING
+                ? new WebSocketQuoteSource().start()
+                : new CoinMarketCapApiClient(clusterCoordinator);
+        CryptoDataService cryptoDataService = new CryptoDataService(client, rollingWindowAnalytics, quoteSource);
+        // При остановке буфер документов сбрасывается на диск, а его каталог освобождается
+        Runtime.getRuntime().addShutdownHook(new Thread(cryptoDataService::close));
+        QueryCache queryCache = null;
+        if (EnvConfig.getBoolean("QUERY_CACHE_ENABLED", true)) {
+            queryCache = QueryCache.fromEnv();
+            cryptoDataService.addCommitListener(queryCache::invalidate);
+        }
+        ColumnarQuoteStore columnarStore = null;
+        if (EnvConfig.getBoolean("COLUMNAR_STORE_ENABLED", false)) {
+            columnarStore = new ColumnarQuoteStore(ColumnarStoreSettings.fromEnv());
+            cryptoDataService.addSink(columnarStore);
+            Runtime.getRuntime().addShutdownHook(new Thread(columnarStore::close));
+        }
+        CryptoDataAnalyzer cryptoDataAnalyzer = new CryptoDataAnalyzer(client, rollingWindowAnalytics, queryCache,
+                columnarStore);
 
-        DataCollectionScheduler scheduler = new DataCollectionScheduler(cryptoDataService, cryptoDataAnalyzer);
+        CollectionPipeline collectionPipeline = new CollectionPipeline(cryptoDataService, cryptoDataAnalyzer);
 
-        // Сбор данных производится каждые 30 секунд. При необходимости, значение можно изменить в .env файле
-        scheduler.startScheduler(Integer.parseInt(Dotenv.load().get("DATA_GATHER_INTERVAL_IN_SECONDS")));
+        CandleRollup candleRollup = new CandleRollup(client);
+
+        if (EnvConfig.getBoolean("METRICS_ENABLED", true)) {
+            try {
+                MetricsServer metricsServer = new MetricsServer(EnvConfig.getString("METRICS_BIND_ADDRESS", "0.0.0.0"),
+                        EnvConfig.getInt("METRICS_PORT", 8080), Metrics.registry());
+                System.out.println("-->     Metrics are available at http://localhost:" + metricsServer.getPort() + "/metrics");
+            }
+            catch (IOException e) {
+                // Сбор данных не зависит от показателей, поэтому приложение продолжает работу без них
+                System.out.println("-->     Failed to start metrics server: " + e.getMessage());
+            }
+        }
+
+        DataCollectionScheduler scheduler = new DataCollectionScheduler(collectionPipeline, candleRollup, clusterCoordinator);
+
+        if (quoteSourceType == QuoteSourceType.STREAMING) {
+            // Полученные из потока котировки индексируются небольшими пакетами несколько раз в секунду
+            scheduler.startScheduler(EnvConfig.getLong("STREAM_FLUSH_INTERVAL_MILLIS", 500));
+        }
+        else {
+            // Сбор данных производится каждые 30 секунд. При необходимости, значение можно изменить в .env файле,
+            // а для отдельных частей рынка задать свои интервалы параметром COLLECTION_TIERS
+            long intervalMillis = Integer.parseInt(Dotenv.load().get("DATA_GATHER_INTERVAL_IN_SECONDS")) * 1000L;
+            scheduler.startScheduler(CollectionTier.fromEnv(intervalMillis));
+        }
+    }
+
+    /**
+     * Загружает архивы ответов API и завершает работу приложения.
+     *
+     * @param client      Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param directories Каталоги с архивами.
+     * @throws IOException Если произошла ошибка при загрузке архивов.
+     */
+    private static void backfill(RestHighLevelClient client, List<Path> directories) throws IOException {
+        if (directories.isEmpty()) {
+            System.out.println("Usage: backfill <directory>...");
+            System.exit(2);
+        }
+        int retentionPeriods = EnvConfig.getInt("INDEX_RETENTION_PERIODS", 30);
+        if (retentionPeriods > 0) {
+            System.out.println("-->     Warning: the collector drops indices older than " + retentionPeriods
+                    + " periods (INDEX_RETENTION_PERIODS), archives of older periods will be removed by it");
+        }
+        BackfillResult result;
+        // Локальный буфер не нужен: архивы с неудачно проиндексированными документами загружаются повторно,
+        // а каталог буфера может быть занят работающим сбором данных. Устаревшие индексы не удаляются,
+        // иначе индексы загруженных архивов прошедших периодов удалялись бы сразу после загрузки
+        try (client; CryptoDataIndexer indexer = new CryptoDataIndexer(client, false, 0)) {
+            result = new BackfillRunner(indexer, BackfillSettings.fromEnv()).run(directories);
+        }
+        System.exit(result.isSuccessful() ? 0 : 1);
+    }
+
+    /**
+     * Выгружает котировки в файл и завершает работу приложения.
+     *
+     * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param args   Аргументы командной строки: export и файл выгрузки.
+     * @throws IOException Если произошла ошибка при выгрузке котировок.
+     */
+    private static void export(RestHighLevelClient client, String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: export <file>[.gz]");
+            System.exit(2);
+        }
+        try (client) {
+            new QuoteExporter(client, ExportSettings.fromEnv()).run(Path.of(args[1]));
+        }
+        System.exit(0);
     }
-}
\ No newline at end of file
+}
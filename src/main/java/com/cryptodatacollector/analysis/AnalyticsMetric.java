@@ -0,0 +1,30 @@
+package com.cryptodatacollector.analysis;
+
+/**
+ * Перечисление AnalyticsMetric задает показатели, которые CryptoDataAnalyzer может рассчитать для каждой
+ * криптовалюты в рамках одного пакетного запроса.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum AnalyticsMetric {
+    AVG_PRICE("price"),
+    MIN_PRICE("price"),
+    MAX_PRICE("price"),
+    AVG_VOLUME("volume24h");
+
+    private final String field;
+
+    AnalyticsMetric(String field) {
+        this.field = field;
+    }
+
+    /**
+     * Возвращает поле документа, по которому рассчитывается показатель.
+     *
+     * @return Имя поля.
+     */
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,20 @@
+package com.cryptodatacollector.analysis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Класс AnalyticsReport содержит результат пакетного аналитического запроса:
+ * показатели по каждой запрошенной криптовалюте и лидеров роста и падения цены.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class AnalyticsReport {
+    private Map<String, SymbolAnalytics> symbols;
+    private MarketMovers movers;
+}
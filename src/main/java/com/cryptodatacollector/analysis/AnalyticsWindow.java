@@ -0,0 +1,31 @@
+package com.cryptodatacollector.analysis;
+
+import java.time.Duration;
+
+/**
+ * Перечисление AnalyticsWindow задает скользящие окна, по которым RollingWindowAnalytics считает статистику котировок.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum AnalyticsWindow {
+    ONE_MINUTE(Duration.ofMinutes(1)),
+    FIVE_MINUTES(Duration.ofMinutes(5)),
+    ONE_HOUR(Duration.ofHours(1)),
+    ONE_DAY(Duration.ofDays(1));
+
+    private final Duration length;
+
+    AnalyticsWindow(Duration length) {
+        this.length = length;
+    }
+
+    /**
+     * Возвращает длину окна.
+     *
+     * @return Длина окна.
+     */
+    public Duration getLength() {
+        return length;
+    }
+}
@@ -1,30 +1,85 @@
 package com.cryptodatacollector.analysis;
 
+import com.cryptodatacollector.columnar.ColumnarQuoteStore;
+import com.cryptodatacollector.elastic.AsyncRequestExecutor;
+import com.cryptodatacollector.elastic.QuoteDocumentCodec;
 import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.rollup.Candle;
+import com.cryptodatacollector.rollup.CandleResolution;
+import com.cryptodatacollector.rollup.RangePlanner;
+import com.cryptodatacollector.rollup.RangeSegment;
+import com.cryptodatacollector.rollup.RollupCheckpointStore;
+import com.cryptodatacollector.util.EnvConfig;
+import com.cryptodatacollector.util.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.Avg;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.metrics.TopHits;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 /**
  * Класс CryptoDataAnalyzer предоставляет методы для анализа данных о криптовалютах, хранящихся в Elasticsearch.
- * Он позволяет вычислять среднюю цену криптовалюты за последний час и определять криптовалюту с максимальным процентным изменением цены за последний день.
+ * Он позволяет вычислять среднюю цену криптовалюты за последний час, определять криптовалюту с максимальным процентным изменением цены за последний день
+ * и получать списки криптовалют с наибольшим ростом и падением цены. Запросы за длинные периоды читают свечи OHLCV,
+ * построенные CandleRollup, вместо исходных котировок. Если задан QueryCache, результаты запросов к Elasticsearch
+ * кэшируются до индексации новых котировок соответствующих криптовалют. Если задано колоночное хранилище
+ * ColumnarQuoteStore, средняя цена за диапазон, который оно содержит целиком, вычисляется по нему.
+ * Для каждого запроса есть асинхронный вариант с суффиксом Async, который не занимает поток на время запроса
+ * к Elasticsearch, поэтому независимые запросы можно выполнять одновременно и объединять их результаты через
+ * CompletableFuture. Синхронные методы ожидают результат асинхронных.
  *
  * @author debugByPrintln
  * @version 1.0
  */
 public class CryptoDataAnalyzer {
+    private static final int MAX_CANDLES = 10000;
+
     private final RestHighLevelClient client;
+    private final AsyncRequestExecutor asyncExecutor;
+    private final String indexName;
+    private final RollingWindowAnalytics rollingWindowAnalytics;
+    private final int moversMaxSymbols;
+    private final RollupCheckpointStore rollupCheckpoints;
+    private final QueryCache queryCache;
+    private final ColumnarQuoteStore columnarStore;
+    private final Gson gson;
 
     /**
      * Конструктор класса CryptoDataAnalyzer.
@@ -32,7 +87,53 @@ public class CryptoDataAnalyzer {
      * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
      */
     public CryptoDataAnalyzer(RestHighLevelClient client) {
+        this(client, null);
+    }
+
+    /**
+     * Конструктор класса CryptoDataAnalyzer, который отвечает на запросы о недавних котировках из памяти.
+     *
+     * @param client                 Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param rollingWindowAnalytics Статистика котировок в памяти или null, если все запросы выполняются в Elasticsearch.
+     */
+    public CryptoDataAnalyzer(RestHighLevelClient client, RollingWindowAnalytics rollingWindowAnalytics) {
+        this(client, rollingWindowAnalytics, null);
+    }
+
+    /**
+     * Конструктор класса CryptoDataAnalyzer, который кэширует результаты запросов к Elasticsearch.
+     *
+     * @param client                 Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param rollingWindowAnalytics Статистика котировок в памяти или null, если все запросы выполняются в Elasticsearch.
+     * @param queryCache             Кэш результатов запросов или null, если каждый запрос выполняется в Elasticsearch.
+     */
+    public CryptoDataAnalyzer(RestHighLevelClient client, RollingWindowAnalytics rollingWindowAnalytics,
+                              QueryCache queryCache) {
+        this(client, rollingWindowAnalytics, queryCache, null);
+    }
+
+    /**
+     * Конструктор класса CryptoDataAnalyzer, который вычисляет среднюю цену за диапазон по локальному
+     * колоночному хранилищу, если оно содержит весь диапазон.
+     *
+     * @param client                 Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param rollingWindowAnalytics Статистика котировок в памяти или null, если все запросы выполняются в Elasticsearch.
+     * @param queryCache             Кэш результатов запросов или null, если каждый запрос выполняется в Elasticsearch.
+     * @param columnarStore          Колоночное хранилище котировок или null.
+     */
+    public CryptoDataAnalyzer(RestHighLevelClient client, RollingWindowAnalytics rollingWindowAnalytics,
+                              QueryCache queryCache, ColumnarQuoteStore columnarStore) {
         this.client = client;
+        this.asyncExecutor = AsyncRequestExecutor.of(client);
+        this.queryCache = queryCache;
+        this.columnarStore = columnarStore;
+        this.indexName = EnvConfig.getString("ELASTIC_READ_ALIAS", "crypto_data");
+        this.rollingWindowAnalytics = rollingWindowAnalytics;
+        this.moversMaxSymbols = EnvConfig.getInt("MOVERS_MAX_SYMBOLS", 10000);
+        this.rollupCheckpoints = new RollupCheckpointStore(client);
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
     }
 
     /**
@@ -42,49 +143,464 @@ public class CryptoDataAnalyzer {
      * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
      */
     public CryptoCurrency getMaxPercentChangeCrypto() throws IOException {
-        SearchRequest searchRequest = new SearchRequest("crypto_data");
+        return AsyncRequestExecutor.await(getMaxPercentChangeCryptoAsync());
+    }
+
+    /**
+     * Асинхронно возвращает криптовалюту с максимальным процентным изменением цены за последний день.
+     *
+     * @return Объект CryptoCurrency или null, если данные отсутствуют.
+     */
+    public CompletableFuture<CryptoCurrency> getMaxPercentChangeCryptoAsync() {
+        return getMoversAsync(AnalyticsWindow.ONE_DAY.getLength(), 1)
+                .thenApply(movers -> movers.getGainers().isEmpty() ? null : movers.getGainers().get(0));
+    }
+
+    /**
+     * Возвращает криптовалюты с наибольшим ростом и наибольшим падением цены за 24 часа.
+     * Учитывается только последняя котировка каждой криптовалюты, полученная в пределах окна.
+     * Последние котировки выбираются агрегацией terms + top_hits на стороне Elasticsearch и читаются
+     * из doc values, без загрузки и разбора _source.
+     *
+     * @param window Окно, в котором ищутся котировки.
+     * @param size   Количество криптовалют в каждом списке.
+     * @return Объект MarketMovers.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    public MarketMovers getMovers(Duration window, int size) throws IOException {
+        return AsyncRequestExecutor.await(getMoversAsync(window, size));
+    }
+
+    /**
+     * Асинхронно возвращает криптовалюты с наибольшим ростом и наибольшим падением цены.
+     *
+     * @param window Окно, в котором ищутся котировки.
+     * @param size   Количество криптовалют в каждом списке.
+     * @return Объект MarketMovers.
+     */
+    public CompletableFuture<MarketMovers> getMoversAsync(Duration window, int size) {
+        return cached(QueryKey.of("movers", window, size), null,
+                () -> search(moversRequest(window)).thenApply(searchResponse -> parseMovers(searchResponse, size)));
+    }
+
+    /**
+     * Рассчитывает показатели сразу для списка криптовалют и находит лидеров роста и падения цены.
+     * Все расчеты отправляются в Elasticsearch одним запросом _msearch: показатели по криптовалютам
+     * считаются одной агрегацией terms по символам, поэтому стоимость отчета не зависит от количества символов.
+     * Лидеры роста и падения выбираются по последним котировкам за сутки.
+     *
+     * @param symbols     Символы криптовалют.
+     * @param metrics     Показатели, которые нужно рассчитать.
+     * @param window      Окно, за которое рассчитываются показатели.
+     * @param moversSize  Количество криптовалют в списках лидеров роста и падения.
+     * @return Объект AnalyticsReport.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    public AnalyticsReport getAnalytics(Collection<String> symbols, Set<AnalyticsMetric> metrics, Duration window,
+                                        int moversSize) throws IOException {
+        return AsyncRequestExecutor.await(getAnalyticsAsync(symbols, metrics, window, moversSize));
+    }
+
+    /**
+     * Асинхронно рассчитывает показатели для списка криптовалют и находит лидеров роста и падения цены.
+     *
+     * @param symbols    Символы криптовалют.
+     * @param metrics    Показатели, которые нужно рассчитать.
+     * @param window     Окно, за которое рассчитываются показатели.
+     * @param moversSize Количество криптовалют в списках лидеров роста и падения.
+     * @return Объект AnalyticsReport.
+     */
+    public CompletableFuture<AnalyticsReport> getAnalyticsAsync(Collection<String> symbols, Set<AnalyticsMetric> metrics,
+                                                                Duration window, int moversSize) {
+        // Отчет включает лидеров роста и падения по всему рынку, поэтому зависит от котировок всех криптовалют
+        return cached(QueryKey.of("analytics", Set.copyOf(symbols), Set.copyOf(metrics), window, moversSize), null,
+                () -> loadAnalytics(symbols, metrics, window, moversSize));
+    }
+
+    private CompletableFuture<AnalyticsReport> loadAnalytics(Collection<String> symbols, Set<AnalyticsMetric> metrics,
+                                                             Duration window, int moversSize) {
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        boolean hasSymbols = !symbols.isEmpty();
+        if (hasSymbols) {
+            multiSearchRequest.add(symbolsRequest(symbols, metrics, window));
+        }
+        multiSearchRequest.add(moversRequest(AnalyticsWindow.ONE_DAY.getLength()));
+
+        return multiSearch(multiSearchRequest, "Analytics search failed: ").thenApply(responses -> {
+            Map<String, SymbolAnalytics> symbolAnalytics = hasSymbols
+                    ? parseSymbols(responses[0].getResponse(), metrics)
+                    : Collections.emptyMap();
+            MarketMovers movers = parseMovers(responses[responses.length - 1].getResponse(), moversSize);
+            return new AnalyticsReport(symbolAnalytics, movers);
+        });
+    }
+
+    /**
+     * Возвращает символы криптовалют, котировки которых учтены статистикой в памяти.
+     *
+     * @return Множество символов или пустое множество, если статистика в памяти не используется.
+     */
+    public Set<String> getTrackedSymbols() {
+        return rollingWindowAnalytics != null ? rollingWindowAnalytics.getSymbols() : Collections.emptySet();
+    }
+
+    private SearchRequest symbolsRequest(Collection<String> symbols, Set<AnalyticsMetric> metrics, Duration window) {
+        TermsAggregationBuilder bySymbol = AggregationBuilders.terms("symbols")
+                .field("symbol")
+                .size(symbols.size());
+        for (AnalyticsMetric metric : metrics) {
+            bySymbol.subAggregation(metricAggregation(metric));
+        }
+
         SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-        sourceBuilder.query(QueryBuilders.matchAllQuery());
-        sourceBuilder.sort("percentChange24h", SortOrder.DESC);
-        sourceBuilder.size(1);
+        sourceBuilder.query(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termsQuery("symbol", symbols))
+                .filter(QueryBuilders.rangeQuery("lastUpdated")
+                        .gte(System.currentTimeMillis() - window.toMillis())
+                        .format("epoch_millis")));
+        sourceBuilder.aggregation(bySymbol);
+        sourceBuilder.size(0);
+        return new SearchRequest(indexName).source(sourceBuilder);
+    }
 
-        searchRequest.source(sourceBuilder);
+    private static ValuesSourceAggregationBuilder<?> metricAggregation(AnalyticsMetric metric) {
+        String name = metric.name();
+        switch (metric) {
+            case MIN_PRICE:
+                return AggregationBuilders.min(name).field(metric.getField());
+            case MAX_PRICE:
+                return AggregationBuilders.max(name).field(metric.getField());
+            default:
+                return AggregationBuilders.avg(name).field(metric.getField());
+        }
+    }
 
-        SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
-        if (searchResponse.getHits().getTotalHits().value > 0) {
-            Map<String, Object> sourceAsMap = searchResponse.getHits().getAt(0).getSourceAsMap();
-            String id = (String) sourceAsMap.get("id");
-            String name = (String) sourceAsMap.get("name");
-            String symbol = (String) sourceAsMap.get("symbol");
-            BigDecimal price = new BigDecimal(sourceAsMap.get("price").toString());
-            BigDecimal volume24h = new BigDecimal(sourceAsMap.get("volume24h").toString());
-            BigDecimal percentChange24h = new BigDecimal(sourceAsMap.get("percentChange24h").toString());
-            LocalDateTime timestamp = LocalDateTime.parse(sourceAsMap.get("timestamp").toString());
-
-            return new CryptoCurrency(id, name, symbol, price, volume24h, percentChange24h, timestamp);
+    private static Map<String, SymbolAnalytics> parseSymbols(SearchResponse searchResponse, Set<AnalyticsMetric> metrics) {
+        Terms bySymbol = searchResponse.getAggregations().get("symbols");
+        Map<String, SymbolAnalytics> result = new HashMap<>();
+        for (Terms.Bucket bucket : bySymbol.getBuckets()) {
+            Map<AnalyticsMetric, Double> values = new EnumMap<>(AnalyticsMetric.class);
+            for (AnalyticsMetric metric : metrics) {
+                NumericMetricsAggregation.SingleValue value = bucket.getAggregations().get(metric.name());
+                values.put(metric, value.value());
+            }
+            String symbol = bucket.getKeyAsString();
+            result.put(symbol, new SymbolAnalytics(symbol, bucket.getDocCount(), values));
         }
-        else {
-            return null;
+        return result;
+    }
+
+    private SearchRequest moversRequest(Duration window) {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
+        sourceBuilder.query(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.rangeQuery("lastUpdated")
+                        .gte(System.currentTimeMillis() - window.toMillis())
+                        .format("epoch_millis")));
+        // Символы CoinMarketCap не уникальны, поэтому котировки группируются по идентификатору криптовалюты,
+        // а символ читается из последней котировки
+        sourceBuilder.aggregation(AggregationBuilders.terms("coins")
+                .field("id")
+                .size(moversMaxSymbols)
+                .subAggregation(AggregationBuilders.topHits("latest")
+                        .size(1)
+                        .sort("lastUpdated", SortOrder.DESC)
+                        .fetchSource(false)
+                        .docValueField("id")
+                        .docValueField("name")
+                        .docValueField("symbol")
+                        .docValueField("price")
+                        .docValueField("volume24h")
+                        .docValueField("percentChange24h")
+                        .docValueField("timestamp", "epoch_millis")
+                        .docValueField("lastUpdated", "epoch_millis")));
+        sourceBuilder.size(0);
+        return new SearchRequest(indexName).source(sourceBuilder);
+    }
+
+    private static MarketMovers parseMovers(SearchResponse searchResponse, int size) {
+        Terms coins = searchResponse.getAggregations().get("coins");
+
+        List<Quote> latest = new ArrayList<>(coins.getBuckets().size());
+        for (Terms.Bucket bucket : coins.getBuckets()) {
+            TopHits top = bucket.getAggregations().get("latest");
+            if (top.getHits().getHits().length > 0) {
+                Quote quote = QuoteDocumentCodec.fromDocValues(top.getHits().getAt(0).getFields());
+                if (!FixedDecimal.isNull(quote.getPercentChange24h())) {
+                    latest.add(quote);
+                }
+            }
         }
+
+        // Сортируются компактные котировки, а CryptoCurrency создаются только для попавших в результат
+        Comparator<Quote> byChange = Comparator.comparingDouble(quote -> FixedDecimal.toDouble(quote.getPercentChange24h()));
+        List<CryptoCurrency> gainers = latest.stream()
+                .sorted(byChange.reversed())
+                .limit(size)
+                .map(Quote::toCryptoCurrency)
+                .collect(Collectors.toList());
+        List<CryptoCurrency> losers = latest.stream()
+                .sorted(byChange)
+                .limit(size)
+                .map(Quote::toCryptoCurrency)
+                .collect(Collectors.toList());
+        return new MarketMovers(gainers, losers);
     }
 
     /**
      * Вычисляет среднюю цену криптовалюты за последний час.
+     * Если статистика в памяти покрывает весь последний час, запрос к Elasticsearch не выполняется.
      *
      * @param symbol Символ криптовалюты, для которой нужно вычислить среднюю цену.
      * @return Средняя цена криптовалюты за последний час.
      * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
      */
     public double getAveragePriceLastHour(String symbol) throws IOException {
-        SearchRequest searchRequest = new SearchRequest("crypto_data");
+        return AsyncRequestExecutor.await(getAveragePriceLastHourAsync(symbol));
+    }
+
+    /**
+     * Асинхронно вычисляет среднюю цену криптовалюты за последний час.
+     *
+     * @param symbol Символ криптовалюты, для которой нужно вычислить среднюю цену.
+     * @return Средняя цена криптовалюты за последний час.
+     */
+    public CompletableFuture<Double> getAveragePriceLastHourAsync(String symbol) {
+        WindowStats stats = getWindowStats(symbol, AnalyticsWindow.ONE_HOUR);
+        if (stats != null) {
+            return CompletableFuture.completedFuture(stats.getAverage());
+        }
+        long now = System.currentTimeMillis();
+        long hourAgo = now - AnalyticsWindow.ONE_HOUR.getLength().toMillis();
+        if (columnarStore != null && columnarStore.covers(hourAgo)) {
+            return columnarAverage(symbol, hourAgo, now + 1);
+        }
+        return cached(QueryKey.of("averagePriceLastHour", symbol), List.of(symbol),
+                () -> loadAveragePriceLastHour(symbol, System.currentTimeMillis()));
+    }
+
+    private CompletableFuture<Double> loadAveragePriceLastHour(String symbol, long now) {
+        SearchRequest searchRequest = new SearchRequest(indexName);
         SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-        sourceBuilder.query(QueryBuilders.matchQuery("symbol", symbol));
+        sourceBuilder.query(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termQuery("symbol", symbol))
+                .filter(QueryBuilders.rangeQuery("lastUpdated")
+                        .gte(now - AnalyticsWindow.ONE_HOUR.getLength().toMillis())
+                        .format("epoch_millis")));
         sourceBuilder.aggregation(AggregationBuilders.avg("avg_price").field("price"));
         sourceBuilder.size(0);
         searchRequest.source(sourceBuilder);
 
-        SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
-        Avg avg = searchResponse.getAggregations().get("avg_price");
-        return avg.getValue();
+        return search(searchRequest).thenApply(searchResponse -> {
+            Avg avg = searchResponse.getAggregations().get("avg_price");
+            return avg.getValue();
+        });
+    }
+
+    /**
+     * Вычисляет среднюю цену криптовалюты за произвольный диапазон времени.
+     * Диапазон разбивается на части, каждая из которых читается из самого крупного построенного разрешения свечей,
+     * а из исходных котировок читаются только края диапазона и еще не свернутые данные. Все части отправляются
+     * одним запросом _msearch, а средняя цена вычисляется точно по сумме цен и количеству котировок.
+     * Если диапазон целиком содержится в колоночном хранилище, средняя цена вычисляется по нему без обращения
+     * к Elasticsearch.
+     *
+     * @param symbol Символ криптовалюты.
+     * @param from   Начало диапазона в UTC.
+     * @param to     Конец диапазона в UTC, не включительно.
+     * @return Средняя цена или NaN, если в диапазоне нет котировок.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    public double getAveragePrice(String symbol, LocalDateTime from, LocalDateTime to) throws IOException {
+        return AsyncRequestExecutor.await(getAveragePriceAsync(symbol, from, to));
+    }
+
+    /**
+     * Асинхронно вычисляет среднюю цену криптовалюты за произвольный диапазон времени.
+     *
+     * @param symbol Символ криптовалюты.
+     * @param from   Начало диапазона в UTC.
+     * @param to     Конец диапазона в UTC, не включительно.
+     * @return Средняя цена или NaN, если в диапазоне нет котировок.
+     */
+    public CompletableFuture<Double> getAveragePriceAsync(String symbol, LocalDateTime from, LocalDateTime to) {
+        long fromMillis = from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (columnarStore != null && columnarStore.covers(fromMillis)) {
+            // Локальное хранилище отвечает быстрее Elasticsearch, поэтому его результаты не кэшируются
+            return columnarAverage(symbol, fromMillis, to.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        return cached(QueryKey.of("averagePrice", symbol, from, to), List.of(symbol),
+                () -> rollupCheckpoints.loadAsync()
+                        .thenCompose(checkpoints -> loadAveragePrice(symbol, from, to, checkpoints)));
+    }
+
+    private CompletableFuture<Double> loadAveragePrice(String symbol, LocalDateTime from, LocalDateTime to,
+                                                       Map<CandleResolution, Long> checkpoints) {
+        List<RangeSegment> segments = RangePlanner.plan(
+                from.toInstant(ZoneOffset.UTC).toEpochMilli(),
+                to.toInstant(ZoneOffset.UTC).toEpochMilli(),
+                checkpoints);
+
+        Map<CandleResolution, BoolQueryBuilder> ranges = new LinkedHashMap<>();
+        BoolQueryBuilder rawRanges = null;
+        for (RangeSegment segment : segments) {
+            CandleResolution resolution = segment.getResolution();
+            RangeQueryBuilder range = QueryBuilders.rangeQuery(resolution == null ? "lastUpdated" : "start")
+                    .gte(segment.getFromMillis())
+                    .lt(segment.getToMillis())
+                    .format("epoch_millis");
+            if (resolution == null) {
+                rawRanges = rawRanges == null ? QueryBuilders.boolQuery() : rawRanges;
+                rawRanges.should(range);
+            }
+            else {
+                ranges.computeIfAbsent(resolution, r -> QueryBuilders.boolQuery()).should(range);
+            }
+        }
+
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        for (Map.Entry<CandleResolution, BoolQueryBuilder> entry : ranges.entrySet()) {
+            multiSearchRequest.add(sumRequest(entry.getKey().getIndexName(), symbol, entry.getValue(),
+                    AggregationBuilders.sum("count").field("count"),
+                    AggregationBuilders.sum("sum").field("priceSum")));
+        }
+        if (rawRanges != null) {
+            multiSearchRequest.add(sumRequest(indexName, symbol, rawRanges,
+                    AggregationBuilders.count("count").field("price"),
+                    AggregationBuilders.sum("sum").field("price")));
+        }
+        if (multiSearchRequest.requests().isEmpty()) {
+            return CompletableFuture.completedFuture(Double.NaN);
+        }
+
+        return multiSearch(multiSearchRequest, "Average price search failed: ").thenApply(responses -> {
+            double sum = 0;
+            double count = 0;
+            for (MultiSearchResponse.Item item : responses) {
+                Aggregations aggregations = item.getResponse().getAggregations();
+                count += ((NumericMetricsAggregation.SingleValue) aggregations.get("count")).value();
+                sum += ((NumericMetricsAggregation.SingleValue) aggregations.get("sum")).value();
+            }
+            return count > 0 ? sum / count : Double.NaN;
+        });
+    }
+
+    /**
+     * Возвращает свечи криптовалюты заданного разрешения за диапазон времени, например дневные свечи за год.
+     *
+     * @param symbol     Символ криптовалюты.
+     * @param resolution Разрешение свечей.
+     * @param from       Начало диапазона в UTC.
+     * @param to         Конец диапазона в UTC, не включительно.
+     * @return Свечи в порядке времени.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    public List<Candle> getCandles(String symbol, CandleResolution resolution, LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        return AsyncRequestExecutor.await(getCandlesAsync(symbol, resolution, from, to));
+    }
+
+    /**
+     * Асинхронно возвращает свечи криптовалюты заданного разрешения за диапазон времени.
+     *
+     * @param symbol     Символ криптовалюты.
+     * @param resolution Разрешение свечей.
+     * @param from       Начало диапазона в UTC.
+     * @param to         Конец диапазона в UTC, не включительно.
+     * @return Свечи в порядке времени.
+     */
+    public CompletableFuture<List<Candle>> getCandlesAsync(String symbol, CandleResolution resolution,
+                                                          LocalDateTime from, LocalDateTime to) {
+        return cached(QueryKey.of("candles", symbol, resolution, from, to), List.of(symbol),
+                () -> loadCandles(symbol, resolution, from, to));
+    }
+
+    private CompletableFuture<List<Candle>> loadCandles(String symbol, CandleResolution resolution,
+                                                       LocalDateTime from, LocalDateTime to) {
+        long fromMillis = from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long toMillis = to.toInstant(ZoneOffset.UTC).toEpochMilli();
+        int expected = (int) Math.min(MAX_CANDLES, Math.max(1, (toMillis - fromMillis) / resolution.getIntervalMillis()));
+
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                .query(QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termQuery("symbol", symbol))
+                        .filter(QueryBuilders.rangeQuery("start").gte(fromMillis).lt(toMillis).format("epoch_millis")))
+                .sort("start", SortOrder.ASC)
+                .size(expected);
+        return search(new SearchRequest(resolution.getIndexName()).source(sourceBuilder)).thenApply(searchResponse -> {
+            List<Candle> candles = new ArrayList<>(searchResponse.getHits().getHits().length);
+            for (SearchHit hit : searchResponse.getHits().getHits()) {
+                candles.add(gson.fromJson(hit.getSourceAsString(), Candle.class));
+            }
+            return Collections.unmodifiableList(candles);
+        });
+    }
+
+    private static SearchRequest sumRequest(String index, String symbol, BoolQueryBuilder ranges,
+                                            ValuesSourceAggregationBuilder<?> count,
+                                            ValuesSourceAggregationBuilder<?> sum) {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                .query(QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termQuery("symbol", symbol))
+                        .filter(ranges.minimumShouldMatch(1)))
+                .aggregation(count)
+                .aggregation(sum)
+                .size(0);
+        return new SearchRequest(index).source(sourceBuilder);
+    }
+
+    private CompletableFuture<Double> columnarAverage(String symbol, long fromMillis, long toMillis) {
+        try {
+            WindowStats stats = columnarStore.getStats(symbol, fromMillis, toMillis);
+            return CompletableFuture.completedFuture(stats != null ? stats.getAverage() : Double.NaN);
+        }
+        catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<SearchResponse> search(SearchRequest request) {
+        return asyncExecutor.execute(listener -> client.searchAsync(request, RequestOptions.DEFAULT, listener));
+    }
+
+    /**
+     * Выполняет запрос _msearch. Результат завершается IOException, если хотя бы один из запросов завершился ошибкой.
+     */
+    private CompletableFuture<MultiSearchResponse.Item[]> multiSearch(MultiSearchRequest request, String failureMessage) {
+        return asyncExecutor.<MultiSearchResponse>execute(
+                        listener -> client.msearchAsync(request, RequestOptions.DEFAULT, listener))
+                .thenApply(response -> {
+                    for (MultiSearchResponse.Item item : response.getResponses()) {
+                        if (item.isFailure()) {
+                            throw new CompletionException(new IOException(
+                                    failureMessage + item.getFailureMessage(), item.getFailure()));
+                        }
+                    }
+                    return response.getResponses();
+                });
+    }
+
+    /**
+     * Возвращает результат запроса из кэша, если он используется, или выполняет запрос.
+     *
+     * @param key     Вид и параметры запроса.
+     * @param symbols Символы, от которых зависит результат, или null, если результат зависит от всего рынка.
+     * @param loader  Асинхронный запрос к Elasticsearch.
+     */
+    private <V> CompletableFuture<V> cached(QueryKey key, Collection<String> symbols, QueryCache.AsyncLoader<V> loader) {
+        return queryCache != null ? queryCache.getAsync(key, symbols, loader) : loader.load();
+    }
+
+    /**
+     * Возвращает статистику криптовалюты за скользящее окно из памяти.
+     *
+     * @param symbol Символ криптовалюты.
+     * @param window Окно.
+     * @return Объект WindowStats или null, если статистика в памяти не покрывает окно целиком.
+     */
+    public WindowStats getWindowStats(String symbol, AnalyticsWindow window) {
+        if (rollingWindowAnalytics == null || !rollingWindowAnalytics.covers(symbol, window)) {
+            return null;
+        }
+        return rollingWindowAnalytics.getStats(symbol, window);
     }
 }
@@ -0,0 +1,21 @@
+package com.cryptodatacollector.analysis;
+
+import com.cryptodatacollector.model.CryptoCurrency;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Класс MarketMovers содержит криптовалюты с наибольшим ростом и наибольшим падением цены за 24 часа
+ * по последней котировке каждой криптовалюты.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class MarketMovers {
+    private List<CryptoCurrency> gainers;
+    private List<CryptoCurrency> losers;
+}
@@ -0,0 +1,275 @@
+package com.cryptodatacollector.analysis;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.util.EnvConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Класс QueryCache хранит результаты аналитических запросов к Elasticsearch, чтобы повторные запросы между циклами
+ * сбора данных не нагружали кластер. Ключ результата - вид запроса и его параметры. Кэш ограничен по количеству
+ * записей (вытесняются давно не читавшиеся записи) и по времени жизни записи.
+ * Каждая запись знает символы криптовалют, от которых зависит результат: после индексации новых котировок
+ * удаляются записи этих символов и записи, зависящие от всего рынка. Новые котировки становятся видимы в поиске
+ * только после обновления индекса, поэтому результаты, вычисленные в течение QUERY_CACHE_SETTLE_MILLIS после
+ * индексации, хранятся только до конца этого интервала.
+ * Если запись отсутствует, запрос выполняет только первый обратившийся поток, остальные ждут его результата.
+ * Асинхронные запросы (getAsync) кэшируются так же, но вместо ожидания результата возвращается CompletableFuture.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QueryCache {
+    private static final Counter HITS = Metrics.counter("query_cache_requests_total",
+            "Analytics queries by cache outcome", "result", "hit");
+    private static final Counter MISSES = Metrics.counter("query_cache_requests_total",
+            "Analytics queries by cache outcome", "result", "miss");
+    private static final Counter EVICTIONS = Metrics.counter("query_cache_evictions_total",
+            "Cached analytics results evicted because the cache was full");
+    private static final Counter INVALIDATIONS = Metrics.counter("query_cache_invalidations_total",
+            "Cached analytics results removed because new quotes were indexed");
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long settleMillis;
+    private final LongSupplier clock;
+    private final Map<QueryKey, Entry> entries;
+    private long settleUntil;
+
+    /**
+     * Конструктор класса QueryCache.
+     *
+     * @param maxEntries   Максимальное количество записей.
+     * @param ttlMillis    Время жизни записи.
+     * @param settleMillis Время после индексации, в течение которого новые котировки могут быть еще не видны в поиске.
+     * @param clock        Источник текущего времени в миллисекундах.
+     */
+    public QueryCache(int maxEntries, long ttlMillis, long settleMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.settleMillis = settleMillis;
+        this.clock = clock;
+        // Порядок доступа: первой идет запись, которую дольше всего не читали
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        Metrics.gauge("query_cache_entries", "Cached analytics results", this::size);
+    }
+
+    /**
+     * Создает кэш на основе параметров из .env файла.
+     *
+     * @return Объект QueryCache.
+     */
+    public static QueryCache fromEnv() {
+        return new QueryCache(
+                EnvConfig.getInt("QUERY_CACHE_MAX_ENTRIES", 1000),
+                EnvConfig.getLong("QUERY_CACHE_TTL_MILLIS", 30000),
+                EnvConfig.getLong("QUERY_CACHE_SETTLE_MILLIS", 1000),
+                System::currentTimeMillis
+        );
+    }
+
+    /**
+     * Возвращает результат запроса из кэша или выполняет запрос и сохраняет результат.
+     * Результат разделяется между всеми вызывающими, поэтому его нельзя изменять.
+     *
+     * @param key     Вид и параметры запроса.
+     * @param symbols Символы, от которых зависит результат, или null, если результат зависит от всего рынка.
+     * @param loader  Запрос к Elasticsearch.
+     * @param <V>     Тип результата.
+     * @return Результат запроса.
+     * @throws IOException Если запрос завершился ошибкой. Ошибки не кэшируются.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(QueryKey key, Collection<String> symbols, Loader<V> loader) throws IOException {
+        Entry created = new Entry(symbols == null ? null : Set.copyOf(symbols), clock.getAsLong());
+        Entry entry = putIfAbsent(key, created);
+        if (entry != created) {
+            HITS.increment();
+            return (V) await(entry);
+        }
+        MISSES.increment();
+        try {
+            V value = loader.load();
+            complete(entry);
+            entry.value.complete(value);
+            return value;
+        }
+        catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Асинхронный вариант get: возвращает результат из кэша или выполняет асинхронный запрос и сохраняет результат.
+     * Отмена возвращенного CompletableFuture не отменяет запрос, результат которого ждут другие вызывающие.
+     *
+     * @param key     Вид и параметры запроса.
+     * @param symbols Символы, от которых зависит результат, или null, если результат зависит от всего рынка.
+     * @param loader  Асинхронный запрос к Elasticsearch.
+     * @param <V>     Тип результата.
+     * @return Результат запроса. Ошибки не кэшируются.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> CompletableFuture<V> getAsync(QueryKey key, Collection<String> symbols, AsyncLoader<V> loader) {
+        Entry created = new Entry(symbols == null ? null : Set.copyOf(symbols), clock.getAsLong());
+        Entry entry = putIfAbsent(key, created);
+        if (entry != created) {
+            HITS.increment();
+            return entry.value.thenApply(value -> (V) value);
+        }
+        MISSES.increment();
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.load();
+        }
+        catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            if (error == null) {
+                complete(entry);
+                entry.value.complete(value);
+                return;
+            }
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            entry.value.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        });
+        return entry.value.thenApply(value -> (V) value);
+    }
+
+    /**
+     * Удаляет результаты, которые могли измениться после индексации котировок указанных криптовалют.
+     *
+     * @param symbols Символы проиндексированных котировок.
+     */
+    public synchronized void invalidate(Collection<String> symbols) {
+        long now = clock.getAsLong();
+        settleUntil = now + settleMillis;
+        List<QueryKey> invalidated = new ArrayList<>();
+        for (Map.Entry<QueryKey, Entry> cached : entries.entrySet()) {
+            Set<String> dependencies = cached.getValue().symbols;
+            if (dependencies == null || symbols.stream().anyMatch(dependencies::contains)) {
+                invalidated.add(cached.getKey());
+            }
+        }
+        for (QueryKey key : invalidated) {
+            entries.remove(key);
+        }
+        INVALIDATIONS.add(invalidated.size());
+    }
+
+    /**
+     * Возвращает количество записей.
+     *
+     * @return Количество записей, включая выполняемые запросы.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Возвращает действующую запись ключа или сохраняет новую, если записи нет или ее время жизни истекло.
+     */
+    private synchronized Entry putIfAbsent(QueryKey key, Entry created) {
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(clock.getAsLong())) {
+            return entry;
+        }
+        entries.put(key, created);
+        evictOverflow();
+        return created;
+    }
+
+    /**
+     * Задает время жизни записи после выполнения запроса.
+     */
+    private synchronized void complete(Entry entry) {
+        long now = clock.getAsLong();
+        // Котировки, проиндексированные незадолго до запроса, могли еще не попасть в результат
+        entry.expiresAt = entry.startedAt < settleUntil ? Math.min(settleUntil, now + ttlMillis) : now + ttlMillis;
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxEntries) {
+            QueryKey eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            EVICTIONS.increment();
+        }
+    }
+
+    private static Object await(Entry entry) throws IOException {
+        try {
+            return entry.value.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a cached query", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Запрос, результат которого сохраняется в кэше.
+     *
+     * @param <V> Тип результата.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    /**
+     * Асинхронный запрос, результат которого сохраняется в кэше.
+     *
+     * @param <V> Тип результата.
+     */
+    @FunctionalInterface
+    public interface AsyncLoader<V> {
+        CompletableFuture<V> load();
+    }
+
+    /**
+     * Запись кэша. Пока запрос выполняется, время жизни записи не ограничено.
+     */
+    private static class Entry {
+        private final Set<String> symbols;
+        private final long startedAt;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(Set<String> symbols, long startedAt) {
+            this.symbols = symbols;
+            this.startedAt = startedAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
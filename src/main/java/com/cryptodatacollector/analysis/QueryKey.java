@@ -0,0 +1,31 @@
+package com.cryptodatacollector.analysis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Класс QueryKey - ключ результата аналитического запроса в QueryCache: вид запроса и значения его параметров.
+ * Параметры должны корректно реализовывать equals и hashCode.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class QueryKey {
+    private String shape;
+    private List<Object> parameters;
+
+    /**
+     * Создает ключ запроса.
+     *
+     * @param shape      Вид запроса, например имя метода анализатора.
+     * @param parameters Значения параметров запроса.
+     * @return Объект QueryKey.
+     */
+    public static QueryKey of(String shape, Object... parameters) {
+        return new QueryKey(shape, List.of(parameters));
+    }
+}
@@ -0,0 +1,240 @@
+package com.cryptodatacollector.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Класс RollingWindow хранит агрегаты котировок за скользящее окно в кольцевом буфере временных корзин.
+ * Окно делится на фиксированное число корзин, для каждой из которых в примитивных массивах хранятся
+ * количество котировок, суммы цены, квадрата цены, цены, умноженной на объем, объема, а также минимум и максимум.
+ * Суммы по всему окну поддерживаются инкрементально: при вытеснении корзины ее значения вычитаются,
+ * поэтому количество, среднее, VWAP и дисперсия вычисляются за O(1). Минимум и максимум окна берутся из монотонных
+ * очередей корзин, которые обновляются при добавлении котировки и вытеснении корзины, поэтому тоже читаются за O(1).
+ * Только котировка, пришедшая с опозданием в одну из прошлых корзин и изменившая ее минимум или максимум,
+ * перестраивает очередь за O(число корзин).
+ * Класс не потокобезопасен, синхронизация выполняется в RollingWindowAnalytics.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+class RollingWindow {
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long[] bucketIds;
+    private final long[] counts;
+    private final double[] priceSums;
+    private final double[] priceSquareSums;
+    private final double[] priceVolumeSums;
+    private final double[] volumeSums;
+    private final double[] mins;
+    private final double[] maxs;
+    private final Extremes minima;
+    private final Extremes maxima;
+
+    private long headBucket = Long.MIN_VALUE;
+    private long count;
+    private double priceSum;
+    private double priceSquareSum;
+    private double priceVolumeSum;
+    private double volumeSum;
+
+    /**
+     * Конструктор класса RollingWindow.
+     *
+     * @param windowMillis Длина окна в миллисекундах.
+     * @param bucketCount  Количество корзин, на которые делится окно.
+     */
+    RollingWindow(long windowMillis, int bucketCount) {
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.bucketCount = bucketCount;
+        this.bucketIds = new long[bucketCount];
+        this.counts = new long[bucketCount];
+        this.priceSums = new double[bucketCount];
+        this.priceSquareSums = new double[bucketCount];
+        this.priceVolumeSums = new double[bucketCount];
+        this.volumeSums = new double[bucketCount];
+        this.mins = new double[bucketCount];
+        this.maxs = new double[bucketCount];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+        this.minima = new Extremes(mins, true);
+        this.maxima = new Extremes(maxs, false);
+    }
+
+    /**
+     * Добавляет котировку в окно. Котировки старше окна игнорируются.
+     *
+     * @param timeMillis Время котировки в миллисекундах.
+     * @param price      Цена.
+     * @param volume     Объем торгов.
+     */
+    void add(long timeMillis, double price, double volume) {
+        long bucket = timeMillis / bucketMillis;
+        advanceTo(bucket);
+        if (bucket <= headBucket - bucketCount) {
+            return;
+        }
+
+        int slot = slot(bucket);
+        boolean created = bucketIds[slot] != bucket;
+        if (created) {
+            bucketIds[slot] = bucket;
+            mins[slot] = price;
+            maxs[slot] = price;
+        }
+        boolean minChanged = created || price < mins[slot];
+        boolean maxChanged = created || price > maxs[slot];
+        counts[slot]++;
+        priceSums[slot] += price;
+        priceSquareSums[slot] += price * price;
+        priceVolumeSums[slot] += price * volume;
+        volumeSums[slot] += volume;
+        mins[slot] = Math.min(mins[slot], price);
+        maxs[slot] = Math.max(maxs[slot], price);
+        if (minChanged) {
+            minima.update(bucket);
+        }
+        if (maxChanged) {
+            maxima.update(bucket);
+        }
+
+        count++;
+        priceSum += price;
+        priceSquareSum += price * price;
+        priceVolumeSum += price * volume;
+        volumeSum += volume;
+    }
+
+    /**
+     * Возвращает статистику окна, заканчивающегося в указанный момент.
+     *
+     * @param nowMillis Текущее время в миллисекундах.
+     * @return Объект WindowStats или null, если в окне нет котировок.
+     */
+    WindowStats stats(long nowMillis) {
+        advanceTo(nowMillis / bucketMillis);
+        if (count == 0) {
+            return null;
+        }
+
+        double min = minima.get();
+        double max = maxima.get();
+        double average = priceSum / count;
+        double variance = Math.max(0, priceSquareSum / count - average * average);
+        double vwap = volumeSum > 0 ? priceVolumeSum / volumeSum : average;
+        return new WindowStats(count, average, vwap, min, max, variance);
+    }
+
+    /**
+     * Сдвигает окно так, чтобы последней корзиной стала указанная, вытесняя устаревшие корзины.
+     */
+    private void advanceTo(long bucket) {
+        if (bucket <= headBucket) {
+            return;
+        }
+        if (headBucket != Long.MIN_VALUE) {
+            // Живые корзины лежат в диапазоне (headBucket - bucketCount, headBucket]
+            long firstExpired = headBucket - bucketCount + 1;
+            long lastExpired = Math.min(headBucket, bucket - bucketCount);
+            for (long expired = firstExpired; expired <= lastExpired; expired++) {
+                evict(slot(expired), expired);
+            }
+            minima.expire(lastExpired);
+            maxima.expire(lastExpired);
+        }
+        headBucket = bucket;
+    }
+
+    private void evict(int slot, long bucket) {
+        if (bucketIds[slot] != bucket) {
+            return;
+        }
+        count -= counts[slot];
+        priceSum -= priceSums[slot];
+        priceSquareSum -= priceSquareSums[slot];
+        priceVolumeSum -= priceVolumeSums[slot];
+        volumeSum -= volumeSums[slot];
+
+        bucketIds[slot] = Long.MIN_VALUE;
+        counts[slot] = 0;
+        priceSums[slot] = 0;
+        priceSquareSums[slot] = 0;
+        priceVolumeSums[slot] = 0;
+        volumeSums[slot] = 0;
+        if (count == 0) {
+            // Сбрасываем накопленную погрешность вычитания чисел с плавающей точкой
+            priceSum = 0;
+            priceSquareSum = 0;
+            priceVolumeSum = 0;
+            volumeSum = 0;
+        }
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketCount);
+    }
+
+    /**
+     * Монотонная очередь номеров живых корзин для минимума или максимума окна. Номера идут по возрастанию,
+     * а значения корзин строго возрастают (для минимума) или строго убывают (для максимума), поэтому первая корзина
+     * очереди содержит экстремум окна, а последняя - самая новая корзина с котировками.
+     */
+    private final class Extremes {
+        private final double[] values;
+        private final boolean minimum;
+        private final long[] buckets = new long[bucketCount];
+        private int first;
+        private int size;
+
+        Extremes(double[] values, boolean minimum) {
+            this.values = values;
+            this.minimum = minimum;
+        }
+
+        /**
+         * Учитывает новое значение корзины. Для самой новой корзины из конца очереди удаляются корзины,
+         * которые больше не могут стать экстремумом; изменение прошлой корзины перестраивает очередь.
+         */
+        void update(long bucket) {
+            if (size == 0 || bucket >= buckets[index(size - 1)]) {
+                offer(bucket);
+                return;
+            }
+            size = 0;
+            for (long live = headBucket - bucketCount + 1; live <= headBucket; live++) {
+                if (bucketIds[slot(live)] == live) {
+                    offer(live);
+                }
+            }
+        }
+
+        /**
+         * Удаляет из начала очереди вытесненные корзины.
+         */
+        void expire(long lastExpired) {
+            while (size > 0 && buckets[first] <= lastExpired) {
+                first = (first + 1) % bucketCount;
+                size--;
+            }
+        }
+
+        double get() {
+            return values[slot(buckets[first])];
+        }
+
+        private void offer(long bucket) {
+            double value = values[slot(bucket)];
+            while (size > 0) {
+                double last = values[slot(buckets[index(size - 1)])];
+                if (minimum ? last < value : last > value) {
+                    break;
+                }
+                size--;
+            }
+            buckets[index(size)] = bucket;
+            size++;
+        }
+
+        private int index(int position) {
+            return (first + position) % bucketCount;
+        }
+    }
+}
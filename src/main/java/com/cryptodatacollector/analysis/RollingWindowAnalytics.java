@@ -0,0 +1,165 @@
+package com.cryptodatacollector.analysis;
+
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.EnvConfig;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Класс RollingWindowAnalytics считает статистику котировок в памяти по мере их поступления.
+ * Для каждой криптовалюты поддерживаются скользящие окна из AnalyticsWindow (1 минута, 5 минут, 1 час, 1 сутки),
+ * поэтому запросы к недавним данным выполняются без обращения к Elasticsearch.
+ * Окно считается полным только если криптовалюта наблюдается не меньше длины окна; для более длинных
+ * периодов CryptoDataAnalyzer обращается к Elasticsearch.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class RollingWindowAnalytics {
+    private final int bucketCount;
+    private final Map<String, SymbolWindows> symbols = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор класса RollingWindowAnalytics. Количество корзин в каждом окне задается параметром ANALYTICS_WINDOW_BUCKETS.
+     */
+    public RollingWindowAnalytics() {
+        this(EnvConfig.getInt("ANALYTICS_WINDOW_BUCKETS", 20));
+    }
+
+    /**
+     * Конструктор класса RollingWindowAnalytics.
+     *
+     * @param bucketCount Количество корзин, на которые делится каждое окно. Больше корзин - точнее границы окна,
+     *                    но больше памяти на каждую криптовалюту.
+     */
+    public RollingWindowAnalytics(int bucketCount) {
+        this.bucketCount = bucketCount;
+    }
+
+    /**
+     * Учитывает котировку во всех окнах криптовалюты. Повторно полученная котировка с тем же временем обновления
+     * не учитывается, даже если между повторами пришли более новые котировки.
+     *
+     * @param cryptoCurrency Объект CryptoCurrency.
+     */
+    public void record(CryptoCurrency cryptoCurrency) {
+        if (cryptoCurrency.getPrice() == null) {
+            return;
+        }
+        long timeMillis = cryptoCurrency.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli();
+        double volume = cryptoCurrency.getVolume24h() != null ? cryptoCurrency.getVolume24h().doubleValue() : 0;
+        record(cryptoCurrency.getSymbol(), timeMillis, cryptoCurrency.getPrice().doubleValue(), volume);
+    }
+
+    /**
+     * Учитывает котировку во всех окнах криптовалюты. Повторно полученная котировка с тем же временем обновления
+     * не учитывается, даже если между повторами пришли более новые котировки.
+     *
+     * @param quote Котировка.
+     */
+    public void record(Quote quote) {
+        if (FixedDecimal.isNull(quote.getPrice())) {
+            return;
+        }
+        double volume = FixedDecimal.isNull(quote.getVolume24h()) ? 0 : FixedDecimal.toDouble(quote.getVolume24h());
+        record(quote.getSymbol(), quote.getLastUpdated(), FixedDecimal.toDouble(quote.getPrice()), volume);
+    }
+
+    /**
+     * Учитывает котировку во всех окнах криптовалюты.
+     *
+     * @param symbol     Символ криптовалюты.
+     * @param timeMillis Время котировки в миллисекундах.
+     * @param price      Цена.
+     * @param volume     Объем торгов за 24 часа.
+     */
+    public void record(String symbol, long timeMillis, double price, double volume) {
+        SymbolWindows windows = symbols.get(symbol);
+        if (windows == null) {
+            windows = symbols.computeIfAbsent(symbol, key -> new SymbolWindows(bucketCount, timeMillis));
+        }
+        windows.record(timeMillis, price, volume);
+    }
+
+    /**
+     * Возвращает статистику криптовалюты за окно, заканчивающееся в текущий момент.
+     *
+     * @param symbol Символ криптовалюты.
+     * @param window Окно.
+     * @return Объект WindowStats или null, если в окне нет котировок.
+     */
+    public WindowStats getStats(String symbol, AnalyticsWindow window) {
+        SymbolWindows windows = symbols.get(symbol);
+        return windows != null ? windows.stats(window, System.currentTimeMillis()) : null;
+    }
+
+    /**
+     * Проверяет, наблюдается ли криптовалюта достаточно долго, чтобы окно содержало все котировки за свой период.
+     *
+     * @param symbol Символ криптовалюты.
+     * @param window Окно.
+     * @return true, если статистику окна можно использовать вместо запроса к Elasticsearch.
+     */
+    public boolean covers(String symbol, AnalyticsWindow window) {
+        SymbolWindows windows = symbols.get(symbol);
+        return windows != null
+                && windows.firstSeenMillis <= System.currentTimeMillis() - window.getLength().toMillis();
+    }
+
+    /**
+     * Возвращает символы всех криптовалют, котировки которых были учтены.
+     *
+     * @return Множество символов.
+     */
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(symbols.keySet());
+    }
+
+    /**
+     * Окна одной криптовалюты. Времена последних RECENT_TIMES учтенных котировок запоминаются, чтобы повторно
+     * полученная котировка не была учтена дважды, даже если она пришла после более новой (например, из
+     * пересекающихся уровней сбора или с опоздавшей страницей).
+     */
+    private static final class SymbolWindows {
+        private static final int RECENT_TIMES = 32;
+
+        private final long firstSeenMillis;
+        private final RollingWindow[] windows;
+        private final long[] recentTimes = new long[RECENT_TIMES];
+        private int nextRecent;
+
+        SymbolWindows(int bucketCount, long firstSeenMillis) {
+            this.firstSeenMillis = firstSeenMillis;
+            AnalyticsWindow[] values = AnalyticsWindow.values();
+            this.windows = new RollingWindow[values.length];
+            for (int i = 0; i < values.length; i++) {
+                windows[i] = new RollingWindow(values[i].getLength().toMillis(), bucketCount);
+            }
+            Arrays.fill(recentTimes, Long.MIN_VALUE);
+        }
+
+        synchronized void record(long timeMillis, double price, double volume) {
+            for (long recent : recentTimes) {
+                if (recent == timeMillis) {
+                    return;
+                }
+            }
+            recentTimes[nextRecent] = timeMillis;
+            nextRecent = (nextRecent + 1) % RECENT_TIMES;
+            for (RollingWindow window : windows) {
+                window.add(timeMillis, price, volume);
+            }
+        }
+
+        synchronized WindowStats stats(AnalyticsWindow window, long nowMillis) {
+            return windows[window.ordinal()].stats(nowMillis);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cryptodatacollector.analysis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Класс SymbolAnalytics содержит показатели одной криптовалюты, рассчитанные пакетным запросом:
+ * количество котировок в окне и значения запрошенных показателей.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class SymbolAnalytics {
+    private String symbol;
+    private long count;
+    private Map<AnalyticsMetric, Double> values;
+
+    /**
+     * Возвращает значение показателя.
+     *
+     * @param metric Показатель.
+     * @return Значение показателя или NaN, если показатель не запрашивался.
+     */
+    public double get(AnalyticsMetric metric) {
+        return values.getOrDefault(metric, Double.NaN);
+    }
+}
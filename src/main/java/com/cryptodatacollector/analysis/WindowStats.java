@@ -0,0 +1,22 @@
+package com.cryptodatacollector.analysis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс WindowStats содержит статистику котировок криптовалюты за скользящее окно: количество котировок,
+ * среднюю цену, среднюю цену, взвешенную по объему торгов (VWAP), минимальную и максимальную цену и дисперсию цены.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class WindowStats {
+    private long count;
+    private double average;
+    private double vwap;
+    private double min;
+    private double max;
+    private double variance;
+}
@@ -0,0 +1,198 @@
+package com.cryptodatacollector.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Класс ApiHttpTransport выполняет HTTP запросы к внешнему API через один долгоживущий java.net.http.HttpClient.
+ * Соединения переиспользуются (keep-alive, HTTP/2), ответы запрашиваются в сжатом виде (gzip/deflate)
+ * и распаковываются при чтении. Поддерживаются таймауты на установку соединения, на ожидание ответа
+ * и на весь запрос, включая чтение тела ответа. Таймаут на весь запрос отсчитывается от отправки запроса.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ApiHttpTransport {
+    private static final ScheduledExecutorService DEADLINES = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-request-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpClient client;
+    private final Duration responseTimeout;
+    private final Duration requestTimeout;
+    private final Executor bodyExecutor;
+
+    /**
+     * Конструктор класса ApiHttpTransport.
+     *
+     * @param connectTimeout  Таймаут на установку соединения.
+     * @param responseTimeout Таймаут на получение заголовков ответа.
+     * @param requestTimeout  Таймаут на весь запрос, включая чтение тела ответа.
+     * @param bodyExecutor    Пул потоков, в котором обрабатываются тела ответов асинхронных запросов.
+     */
+    public ApiHttpTransport(Duration connectTimeout, Duration responseTimeout, Duration requestTimeout,
+                            Executor bodyExecutor) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.responseTimeout = responseTimeout;
+        this.requestTimeout = requestTimeout;
+        this.bodyExecutor = bodyExecutor;
+    }
+
+    /**
+     * Выполняет GET запрос и передает распакованное тело ответа обработчику.
+     *
+     * @param uri     URI запроса.
+     * @param headers Дополнительные заголовки запроса.
+     * @param handler Обработчик потока с телом ответа.
+     * @return Результат обработчика.
+     * @throws IOException Если произошла ошибка при выполнении запроса или истек таймаут.
+     */
+    public <T> T get(URI uri, Map<String, String> headers, ResponseBodyHandler<T> handler) throws IOException {
+        long sentAt = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = client.send(buildRequest(uri, headers),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            long remaining = Math.max(0, requestTimeout.toNanos() - (System.nanoTime() - sentAt));
+            ScheduledFuture<?> deadline = DEADLINES.schedule(() -> closeQuietly(response.body()),
+                    remaining, TimeUnit.NANOSECONDS);
+            try {
+                return handleBody(response, handler);
+            }
+            finally {
+                deadline.cancel(false);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + uri, e);
+        }
+    }
+
+    /**
+     * Асинхронно выполняет GET запрос. Тело ответа обрабатывается в пуле потоков bodyExecutor.
+     * Если запрос не завершился до истечения таймаута на весь запрос, ожидание ответа прерывается, а поток
+     * с телом ответа закрывается. CompletableFuture завершается с IOException только после того, как обработчик
+     * тела ответа завершил работу, поэтому по его завершению можно считать запрос законченным.
+     *
+     * @param uri     URI запроса.
+     * @param headers Дополнительные заголовки запроса.
+     * @param handler Обработчик потока с телом ответа.
+     * @return CompletableFuture с результатом обработчика.
+     */
+    public <T> CompletableFuture<T> getAsync(URI uri, Map<String, String> headers, ResponseBodyHandler<T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<InputStream> body = new AtomicReference<>();
+        AtomicBoolean expired = new AtomicBoolean();
+        CompletableFuture<HttpResponse<InputStream>> response = client.sendAsync(buildRequest(uri, headers),
+                HttpResponse.BodyHandlers.ofInputStream());
+        ScheduledFuture<?> deadline = DEADLINES.schedule(() -> {
+            expired.set(true);
+            // Заголовки еще не получены - обмен прерывается, тело уже читается - поток закрывается,
+            // и обработчик завершается ошибкой чтения
+            response.cancel(true);
+            closeQuietly(body.get());
+        }, requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        response.whenCompleteAsync((received, error) -> {
+            try {
+                if (error != null) {
+                    throw error;
+                }
+                body.set(received.body());
+                if (expired.get()) {
+                    closeQuietly(received.body());
+                }
+                result.complete(handleBody(received, handler));
+            }
+            catch (Throwable e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (expired.get()) {
+                    cause = new IOException("Request to " + uri + " timed out after " + requestTimeout.toMillis() + " ms",
+                            new TimeoutException());
+                }
+                result.completeExceptionally(cause);
+            }
+        }, bodyExecutor);
+        result.whenComplete((value, error) -> deadline.cancel(false));
+        return result;
+    }
+
+    private HttpRequest buildRequest(URI uri, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(responseTimeout)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+    /**
+     * Распаковывает тело ответа и передает его обработчику.
+     */
+    private static <T> T handleBody(HttpResponse<InputStream> response, ResponseBodyHandler<T> handler)
+            throws IOException {
+        try (InputStream body = decode(response.body(), response.headers().firstValue("Content-Encoding").orElse(""))) {
+            return handler.handle(body);
+        }
+    }
+
+    /**
+     * Закрывает поток с телом ответа, чтобы прервать зависшее чтение после истечения таймаута.
+     */
+    private static void closeQuietly(InputStream raw) {
+        if (raw == null) {
+            return;
+        }
+        try {
+            raw.close();
+        }
+        catch (IOException ignored) {
+            // Поток закрывается только для того, чтобы прервать чтение
+        }
+    }
+
+    private static InputStream decode(InputStream raw, String contentEncoding) throws IOException {
+        switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip":
+                return new GZIPInputStream(raw, 16 * 1024);
+            case "deflate":
+                return new InflaterInputStream(raw);
+            default:
+                return raw;
+        }
+    }
+
+    /**
+     * Обработчик потока с телом HTTP ответа.
+     *
+     * @param <T> Тип результата обработки.
+     */
+    @FunctionalInterface
+    public interface ResponseBodyHandler<T> {
+        T handle(InputStream in) throws IOException;
+    }
+}
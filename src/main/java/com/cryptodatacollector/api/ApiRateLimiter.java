@@ -0,0 +1,54 @@
+package com.cryptodatacollector.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс ApiRateLimiter ограничивает частоту обращений к CoinMarketCap API по алгоритму token bucket.
+ * В корзине помещается не более callsPerMinute разрешений, которые равномерно пополняются в течение минуты.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ApiRateLimiter {
+    private final double capacity;
+    private final double permitsPerNano;
+    private double available;
+    private long lastRefillNanos;
+
+    /**
+     * Конструктор класса ApiRateLimiter.
+     *
+     * @param callsPerMinute Допустимое количество запросов в минуту. Значение 0 отключает ограничение.
+     */
+    public ApiRateLimiter(int callsPerMinute) {
+        this.capacity = callsPerMinute;
+        this.permitsPerNano = callsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.available = callsPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Ожидает, пока не появится разрешение на выполнение запроса, и забирает его.
+     *
+     * @throws InterruptedException Если ожидание было прервано.
+     */
+    public void acquire() throws InterruptedException {
+        if (capacity <= 0) {
+            return;
+        }
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                available = Math.min(capacity, available + (now - lastRefillNanos) * permitsPerNano);
+                lastRefillNanos = now;
+                if (available >= 1) {
+                    available -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - available) / permitsPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -1,101 +1,418 @@
 package com.cryptodatacollector.api;
 
-import com.cryptodatacollector.util.LocalDateTimeAdapter;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import io.github.cdimascio.dotenv.Dotenv;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpHeaders;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
+import com.cryptodatacollector.cluster.ClusterCoordinator;
+import com.cryptodatacollector.cluster.ShardAssignment;
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.CountingInputStream;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.EnvConfig;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Класс CoinMarketCapApiClient предоставляет методы для взаимодействия с API CoinMarketCap.
  * Он позволяет получать данные о криптовалютах, такие как список последних котировок.
+ * Большой список котировок разбивается на страницы, которые загружаются параллельно
+ * с учетом ограничения на количество запросов в минуту и бюджета кредитов API.
+ * Как источник котировок QuoteSource загружает в каждом цикле сбора весь список котировок или его часть:
+ * диапазон рейтинга или список символов.
+ * При совместной работе нескольких экземпляров загружаются только диапазоны рейтинга, которые
+ * ClusterCoordinator отдал текущему экземпляру.
  *
  * @author debugByPrintln
  * @version 1.0
  */
-public class CoinMarketCapApiClient {
-    private static final String apiUrl = Dotenv.load().get("API_URL");
-    private static final String apiKey = Dotenv.load().get("API_KEY");
-    private final Gson gson;
+public class CoinMarketCapApiClient implements QuoteSource {
+    private static final String apiUrl = EnvConfig.getString("API_URL", null);
+    private static final String apiKey = EnvConfig.getString("API_KEY", null);
+    private static final String quotesApiUrl = EnvConfig.getString("QUOTES_API_URL",
+            apiUrl != null ? apiUrl.replace("listings/latest", "quotes/latest") : null);
+    private static final String CONVERT = "USD";
+    // CoinMarketCap списывает один кредит за каждые 200 котировок в ответе listings/latest
+    private static final int LISTINGS_PER_CREDIT = 200;
+    // quotes/latest стоит один кредит за каждые 100 символов
+    private static final int SYMBOLS_PER_REQUEST = 100;
+
+    private static final LatencyHistogram FETCH_LATENCY = Metrics.histogram("cmc_fetch_seconds",
+            "Time to fetch all listings pages of one collection cycle");
+    private static final LatencyHistogram REQUEST_LATENCY = Metrics.histogram("cmc_request_seconds",
+            "Time from sending a listings page request to receiving the response headers");
+    private static final LatencyHistogram PARSE_LATENCY = Metrics.histogram("cmc_parse_seconds",
+            "Time to read and parse a listings page response body");
+    private static final Counter PAGES = Metrics.counter("cmc_pages_total", "Listings pages fetched");
+    private static final Counter PAGE_FAILURES = Metrics.counter("cmc_page_failures_total",
+            "Listings pages that failed to fetch or parse");
+    private static final Counter LISTINGS = Metrics.counter("cmc_listings_total", "Listings parsed");
+    private static final Counter SKIPPED_LISTINGS = Metrics.counter("cmc_listings_skipped_total",
+            "Listings skipped because of missing or malformed fields");
+    private static final Counter CREDITS = Metrics.counter("cmc_credits_total", "API credits spent");
+    private static final Counter RESPONSE_BYTES = Metrics.counter("cmc_response_bytes_total",
+            "Decompressed bytes of listings responses");
+
+    private final ListingsResponseParser parser;
+    private final int listingsLimit;
+    private final int pageSize;
+    private final int creditsPerCycle;
+    private final ApiRateLimiter rateLimiter;
+    private final Semaphore inFlightPages;
+    private final ApiHttpTransport transport;
+    private final ClusterCoordinator coordinator;
+    private volatile int knownUniverse;
 
     /**
-     * Конструктор класса CoinMarketCapApiClient.
+     * Конструктор класса CoinMarketCapApiClient для экземпляра, который загружает весь список котировок.
      */
     public CoinMarketCapApiClient() {
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this(null);
+    }
+
+    /**
+     * Конструктор класса CoinMarketCapApiClient.
+     *
+     * @param coordinator Координатор совместной работы экземпляров или null, если экземпляр работает один.
+     */
+    public CoinMarketCapApiClient(ClusterCoordinator coordinator) {
+        this.coordinator = coordinator;
+        this.parser = new ListingsResponseParser(CONVERT);
+        this.listingsLimit = EnvConfig.getInt("LISTINGS_LIMIT", 3);
+        this.pageSize = EnvConfig.getInt("LISTINGS_PAGE_SIZE", 1000);
+        this.creditsPerCycle = EnvConfig.getInt("API_CREDITS_PER_CYCLE", 0);
+        this.rateLimiter = new ApiRateLimiter(EnvConfig.getInt("API_CALLS_PER_MINUTE", 30));
+        int parallelism = EnvConfig.getInt("LISTINGS_FETCH_PARALLELISM", 4);
+        this.inFlightPages = new Semaphore(parallelism);
+        ExecutorService parseExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "cmc-page-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.transport = new ApiHttpTransport(
+                Duration.ofMillis(EnvConfig.getLong("CMC_CONNECT_TIMEOUT_MILLIS", 5000)),
+                Duration.ofMillis(EnvConfig.getLong("CMC_RESPONSE_TIMEOUT_MILLIS", 15000)),
+                Duration.ofMillis(EnvConfig.getLong("CMC_REQUEST_TIMEOUT_MILLIS", 30000)),
+                parseExecutor
+        );
     }
 
     /**
      * Получает данные о криптовалютах с помощью CoinMarketCap API.
+     * Запрашивается LISTINGS_LIMIT криптовалют (0 - весь рынок) страницами по LISTINGS_PAGE_SIZE.
      *
-     * @return JsonArray с данными о криптовалютах.
-     * @throws IOException        Если произошла ошибка при выполнении HTTP запроса.
+     * @param consumer Потокобезопасный обработчик котировок.
+     * @return Итоги загрузки.
+     * @throws IOException        Если произошла ошибка при загрузке первой страницы или чтении состава участников.
      * @throws URISyntaxException Если произошла ошибка при построении URI.
      */
-    public JsonArray fetchCryptoData() throws IOException, URISyntaxException {
-        List<NameValuePair> parameters = new ArrayList<>();
+    public ListingsFetchResult fetchCryptoData(Consumer<Quote> consumer) throws IOException, URISyntaxException {
+        return fetchCryptoData(QuoteScope.ALL, consumer);
+    }
 
-        // При необходимости, параметры запроса можно изменить
-        parameters.add(new BasicNameValuePair("start", "1"));
-        parameters.add(new BasicNameValuePair("limit", "3"));
-        parameters.add(new BasicNameValuePair("convert", "USD"));
+    /**
+     * Получает данные о криптовалютах из диапазона рейтинга или по списку символов с помощью CoinMarketCap API.
+     * Рейтинг ограничивается LISTINGS_LIMIT криптовалют (0 - весь рынок) и загружается страницами по LISTINGS_PAGE_SIZE.
+     * Первая страница диапазона загружается сразу, чтобы узнать общее количество криптовалют, остальные - параллельно.
+     * При совместной работе экземпляров рейтинг делится на диапазоны по CLUSTER_RANGE_SIZE, загружаются только
+     * диапазоны текущего экземпляра, а соседние диапазоны объединяются в страницы не больше LISTINGS_PAGE_SIZE.
+     * Размер рынка экземпляр, которому не принадлежит начало диапазона, узнает из отметок остальных экземпляров
+     * или из предыдущих циклов.
+     * Список символов загружается запросами quotes/latest, при совместной работе - только ведущим экземпляром.
+     * Каждая котировка передается обработчику сразу после чтения, поэтому обработчик должен быть потокобезопасным.
+     * Ошибка при загрузке отдельной страницы не прерывает загрузку остальных.
+     *
+     * @param scope    Диапазон рейтинга или список символов.
+     * @param consumer Потокобезопасный обработчик котировок.
+     * @return Итоги загрузки.
+     * @throws IOException        Если произошла ошибка при загрузке первой страницы или чтении состава участников.
+     * @throws URISyntaxException Если произошла ошибка при построении URI.
+     */
+    public ListingsFetchResult fetchCryptoData(QuoteScope scope, Consumer<Quote> consumer)
+            throws IOException, URISyntaxException {
+        if (scope.hasSymbols()) {
+            return fetchSymbols(scope.getSymbols(), consumer);
+        }
+        long startedAt = System.nanoTime();
+        ShardAssignment assignment = coordinator != null ? coordinator.assignment() : ShardAssignment.standalone(pageSize);
+        int rangeSize = assignment.getRangeSize();
+        int rangesPerPage = Math.max(1, pageSize / rangeSize);
+        int limit = listingsLimit > 0 ? listingsLimit : Integer.MAX_VALUE;
+        // Позиции рейтинга считаются с 0, конец диапазона не включается
+        int from = scope.getFirstRank() - 1;
+        int end = scope.getLastRank() > 0 ? Math.min(scope.getLastRank(), limit) : limit;
+
+        FetchTotals totals = new FetchTotals();
+        int position = from;
+        int universe;
+        if (from < end && assignment.owns(from / rangeSize)) {
+            int pageEnd = ownedRunEnd(assignment, from, rangesPerPage, end);
+
+            ListingsPage firstPage;
+            try {
+                firstPage = fetchPageAsync(from + 1, pageEnd - from, consumer).get();
+            }
+            catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while fetching listings", e);
+            }
+            totals.add(firstPage);
+
+            universe = universeSize(firstPage, from);
+            knownUniverse = universe;
+            position = pageEnd;
+            if (coordinator != null) {
+                coordinator.publishUniverse(universe);
+            }
+        }
+        else {
+            int known = Math.max(assignment.getUniverse(), knownUniverse);
+            universe = known > 0 && listingsLimit > 0 ? Math.min(listingsLimit, known) : Math.max(known, listingsLimit);
+            if (universe == 0) {
+                System.out.println("-->     Market size is not published yet by the owner of the first listings range");
+            }
+        }
+
+        List<CompletableFuture<ListingsPage>> futures = new ArrayList<>();
+        int plannedCredits = totals.credits;
+        int stop = Math.min(end, universe);
+        while (position < stop) {
+            int range = position / rangeSize;
+            if (!assignment.owns(range)) {
+                position = (range + 1) * rangeSize;
+                continue;
+            }
+            int pageEnd = ownedRunEnd(assignment, position, rangesPerPage, stop);
+            int start = position + 1;
+            int pageLimit = pageEnd - position;
+            position = pageEnd;
+            int pageCredits = (pageLimit + LISTINGS_PER_CREDIT - 1) / LISTINGS_PER_CREDIT;
+            if (creditsPerCycle > 0 && plannedCredits + pageCredits > creditsPerCycle) {
+                totals.budgetSkippedPages++;
+                continue;
+            }
+            plannedCredits += pageCredits;
+
+            futures.add(fetchPageAsync(start, pageLimit, consumer));
+        }
+
+        return totals.collect(futures, startedAt);
+    }
+
+    @Override
+    public ListingsFetchResult fetch(Consumer<Quote> consumer) throws IOException, URISyntaxException {
+        return fetchCryptoData(consumer);
+    }
+
+    @Override
+    public ListingsFetchResult fetch(QuoteScope scope, Consumer<Quote> consumer) throws IOException, URISyntaxException {
+        return fetchCryptoData(scope, consumer);
+    }
 
-        String responseContent = makeAPICall(apiUrl, parameters);
-        JsonObject responseJson = gson.fromJson(responseContent, JsonObject.class);
+    /**
+     * Загружает котировки по списку символов запросами quotes/latest, не больше SYMBOLS_PER_REQUEST символов
+     * в запросе. При совместной работе экземпляров список загружает только ведущий экземпляр, чтобы кредиты API
+     * не расходовались несколько раз на одни и те же символы.
+     */
+    private ListingsFetchResult fetchSymbols(List<String> symbols, Consumer<Quote> consumer)
+            throws IOException, URISyntaxException {
+        long startedAt = System.nanoTime();
+        FetchTotals totals = new FetchTotals();
+        if (coordinator != null && !coordinator.isLeader()) {
+            return totals.collect(List.of(), startedAt);
+        }
+        List<CompletableFuture<ListingsPage>> futures = new ArrayList<>();
+        int plannedCredits = 0;
+        for (int first = 0; first < symbols.size(); first += SYMBOLS_PER_REQUEST) {
+            List<String> chunk = symbols.subList(first, Math.min(first + SYMBOLS_PER_REQUEST, symbols.size()));
+            if (creditsPerCycle > 0 && plannedCredits + 1 > creditsPerCycle) {
+                totals.budgetSkippedPages++;
+                continue;
+            }
+            plannedCredits++;
+            URIBuilder query = new URIBuilder(quotesApiUrl);
+            query.addParameters(List.of(
+                    new BasicNameValuePair("symbol", String.join(",", chunk)),
+                    new BasicNameValuePair("convert", CONVERT)
+            ));
+            futures.add(fetchAsync(query.build(), consumer));
+        }
+        return totals.collect(futures, startedAt);
+    }
 
-        if (!responseJson.has("data") || !responseJson.get("data").isJsonArray()) {
-            throw new IllegalArgumentException("Invalid JSON response: 'data' array is missing or null");
+    /**
+     * Определяет конец страницы, которая начинается с указанной позиции и включает подряд идущие диапазоны
+     * текущего экземпляра.
+     *
+     * @param assignment    Распределение диапазонов.
+     * @param position      Первая позиция страницы (начиная с 0), принадлежащая текущему экземпляру.
+     * @param rangesPerPage Максимальное количество диапазонов на странице.
+     * @param end           Конец загружаемой части рейтинга, не включительно.
+     * @return Конец страницы, не включительно.
+     */
+    static int ownedRunEnd(ShardAssignment assignment, int position, int rangesPerPage, int end) {
+        int first = position / assignment.getRangeSize();
+        int ranges = 1;
+        while (ranges < rangesPerPage && (long) (first + ranges) * assignment.getRangeSize() < end
+                && assignment.owns(first + ranges)) {
+            ranges++;
         }
+        return (int) Math.min((long) (first + ranges) * assignment.getRangeSize(), end);
+    }
 
-        return responseJson.getAsJsonArray("data");
+    /**
+     * Определяет количество криптовалют, которые нужно загрузить в текущем цикле.
+     *
+     * @param firstPage Сводка по первой странице.
+     * @param from      Позиция рейтинга, с которой начинается первая страница (начиная с 0).
+     * @return Количество криптовалют.
+     */
+    private int universeSize(ListingsPage firstPage, int from) {
+        Integer totalCount = firstPage.getTotalCount();
+        if (totalCount == null) {
+            // Без total_count размер рынка неизвестен, поэтому загружается только LISTINGS_LIMIT
+            return Math.max(listingsLimit, from + firstPage.getListings() + firstPage.getSkipped());
+        }
+        return listingsLimit > 0 ? Math.min(listingsLimit, totalCount) : totalCount;
     }
 
     /**
-     * Выполняет HTTP GET запрос к указанному URI с заданными параметрами.
+     * Асинхронно загружает одну страницу котировок. Метод ожидает разрешения ограничителя частоты запросов
+     * и свободного места среди одновременно загружаемых страниц, после чего возвращает управление,
+     * а котировки передаются обработчику по мере чтения ответа.
      *
-     * @param uri        Базовый URI для запроса.
-     * @param parameters Список параметров запроса.
-     * @return Строка с содержимым ответа от сервера.
+     * @param start    Порядковый номер первой криптовалюты на странице (начиная с 1).
+     * @param limit    Количество криптовалют на странице.
+     * @param consumer Обработчик котировок.
+     * @return CompletableFuture со сводкой по странице.
+     * @throws IOException        Если ожидание разрешения было прервано.
      * @throws URISyntaxException Если произошла ошибка при построении URI.
-     * @throws IOException        Если произошла ошибка при выполнении HTTP запроса.
      */
-    private String makeAPICall(String uri, List<NameValuePair> parameters) throws URISyntaxException, IOException {
-        String responseContent = "";
+    public CompletableFuture<ListingsPage> fetchPageAsync(int start, int limit, Consumer<Quote> consumer)
+            throws IOException, URISyntaxException {
+        URIBuilder query = new URIBuilder(apiUrl);
+        query.addParameters(List.of(
+                new BasicNameValuePair("start", String.valueOf(start)),
+                new BasicNameValuePair("limit", String.valueOf(limit)),
+                new BasicNameValuePair("convert", CONVERT)
+        ));
+        return fetchAsync(query.build(), consumer);
+    }
 
-        URIBuilder query = new URIBuilder(uri);
-        query.addParameters(parameters);
+    /**
+     * Асинхронно выполняет запрос к API и разбирает ответ, соблюдая ограничения на частоту и количество
+     * одновременных запросов.
+     */
+    private CompletableFuture<ListingsPage> fetchAsync(URI uri, Consumer<Quote> consumer) throws IOException {
+        try {
+            inFlightPages.acquire();
+            rateLimiter.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for API rate limit", e);
+        }
+
+        long requestedAt = System.nanoTime();
+        CompletableFuture<ListingsPage> page;
+        try {
+            page = transport.getAsync(uri, Map.of("X-CMC_PRO_API_KEY", apiKey), in -> {
+                REQUEST_LATENCY.recordSince(requestedAt);
+                long parseStartedAt = System.nanoTime();
+                try {
+                    return parser.parseQuotes(new CountingInputStream(in, RESPONSE_BYTES), consumer);
+                }
+                finally {
+                    PARSE_LATENCY.recordSince(parseStartedAt);
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            inFlightPages.release();
+            throw e;
+        }
+        return page.whenComplete((result, error) -> {
+            inFlightPages.release();
+            if (error != null) {
+                PAGE_FAILURES.increment();
+                return;
+            }
+            PAGES.increment();
+            LISTINGS.add(result.getListings());
+            SKIPPED_LISTINGS.add(result.getSkipped());
+            CREDITS.add(result.getCreditCount());
+        });
+    }
 
-        CloseableHttpClient client = HttpClients.createDefault();
-        HttpGet request = new HttpGet(query.build());
+    /**
+     * Итоги загрузки страниц одного цикла.
+     */
+    private static final class FetchTotals {
+        private int pages;
+        private int failedPages;
+        private int budgetSkippedPages;
+        private long listings;
+        private long skipped;
+        private int credits;
+
+        void add(ListingsPage page) {
+            pages++;
+            listings += page.getListings();
+            skipped += page.getSkipped();
+            credits += page.getCreditCount();
+        }
 
-        request.setHeader(HttpHeaders.ACCEPT, "application/json");
-        request.addHeader("X-CMC_PRO_API_KEY", apiKey);
+        /**
+         * Дожидается загрузки страниц и возвращает итоги цикла.
+         */
+        ListingsFetchResult collect(List<CompletableFuture<ListingsPage>> futures, long startedAt) throws IOException {
+            for (CompletableFuture<ListingsPage> future : futures) {
+                try {
+                    add(future.get());
+                }
+                catch (ExecutionException e) {
+                    failedPages++;
+                    System.out.println("-->     Failed to fetch listings page: " + e.getCause());
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(pending -> pending.cancel(true));
+                    throw new IOException("Interrupted while fetching listings pages", e);
+                }
+            }
 
-        try (CloseableHttpResponse response = client.execute(request)) {
-            HttpEntity entity = response.getEntity();
-            responseContent = EntityUtils.toString(entity);
-            EntityUtils.consume(entity);
+            long elapsed = System.nanoTime() - startedAt;
+            FETCH_LATENCY.record(elapsed);
+            return new ListingsFetchResult(pages, failedPages, budgetSkippedPages, listings, skipped, credits,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
         }
+    }
 
-        return responseContent;
+    private static IOException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,440 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.InternTable;
+import com.cryptodatacollector.util.IsoDateTime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Класс JsonByteReader - потоковый разбор JSON напрямую из байтов UTF-8. В отличие от JsonReader из Gson, имена полей
+ * и строки не превращаются в String, а читаются во внутренний буфер, где их можно сравнить с ожидаемым именем,
+ * найти в InternTable или разобрать как время. Числа разбираются сразу в FixedDecimal или long.
+ * Поэтому чтение известной структуры не выделяет памяти на каждое значение.
+ * Разбор нестрогий: запятые и двоеточия считаются разделителями и не проверяются, так как ответ API
+ * заведомо является корректным JSON.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+class JsonByteReader {
+    private static final int MAX_DIGITS = 17;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[16 * 1024];
+    private int position;
+    private int limit;
+    private byte[] text = new byte[256];
+    private int textLength;
+
+    /**
+     * Конструктор класса JsonByteReader.
+     *
+     * @param in Поток с JSON в UTF-8.
+     */
+    JsonByteReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Возвращает первый символ следующего значения, не извлекая его.
+     *
+     * @return Символ: '{', '}', '[', ']', '"', 'n', 't', 'f', цифра или '-'.
+     * @throws IOException Если произошла ошибка чтения или поток закончился.
+     */
+    int peek() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                throw new IOException("Unexpected end of JSON");
+            }
+            byte b = buffer[position];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ',' || b == ':') {
+                position++;
+            }
+            else {
+                return b;
+            }
+        }
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+    }
+
+    /**
+     * Проверяет, есть ли в текущем объекте или массиве еще элементы.
+     *
+     * @return true, если следующий символ не закрывает объект или массив.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    boolean hasNext() throws IOException {
+        int next = peek();
+        return next != '}' && next != ']';
+    }
+
+    /**
+     * Читает имя поля во внутренний буфер. Сравнить его с ожидаемым можно методом isName.
+     *
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    void nextName() throws IOException {
+        readText();
+    }
+
+    /**
+     * Сравнивает последнее прочитанное имя поля или строку с ожидаемым значением.
+     *
+     * @param expected Ожидаемое значение в UTF-8.
+     * @return true, если значения совпадают.
+     */
+    boolean isName(byte[] expected) {
+        return Arrays.equals(text, 0, textLength, expected, 0, expected.length);
+    }
+
+    /**
+     * Пропускает значение null, если оно следующее.
+     *
+     * @return true, если значение null было пропущено.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    boolean skipNull() throws IOException {
+        if (peek() != 'n') {
+            return false;
+        }
+        readLiteral();
+        return true;
+    }
+
+    /**
+     * Читает строку и возвращает ее как String. Предназначен для редких значений, например сообщений об ошибках.
+     *
+     * @return Строка.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    String nextString() throws IOException {
+        if (peek() == '"') {
+            readText();
+        }
+        else {
+            readLiteral();
+        }
+        return new String(text, 0, textLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Читает строку и возвращает ее идентификатор в таблице строк.
+     *
+     * @param table Таблица строк.
+     * @return Идентификатор строки.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    int nextInterned(InternTable table) throws IOException {
+        readText();
+        return table.intern(text, 0, textLength);
+    }
+
+    /**
+     * Читает строку с моментом времени в формате ISO 8601.
+     *
+     * @return Время в миллисекундах UTC.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    long nextIsoMillis() throws IOException {
+        readText();
+        return IsoDateTime.parseMillis(text, 0, textLength);
+    }
+
+    /**
+     * Читает целое число, записанное числом или строкой.
+     *
+     * @return Значение.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    long nextLong() throws IOException {
+        long value = nextDecimal();
+        if (FixedDecimal.scale(value) != 0) {
+            throw new NumberFormatException("Expected an integer but was " + FixedDecimal.toString(value));
+        }
+        return FixedDecimal.mantissa(value);
+    }
+
+    /**
+     * Читает десятичное число, записанное числом или строкой, в формате FixedDecimal.
+     * Значащие цифры сверх 17 отбрасываются с округлением.
+     *
+     * @return Закодированное число.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    long nextDecimal() throws IOException {
+        if (peek() == '"') {
+            readText();
+        }
+        else {
+            readLiteral();
+        }
+        return parseDecimal(text, textLength);
+    }
+
+    /**
+     * Пропускает следующее значение вместе со всеми вложенными объектами и массивами.
+     *
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int next = peek();
+            if (next == '{' || next == '[') {
+                position++;
+                depth++;
+            }
+            else if (next == '}' || next == ']') {
+                position++;
+                depth--;
+            }
+            else if (next == '"') {
+                readText();
+            }
+            else {
+                readLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    static long parseDecimal(byte[] bytes, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean fraction = false;
+        boolean roundUp = false;
+        boolean truncated = false;
+        for (; i < length; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (digits < MAX_DIGITS) {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction) {
+                        scale++;
+                    }
+                }
+                else {
+                    if (!truncated) {
+                        roundUp = b >= '5';
+                        truncated = true;
+                    }
+                    if (!fraction) {
+                        scale--;
+                    }
+                }
+            }
+            else if (b == '.' && !fraction) {
+                fraction = true;
+            }
+            else if ((b == 'e' || b == 'E') && seenDigit && i + 1 < length) {
+                scale -= parseExponent(bytes, i + 1, length);
+                break;
+            }
+            else {
+                throw new NumberFormatException("Invalid number: " + new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("Invalid number: " + new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+        if (roundUp) {
+            mantissa++;
+        }
+        while (scale > FixedDecimal.MAX_SCALE) {
+            long remainder = mantissa % 10;
+            mantissa = mantissa / 10 + (remainder >= 5 ? 1 : 0);
+            scale--;
+        }
+        while (scale < 0) {
+            if (mantissa > FixedDecimal.MAX_MANTISSA / 10) {
+                throw new NumberFormatException("Number is too large: " + new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+            mantissa *= 10;
+            scale++;
+        }
+        if (mantissa > FixedDecimal.MAX_MANTISSA) {
+            mantissa = (mantissa + 5) / 10;
+            scale--;
+            if (scale < 0) {
+                throw new NumberFormatException("Number is too large: " + new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+        }
+        return FixedDecimal.of(negative ? -mantissa : mantissa, scale);
+    }
+
+    private static int parseExponent(byte[] bytes, int offset, int length) {
+        boolean negative = bytes[offset] == '-';
+        int i = bytes[offset] == '-' || bytes[offset] == '+' ? offset + 1 : offset;
+        if (i == length) {
+            throw new NumberFormatException("Invalid number: " + new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+        int exponent = 0;
+        for (; i < length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || exponent > 1000) {
+                throw new NumberFormatException("Invalid number: " + new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+            exponent = exponent * 10 + digit;
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private void expect(char expected) throws IOException {
+        int next = peek();
+        if (next != expected) {
+            throw new IllegalStateException("Expected '" + expected + "' but was '" + (char) next + "'");
+        }
+        position++;
+    }
+
+    /**
+     * Читает строку в кавычках во внутренний буфер, раскрывая escape-последовательности.
+     */
+    private void readText() throws IOException {
+        expect('"');
+        textLength = 0;
+        while (true) {
+            int b = read();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                readEscape();
+            }
+            else {
+                append(b);
+            }
+        }
+    }
+
+    /**
+     * Читает число или литерал true, false, null во внутренний буфер.
+     */
+    private void readLiteral() throws IOException {
+        textLength = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+            byte b = buffer[position];
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ':') {
+                return;
+            }
+            append(b);
+            position++;
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int escaped = read();
+        switch (escaped) {
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case 'n':
+                append('\n');
+                break;
+            case 'r':
+                append('\r');
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'u':
+                int codePoint = readHex();
+                if (Character.isHighSurrogate((char) codePoint) && read() == '\\' && read() == 'u') {
+                    codePoint = Character.toCodePoint((char) codePoint, (char) readHex());
+                }
+                appendCodePoint(codePoint);
+                break;
+            default:
+                append(escaped);
+        }
+    }
+
+    private int readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 4 | Character.digit(read(), 16);
+        }
+        return value;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            append(codePoint);
+        }
+        else if (codePoint < 0x800) {
+            append(0xC0 | codePoint >> 6);
+            append(0x80 | codePoint & 0x3F);
+        }
+        else if (codePoint < 0x10000) {
+            append(0xE0 | codePoint >> 12);
+            append(0x80 | codePoint >> 6 & 0x3F);
+            append(0x80 | codePoint & 0x3F);
+        }
+        else {
+            append(0xF0 | codePoint >> 18);
+            append(0x80 | codePoint >> 12 & 0x3F);
+            append(0x80 | codePoint >> 6 & 0x3F);
+            append(0x80 | codePoint & 0x3F);
+        }
+    }
+
+    private void append(int b) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = (byte) b;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            throw new IOException("Unexpected end of JSON");
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
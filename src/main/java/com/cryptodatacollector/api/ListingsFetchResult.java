@@ -0,0 +1,23 @@
+package com.cryptodatacollector.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс ListingsFetchResult содержит итоги постраничного получения котировок: количество загруженных
+ * и неудачных страниц, полученных и пропущенных котировок, израсходованных кредитов API и длительность загрузки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ListingsFetchResult {
+    private int pages;
+    private int failedPages;
+    private int budgetSkippedPages;
+    private long listings;
+    private long skipped;
+    private int creditCount;
+    private long elapsedMillis;
+}
@@ -0,0 +1,20 @@
+package com.cryptodatacollector.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс ListingsPage содержит сводку по одному ответу CoinMarketCap API: количество полученных котировок,
+ * количество пропущенных записей без цены, общее количество криптовалют и израсходованные кредиты API.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ListingsPage {
+    private int listings;
+    private int skipped;
+    private Integer totalCount;
+    private int creditCount;
+}
@@ -0,0 +1,304 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.InternTable;
+import com.cryptodatacollector.model.Quote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Класс ListingsResponseParser выполняет потоковый разбор ответа CoinMarketCap API (listings/latest или quotes/latest).
+ * Котировки читаются из InputStream с помощью JsonByteReader и передаются обработчику по одной,
+ * без построения промежуточного дерева JSON, поэтому потребление памяти не зависит от размера ответа.
+ * Котировки разбираются сразу в компактное представление Quote: имена полей сравниваются как байты,
+ * числа разбираются в FixedDecimal, а названия и символы ищутся в InternTable, поэтому на каждую котировку
+ * создается только сам объект Quote. Запись с числом, которое не помещается в FixedDecimal, пропускается
+ * и учитывается как пропущенная, а остальные записи ответа разбираются.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ListingsResponseParser {
+    private static final byte[] DATA = bytes("data");
+    private static final byte[] STATUS = bytes("status");
+    private static final byte[] TOTAL_COUNT = bytes("total_count");
+    private static final byte[] CREDIT_COUNT = bytes("credit_count");
+    private static final byte[] ERROR_MESSAGE = bytes("error_message");
+    private static final byte[] TIMESTAMP = bytes("timestamp");
+    private static final byte[] ID = bytes("id");
+    private static final byte[] NAME = bytes("name");
+    private static final byte[] SYMBOL = bytes("symbol");
+    private static final byte[] LAST_UPDATED = bytes("last_updated");
+    private static final byte[] QUOTE = bytes("quote");
+    private static final byte[] PRICE = bytes("price");
+    private static final byte[] VOLUME_24H = bytes("volume_24h");
+    private static final byte[] PERCENT_CHANGE_24H = bytes("percent_change_24h");
+
+    private final byte[] convert;
+
+    /**
+     * Конструктор класса ListingsResponseParser.
+     *
+     * @param convert Валюта котировок, указанная в параметре convert запроса (например, USD).
+     */
+    public ListingsResponseParser(String convert) {
+        this.convert = bytes(convert);
+    }
+
+    /**
+     * Разбирает ответ API и передает каждую котировку обработчику в виде объекта CryptoCurrency.
+     *
+     * @param in       Поток с телом ответа.
+     * @param consumer Обработчик котировок.
+     * @return Сводка по ответу.
+     * @throws IOException Если произошла ошибка при чтении ответа.
+     */
+    public ListingsPage parse(InputStream in, Consumer<CryptoCurrency> consumer) throws IOException {
+        return parseQuotes(in, quote -> consumer.accept(quote.toCryptoCurrency()));
+    }
+
+    /**
+     * Разбирает ответ API и передает каждую котировку обработчику.
+     *
+     * @param in       Поток с телом ответа.
+     * @param consumer Обработчик котировок.
+     * @return Сводка по ответу.
+     * @throws IOException Если произошла ошибка при чтении ответа.
+     */
+    public ListingsPage parseQuotes(InputStream in, Consumer<Quote> consumer) throws IOException {
+        return parseQuotes(in, consumer, System.currentTimeMillis());
+    }
+
+    /**
+     * Разбирает сохраненный ранее ответ API. Время сбора котировок берется из поля status.timestamp ответа,
+     * а если оно отсутствует или следует после массива data - из времени обновления самой котировки.
+     * Записи без времени обновления пропускаются.
+     *
+     * @param in       Поток с телом ответа.
+     * @param consumer Обработчик котировок.
+     * @return Сводка по ответу.
+     * @throws IOException Если произошла ошибка при чтении ответа.
+     */
+    public ListingsPage parseArchivedQuotes(InputStream in, Consumer<Quote> consumer) throws IOException {
+        return parseQuotes(in, consumer, -1);
+    }
+
+    /**
+     * Разбирает ответ API с указанным временем сбора данных.
+     *
+     * @param timestamp Время сбора данных в миллисекундах UTC или -1 для сохраненного ответа.
+     */
+    private ListingsPage parseQuotes(InputStream in, Consumer<Quote> consumer, long timestamp) throws IOException {
+        boolean archived = timestamp < 0;
+        JsonByteReader reader = new JsonByteReader(in);
+        boolean hasData = false;
+        int listings = 0;
+        int skipped = 0;
+        Integer totalCount = null;
+        int creditCount = 0;
+        String errorMessage = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName(DATA) && reader.peek() == '[') {
+                hasData = true;
+                int[] counts = readListings(reader, consumer, timestamp);
+                listings += counts[0];
+                skipped += counts[1];
+            }
+            else if (reader.isName(DATA) && reader.peek() == '{') {
+                // Ответ quotes/latest: объект, в котором символу соответствует запись (v1) или массив записей (v2)
+                hasData = true;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    if (reader.skipNull()) {
+                        continue;
+                    }
+                    if (reader.peek() == '[') {
+                        int[] counts = readListings(reader, consumer, timestamp);
+                        listings += counts[0];
+                        skipped += counts[1];
+                    }
+                    else if (accept(readListing(reader, timestamp), consumer)) {
+                        listings++;
+                    }
+                    else {
+                        skipped++;
+                    }
+                }
+                reader.endObject();
+            }
+            else if (reader.isName(STATUS) && reader.peek() == '{') {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    if (reader.skipNull()) {
+                        continue;
+                    }
+                    if (reader.isName(TOTAL_COUNT)) {
+                        totalCount = (int) reader.nextLong();
+                    }
+                    else if (reader.isName(CREDIT_COUNT)) {
+                        creditCount = (int) reader.nextLong();
+                    }
+                    else if (reader.isName(ERROR_MESSAGE)) {
+                        errorMessage = reader.nextString();
+                    }
+                    else if (archived && reader.isName(TIMESTAMP)) {
+                        timestamp = reader.nextIsoMillis();
+                    }
+                    else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasData) {
+            throw new IllegalArgumentException("Invalid JSON response: 'data' is missing or null"
+                    + (errorMessage != null ? " (" + errorMessage + ")" : ""));
+        }
+
+        return new ListingsPage(listings, skipped, totalCount, creditCount);
+    }
+
+    /**
+     * Читает массив записей и передает котировки обработчику.
+     *
+     * @return Количество переданных и пропущенных записей.
+     */
+    private int[] readListings(JsonByteReader reader, Consumer<Quote> consumer, long timestamp) throws IOException {
+        int[] counts = new int[2];
+        reader.beginArray();
+        while (reader.hasNext()) {
+            counts[accept(readListing(reader, timestamp), consumer) ? 0 : 1]++;
+        }
+        reader.endArray();
+        return counts;
+    }
+
+    private static boolean accept(Quote quote, Consumer<Quote> consumer) {
+        if (quote == null) {
+            return false;
+        }
+        consumer.accept(quote);
+        return true;
+    }
+
+    /**
+     * Читает одну запись массива data.
+     *
+     * @param reader    JsonByteReader, установленный на начало записи.
+     * @param timestamp Время сбора данных в миллисекундах UTC или -1, если оно совпадает со временем обновления.
+     * @return Объект Quote или null, если у записи нет идентификатора, символа, цены или времени
+     * или одно из чисел котировки не помещается в FixedDecimal.
+     * @throws IOException Если произошла ошибка при чтении ответа.
+     */
+    private Quote readListing(JsonByteReader reader, long timestamp) throws IOException {
+        long id = -1;
+        int nameId = -1;
+        int symbolId = -1;
+        long listingLastUpdated = -1;
+        long price = FixedDecimal.NULL;
+        long volume24h = FixedDecimal.NULL;
+        long percentChange24h = FixedDecimal.NULL;
+        long quoteLastUpdated = -1;
+        boolean outOfRange = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.skipNull()) {
+                continue;
+            }
+            if (reader.isName(ID)) {
+                id = reader.nextLong();
+            }
+            else if (reader.isName(NAME)) {
+                nameId = reader.nextInterned(InternTable.NAMES);
+            }
+            else if (reader.isName(SYMBOL)) {
+                symbolId = reader.nextInterned(InternTable.SYMBOLS);
+            }
+            else if (reader.isName(LAST_UPDATED)) {
+                listingLastUpdated = reader.nextIsoMillis();
+            }
+            else if (reader.isName(QUOTE) && reader.peek() == '{') {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    if (!reader.isName(convert) || reader.peek() != '{') {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        reader.nextName();
+                        if (reader.skipNull()) {
+                            continue;
+                        }
+                        try {
+                            if (reader.isName(PRICE)) {
+                                price = reader.nextDecimal();
+                                continue;
+                            }
+                            if (reader.isName(VOLUME_24H)) {
+                                volume24h = reader.nextDecimal();
+                                continue;
+                            }
+                            if (reader.isName(PERCENT_CHANGE_24H)) {
+                                percentChange24h = reader.nextDecimal();
+                                continue;
+                            }
+                        }
+                        catch (NumberFormatException e) {
+                            // Число уже прочитано из потока, поэтому разбор записи продолжается,
+                            // а сама запись пропускается, не прерывая разбор всей страницы
+                            outOfRange = true;
+                            continue;
+                        }
+                        if (reader.isName(LAST_UPDATED)) {
+                            quoteLastUpdated = reader.nextIsoMillis();
+                        }
+                        else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endObject();
+            }
+            else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (outOfRange || id < 0 || symbolId < 0 || FixedDecimal.isNull(price)) {
+            return null;
+        }
+
+        long lastUpdated = quoteLastUpdated >= 0 ? quoteLastUpdated
+                : listingLastUpdated >= 0 ? listingLastUpdated : timestamp;
+        if (lastUpdated < 0) {
+            return null;
+        }
+        return new Quote((int) id, nameId, symbolId, price, volume24h, percentChange24h,
+                timestamp >= 0 ? timestamp : lastUpdated, lastUpdated);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package com.cryptodatacollector.api;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Класс QuoteScope задает, котировки каких криптовалют нужно получить в цикле сбора: диапазон позиций рейтинга
+ * CoinMarketCap или список символов. Объект неизменяемый, поэтому общий ALL и области уровней сбора
+ * можно передавать между потоками.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class QuoteScope {
+    /**
+     * Весь рейтинг, ограниченный LISTINGS_LIMIT.
+     */
+    public static final QuoteScope ALL = ranks(1, 0);
+
+    private final int firstRank;
+    private final int lastRank;
+    private final List<String> symbols;
+
+    /**
+     * Создает диапазон позиций рейтинга.
+     *
+     * @param firstRank Первая позиция, начиная с 1.
+     * @param lastRank  Последняя позиция включительно или 0, если диапазон продолжается до конца рейтинга.
+     * @return Объект QuoteScope.
+     */
+    public static QuoteScope ranks(int firstRank, int lastRank) {
+        if (firstRank < 1 || (lastRank != 0 && lastRank < firstRank)) {
+            throw new IllegalArgumentException("Invalid rank range: " + firstRank + "-" + lastRank);
+        }
+        return new QuoteScope(firstRank, lastRank, List.of());
+    }
+
+    /**
+     * Создает список символов.
+     *
+     * @param symbols Символы криптовалют.
+     * @return Объект QuoteScope.
+     */
+    public static QuoteScope symbols(List<String> symbols) {
+        if (symbols.isEmpty()) {
+            throw new IllegalArgumentException("Symbol list is empty");
+        }
+        return new QuoteScope(0, 0, List.copyOf(symbols));
+    }
+
+    /**
+     * Проверяет, задан ли список символов.
+     *
+     * @return true для списка символов, false для диапазона рейтинга.
+     */
+    public boolean hasSymbols() {
+        return !symbols.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (hasSymbols()) {
+            return String.join(",", symbols);
+        }
+        return firstRank + "-" + (lastRank > 0 ? String.valueOf(lastRank) : "");
+    }
+}
@@ -0,0 +1,50 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.model.Quote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.function.Consumer;
+
+/**
+ * Интерфейс QuoteSource описывает источник котировок, из которого CryptoDataService получает данные
+ * в каждом цикле сбора. Опрашиваемый источник (CoinMarketCapApiClient) загружает котировки во время вызова fetch,
+ * потоковый источник (WebSocketQuoteSource) получает их непрерывно и в fetch передает накопленные с прошлого цикла.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public interface QuoteSource extends Closeable {
+
+    /**
+     * Передает обработчику котировки очередного цикла сбора.
+     *
+     * @param consumer Потокобезопасный обработчик котировок.
+     * @return Итоги получения котировок.
+     * @throws IOException        Если произошла ошибка при получении котировок.
+     * @throws URISyntaxException Если произошла ошибка при построении URI.
+     */
+    ListingsFetchResult fetch(Consumer<Quote> consumer) throws IOException, URISyntaxException;
+
+    /**
+     * Передает обработчику котировки очередного цикла сбора для части рынка. Источник, который не умеет
+     * ограничивать получаемые котировки, передает все котировки, как fetch(consumer).
+     *
+     * @param scope    Диапазон рейтинга или список символов.
+     * @param consumer Потокобезопасный обработчик котировок.
+     * @return Итоги получения котировок.
+     * @throws IOException        Если произошла ошибка при получении котировок.
+     * @throws URISyntaxException Если произошла ошибка при построении URI.
+     */
+    default ListingsFetchResult fetch(QuoteScope scope, Consumer<Quote> consumer) throws IOException, URISyntaxException {
+        return fetch(consumer);
+    }
+
+    /**
+     * Освобождает ресурсы источника.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,14 @@
+package com.cryptodatacollector.api;
+
+/**
+ * Перечисление QuoteSourceType задает способ получения котировок.
+ * POLLING - периодическая загрузка всех котировок из CoinMarketCap API.
+ * STREAMING - непрерывное получение обновлений котировок через WebSocket и их индексация небольшими пакетами.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum QuoteSourceType {
+    POLLING,
+    STREAMING
+}
@@ -0,0 +1,306 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.EnvConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Класс WebSocketQuoteSource получает обновления котировок через WebSocket непрерывно, без повторной загрузки
+ * всего списка. Каждое сообщение имеет формат ответа listings/latest (массив data с записями криптовалют)
+ * и разбирается тем же ListingsResponseParser. Сообщения без массива data (подтверждения подписки, heartbeat)
+ * пропускаются. Обновления одной криптовалюты между циклами сбора объединяются: в fetch передается только
+ * самая свежая котировка каждой криптовалюты, поэтому объем буфера ограничен количеством криптовалют.
+ * После разрыва соединения или отсутствия сообщений дольше STREAM_IDLE_TIMEOUT_MILLIS источник переподключается
+ * с экспоненциально растущей задержкой и повторно отправляет сообщение подписки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class WebSocketQuoteSource implements QuoteSource {
+    private static final String CONVERT = "USD";
+    private static final Counter MESSAGES = Metrics.counter("stream_messages_total", "WebSocket messages received");
+    private static final Counter TICKS = Metrics.counter("stream_ticks_total", "Quote updates received from the stream");
+    private static final Counter RECONNECTS = Metrics.counter("stream_reconnects_total",
+            "Attempts to reconnect the quote stream");
+    private static final Counter INVALID_MESSAGES = Metrics.counter("stream_invalid_messages_total",
+            "Stream messages that could not be parsed");
+
+    private final URI uri;
+    private final String subscribeMessage;
+    private final String apiKey;
+    private final long reconnectMinMillis;
+    private final long reconnectMaxMillis;
+    private final long idleTimeoutMillis;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ListingsResponseParser parser = new ListingsResponseParser(CONVERT);
+    private final Map<Integer, Quote> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    // Номер текущего соединения: события устаревших соединений игнорируются
+    private final AtomicInteger connection = new AtomicInteger();
+    private final AtomicInteger failedAttempts = new AtomicInteger();
+    private final AtomicLong messagesSinceFetch = new AtomicLong();
+    private volatile WebSocket webSocket;
+    private volatile long lastMessageAt;
+    private volatile boolean closed;
+
+    /**
+     * Создает источник на основе параметров из .env файла.
+     *
+     * @throws IllegalStateException Если не задан параметр STREAM_URL.
+     */
+    public WebSocketQuoteSource() {
+        this(URI.create(required("STREAM_URL")),
+                EnvConfig.getString("STREAM_SUBSCRIBE_MESSAGE", "{\"method\":\"subscribe\",\"channel\":\"listings\"}"),
+                EnvConfig.getString("API_KEY", null),
+                EnvConfig.getLong("STREAM_RECONNECT_MIN_MILLIS", 500),
+                EnvConfig.getLong("STREAM_RECONNECT_MAX_MILLIS", 30000),
+                EnvConfig.getLong("STREAM_IDLE_TIMEOUT_MILLIS", 30000));
+    }
+
+    /**
+     * Конструктор класса WebSocketQuoteSource. Соединение устанавливается методом start.
+     *
+     * @param uri                Адрес потока котировок.
+     * @param subscribeMessage   Сообщение, которое отправляется после каждого подключения, или null.
+     * @param apiKey             Ключ API, передаваемый в заголовке X-CMC_PRO_API_KEY, или null.
+     * @param reconnectMinMillis Задержка перед первой попыткой переподключения.
+     * @param reconnectMaxMillis Максимальная задержка перед переподключением.
+     * @param idleTimeoutMillis  Время без сообщений, после которого соединение считается потерянным.
+     */
+    public WebSocketQuoteSource(URI uri, String subscribeMessage, String apiKey, long reconnectMinMillis,
+                                long reconnectMaxMillis, long idleTimeoutMillis) {
+        this.uri = uri;
+        this.subscribeMessage = subscribeMessage;
+        this.apiKey = apiKey;
+        this.reconnectMinMillis = reconnectMinMillis;
+        this.reconnectMaxMillis = reconnectMaxMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quote-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Metrics.gauge("stream_connected", "1 if the quote stream is connected", () -> webSocket != null ? 1 : 0);
+        Metrics.gauge("stream_pending_quotes", "Quotes received from the stream and not yet indexed",
+                this::getPendingQuotes);
+    }
+
+    /**
+     * Подключается к потоку котировок и запускает контроль активности соединения.
+     *
+     * @return Этот источник.
+     */
+    public WebSocketQuoteSource start() {
+        connect();
+        long checkInterval = Math.max(idleTimeoutMillis / 4, 10);
+        executor.scheduleWithFixedDelay(this::checkIdle, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Передает обработчику самые свежие котировки, полученные с прошлого вызова.
+     *
+     * @param consumer Потокобезопасный обработчик котировок.
+     * @return Итоги: количество котировок и количество сообщений потока, полученных с прошлого вызова.
+     */
+    @Override
+    public ListingsFetchResult fetch(Consumer<Quote> consumer) {
+        long startedAt = System.nanoTime();
+        long listings = 0;
+        for (Integer coinId : pending.keySet()) {
+            Quote quote = pending.remove(coinId);
+            if (quote != null) {
+                consumer.accept(quote);
+                listings++;
+            }
+        }
+        return new ListingsFetchResult((int) messagesSinceFetch.getAndSet(0), 0, 0, listings, 0, 0,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Возвращает количество криптовалют, котировки которых получены и еще не переданы в fetch.
+     *
+     * @return Количество ожидающих котировок.
+     */
+    public int getPendingQuotes() {
+        return pending.size();
+    }
+
+    /**
+     * Проверяет, установлено ли соединение.
+     *
+     * @return true, если соединение установлено.
+     */
+    public boolean isConnected() {
+        return webSocket != null;
+    }
+
+    /**
+     * Закрывает соединение и останавливает переподключение.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        WebSocket current = webSocket;
+        if (current != null) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "").exceptionally(e -> null);
+        }
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+        int id = connection.incrementAndGet();
+        WebSocket.Builder builder = httpClient.newWebSocketBuilder().connectTimeout(Duration.ofMillis(idleTimeoutMillis));
+        if (apiKey != null) {
+            builder.header("X-CMC_PRO_API_KEY", apiKey);
+        }
+        builder.buildAsync(uri, new Listener(id)).whenComplete((socket, error) -> {
+            if (error != null) {
+                System.out.println("-->     Failed to connect to quote stream " + uri + ": " + error.getMessage());
+                reconnect(id);
+                return;
+            }
+            lastMessageAt = System.currentTimeMillis();
+            webSocket = socket;
+            failedAttempts.set(0);
+            if (subscribeMessage != null && !subscribeMessage.isBlank()) {
+                socket.sendText(subscribeMessage, true);
+            }
+            System.out.println("-->     Connected to quote stream " + uri);
+        });
+    }
+
+    /**
+     * Планирует переподключение, если событие относится к текущему соединению.
+     *
+     * @param id Номер соединения, в котором произошла ошибка.
+     */
+    private void reconnect(int id) {
+        if (closed || !connection.compareAndSet(id, id + 1)) {
+            return;
+        }
+        WebSocket current = webSocket;
+        webSocket = null;
+        if (current != null) {
+            current.abort();
+        }
+        long delay = Math.min(reconnectMaxMillis, reconnectMinMillis << Math.min(failedAttempts.getAndIncrement(), 20));
+        // Случайная часть задержки не дает экземплярам приложения переподключаться одновременно
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        RECONNECTS.increment();
+        try {
+            executor.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            // Источник закрыт
+        }
+    }
+
+    private void checkIdle() {
+        if (webSocket != null && System.currentTimeMillis() - lastMessageAt > idleTimeoutMillis) {
+            System.out.println("-->     No messages from quote stream for " + idleTimeoutMillis + " ms, reconnecting");
+            reconnect(connection.get());
+        }
+    }
+
+    private void onMessage(String message) {
+        MESSAGES.increment();
+        messagesSinceFetch.incrementAndGet();
+        try {
+            parser.parseQuotes(new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)), this::offer);
+        }
+        catch (IllegalArgumentException e) {
+            // Служебное сообщение без котировок
+        }
+        catch (IOException | RuntimeException e) {
+            INVALID_MESSAGES.increment();
+            System.out.println("-->     Failed to parse quote stream message: " + e.getMessage());
+        }
+    }
+
+    private void offer(Quote quote) {
+        TICKS.increment();
+        pending.merge(quote.getCoinId(), quote,
+                (current, next) -> next.getLastUpdated() >= current.getLastUpdated() ? next : current);
+    }
+
+    private static String required(String key) {
+        String value = EnvConfig.getString(key, null);
+        if (value == null) {
+            throw new IllegalStateException(key + " must be set for the STREAMING quote source");
+        }
+        return value;
+    }
+
+    /**
+     * Обработчик событий одного соединения. Текстовые сообщения собираются из частей и обрабатываются целиком.
+     */
+    private class Listener implements WebSocket.Listener {
+        private final int id;
+        private final StringBuilder text = new StringBuilder();
+
+        Listener(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            lastMessageAt = System.currentTimeMillis();
+            text.append(data);
+            if (last) {
+                onMessage(text.toString());
+                text.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPing(WebSocket socket, ByteBuffer message) {
+            lastMessageAt = System.currentTimeMillis();
+            return WebSocket.Listener.super.onPing(socket, message);
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            if (!closed) {
+                System.out.println("-->     Quote stream closed (" + statusCode + " " + reason + "), reconnecting");
+                reconnect(id);
+            }
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            if (!closed) {
+                System.out.println("-->     Quote stream failed: " + error + ", reconnecting");
+                reconnect(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.cryptodatacollector.backfill;
+
+import com.cryptodatacollector.api.ListingsResponseParser;
+import com.cryptodatacollector.model.Quote;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Класс ArchiveReader читает архивы ответов CoinMarketCap API. Файл .json содержит один ответ,
+ * файл .ndjson или .jsonl - по одному ответу в строке. Любой из них может быть сжат gzip (.gz).
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class ArchiveReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ArchiveReader() {
+    }
+
+    /**
+     * Проверяет, является ли файл архивом ответов по его расширению.
+     *
+     * @param file Путь к файлу.
+     * @return true, если файл является архивом.
+     */
+    static boolean isArchive(Path file) {
+        String name = baseName(file);
+        return name.endsWith(".json") || isLineDelimited(name);
+    }
+
+    /**
+     * Читает архив и передает котировки обработчику.
+     *
+     * @param file     Путь к архиву.
+     * @param parser   Парсер ответов API.
+     * @param consumer Обработчик котировок.
+     * @return Количество прочитанных ответов.
+     * @throws IOException Если произошла ошибка при чтении архива.
+     */
+    static int read(Path file, ListingsResponseParser parser, Consumer<Quote> consumer) throws IOException {
+        try (InputStream in = file.getFileName().toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE)
+                : new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            if (isLineDelimited(baseName(file))) {
+                return readLines(in, parser, consumer);
+            }
+            parser.parseArchivedQuotes(in, consumer);
+            return 1;
+        }
+    }
+
+    private static int readLines(InputStream in, ListingsResponseParser parser, Consumer<Quote> consumer)
+            throws IOException {
+        byte[] chunk = new byte[BUFFER_SIZE];
+        byte[] line = new byte[BUFFER_SIZE];
+        int length = 0;
+        int responses = 0;
+        int read;
+        while ((read = in.read(chunk)) > 0) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] == '\n') {
+                    line = append(line, length, chunk, start, i - start);
+                    responses += parseLine(line, length + i - start, parser, consumer);
+                    length = 0;
+                    start = i + 1;
+                }
+            }
+            line = append(line, length, chunk, start, read - start);
+            length += read - start;
+        }
+        return responses + parseLine(line, length, parser, consumer);
+    }
+
+    private static int parseLine(byte[] line, int length, ListingsResponseParser parser, Consumer<Quote> consumer)
+            throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (line[i] > ' ') {
+                parser.parseArchivedQuotes(new ByteArrayInputStream(line, 0, length), consumer);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] append(byte[] line, int length, byte[] chunk, int offset, int count) {
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+        }
+        System.arraycopy(chunk, offset, line, length, count);
+        return line;
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    private static boolean isLineDelimited(String name) {
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+}
@@ -0,0 +1,72 @@
+package com.cryptodatacollector.backfill;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Класс BackfillCheckpoint хранит список полностью загруженных архивов в текстовом файле, по одному абсолютному
+ * пути в строке. Файлы добавляются в список только после того, как все их котировки подтверждены Elasticsearch,
+ * поэтому прерванная загрузка продолжается с первой незавершенной порции. Повторная загрузка части архивов
+ * безопасна: идентификатор документа определяется криптовалютой и временем котировки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class BackfillCheckpoint {
+    private final Path file;
+    private final Set<String> completed = new HashSet<>();
+
+    /**
+     * Конструктор класса BackfillCheckpoint. Загружает список завершенных файлов, если файл прогресса существует.
+     *
+     * @param file Файл прогресса.
+     * @throws IOException Если не удалось прочитать файл прогресса.
+     */
+    public BackfillCheckpoint(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    completed.add(line.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Проверяет, загружен ли архив.
+     *
+     * @param archive Путь к архиву.
+     * @return true, если архив уже загружен.
+     */
+    public boolean isCompleted(Path archive) {
+        return completed.contains(key(archive));
+    }
+
+    /**
+     * Отмечает архивы как загруженные и дописывает их в файл прогресса.
+     *
+     * @param archives Пути к архивам.
+     * @throws IOException Если не удалось записать файл прогресса.
+     */
+    public void markCompleted(List<Path> archives) throws IOException {
+        if (archives.isEmpty()) {
+            return;
+        }
+        List<String> keys = archives.stream().map(BackfillCheckpoint::key).collect(Collectors.toList());
+        Files.write(file, keys, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                StandardOpenOption.SYNC);
+        completed.addAll(keys);
+    }
+
+    private static String key(Path archive) {
+        return archive.toAbsolutePath().normalize().toString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.cryptodatacollector.backfill;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс BackfillResult содержит итоги загрузки архивов: количество загруженных файлов, файлов, пропущенных
+ * по файлу прогресса, файлов, которые не удалось загрузить, количество прочитанных котировок и время загрузки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class BackfillResult {
+    private int completedFiles;
+    private int skippedFiles;
+    private int failedFiles;
+    private long quotes;
+    private long elapsedMillis;
+
+    /**
+     * Проверяет, загружены ли все архивы.
+     *
+     * @return true, если ни один архив не завершился ошибкой.
+     */
+    public boolean isSuccessful() {
+        return failedFiles == 0;
+    }
+}
@@ -0,0 +1,194 @@
+package com.cryptodatacollector.backfill;
+
+import com.cryptodatacollector.api.ListingsResponseParser;
+import com.cryptodatacollector.elastic.BulkIndexingResult;
+import com.cryptodatacollector.elastic.CryptoDataIndexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Класс BackfillRunner загружает архивы ответов CoinMarketCap API в Elasticsearch. Архивы из указанных каталогов
+ * обрабатываются порциями: файлы порции разбираются параллельно на всех ядрах, котировки сохраняют время из архива
+ * и пишутся через общий пакет индексации CryptoDataIndexer. Когда пакет порции закрыт без ошибок, ее файлы
+ * отмечаются в BackfillCheckpoint, поэтому повторный запуск пропускает уже загруженные архивы.
+ * Во время загрузки периодически выводится скорость в документах в секунду.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class BackfillRunner {
+    private static final String CONVERT = "USD";
+
+    private final CryptoDataIndexer indexer;
+    private final BackfillSettings settings;
+    private final ListingsResponseParser parser = new ListingsResponseParser(CONVERT);
+    private final LongAdder quotes = new LongAdder();
+    private final AtomicInteger completedFiles = new AtomicInteger();
+
+    /**
+     * Конструктор класса BackfillRunner.
+     *
+     * @param indexer  Индексатор котировок.
+     * @param settings Параметры загрузки.
+     */
+    public BackfillRunner(CryptoDataIndexer indexer, BackfillSettings settings) {
+        this.indexer = indexer;
+        this.settings = settings;
+    }
+
+    /**
+     * Загружает все архивы из указанных каталогов, пропуская уже загруженные.
+     *
+     * @param directories Каталоги с архивами. Вложенные каталоги просматриваются рекурсивно.
+     * @return Итоги загрузки.
+     * @throws IOException Если не удалось просмотреть каталоги или сохранить прогресс.
+     */
+    public BackfillResult run(List<Path> directories) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        BackfillCheckpoint checkpoint = new BackfillCheckpoint(settings.getCheckpointFile());
+        List<Path> archives = listArchives(directories);
+        List<Path> pending = archives.stream()
+                .filter(archive -> !checkpoint.isCompleted(archive))
+                .collect(Collectors.toList());
+        System.out.printf("-->     Backfill: %d archives found, %d already loaded \n",
+                archives.size(), archives.size() - pending.size());
+
+        ExecutorService workers = Executors.newFixedThreadPool(settings.getThreads());
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backfill-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(new ProgressReport(pending.size()), settings.getReportIntervalMillis(),
+                settings.getReportIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        int failedFiles = 0;
+        try {
+            for (int from = 0; from < pending.size(); from += settings.getFilesPerBatch()) {
+                List<Path> portion = pending.subList(from, Math.min(pending.size(), from + settings.getFilesPerBatch()));
+                List<Path> loaded = load(portion, workers);
+                if (loaded != null) {
+                    checkpoint.markCompleted(loaded);
+                    completedFiles.addAndGet(loaded.size());
+                    failedFiles += portion.size() - loaded.size();
+                }
+                else {
+                    failedFiles += portion.size();
+                }
+            }
+        }
+        finally {
+            reporter.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        long elapsedMillis = System.currentTimeMillis() - startedAt;
+        BackfillResult result = new BackfillResult(completedFiles.get(), archives.size() - pending.size(),
+                failedFiles, quotes.sum(), elapsedMillis);
+        System.out.printf("-->     Backfill finished: %d archives loaded, %d failed, %d quotes in %d ms (%.0f docs/s) \n",
+                result.getCompletedFiles(), result.getFailedFiles(), result.getQuotes(), elapsedMillis,
+                rate(result.getQuotes(), elapsedMillis));
+        return result;
+    }
+
+    /**
+     * Загружает порцию архивов одним пакетом индексации.
+     *
+     * @param portion Архивы порции.
+     * @param workers Потоки разбора архивов.
+     * @return Архивы, которые прочитаны полностью, или null, если пакет завершился ошибками индексации
+     * и прогресс порции сохранять нельзя.
+     * @throws IOException Если не удалось подготовить индекс.
+     */
+    private List<Path> load(List<Path> portion, ExecutorService workers) throws IOException {
+        CryptoDataIndexer.Batch batch = indexer.openBatch();
+        List<Path> loaded = new ArrayList<>(portion.size());
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(portion.size());
+            for (Path archive : portion) {
+                futures.add(workers.submit(() -> ArchiveReader.read(archive, parser, quote -> {
+                    batch.add(quote);
+                    quotes.increment();
+                })));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                    loaded.add(portion.get(i));
+                }
+                catch (ExecutionException e) {
+                    System.out.println("-->     Failed to load archive " + portion.get(i) + ": " + e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading archives", e);
+        }
+        finally {
+            batch.close();
+        }
+
+        BulkIndexingResult result = batch.getResult();
+        if (result.hasFailures()) {
+            System.out.printf("-->     %d documents of %d archives failed to index, the archives will be loaded again \n",
+                    result.getFailed(), portion.size());
+            return null;
+        }
+        return loaded;
+    }
+
+    private static List<Path> listArchives(List<Path> directories) throws IOException {
+        List<Path> archives = new ArrayList<>();
+        for (Path directory : directories) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(Files::isRegularFile)
+                        .filter(ArchiveReader::isArchive)
+                        .sorted()
+                        .forEach(archives::add);
+            }
+        }
+        return archives;
+    }
+
+    private static double rate(long count, long millis) {
+        return millis > 0 ? count * 1000.0 / millis : 0;
+    }
+
+    /**
+     * Периодический отчет о скорости загрузки за последний интервал.
+     */
+    private class ProgressReport implements Runnable {
+        private final int totalFiles;
+        private long lastQuotes;
+        private long lastMillis = System.currentTimeMillis();
+
+        ProgressReport(int totalFiles) {
+            this.totalFiles = totalFiles;
+        }
+
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis();
+            long total = quotes.sum();
+            System.out.printf("-->     Backfill progress: %d/%d archives, %d quotes, %.0f docs/s \n",
+                    completedFiles.get(), totalFiles, total, rate(total - lastQuotes, now - lastMillis));
+            lastQuotes = total;
+            lastMillis = now;
+        }
+    }
+}
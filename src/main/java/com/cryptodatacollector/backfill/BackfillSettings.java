@@ -0,0 +1,38 @@
+package com.cryptodatacollector.backfill;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Класс BackfillSettings содержит параметры загрузки архивов: количество потоков разбора, количество файлов
+ * в одной порции, после которой сохраняется прогресс, файл прогресса и интервал вывода скорости загрузки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class BackfillSettings {
+    private int threads;
+    private int filesPerBatch;
+    private Path checkpointFile;
+    private long reportIntervalMillis;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект BackfillSettings.
+     */
+    public static BackfillSettings fromEnv() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new BackfillSettings(
+                EnvConfig.getInt("BACKFILL_THREADS", cores),
+                EnvConfig.getInt("BACKFILL_FILES_PER_BATCH", 64),
+                Path.of(EnvConfig.getString("BACKFILL_CHECKPOINT_FILE", "backfill.checkpoint")),
+                EnvConfig.getLong("BACKFILL_REPORT_INTERVAL_MILLIS", 10000)
+        );
+    }
+}
@@ -0,0 +1,155 @@
+package com.cryptodatacollector.cluster;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Класс ClusterCoordinator позволяет нескольким экземплярам сборщика делить рынок без пересечений.
+ * Каждый экземпляр периодически записывает отметку о работе в общее хранилище MembershipStore. В начале каждого
+ * цикла сбора экземпляр читает отметки, отбрасывает те, что старше CLUSTER_MEMBER_TTL_MILLIS, и строит
+ * по оставшимся кольцо согласованного хеширования, которое определяет владельца каждого диапазона рейтинга.
+ * Все экземпляры видят одинаковый состав участников, поэтому каждый диапазон загружает ровно один экземпляр,
+ * а диапазоны остановленного экземпляра переходят к остальным в первом цикле после истечения его отметки.
+ * Экземпляр, которого нет среди участников (например, если его отметки не удается записать), не загружает ничего.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ClusterCoordinator implements Closeable {
+    private static final Counter HEARTBEAT_FAILURES = Metrics.counter("cluster_heartbeat_failures_total",
+            "Heartbeats that could not be written to the membership store");
+    private static final Counter MEMBERSHIP_CHANGES = Metrics.counter("cluster_membership_changes_total",
+            "Changes of the set of live collector instances");
+
+    private final MembershipStore store;
+    private final ClusterSettings settings;
+    private final ScheduledExecutorService executor;
+    private volatile int universe;
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of(), 0);
+    private volatile ShardAssignment assignment;
+
+    /**
+     * Конструктор класса ClusterCoordinator. Отметки о работе начинают записываться методом start.
+     *
+     * @param store    Хранилище отметок о работе.
+     * @param settings Параметры совместной работы.
+     */
+    public ClusterCoordinator(MembershipStore store, ClusterSettings settings) {
+        this.store = store;
+        this.settings = settings;
+        this.assignment = new ShardAssignment(settings.getNodeId(), ring, settings.getRangeSize(), 0);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Metrics.gauge("cluster_members", "Live collector instances seen by this instance",
+                () -> ring.getNodes().size());
+    }
+
+    /**
+     * Записывает первую отметку о работе и запускает периодическую запись отметок. Если хранилище еще недоступно,
+     * отметка будет записана при следующей попытке, а до тех пор экземпляр не загружает котировки.
+     *
+     * @return Этот координатор.
+     */
+    public ClusterCoordinator start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                heartbeat();
+            }
+            catch (IOException | RuntimeException e) {
+                HEARTBEAT_FAILURES.increment();
+                System.out.println("-->     Failed to write cluster heartbeat: " + e.getMessage());
+            }
+        }, 0, settings.getHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+        System.out.println("-->     Joining collector cluster as " + settings.getNodeId());
+        return this;
+    }
+
+    /**
+     * Читает состав участников и определяет диапазоны текущего экземпляра на очередной цикл.
+     *
+     * @return Распределение диапазонов.
+     * @throws IOException Если не удалось прочитать отметки о работе.
+     */
+    public ShardAssignment assignment() throws IOException {
+        long oldest = System.currentTimeMillis() - settings.getMemberTtlMillis();
+        List<ClusterMember> live = store.members().stream()
+                .filter(member -> member.getHeartbeatAt() >= oldest)
+                .collect(Collectors.toList());
+        List<String> nodes = live.stream().map(ClusterMember::getNodeId).sorted().collect(Collectors.toList());
+        int knownUniverse = live.stream().mapToInt(ClusterMember::getUniverse).max().orElse(0);
+
+        ConsistentHashRing current = ring;
+        if (!nodes.equals(current.getNodes())) {
+            current = new ConsistentHashRing(nodes, settings.getVirtualNodes());
+            ring = current;
+            MEMBERSHIP_CHANGES.increment();
+            System.out.println("-->     Collector cluster members: " + nodes
+                    + (nodes.contains(settings.getNodeId()) ? "" : " (this instance is not registered and collects nothing)"));
+        }
+        ShardAssignment next = new ShardAssignment(settings.getNodeId(), current, settings.getRangeSize(), knownUniverse);
+        assignment = next;
+        return next;
+    }
+
+    /**
+     * Публикует размер рынка, чтобы экземпляры, которые не загружают первый диапазон, знали границу рейтинга.
+     * Значение передается остальным со следующей отметкой о работе.
+     *
+     * @param universe Количество криптовалют.
+     */
+    public void publishUniverse(int universe) {
+        this.universe = universe;
+    }
+
+    /**
+     * Проверяет, является ли текущий экземпляр ведущим по последнему прочитанному составу участников.
+     *
+     * @return true, если экземпляр ведущий.
+     */
+    public boolean isLeader() {
+        return assignment.isLeader();
+    }
+
+    /**
+     * Возвращает параметры совместной работы.
+     *
+     * @return Объект ClusterSettings.
+     */
+    public ClusterSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Останавливает запись отметок и удаляет отметку экземпляра, чтобы его диапазоны сразу перешли к остальным.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            // Отметка, которая записывается в этот момент, не должна вернуть экземпляр в состав после удаления
+            executor.awaitTermination(settings.getHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+            store.leave(settings.getNodeId());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException | RuntimeException e) {
+            System.out.println("-->     Failed to leave collector cluster: " + e.getMessage());
+        }
+    }
+
+    private void heartbeat() throws IOException {
+        store.heartbeat(new ClusterMember(settings.getNodeId(), System.currentTimeMillis(), universe));
+    }
+}
@@ -0,0 +1,20 @@
+package com.cryptodatacollector.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс ClusterMember представляет отметку о работе экземпляра сборщика в хранилище участников.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ClusterMember {
+    private String nodeId;
+    // Время последней отметки в миллисекундах UTC по часам самого экземпляра
+    private long heartbeatAt;
+    // Размер рынка, известный экземпляру, или 0, если экземпляр его еще не загружал
+    private int universe;
+}
@@ -0,0 +1,55 @@
+package com.cryptodatacollector.cluster;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Класс ClusterSettings содержит параметры совместной работы нескольких экземпляров сборщика: идентификатор
+ * экземпляра, интервал отметок о работе, время, после которого молчащий экземпляр считается остановленным,
+ * количество виртуальных узлов каждого экземпляра в кольце согласованного хеширования и размер диапазона рейтинга,
+ * который распределяется между экземплярами как одно целое.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ClusterSettings {
+    private String nodeId;
+    private long heartbeatIntervalMillis;
+    private long memberTtlMillis;
+    private int virtualNodes;
+    private int rangeSize;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     * Если идентификатор экземпляра не задан, используется имя хоста (в Docker - идентификатор контейнера).
+     *
+     * @return Объект ClusterSettings.
+     */
+    public static ClusterSettings fromEnv() {
+        long heartbeatIntervalMillis = EnvConfig.getLong("CLUSTER_HEARTBEAT_INTERVAL_MILLIS", 5000);
+        return new ClusterSettings(
+                EnvConfig.getString("CLUSTER_NODE_ID", defaultNodeId()),
+                heartbeatIntervalMillis,
+                EnvConfig.getLong("CLUSTER_MEMBER_TTL_MILLIS", heartbeatIntervalMillis * 3),
+                EnvConfig.getInt("CLUSTER_VIRTUAL_NODES", 128),
+                // По умолчанию диапазон совпадает со страницей, чтобы деление рынка не увеличивало количество запросов
+                EnvConfig.getInt("CLUSTER_RANGE_SIZE", EnvConfig.getInt("LISTINGS_PAGE_SIZE", 1000))
+        );
+    }
+
+    private static String defaultNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        }
+        catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.cryptodatacollector.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Класс ConsistentHashRing распределяет номера диапазонов между узлами согласованным хешированием с ограничением
+ * нагрузки. Каждый узел занимает несколько точек кольца (виртуальных узлов), номер предпочитает узел первой
+ * точки по часовой стрелке от своего хеша. Номера распределяются по порядку, и среди первых r + 1 номеров
+ * узел получает не больше ceil((r + 1) * LOAD_FACTOR / N) (N - количество узлов): если предпочтительный узел
+ * уже набрал столько номеров, номер достается следующему по часовой стрелке узлу, у которого есть запас.
+ * Без такого ограничения при нескольких десятках диапазонов кольцо дает перекос в разы, а запас сверх
+ * равной доли оставляет большинство номеров у предпочтительных узлов, поэтому при добавлении или удалении
+ * узла переходит к другим узлам около 1/N номеров, а не все распределение. Распределение зависит только
+ * от множества узлов, поэтому все экземпляры, видящие одинаковый состав участников, одинаково делят
+ * диапазоны без дополнительного согласования.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ConsistentHashRing {
+    /**
+     * Во сколько раз узел может превысить равную долю номеров.
+     */
+    public static final double LOAD_FACTOR = 1.25;
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+    // Владельцы уже распределенных номеров и количество номеров у каждого узла, кольцо не меняется
+    private final List<String> owners = new ArrayList<>();
+    private final Map<String, Integer> loads = new HashMap<>();
+
+    /**
+     * Конструктор класса ConsistentHashRing.
+     *
+     * @param nodes        Идентификаторы узлов.
+     * @param virtualNodes Количество точек кольца на один узел.
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = nodes.stream().distinct().sorted().collect(Collectors.toList());
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // При совпадении хешей точка достается узлу с меньшим идентификатором на всех экземплярах одинаково
+                ring.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Возвращает владельца номера диапазона с ограничением нагрузки: среди первых r + 1 номеров каждый узел
+     * получает не больше ceil((r + 1) * LOAD_FACTOR / N) номеров.
+     *
+     * @param range Номер диапазона, начиная с 0.
+     * @return Идентификатор узла или null, если кольцо пустое.
+     */
+    public synchronized String ownerOf(int range) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        for (int key = owners.size(); key <= range; key++) {
+            int capacity = (int) Math.ceil((key + 1) * LOAD_FACTOR / nodes.size());
+            String owner = firstBelow(mix(key), capacity);
+            loads.merge(owner, 1, Integer::sum);
+            owners.add(owner);
+        }
+        return owners.get(range);
+    }
+
+    /**
+     * Возвращает узлы кольца в порядке возрастания идентификаторов.
+     *
+     * @return Идентификаторы узлов.
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Возвращает первый по часовой стрелке от точки узел, у которого меньше номеров, чем допускает ограничение.
+     */
+    private String firstBelow(long point, int capacity) {
+        for (String node : ring.tailMap(point, true).values()) {
+            if (loads.getOrDefault(node, 0) < capacity) {
+                return node;
+            }
+        }
+        for (String node : ring.headMap(point, false).values()) {
+            if (loads.getOrDefault(node, 0) < capacity) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("All nodes of the ring are at capacity");
+    }
+
+    /**
+     * Вычисляет 64-битный хеш строки: FNV-1a по байтам UTF-8 с перемешиванием результата.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Финальное перемешивание MurmurHash3: близкие значения получают далекие друг от друга точки кольца.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,90 @@
+package com.cryptodatacollector.cluster;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс ElasticsearchMembershipStore хранит отметки о работе экземпляров в Elasticsearch: отметка каждого
+ * экземпляра хранится одним документом служебного индекса, идентификатор документа - идентификатор экземпляра.
+ * Отметки записываются с немедленным обновлением индекса, чтобы остальные экземпляры видели их в следующем цикле.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ElasticsearchMembershipStore implements MembershipStore {
+    static final String INDEX_NAME = "crypto_collector_members";
+    // Ограничение на количество экземпляров, отметки которых читаются одним запросом
+    private static final int MAX_MEMBERS = 1000;
+
+    private final RestHighLevelClient client;
+
+    /**
+     * Конструктор класса ElasticsearchMembershipStore.
+     *
+     * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     */
+    public ElasticsearchMembershipStore(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void heartbeat(ClusterMember member) throws IOException {
+        client.index(new IndexRequest(INDEX_NAME)
+                        .id(member.getNodeId())
+                        .source(Map.of("nodeId", member.getNodeId(),
+                                "heartbeatAt", member.getHeartbeatAt(),
+                                "universe", member.getUniverse()))
+                        .setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE),
+                RequestOptions.DEFAULT);
+    }
+
+    @Override
+    public List<ClusterMember> members() throws IOException {
+        SearchResponse response;
+        try {
+            response = client.search(new SearchRequest(INDEX_NAME).source(new SearchSourceBuilder()
+                    .query(QueryBuilders.matchAllQuery())
+                    .size(MAX_MEMBERS)), RequestOptions.DEFAULT);
+        }
+        catch (ElasticsearchStatusException e) {
+            // Служебный индекс создается первой отметкой о работе
+            if (e.status() == RestStatus.NOT_FOUND) {
+                return List.of();
+            }
+            throw e;
+        }
+
+        List<ClusterMember> members = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            Map<String, Object> source = hit.getSourceAsMap();
+            Object heartbeatAt = source.get("heartbeatAt");
+            Object universe = source.get("universe");
+            if (heartbeatAt instanceof Number) {
+                members.add(new ClusterMember(hit.getId(), ((Number) heartbeatAt).longValue(),
+                        universe instanceof Number ? ((Number) universe).intValue() : 0));
+            }
+        }
+        return members;
+    }
+
+    @Override
+    public void leave(String nodeId) throws IOException {
+        client.delete(new DeleteRequest(INDEX_NAME, nodeId).setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE),
+                RequestOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,32 @@
+package com.cryptodatacollector.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Класс InMemoryMembershipStore хранит отметки о работе в памяти процесса. Подходит для экземпляров,
+ * работающих в одном процессе, например в тестах и нагрузочном тесте.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class InMemoryMembershipStore implements MembershipStore {
+    private final Map<String, ClusterMember> members = new ConcurrentHashMap<>();
+
+    @Override
+    public void heartbeat(ClusterMember member) {
+        members.put(member.getNodeId(), member);
+    }
+
+    @Override
+    public List<ClusterMember> members() {
+        return new ArrayList<>(members.values());
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        members.remove(nodeId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.cryptodatacollector.cluster;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Интерфейс MembershipStore описывает общее для всех экземпляров сборщика хранилище отметок о работе.
+ * Хранилище не проверяет срок действия отметок: остановленные экземпляры отсеивает ClusterCoordinator.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public interface MembershipStore {
+
+    /**
+     * Сохраняет отметку о работе экземпляра, заменяя предыдущую.
+     *
+     * @param member Отметка о работе.
+     * @throws IOException Если не удалось сохранить отметку.
+     */
+    void heartbeat(ClusterMember member) throws IOException;
+
+    /**
+     * Возвращает последние отметки всех экземпляров, включая давно не отвечавшие.
+     *
+     * @return Отметки о работе.
+     * @throws IOException Если не удалось прочитать отметки.
+     */
+    List<ClusterMember> members() throws IOException;
+
+    /**
+     * Удаляет отметку экземпляра при его остановке, чтобы остальные сразу забрали его диапазоны.
+     *
+     * @param nodeId Идентификатор экземпляра.
+     * @throws IOException Если не удалось удалить отметку.
+     */
+    void leave(String nodeId) throws IOException;
+}
@@ -0,0 +1,92 @@
+package com.cryptodatacollector.cluster;
+
+import java.util.List;
+
+/**
+ * Класс ShardAssignment описывает, какие диапазоны рейтинга криптовалют загружает экземпляр в текущем цикле.
+ * Рейтинг делится на диапазоны фиксированного размера, диапазон с номером i содержит криптовалюты
+ * с местами от i * rangeSize + 1 до (i + 1) * rangeSize. Владелец диапазона определяется кольцом
+ * согласованного хеширования работающих экземпляров с ограничением нагрузки, поэтому экземпляры получают
+ * почти одинаковое количество диапазонов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ShardAssignment {
+    private final String nodeId;
+    private final ConsistentHashRing ring;
+    private final int rangeSize;
+    private final int universe;
+
+    /**
+     * Конструктор класса ShardAssignment.
+     *
+     * @param nodeId    Идентификатор текущего экземпляра.
+     * @param ring      Кольцо работающих экземпляров или null, если экземпляр работает один и загружает все.
+     * @param rangeSize Размер диапазона рейтинга.
+     * @param universe  Размер рынка, известный участникам, или 0, если он еще неизвестен.
+     */
+    public ShardAssignment(String nodeId, ConsistentHashRing ring, int rangeSize, int universe) {
+        this.nodeId = nodeId;
+        this.ring = ring;
+        this.rangeSize = rangeSize;
+        this.universe = universe;
+    }
+
+    /**
+     * Создает распределение для экземпляра, который работает без других экземпляров.
+     *
+     * @param rangeSize Размер диапазона рейтинга.
+     * @return Распределение, в котором экземпляру принадлежат все диапазоны.
+     */
+    public static ShardAssignment standalone(int rangeSize) {
+        return new ShardAssignment(null, null, rangeSize, 0);
+    }
+
+    /**
+     * Проверяет, принадлежит ли диапазон текущему экземпляру.
+     *
+     * @param range Номер диапазона, начиная с 0.
+     * @return true, если диапазон загружает текущий экземпляр.
+     */
+    public boolean owns(int range) {
+        return ring == null || nodeId.equals(ring.ownerOf(range));
+    }
+
+    /**
+     * Проверяет, является ли текущий экземпляр ведущим. Ведущий экземпляр выполняет задачи, которые нужно
+     * выполнять в одном экземпляре, например построение свечей.
+     *
+     * @return true, если экземпляр работает один или имеет наименьший идентификатор среди работающих.
+     */
+    public boolean isLeader() {
+        return ring == null || (!ring.getNodes().isEmpty() && ring.getNodes().get(0).equals(nodeId));
+    }
+
+    /**
+     * Возвращает работающие экземпляры.
+     *
+     * @return Идентификаторы экземпляров или пустой список, если экземпляр работает один.
+     */
+    public List<String> getMembers() {
+        return ring != null ? ring.getNodes() : List.of();
+    }
+
+    /**
+     * Возвращает размер диапазона рейтинга.
+     *
+     * @return Количество криптовалют в диапазоне.
+     */
+    public int getRangeSize() {
+        return rangeSize;
+    }
+
+    /**
+     * Возвращает размер рынка, опубликованный участниками.
+     *
+     * @return Количество криптовалют или 0, если оно еще неизвестно.
+     */
+    public int getUniverse() {
+        return universe;
+    }
+}
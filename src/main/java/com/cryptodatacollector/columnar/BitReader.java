@@ -0,0 +1,44 @@
+package com.cryptodatacollector.columnar;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Класс BitReader читает последовательность битов, записанную BitWriter, из буфера, начиная с его позиции.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class BitReader {
+    private final ByteBuffer buffer;
+    private final int start;
+    private long bitPosition;
+
+    BitReader(ByteBuffer buffer, int start) {
+        this.buffer = buffer;
+        this.start = start;
+    }
+
+    /**
+     * Читает значение из указанного количества битов.
+     *
+     * @param bits Количество битов, от 0 до 64.
+     * @return Значение в младших битах.
+     */
+    long read(int bits) {
+        long value = 0;
+        for (int remaining = bits; remaining > 0; ) {
+            int current = buffer.get(start + (int) (bitPosition >>> 3)) & 0xFF;
+            int available = 8 - (int) (bitPosition & 7);
+            int chunk = Math.min(available, remaining);
+            int part = (current >>> (available - chunk)) & ((1 << chunk) - 1);
+            value = (value << chunk) | part;
+            remaining -= chunk;
+            bitPosition += chunk;
+        }
+        return value;
+    }
+
+    boolean readBit() {
+        return read(1) == 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.cryptodatacollector.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Класс BitWriter записывает последовательность битов в растущий массив байтов, начиная со старших битов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class BitWriter {
+    private byte[] bytes;
+    private long bitLength;
+
+    BitWriter(int initialBytes) {
+        this.bytes = new byte[Math.max(16, initialBytes)];
+    }
+
+    /**
+     * Записывает младшие биты значения, начиная со старшего из них.
+     *
+     * @param value Значение.
+     * @param bits  Количество битов, от 0 до 64.
+     */
+    void write(long value, int bits) {
+        for (int remaining = bits; remaining > 0; ) {
+            int byteIndex = (int) (bitLength >>> 3);
+            if (byteIndex >= bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int free = 8 - (int) (bitLength & 7);
+            int chunk = Math.min(free, remaining);
+            int part = (int) (value >>> (remaining - chunk)) & ((1 << chunk) - 1);
+            bytes[byteIndex] |= (byte) (part << (free - chunk));
+            remaining -= chunk;
+            bitLength += chunk;
+        }
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Возвращает записанные биты, дополненные нулями до целого байта.
+     *
+     * @return Массив байтов.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, (int) ((bitLength + 7) >>> 3));
+    }
+}
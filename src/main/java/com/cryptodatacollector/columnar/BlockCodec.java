@@ -0,0 +1,152 @@
+package com.cryptodatacollector.columnar;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Класс BlockCodec сжимает блок котировок одной криптовалюты по колонкам.
+ * Время хранится как разность разностей соседних значений (delta-of-delta) в виде zigzag varint: при равномерном
+ * сборе данных почти все значения занимают один байт. Цена и объем хранятся по схеме XOR из Gorilla (Facebook):
+ * для каждого значения записывается только отличающаяся от предыдущего значения часть битов.
+ * Формат блока: [длина колонки времени][колонка времени][длина колонки цен][колонка цен][колонка объемов].
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class BlockCodec {
+
+    private BlockCodec() {
+    }
+
+    /**
+     * Сжимает блок котировок.
+     *
+     * @param times   Время котировок в миллисекундах UTC.
+     * @param prices  Цены.
+     * @param volumes Объемы торгов.
+     * @param count   Количество котировок в блоке, не меньше 1.
+     * @return Сжатый блок.
+     */
+    static byte[] encode(long[] times, double[] prices, double[] volumes, int count) {
+        byte[] timeColumn = encodeTimes(times, count);
+        byte[] priceColumn = encodeValues(prices, count);
+        byte[] volumeColumn = encodeValues(volumes, count);
+        ByteBuffer block = ByteBuffer.allocate(8 + timeColumn.length + priceColumn.length + volumeColumn.length);
+        block.putInt(timeColumn.length).put(timeColumn)
+                .putInt(priceColumn.length).put(priceColumn)
+                .put(volumeColumn);
+        return block.array();
+    }
+
+    /**
+     * Распаковывает блок котировок.
+     *
+     * @param buffer  Буфер, содержащий блок.
+     * @param offset  Позиция блока в буфере.
+     * @param count   Количество котировок в блоке.
+     * @param times   Массив для времени котировок.
+     * @param prices  Массив для цен.
+     * @param volumes Массив для объемов торгов.
+     */
+    static void decode(ByteBuffer buffer, int offset, int count, long[] times, double[] prices, double[] volumes) {
+        int timeBytes = buffer.getInt(offset);
+        int priceOffset = offset + 4 + timeBytes;
+        decodeTimes(buffer, offset + 4, count, times);
+        decodeValues(buffer, priceOffset + 4, count, prices);
+        decodeValues(buffer, priceOffset + 4 + buffer.getInt(priceOffset), count, volumes);
+    }
+
+    private static byte[] encodeTimes(long[] times, int count) {
+        ByteBuffer out = ByteBuffer.allocate(8 + (count - 1) * 10);
+        out.putLong(times[0]);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = times[i] - times[i - 1];
+            long deltaOfDelta = delta - previousDelta;
+            previousDelta = delta;
+            // zigzag: небольшие по модулю отрицательные значения тоже занимают мало байтов
+            long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.put((byte) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.put((byte) zigzag);
+        }
+        byte[] column = new byte[out.position()];
+        out.flip().get(column);
+        return column;
+    }
+
+    private static void decodeTimes(ByteBuffer buffer, int offset, int count, long[] times) {
+        int position = offset;
+        times[0] = buffer.getLong(position);
+        position += 8;
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            long deltaOfDelta = (zigzag >>> 1) ^ -(zigzag & 1);
+            previousDelta += deltaOfDelta;
+            times[i] = times[i - 1] + previousDelta;
+        }
+    }
+
+    private static byte[] encodeValues(double[] values, int count) {
+        BitWriter out = new BitWriter(count * 2);
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // Отличающиеся биты помещаются в окно предыдущего значения
+                out.writeBit(false);
+                out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            }
+            else {
+                int meaningful = 64 - leading - trailing;
+                out.writeBit(true);
+                out.write(leading, 5);
+                out.write(meaningful - 1, 6);
+                out.write(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void decodeValues(ByteBuffer buffer, int offset, int count, double[] values) {
+        BitReader in = new BitReader(buffer, offset);
+        long previous = in.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.read(5);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                previous ^= in.read(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.cryptodatacollector.columnar;
+
+import com.cryptodatacollector.analysis.WindowStats;
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.sink.QuoteBatch;
+import com.cryptodatacollector.sink.QuoteSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс ColumnarQuoteStore - встроенное колоночное хранилище котировок, которое дополняет Elasticsearch.
+ * Для каждой криптовалюты создается отдельный каталог SymbolColumns с колонками времени обновления, цены и объема
+ * торгов: последние котировки дописываются без сжатия, а каждые COLUMNAR_BLOCK_SIZE котировок сжимаются в блок
+ * и попадают в разреженный индекс по времени. Статистика за диапазон времени вычисляется последовательным проходом
+ * по отображенным в память файлам без обращения к Elasticsearch.
+ * Хранилище содержит только котировки, собранные после его создания, поэтому запросы за более ранние периоды
+ * должны выполняться в Elasticsearch (см. covers). Файлы криптовалюты остаются открытыми до закрытия хранилища.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ColumnarQuoteStore implements QuoteSink, Closeable {
+    private static final String META_FILE = "store.meta";
+    private static final Counter POINTS = Metrics.counter("columnar_points_total",
+            "Quotes appended to the columnar store");
+    private static final Counter BLOCKS = Metrics.counter("columnar_blocks_total",
+            "Compressed blocks written to the columnar store");
+    private static final Counter BLOCK_BYTES = Metrics.counter("columnar_block_bytes_total",
+            "Compressed bytes written to the columnar store");
+    private static final Counter WRITE_FAILURES = Metrics.counter("columnar_write_failures_total",
+            "Quotes that could not be written to the columnar store");
+    private static final LatencyHistogram SCAN_LATENCY = Metrics.histogram("columnar_scan_seconds",
+            "Latency of range scans over the columnar store");
+
+    private final ColumnarStoreSettings settings;
+    private final long createdAt;
+    private final Map<String, SymbolColumns> columns = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> lastUpdated = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Открывает хранилище в каталоге из настроек или создает новое.
+     *
+     * @param settings Параметры хранилища.
+     * @throws IOException Если произошла ошибка при работе с файлами хранилища.
+     */
+    public ColumnarQuoteStore(ColumnarStoreSettings settings) throws IOException {
+        this.settings = settings;
+        Files.createDirectories(settings.getDirectory());
+        Path meta = settings.getDirectory().resolve(META_FILE);
+        if (Files.exists(meta)) {
+            this.createdAt = ByteBuffer.wrap(Files.readAllBytes(meta)).getLong();
+        }
+        else {
+            this.createdAt = System.currentTimeMillis();
+            Files.write(meta, ByteBuffer.allocate(8).putLong(createdAt).array());
+        }
+    }
+
+    @Override
+    public QuoteBatch openBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Проверяет, содержит ли хранилище все котировки, начиная с указанного момента.
+     *
+     * @param fromMillis Начало диапазона в миллисекундах UTC.
+     * @return true, если хранилище создано не позже начала диапазона.
+     */
+    public boolean covers(long fromMillis) {
+        return fromMillis >= createdAt;
+    }
+
+    /**
+     * Вычисляет статистику котировок криптовалюты за диапазон времени обновления.
+     *
+     * @param symbol     Символ криптовалюты.
+     * @param fromMillis Начало диапазона в миллисекундах UTC.
+     * @param toMillis   Конец диапазона в миллисекундах UTC, не включительно.
+     * @return Объект WindowStats или null, если в диапазоне нет котировок.
+     * @throws IOException Если произошла ошибка при чтении файлов хранилища.
+     */
+    public WindowStats getStats(String symbol, long fromMillis, long toMillis) throws IOException {
+        long startedAt = System.nanoTime();
+        SymbolColumns symbolColumns = columns.get(symbol);
+        if (symbolColumns == null) {
+            if (!Files.isDirectory(directoryOf(symbol))) {
+                return null;
+            }
+            symbolColumns = columnsOf(symbol);
+        }
+        StatsAccumulator stats = new StatsAccumulator();
+        symbolColumns.scan(fromMillis, toMillis, stats);
+        SCAN_LATENCY.recordSince(startedAt);
+        return stats.toStats();
+    }
+
+    /**
+     * Закрывает файлы всех криптовалют. После закрытия запись и чтение завершаются ошибкой.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (SymbolColumns symbolColumns : columns.values()) {
+            try {
+                symbolColumns.close();
+            }
+            catch (IOException e) {
+                // Записанные котировки уже находятся в файлах, закрытие только освобождает каналы
+                System.out.println("-->     Failed to close columnar store files: " + e.getMessage());
+            }
+        }
+        columns.clear();
+    }
+
+    private SymbolColumns columnsOf(String symbol) throws IOException {
+        if (closed) {
+            throw new IOException("Columnar store is closed");
+        }
+        try {
+            return columns.computeIfAbsent(symbol, key -> {
+                try {
+                    return new SymbolColumns(directoryOf(key), settings.getBlockSize());
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Возвращает каталог криптовалюты. Символы, кроме латинских букв и цифр, кодируются шестнадцатеричными
+     * байтами UTF-8, поэтому любой символ дает допустимое и уникальное имя каталога.
+     */
+    private Path directoryOf(String symbol) {
+        StringBuilder name = new StringBuilder(symbol.length());
+        for (byte b : symbol.getBytes(StandardCharsets.UTF_8)) {
+            if ((b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')) {
+                name.append((char) b);
+            }
+            else {
+                name.append('_').append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+        }
+        return settings.getDirectory().resolve(name.toString());
+    }
+
+    /**
+     * Пакет записи котировок в колоночное хранилище. Повторно полученная котировка криптовалюты с тем же временем
+     * обновления не записывается. Ошибки записи не прерывают сбор данных: они подсчитываются и выводятся
+     * при закрытии пакета.
+     */
+    private class Batch implements QuoteBatch {
+        private final AtomicLong failed = new AtomicLong();
+        private volatile IOException lastFailure;
+
+        @Override
+        public void add(Quote quote) {
+            if (FixedDecimal.isNull(quote.getPrice())) {
+                return;
+            }
+            Long previous = lastUpdated.put(quote.getCoinId(), quote.getLastUpdated());
+            if (previous != null && previous == quote.getLastUpdated()) {
+                return;
+            }
+            double volume = FixedDecimal.isNull(quote.getVolume24h()) ? 0 : FixedDecimal.toDouble(quote.getVolume24h());
+            try {
+                int blockBytes = columnsOf(quote.getSymbol())
+                        .append(quote.getLastUpdated(), FixedDecimal.toDouble(quote.getPrice()), volume);
+                POINTS.increment();
+                if (blockBytes > 0) {
+                    BLOCKS.increment();
+                    BLOCK_BYTES.add(blockBytes);
+                }
+            }
+            catch (IOException e) {
+                lastUpdated.remove(quote.getCoinId());
+                WRITE_FAILURES.increment();
+                failed.incrementAndGet();
+                lastFailure = e;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (failed.get() > 0) {
+                System.out.printf("-->     Failed to write %d quotes to the columnar store: %s \n",
+                        failed.get(), lastFailure.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.cryptodatacollector.columnar;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Класс ColumnarStoreSettings содержит параметры локального колоночного хранилища котировок:
+ * каталог хранилища и количество котировок в одном сжатом блоке.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ColumnarStoreSettings {
+    private Path directory;
+    private int blockSize;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект ColumnarStoreSettings.
+     */
+    public static ColumnarStoreSettings fromEnv() {
+        return new ColumnarStoreSettings(
+                Path.of(EnvConfig.getString("COLUMNAR_DIRECTORY", "columnar")),
+                EnvConfig.getInt("COLUMNAR_BLOCK_SIZE", 1024)
+        );
+    }
+}
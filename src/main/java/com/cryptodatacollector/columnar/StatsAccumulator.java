@@ -0,0 +1,60 @@
+package com.cryptodatacollector.columnar;
+
+import com.cryptodatacollector.analysis.WindowStats;
+
+/**
+ * Класс StatsAccumulator накапливает суммы, по которым вычисляется статистика котировок за диапазон:
+ * количество, суммы цен, квадратов цен, произведений цены на объем и объемов, минимальную и максимальную цену.
+ * Суммы сжатого блока, сохраненные в индексе, добавляются целиком без распаковки блока.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class StatsAccumulator {
+    long count;
+    double priceSum;
+    double priceSquareSum;
+    double priceVolumeSum;
+    double volumeSum;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+
+    void add(double price, double volume) {
+        count++;
+        priceSum += price;
+        priceSquareSum += price * price;
+        priceVolumeSum += price * volume;
+        volumeSum += volume;
+        if (price < min) {
+            min = price;
+        }
+        if (price > max) {
+            max = price;
+        }
+    }
+
+    void merge(StatsAccumulator other) {
+        count += other.count;
+        priceSum += other.priceSum;
+        priceSquareSum += other.priceSquareSum;
+        priceVolumeSum += other.priceVolumeSum;
+        volumeSum += other.volumeSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Вычисляет статистику так же, как RollingWindowAnalytics.
+     *
+     * @return Объект WindowStats или null, если котировок нет.
+     */
+    WindowStats toStats() {
+        if (count == 0) {
+            return null;
+        }
+        double average = priceSum / count;
+        double variance = Math.max(0, priceSquareSum / count - average * average);
+        double vwap = volumeSum > 0 ? priceVolumeSum / volumeSum : average;
+        return new WindowStats(count, average, vwap, min, max, variance);
+    }
+}
@@ -0,0 +1,291 @@
+package com.cryptodatacollector.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Класс SymbolColumns хранит котировки одной криптовалюты в трех файлах каталога:
+ * <ul>
+ *     <li>tail.dat - последние котировки, которые еще не сжаты, записями [время][цена][объем];</li>
+ *     <li>blocks.dat - сжатые BlockCodec блоки по blockSize котировок, которые только дописываются;</li>
+ *     <li>blocks.idx - разреженный индекс: для каждого блока минимальное и максимальное время, положение в blocks.dat
+ *     и суммы StatsAccumulator, по которым блок, целиком попадающий в диапазон, учитывается без распаковки.</li>
+ * </ul>
+ * Когда в tail.dat накапливается blockSize котировок, они сжимаются в блок. Запись в индексе подтверждает блок,
+ * поэтому после аварийного завершения данные за последней записью индекса отбрасываются. Заголовок tail.dat содержит
+ * номер блока, в который превратятся его котировки: если этот блок уже записан в индекс, tail.dat очищается.
+ * Блок сбрасывается на диск до записи в индексе, а запись в индексе - до очистки tail.dat, поэтому и после сбоя
+ * операционной системы индекс не ссылается на недописанный блок. Котировки tail.dat на диск не сбрасываются
+ * и при сбое операционной системы могут быть потеряны.
+ * При чтении файлы отображаются в память, и котировки диапазона суммируются последовательным проходом.
+ * Каналы файлов открываются один раз и остаются открытыми до закрытия хранилища, поэтому запись котировки
+ * не открывает файл заново.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class SymbolColumns implements Closeable {
+    static final String TAIL_FILE = "tail.dat";
+    static final String DATA_FILE = "blocks.dat";
+    static final String INDEX_FILE = "blocks.idx";
+    private static final int ENTRY_BYTES = 80;
+    private static final int TAIL_HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 24;
+
+    private final FileChannel tail;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final int blockSize;
+    private long blocks;
+    private long dataSize;
+    private int tailCount;
+
+    /**
+     * Открывает колонки криптовалюты, восстанавливая их после аварийного завершения.
+     *
+     * @param directory Каталог криптовалюты.
+     * @param blockSize Количество котировок в сжатом блоке.
+     * @throws IOException Если произошла ошибка при работе с файлами.
+     */
+    SymbolColumns(Path directory, int blockSize) throws IOException {
+        Files.createDirectories(directory);
+        this.blockSize = blockSize;
+        this.tail = open(directory.resolve(TAIL_FILE));
+        FileChannel data = null;
+        FileChannel index = null;
+        try {
+            data = open(directory.resolve(DATA_FILE));
+            index = open(directory.resolve(INDEX_FILE));
+            this.data = data;
+            this.index = index;
+            recover();
+        }
+        catch (IOException e) {
+            closeQuietly(tail, e);
+            closeQuietly(data, e);
+            closeQuietly(index, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Дописывает котировку. Если в tail.dat накопилось blockSize котировок, они сжимаются в блок.
+     *
+     * @param time   Время котировки в миллисекундах UTC.
+     * @param price  Цена.
+     * @param volume Объем торгов.
+     * @return Размер записанного сжатого блока или 0, если блок не записывался.
+     * @throws IOException Если произошла ошибка при записи файлов.
+     */
+    synchronized int append(long time, double price, double volume) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).putLong(time).putDouble(price).putDouble(volume);
+        writeFully(tail, record.flip(), TAIL_HEADER_BYTES + (long) tailCount * RECORD_BYTES);
+        tailCount++;
+        return tailCount >= blockSize ? seal() : 0;
+    }
+
+    /**
+     * Добавляет котировки из диапазона времени в накопитель.
+     *
+     * @param fromMillis Начало диапазона в миллисекундах UTC.
+     * @param toMillis   Конец диапазона в миллисекундах UTC, не включительно.
+     * @param stats      Накопитель.
+     * @throws IOException Если произошла ошибка при чтении файлов.
+     */
+    synchronized void scan(long fromMillis, long toMillis, StatsAccumulator stats) throws IOException {
+        if (blocks > 0) {
+            MappedByteBuffer entries = index.map(FileChannel.MapMode.READ_ONLY, 0, blocks * ENTRY_BYTES);
+            long[] times = new long[0];
+            double[] prices = new double[0];
+            double[] volumes = new double[0];
+            for (int entry = 0; entry < blocks * ENTRY_BYTES; entry += ENTRY_BYTES) {
+                long min = entries.getLong(entry);
+                long max = entries.getLong(entry + 8);
+                if (max < fromMillis || min >= toMillis) {
+                    continue;
+                }
+                if (min >= fromMillis && max < toMillis) {
+                    stats.merge(readSummary(entries, entry));
+                    continue;
+                }
+                // Блок на краю диапазона распаковывается и проверяется по каждой котировке
+                int count = entries.getInt(entry + 28);
+                if (times.length < count) {
+                    times = new long[count];
+                    prices = new double[count];
+                    volumes = new double[count];
+                }
+                BlockCodec.decode(data.map(FileChannel.MapMode.READ_ONLY, entries.getLong(entry + 16),
+                        entries.getInt(entry + 24)), 0, count,
+                        times, prices, volumes);
+                for (int i = 0; i < count; i++) {
+                    if (times[i] >= fromMillis && times[i] < toMillis) {
+                        stats.add(prices[i], volumes[i]);
+                    }
+                }
+            }
+        }
+        if (tailCount > 0) {
+            MappedByteBuffer records = tail.map(FileChannel.MapMode.READ_ONLY, 0,
+                    TAIL_HEADER_BYTES + (long) tailCount * RECORD_BYTES);
+            for (int record = TAIL_HEADER_BYTES; record < records.limit(); record += RECORD_BYTES) {
+                long time = records.getLong(record);
+                if (time >= fromMillis && time < toMillis) {
+                    stats.add(records.getDouble(record + 8), records.getDouble(record + 16));
+                }
+            }
+        }
+    }
+
+    /**
+     * Сжимает котировки tail.dat в блок, дописывает его в blocks.dat и подтверждает записью в индексе.
+     */
+    private int seal() throws IOException {
+        long[] times = new long[tailCount];
+        double[] prices = new double[tailCount];
+        double[] volumes = new double[tailCount];
+        StatsAccumulator summary = new StatsAccumulator();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        MappedByteBuffer records = tail.map(FileChannel.MapMode.READ_ONLY, 0,
+                TAIL_HEADER_BYTES + (long) tailCount * RECORD_BYTES);
+        for (int i = 0; i < tailCount; i++) {
+            int record = TAIL_HEADER_BYTES + i * RECORD_BYTES;
+            times[i] = records.getLong(record);
+            prices[i] = records.getDouble(record + 8);
+            volumes[i] = records.getDouble(record + 16);
+            summary.add(prices[i], volumes[i]);
+            min = Math.min(min, times[i]);
+            max = Math.max(max, times[i]);
+        }
+        byte[] block = BlockCodec.encode(times, prices, volumes, tailCount);
+
+        writeFully(data, ByteBuffer.wrap(block), dataSize);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES)
+                .putLong(min)
+                .putLong(max)
+                .putLong(dataSize)
+                .putInt(block.length)
+                .putInt(tailCount)
+                .putDouble(summary.priceSum)
+                .putDouble(summary.priceSquareSum)
+                .putDouble(summary.priceVolumeSum)
+                .putDouble(summary.volumeSum)
+                .putDouble(summary.min)
+                .putDouble(summary.max);
+        // Блок должен оказаться на диске раньше подтверждающей его записи индекса
+        data.force(false);
+        writeFully(index, entry.flip(), blocks * ENTRY_BYTES);
+        index.force(false);
+        blocks++;
+        dataSize += block.length;
+        resetTail();
+        return block.length;
+    }
+
+    /**
+     * Закрывает каналы файлов.
+     *
+     * @throws IOException Если не удалось закрыть файл.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            tail.close();
+        }
+        finally {
+            try {
+                data.close();
+            }
+            finally {
+                index.close();
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        long indexSize = index.size();
+        blocks = indexSize / ENTRY_BYTES;
+        dataSize = 0;
+        // Недописанная запись индекса не подтверждает блок, как и запись, которая ссылается за конец blocks.dat,
+        // например, оставшаяся от версии, которая не сбрасывала блоки на диск
+        long dataFileSize = data.size();
+        while (blocks > 0) {
+            ByteBuffer last = readFully(index, (blocks - 1) * ENTRY_BYTES, ENTRY_BYTES);
+            dataSize = last.getLong(16) + last.getInt(24);
+            if (dataSize <= dataFileSize) {
+                break;
+            }
+            blocks--;
+            dataSize = 0;
+        }
+        index.truncate(blocks * ENTRY_BYTES);
+        data.truncate(dataSize);
+
+        long tailSize = tail.size();
+        if (tailSize >= TAIL_HEADER_BYTES && readFully(tail, 0, TAIL_HEADER_BYTES).getLong(0) == blocks) {
+            tailCount = (int) ((tailSize - TAIL_HEADER_BYTES) / RECORD_BYTES);
+            // Недописанная запись отбрасывается
+            tail.truncate(TAIL_HEADER_BYTES + (long) tailCount * RECORD_BYTES);
+            return;
+        }
+        // Файл tail.dat новый, или его котировки уже сжаты в последний блок, но файл не успели очистить
+        resetTail();
+    }
+
+    private void resetTail() throws IOException {
+        tail.truncate(0);
+        writeFully(tail, ByteBuffer.allocate(TAIL_HEADER_BYTES).putLong(0, blocks), 0);
+        tailCount = 0;
+    }
+
+    private static StatsAccumulator readSummary(ByteBuffer index, int entry) {
+        StatsAccumulator summary = new StatsAccumulator();
+        summary.count = index.getInt(entry + 28);
+        summary.priceSum = index.getDouble(entry + 32);
+        summary.priceSquareSum = index.getDouble(entry + 40);
+        summary.priceVolumeSum = index.getDouble(entry + 48);
+        summary.volumeSum = index.getDouble(entry + 56);
+        summary.min = index.getDouble(entry + 64);
+        summary.max = index.getDouble(entry + 72);
+        return summary;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void closeQuietly(FileChannel channel, IOException failure) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс AsyncRequestExecutor выполняет асинхронные запросы к Elasticsearch (методы *Async клиента) и возвращает
+ * их результаты в виде CompletableFuture, не занимая поток на время запроса.
+ * Одновременно выполняется не более ES_ASYNC_MAX_IN_FLIGHT запросов, остальные ждут в очереди. Если в очереди
+ * уже ES_ASYNC_MAX_QUEUED запросов, новый запрос сразу завершается RejectedExecutionException.
+ * Запрос, не завершившийся за ES_ASYNC_TIMEOUT_MILLIS с момента добавления, завершается TimeoutException.
+ * При тайм-ауте или отмене CompletableFuture HTTP запрос прерывается, а ожидающий в очереди запрос не отправляется.
+ * Результаты передаются в потоках клиента Elasticsearch, поэтому обработчики результатов не должны блокироваться.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class AsyncRequestExecutor {
+    private static final Map<RestHighLevelClient, AsyncRequestExecutor> EXECUTORS = new WeakHashMap<>();
+    private static final LatencyHistogram LATENCY = Metrics.histogram("es_async_request_seconds",
+            "Latency of asynchronous Elasticsearch requests, excluding time spent in the queue");
+    private static final Counter COMPLETED = Metrics.counter("es_async_requests_total",
+            "Asynchronous Elasticsearch requests by outcome", "result", "completed");
+    private static final Counter FAILED = Metrics.counter("es_async_requests_total",
+            "Asynchronous Elasticsearch requests by outcome", "result", "failed");
+    private static final Counter TIMED_OUT = Metrics.counter("es_async_requests_total",
+            "Asynchronous Elasticsearch requests by outcome", "result", "timeout");
+    private static final Counter CANCELLED = Metrics.counter("es_async_requests_total",
+            "Asynchronous Elasticsearch requests by outcome", "result", "cancelled");
+    private static final Counter REJECTED = Metrics.counter("es_async_requests_total",
+            "Asynchronous Elasticsearch requests by outcome", "result", "rejected");
+
+    private final AsyncSettings settings;
+    private final Semaphore permits;
+    private final Queue<Call<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    /**
+     * Конструктор класса AsyncRequestExecutor.
+     *
+     * @param settings Параметры асинхронных запросов.
+     */
+    public AsyncRequestExecutor(AsyncSettings settings) {
+        this.settings = settings;
+        this.permits = new Semaphore(settings.getMaxInFlight());
+        Metrics.gauge("es_async_in_flight", "Asynchronous Elasticsearch requests being executed", this::getInFlight);
+        Metrics.gauge("es_async_queued", "Asynchronous Elasticsearch requests waiting to be sent", this::getQueued);
+    }
+
+    /**
+     * Возвращает исполнитель запросов клиента. Ограничение на количество одновременных запросов защищает пул
+     * соединений клиента, поэтому все компоненты, использующие один клиент, используют и один исполнитель.
+     *
+     * @param client Экземпляр RestHighLevelClient.
+     * @return Объект AsyncRequestExecutor с параметрами из .env файла.
+     */
+    public static synchronized AsyncRequestExecutor of(RestHighLevelClient client) {
+        return EXECUTORS.computeIfAbsent(client, key -> new AsyncRequestExecutor(AsyncSettings.fromEnv()));
+    }
+
+    /**
+     * Добавляет запрос в очередь и отправляет его, как только количество выполняемых запросов это позволит.
+     *
+     * @param call Запрос, например listener -> client.searchAsync(request, RequestOptions.DEFAULT, listener).
+     * @param <T>  Тип ответа.
+     * @return Результат запроса. Отмена результата прерывает запрос.
+     */
+    public <T> CompletableFuture<T> execute(AsyncCall<T> call) {
+        Call<T> task = new Call<>(call);
+        task.result.whenComplete((value, error) -> count(error));
+        if (queued.incrementAndGet() > settings.getMaxQueued()) {
+            queued.decrementAndGet();
+            task.result.completeExceptionally(new RejectedExecutionException(
+                    "Too many queued Elasticsearch requests: " + settings.getMaxQueued()));
+            return task.result;
+        }
+        if (settings.getTimeoutMillis() > 0) {
+            task.result.orTimeout(settings.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        queue.add(task);
+        drain();
+        return task.result;
+    }
+
+    /**
+     * Возвращает количество выполняемых запросов.
+     *
+     * @return Количество запросов, отправленных и еще не завершенных.
+     */
+    public int getInFlight() {
+        return settings.getMaxInFlight() - permits.availablePermits();
+    }
+
+    /**
+     * Возвращает количество запросов в очереди.
+     *
+     * @return Количество запросов, ожидающих отправки.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Ожидает результат асинхронного запроса в текущем потоке. Используется синхронными методами,
+     * которые выполняются поверх асинхронных.
+     *
+     * @param future Результат запроса.
+     * @param <T>    Тип результата.
+     * @return Результат запроса.
+     * @throws IOException Если запрос завершился ошибкой ввода-вывода, тайм-аутом, был отменен
+     *                     или поток был прерван во время ожидания.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an Elasticsearch request", e);
+        }
+        catch (CancellationException e) {
+            throw new IOException("Elasticsearch request was cancelled", e);
+        }
+        catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    /**
+     * Возвращает исключение, с которым завершился запрос, в виде IOException. Исключения Elasticsearch
+     * и другие RuntimeException передаются без изменений.
+     *
+     * @param error Исключение из CompletableFuture.
+     * @return IOException.
+     */
+    public static IOException asIOException(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException && !(cause instanceof CancellationException)) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof TimeoutException) {
+            return new IOException("Elasticsearch request timed out", cause);
+        }
+        return new IOException(cause);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void count(Throwable error) {
+        Throwable cause = error == null ? null : unwrap(error);
+        if (cause == null) {
+            COMPLETED.increment();
+        }
+        else if (cause instanceof TimeoutException) {
+            TIMED_OUT.increment();
+        }
+        else if (cause instanceof CancellationException) {
+            CANCELLED.increment();
+        }
+        else if (cause instanceof RejectedExecutionException) {
+            REJECTED.increment();
+        }
+        else {
+            FAILED.increment();
+        }
+    }
+
+    /**
+     * Отправляет запросы из очереди, пока есть свободные места. Запросы отправляет только один поток:
+     * если очередь уже разбирается, вызов лишь просит разбирающий поток проверить очередь еще раз.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!queue.isEmpty() && permits.tryAcquire()) {
+                Call<?> task = queue.poll();
+                if (task == null) {
+                    permits.release();
+                    continue;
+                }
+                queued.decrementAndGet();
+                task.start();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void release() {
+        permits.release();
+        drain();
+    }
+
+    /**
+     * Асинхронный запрос к Elasticsearch.
+     *
+     * @param <T> Тип ответа.
+     */
+    @FunctionalInterface
+    public interface AsyncCall<T> {
+        /**
+         * Отправляет запрос.
+         *
+         * @param listener Обработчик ответа.
+         * @return Объект, прерывающий запрос.
+         */
+        Cancellable start(ActionListener<T> listener);
+    }
+
+    /**
+     * Запрос в очереди исполнителя.
+     */
+    private final class Call<T> {
+        private final AsyncCall<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Call(AsyncCall<T> call) {
+            this.call = call;
+        }
+
+        /**
+         * Отправляет запрос. Место, занятое запросом, освобождается при завершении результата.
+         */
+        void start() {
+            // Запрос отменили или он не дождался отправки
+            if (result.isDone()) {
+                release();
+                return;
+            }
+            long startedAt = System.nanoTime();
+            Cancellable cancellable;
+            try {
+                cancellable = call.start(ActionListener.wrap(result::complete, result::completeExceptionally));
+            }
+            catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                release();
+                return;
+            }
+            result.whenComplete((value, error) -> {
+                if (error != null && cancellable != null) {
+                    // Тайм-аут или отмена: HTTP запрос больше не нужен
+                    cancellable.cancel();
+                }
+                LATENCY.recordSince(startedAt);
+                release();
+            });
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс AsyncSettings содержит параметры асинхронных запросов к Elasticsearch: максимальное количество
+ * одновременно выполняемых запросов, максимальное количество запросов, ожидающих отправки, и время,
+ * за которое запрос должен завершиться.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class AsyncSettings {
+    private int maxInFlight;
+    private int maxQueued;
+    private long timeoutMillis;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект AsyncSettings.
+     */
+    public static AsyncSettings fromEnv() {
+        return new AsyncSettings(
+                EnvConfig.getInt("ES_ASYNC_MAX_IN_FLIGHT", 256),
+                EnvConfig.getInt("ES_ASYNC_MAX_QUEUED", 10000),
+                EnvConfig.getLong("ES_ASYNC_TIMEOUT_MILLIS", 30000)
+        );
+    }
+}
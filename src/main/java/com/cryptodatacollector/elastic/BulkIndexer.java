@@ -0,0 +1,269 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Класс BulkIndexer группирует документы в _bulk запросы по количеству, размеру в байтах и интервалу времени.
+ * Несколько _bulk запросов могут выполняться одновременно. Ошибки по отдельным документам
+ * не прерывают обработку пакета, а собираются в итоговый BulkIndexingResult. Документы, добавленные функцией
+ * сериализации, записываются в байты из общего DocumentBufferPool и передаются в запрос без промежуточной строки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class BulkIndexer implements Closeable {
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final LatencyHistogram BULK_LATENCY = Metrics.histogram("es_bulk_seconds",
+            "Latency of _bulk requests");
+    private static final Counter BULK_REQUESTS = Metrics.counter("es_bulk_requests_total", "_bulk requests sent");
+    private static final Counter BULK_REQUEST_FAILURES = Metrics.counter("es_bulk_request_failures_total",
+            "_bulk requests that failed as a whole");
+    private static final Counter BULK_BYTES = Metrics.counter("es_bulk_bytes_total",
+            "Estimated size of documents sent with _bulk requests");
+    private static final Counter DOCUMENTS_INDEXED = Metrics.counter("es_bulk_documents_indexed_total",
+            "Documents indexed with _bulk requests");
+    private static final Counter DOCUMENTS_FAILED = Metrics.counter("es_bulk_documents_failed_total",
+            "Documents rejected by _bulk requests or lost with a failed request");
+    private static final DocumentBufferPool BUFFERS = new DocumentBufferPool(64);
+
+    static {
+        Metrics.gauge("es_document_buffer_pages", "Pages of pooled document buffers held by threads or unsent documents",
+                BUFFERS::getPagesInUse);
+    }
+
+    private final BulkProcessor processor;
+    private final long closeTimeoutMillis;
+    private final Consumer<BulkItemFailure> failureListener;
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<BulkItemFailure> failures = Collections.synchronizedList(new ArrayList<>());
+    // Свободные писатели пакета: их не больше, чем потоков, одновременно добавлявших документы
+    private final Queue<JsonBytesWriter> writers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Конструктор класса BulkIndexer.
+     *
+     * @param client          Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param settings        Параметры пакетной индексации.
+     * @param failureListener Обработчик, который вызывается для каждого документа, который не удалось проиндексировать.
+     */
+    BulkIndexer(RestHighLevelClient client, BulkIndexerSettings settings, Consumer<BulkItemFailure> failureListener) {
+        this((request, listener) -> client.bulkAsync(request, RequestOptions.DEFAULT, listener),
+                settings, BackoffPolicy.exponentialBackoff(), failureListener);
+    }
+
+    /**
+     * Конструктор класса BulkIndexer.
+     *
+     * @param consumer        Функция, которая отправляет _bulk запрос и передает ответ обработчику.
+     * @param settings        Параметры пакетной индексации.
+     * @param backoffPolicy   Задержки повторной отправки документов, отклоненных из-за перегрузки (429).
+     * @param failureListener Обработчик, который вызывается для каждого документа, который не удалось проиндексировать.
+     */
+    BulkIndexer(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, BulkIndexerSettings settings,
+                BackoffPolicy backoffPolicy, Consumer<BulkItemFailure> failureListener) {
+        this.closeTimeoutMillis = settings.getCloseTimeoutMillis();
+        this.failureListener = failureListener;
+        this.processor = BulkProcessor.builder(
+                        (request, listener) -> {
+                            long startedAt = System.nanoTime();
+                            consumer.accept(request,
+                                    ActionListener.runBefore(listener, () -> BULK_LATENCY.recordSince(startedAt)));
+                        },
+                        new Listener(),
+                        "crypto-bulk-indexer")
+                .setBulkActions(settings.getBulkActions())
+                .setBulkSize(new ByteSizeValue(settings.getBulkSizeInBytes(), ByteSizeUnit.BYTES))
+                .setFlushInterval(TimeValue.timeValueMillis(settings.getFlushIntervalMillis()))
+                .setConcurrentRequests(settings.getConcurrentRequests())
+                .setBackoffPolicy(backoffPolicy)
+                .build();
+    }
+
+    /**
+     * Добавляет документ в очередь на индексацию. Документ будет отправлен в составе очередного _bulk запроса.
+     *
+     * @param indexName  Имя индекса, в который нужно добавить документ.
+     * @param id         Уникальный идентификатор документа.
+     * @param jsonString JSON строка с данными документа.
+     */
+    public void add(String indexName, String id, String jsonString) {
+        processor.add(new IndexRequest(indexName).id(id).source(jsonString, XContentType.JSON));
+    }
+
+    /**
+     * Добавляет документ в очередь на индексацию, сериализуя его сразу в байты из пула буферов.
+     * Буфер возвращается в пул после того, как _bulk запрос с документом выполнен.
+     *
+     * @param indexName Имя индекса, в который нужно добавить документ.
+     * @param id        Уникальный идентификатор документа.
+     * @param document  Функция, которая выводит документ.
+     */
+    public void add(String indexName, String id, Consumer<JsonBytesWriter> document) {
+        JsonBytesWriter writer = writers.poll();
+        if (writer == null) {
+            writer = BUFFERS.newWriter();
+        }
+        BytesArray source;
+        try {
+            source = BUFFERS.encode(writer, document);
+        }
+        finally {
+            writers.offer(writer);
+        }
+        try {
+            processor.add(new IndexRequest(indexName).id(id).source(source, XContentType.JSON));
+        }
+        catch (RuntimeException e) {
+            BUFFERS.release(source);
+            throw e;
+        }
+    }
+
+    /**
+     * Принудительно отправляет накопленные документы, не дожидаясь заполнения пакета.
+     */
+    public void flush() {
+        processor.flush();
+    }
+
+    /**
+     * Возвращает текущие итоги индексации.
+     *
+     * @return Объект BulkIndexingResult.
+     */
+    public BulkIndexingResult getResult() {
+        synchronized (failures) {
+            return new BulkIndexingResult(indexed.get(), failed.get(), new ArrayList<>(failures));
+        }
+    }
+
+    /**
+     * Отправляет оставшиеся документы, ожидает завершения всех выполняющихся _bulk запросов
+     * и отдает страницы писателей пакета обратно в пул.
+     *
+     * @throws IOException Если ожидание было прервано или не уложилось в заданный таймаут.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!processor.awaitClose(closeTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Bulk indexing did not complete within " + closeTimeoutMillis + " ms");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for bulk indexing to complete", e);
+        }
+        finally {
+            JsonBytesWriter writer;
+            while ((writer = writers.poll()) != null) {
+                writer.release();
+            }
+        }
+    }
+
+    private void recordFailure(BulkItemFailure failure) {
+        failed.incrementAndGet();
+        DOCUMENTS_FAILED.increment();
+        failureListener.accept(failure);
+        synchronized (failures) {
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(failure);
+            }
+        }
+    }
+
+    /**
+     * Обработчик результатов _bulk запросов.
+     */
+    private class Listener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            BULK_REQUESTS.increment();
+            BULK_BYTES.add(request.estimatedSizeInBytes());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            // После повторной отправки ответ начинается с успешных документов, поэтому порядок ответов
+            // не совпадает с порядком документов запроса, и документ ищется по индексу и идентификатору
+            Map<String, DocWriteRequest<?>> requests = response.hasFailures() ? byKey(request) : Map.of();
+            for (BulkItemResponse item : response.getItems()) {
+                if (item.isFailed()) {
+                    DocWriteRequest<?> source = requests.get(item.getIndex() + "/" + item.getId());
+                    recordFailure(new BulkItemFailure(item.getIndex(), item.getId(),
+                            item.getFailure().getStatus().getStatus(), item.getFailureMessage(),
+                            source != null ? sourceOf(source) : null));
+                }
+                else {
+                    indexed.incrementAndGet();
+                    DOCUMENTS_INDEXED.increment();
+                }
+            }
+            release(request);
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            BULK_REQUEST_FAILURES.increment();
+            for (DocWriteRequest<?> item : request.requests()) {
+                recordFailure(new BulkItemFailure(item.index(), item.id(), 0, String.valueOf(failure.getMessage()),
+                        sourceOf(item)));
+            }
+            release(request);
+        }
+
+        private void release(BulkRequest request) {
+            for (DocWriteRequest<?> item : request.requests()) {
+                if (item instanceof IndexRequest) {
+                    BUFFERS.release(((IndexRequest) item).source());
+                }
+            }
+        }
+
+        private Map<String, DocWriteRequest<?>> byKey(BulkRequest request) {
+            Map<String, DocWriteRequest<?>> requests = new HashMap<>();
+            for (DocWriteRequest<?> item : request.requests()) {
+                requests.putIfAbsent(item.index() + "/" + item.id(), item);
+            }
+            return requests;
+        }
+
+        private String sourceOf(DocWriteRequest<?> request) {
+            return request instanceof IndexRequest ? ((IndexRequest) request).source().utf8ToString() : null;
+        }
+    }
+}
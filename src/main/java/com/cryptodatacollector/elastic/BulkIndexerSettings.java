@@ -0,0 +1,37 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс BulkIndexerSettings содержит параметры пакетной индексации: максимальное количество документов
+ * и размер пакета в байтах, интервал принудительной отправки и количество одновременно выполняемых _bulk запросов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class BulkIndexerSettings {
+    private int bulkActions;
+    private long bulkSizeInBytes;
+    private long flushIntervalMillis;
+    private int concurrentRequests;
+    private long closeTimeoutMillis;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект BulkIndexerSettings.
+     */
+    public static BulkIndexerSettings fromEnv() {
+        return new BulkIndexerSettings(
+                EnvConfig.getInt("BULK_ACTIONS", 1000),
+                EnvConfig.getLong("BULK_SIZE_IN_BYTES", 5L * 1024 * 1024),
+                EnvConfig.getLong("BULK_FLUSH_INTERVAL_MILLIS", 1000),
+                EnvConfig.getInt("BULK_CONCURRENT_REQUESTS", 2),
+                EnvConfig.getLong("BULK_CLOSE_TIMEOUT_MILLIS", 60000)
+        );
+    }
+}
@@ -0,0 +1,30 @@
+package com.cryptodatacollector.elastic;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Класс BulkIndexingResult содержит итоги пакетной индексации: количество успешно проиндексированных
+ * и неудачных документов, а также первые из ошибок по отдельным документам.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class BulkIndexingResult {
+    private long indexed;
+    private long failed;
+    private List<BulkItemFailure> failures;
+
+    /**
+     * Проверяет, были ли ошибки при индексации.
+     *
+     * @return true, если хотя бы один документ не был проиндексирован.
+     */
+    public boolean hasFailures() {
+        return failed > 0;
+    }
+}
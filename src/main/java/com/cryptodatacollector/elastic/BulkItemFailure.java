@@ -0,0 +1,33 @@
+package com.cryptodatacollector.elastic;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Класс BulkItemFailure описывает документ, который не удалось проиндексировать в рамках _bulk запроса.
+ * Вместе с ошибкой сохраняется JSON документа, чтобы его можно было отправить повторно.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class BulkItemFailure {
+    private String index;
+    private String id;
+    private int status;
+    private String reason;
+    @ToString.Exclude
+    private String source;
+
+    /**
+     * Проверяет, имеет ли смысл повторить запись документа: запрос не дошел до Elasticsearch,
+     * кластер перегружен (429) или вернул внутреннюю ошибку (5xx).
+     *
+     * @return true, если ошибка временная.
+     */
+    public boolean isRetriable() {
+        return status == 0 || status == 429 || status >= 500;
+    }
+}
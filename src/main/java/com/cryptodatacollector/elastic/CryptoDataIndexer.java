@@ -1,70 +1,343 @@
 package com.cryptodatacollector.elastic;
 
-import com.cryptodatacollector.model.CryptoCurrency;
-import com.cryptodatacollector.util.LocalDateTimeAdapter;
-import com.google.gson.*;
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.sink.QuoteBatch;
+import com.cryptodatacollector.sink.QuoteSink;
+import com.cryptodatacollector.spool.DocumentSpool;
+import com.cryptodatacollector.spool.SpoolRecord;
+import com.cryptodatacollector.spool.SpoolReplayer;
+import com.cryptodatacollector.spool.SpoolSettings;
+import com.cryptodatacollector.util.EnvConfig;
 import org.elasticsearch.client.RestHighLevelClient;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
- * Класс CryptoDataIndexer отвечает за индексацию данных о криптовалютах в Elasticsearch.
- * Он преобразует данные из формата JSON в объекты CryptoCurrency и индексирует их в Elasticsearch.
+ * Класс CryptoDataIndexer отвечает за индексацию данных о криптовалютах в Elasticsearch и является основным
+ * хранилищем котировок QuoteSink.
+ * Он сериализует котировки Quote в JSON с помощью QuoteDocumentCodec прямо в буферы _bulk запросов
+ * и индексирует их в Elasticsearch пакетами.
+ * В режиме TIME_SERIES каждая котировка сохраняется отдельным документом в индексе своего периода,
+ * в режиме SNAPSHOT документ криптовалюты перезаписывается при каждом сборе данных.
+ * В режиме TIME_SERIES документы, которые не удалось записать из-за недоступности Elasticsearch, сохраняются
+ * в локальный буфер DocumentSpool и отправляются повторно в фоне после восстановления кластера.
+ * В режиме SNAPSHOT буфер не используется: повторная отправка могла бы перезаписать документ криптовалюты
+ * более старой котировкой, поэтому котировка просто индексируется заново в следующем цикле сбора данных.
+ * После закрытия каждого пакета слушатели получают символы проиндексированных в нем котировок.
  *
  * @author debugByPrintln
  * @version 1.0
  */
-public class CryptoDataIndexer {
+public class CryptoDataIndexer implements QuoteSink, Closeable {
+    private static final Counter UNCHANGED = Metrics.counter("indexer_unchanged_quotes_total",
+            "Quotes skipped because they did not change since the last indexing");
+    private static final Counter SPOOLED = Metrics.counter("indexer_spooled_documents_total",
+            "Documents saved to the local spool for replay");
+
     private final ElasticsearchClient elasticsearchClient;
     private final String indexName = "crypto_data";
-    private final Gson gson;
+    private final WriteMode writeMode;
+    private final TimeSeriesIndexManager indexManager;
+    private final BulkIndexerSettings bulkSettings;
+    private final QuoteChangeDetector changeDetector;
+    private final DocumentSpool spool;
+    private final SpoolReplayer spoolReplayer;
+    private final List<Consumer<Set<String>>> commitListeners = new CopyOnWriteArrayList<>();
 
     /**
-     * Конструктор класса CryptoDataIndexer.
+     * Конструктор класса CryptoDataIndexer. Локальный буфер документов включается параметром SPOOL_ENABLED,
+     * количество хранимых периодов задается параметром INDEX_RETENTION_PERIODS.
      *
      * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @throws UncheckedIOException Если не удалось открыть локальный буфер документов.
      */
     public CryptoDataIndexer(RestHighLevelClient client) {
+        this(client, EnvConfig.getBoolean("SPOOL_ENABLED", true), EnvConfig.getInt("INDEX_RETENTION_PERIODS", 30));
+    }
+
+    /**
+     * Конструктор класса CryptoDataIndexer.
+     *
+     * @param client           Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param spoolEnabled     Сохранять ли документы, которые не удалось записать, в локальный буфер. Буфер открывается
+     *                         только в режиме TIME_SERIES и только одним процессом.
+     * @param retentionPeriods Количество хранимых периодов в режиме TIME_SERIES. Значение 0 отключает удаление
+     *                         старых индексов, например при загрузке архивов в индексы прошедших периодов.
+     * @throws UncheckedIOException Если не удалось открыть локальный буфер документов, в том числе если его каталог
+     *                              занят другим процессом.
+     */
+    public CryptoDataIndexer(RestHighLevelClient client, boolean spoolEnabled, int retentionPeriods) {
         this.elasticsearchClient = new ElasticsearchClient(client);
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this.writeMode = WriteMode.valueOf(EnvConfig.getString("ELASTIC_WRITE_MODE", WriteMode.TIME_SERIES.name()));
+        this.indexManager = new TimeSeriesIndexManager(
+                client,
+                indexName,
+                EnvConfig.getString("ELASTIC_READ_ALIAS", indexName),
+                IndexRollover.valueOf(EnvConfig.getString("INDEX_ROLLOVER", IndexRollover.DAILY.name())),
+                retentionPeriods
+        );
+        this.bulkSettings = BulkIndexerSettings.fromEnv();
+        this.changeDetector = EnvConfig.getBoolean("SKIP_UNCHANGED_QUOTES", true) ? new QuoteChangeDetector() : null;
+
+        if (writeMode == WriteMode.TIME_SERIES && spoolEnabled) {
+            SpoolSettings spoolSettings = SpoolSettings.fromEnv();
+            try {
+                this.spool = new DocumentSpool(spoolSettings);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.spoolReplayer = new SpoolReplayer(client, spool, this::prepareIndex, bulkSettings, spoolSettings);
+            Metrics.counter("indexer_spool_rejected_documents_total",
+                    "Documents lost because the local spool was full", spool::getRejected);
+        }
+        else {
+            this.spool = null;
+            this.spoolReplayer = null;
+        }
+    }
+
+    /**
+     * Добавляет слушателя, который вызывается после закрытия каждого пакета с символами котировок,
+     * отправленных в Elasticsearch в этом пакете. Неизменившиеся котировки не учитываются.
+     *
+     * @param listener Слушатель.
+     */
+    public void addCommitListener(Consumer<Set<String>> listener) {
+        commitListeners.add(listener);
+    }
+
+    /**
+     * Открывает пакет индексации. Котировки, добавленные в пакет, отправляются в Elasticsearch с помощью _bulk запросов
+     * по мере накопления. Закрытие пакета дожидается отправки оставшихся документов и выводит итоговый отчет.
+     *
+     * @return Объект Batch.
+     * @throws IOException Если произошла ошибка при подготовке индекса.
+     */
+    @Override
+    public Batch openBatch() throws IOException {
+        if (writeMode == WriteMode.SNAPSHOT) {
+            elasticsearchClient.createIndexIfNotExists(indexName, TimeSeriesIndexManager.MAPPINGS);
+        }
+        return new Batch(elasticsearchClient.bulkIndexer(bulkSettings, this::onFailure));
+    }
+
+    /**
+     * Определяет индекс, в который нужно записать котировку.
+     *
+     * @param quote Котировка.
+     * @return Имя индекса.
+     * @throws IOException Если произошла ошибка при создании индекса периода.
+     */
+    private String targetIndex(Quote quote) throws IOException {
+        if (writeMode == WriteMode.SNAPSHOT) {
+            return indexName;
+        }
+        return indexManager.indexFor(quote.getLastUpdated());
+    }
+
+    /**
+     * Создает индекс перед повторной отправкой в него документов из локального буфера.
+     *
+     * @param targetIndex Имя индекса.
+     * @throws IOException Если произошла ошибка при создании индекса.
+     */
+    private void prepareIndex(String targetIndex) throws IOException {
+        indexManager.ensureIndex(targetIndex);
+    }
+
+    /**
+     * Формирует идентификатор документа. В режиме TIME_SERIES он состоит из идентификатора криптовалюты
+     * и времени котировки, поэтому повторно полученная котировка не создает дубликат.
+     *
+     * @param quote Котировка.
+     * @return Идентификатор документа.
+     */
+    private String documentId(Quote quote) {
+        if (writeMode == WriteMode.SNAPSHOT) {
+            return String.valueOf(quote.getCoinId());
+        }
+        return quote.getCoinId() + "_" + quote.getLastUpdated();
+    }
+
+    /**
+     * Обрабатывает документ, который не удалось проиндексировать. При временной ошибке документ сохраняется
+     * в локальный буфер. Если буфер отключен или переполнен, котировка криптовалюты забывается
+     * детектором изменений, чтобы она была проиндексирована в следующем цикле сбора данных.
+     *
+     * @param failure Описание ошибки индексации документа.
+     */
+    private void onFailure(BulkItemFailure failure) {
+        if (failure.isRetriable() && failure.getSource() != null
+                && spool(new SpoolRecord(failure.getIndex(), failure.getId(), failure.getSource()))) {
+            return;
+        }
+        if (changeDetector != null && failure.getId() != null) {
+            int separator = failure.getId().indexOf('_');
+            changeDetector.forget(separator > 0 ? failure.getId().substring(0, separator) : failure.getId());
+        }
     }
 
     /**
-     * Индексирует данные о криптовалютах в Elasticsearch.
+     * Сохраняет документ в локальный буфер.
      *
-     * @param cryptoData JsonArray с данными о криптовалютах.
-     * @throws IOException Если произошла ошибка при индексации данных.
+     * @param record Документ.
+     * @return true, если документ сохранен.
      */
-    public void indexCryptoData(JsonArray cryptoData) throws IOException {
-        elasticsearchClient.createIndexIfNotExists(indexName);
+    private boolean spool(SpoolRecord record) {
+        if (spool == null) {
+            return false;
+        }
+        try {
+            if (spool.append(record)) {
+                SPOOLED.increment();
+                return true;
+            }
+        }
+        catch (IOException e) {
+            System.out.println("-->     Failed to spool document with ID: " + record.getId() + ": " + e.getMessage());
+        }
+        return false;
+    }
 
-        for (JsonElement element : cryptoData) {
-            JsonObject cryptoCurrencyJson = element.getAsJsonObject();
-            CryptoCurrency cryptoCurrency = convertJsonToCryptoCurrency(cryptoCurrencyJson);
-            String jsonString = gson.toJson(cryptoCurrency);
-            elasticsearchClient.indexDocument(indexName, cryptoCurrency.getId(), jsonString);
+    /**
+     * Останавливает повторную отправку документов и закрывает локальный буфер, освобождая его каталог.
+     * Неотправленные документы остаются в буфере до следующего запуска.
+     */
+    @Override
+    public void close() {
+        if (spoolReplayer != null) {
+            spoolReplayer.close();
+        }
+        if (spool != null) {
+            spool.close();
         }
     }
 
     /**
-     * Преобразует JSON объект в объект CryptoCurrency.
+     * Выводит итоги пакетной индексации.
      *
-     * @param json JsonObject с данными о криптовалюте.
-     * @return Объект CryptoCurrency.
+     * @param result    Итоги пакетной индексации.
+     * @param unchanged Количество пропущенных котировок, которые не изменились с последней индексации.
      */
-    private CryptoCurrency convertJsonToCryptoCurrency(JsonObject json) {
-        String id = json.get("id").getAsString();
-        String name = json.get("name").getAsString();
-        String symbol = json.get("symbol").getAsString();
-        BigDecimal price = json.getAsJsonObject("quote").getAsJsonObject("USD").get("price").getAsBigDecimal();
-        BigDecimal volume24h = json.getAsJsonObject("quote").getAsJsonObject("USD").get("volume_24h").getAsBigDecimal();
-        BigDecimal percentChange24h = json.getAsJsonObject("quote").getAsJsonObject("USD").get("percent_change_24h").getAsBigDecimal();
-        LocalDateTime timestamp = LocalDateTime.now();
-
-        return new CryptoCurrency(id, name, symbol, price, volume24h, percentChange24h, timestamp);
+    private void report(BulkIndexingResult result, long unchanged) {
+        System.out.printf("-->     Indexed %d documents, skipped %d unchanged, failed %d \n",
+                result.getIndexed(), unchanged, result.getFailed());
+        if (spool != null && (SPOOLED.get() > 0 || spool.getRejected() > 0)) {
+            System.out.printf("-->     Spooled %d documents for replay in total, rejected %d (spool is full) \n",
+                    SPOOLED.get(), spool.getRejected());
+        }
+        for (BulkItemFailure failure : result.getFailures()) {
+            System.out.printf("-->     Failed to index document with ID: %s (status %d): %s \n",
+                    failure.getId(), failure.getStatus(), failure.getReason());
+        }
+    }
+
+    /**
+     * Класс Batch представляет один пакет индексации котировок.
+     * Метод add можно вызывать из нескольких потоков одновременно. Котировки, которые не изменились
+     * с последней индексации, отбрасываются до сериализации. Ошибки по отдельным документам
+     * не прерывают индексацию остальных и выводятся в итоговом отчете.
+     */
+    public class Batch implements QuoteBatch {
+        private final BulkIndexer bulkIndexer;
+        private final AtomicLong unchanged = new AtomicLong();
+        private final Set<String> symbols;
+
+        private Batch(BulkIndexer bulkIndexer) {
+            this.bulkIndexer = bulkIndexer;
+            // Символы собираются, только если их кто-то ждет
+            this.symbols = commitListeners.isEmpty() ? null : ConcurrentHashMap.newKeySet();
+        }
+
+        /**
+         * Добавляет котировку в пакет.
+         *
+         * @param quote Котировка.
+         * @throws UncheckedIOException Если не удалось создать индекс периода котировки и сохранить котировку в буфер.
+         */
+        @Override
+        public void add(Quote quote) {
+            if (changeDetector != null && !changeDetector.isChanged(quote)) {
+                unchanged.incrementAndGet();
+                UNCHANGED.increment();
+                return;
+            }
+            if (symbols != null) {
+                symbols.add(quote.getSymbol());
+            }
+            String documentId = documentId(quote);
+            try {
+                bulkIndexer.add(targetIndex(quote), documentId, out -> QuoteDocumentCodec.write(out, quote));
+            }
+            catch (IOException e) {
+                // Elasticsearch недоступен: котировка сохраняется в буфер и будет отправлена после восстановления кластера
+                String indexName = indexManager.indexNameFor(quote.getLastUpdated());
+                if (!spool(new SpoolRecord(indexName, documentId, QuoteDocumentCodec.toJson(quote)))) {
+                    if (changeDetector != null) {
+                        changeDetector.forget(quote.getCoinId());
+                    }
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Возвращает текущие итоги индексации пакета. После закрытия пакета итоги окончательные.
+         *
+         * @return Объект BulkIndexingResult.
+         */
+        public BulkIndexingResult getResult() {
+            return bulkIndexer.getResult();
+        }
+
+        /**
+         * Возвращает количество пропущенных котировок, которые не изменились с последней индексации.
+         *
+         * @return Количество пропущенных котировок.
+         */
+        public long getUnchanged() {
+            return unchanged.get();
+        }
+
+        /**
+         * Дожидается отправки оставшихся документов, выводит итоги, уведомляет слушателей и удаляет устаревшие индексы.
+         *
+         * @throws IOException Если произошла ошибка при завершении индексации.
+         */
+        @Override
+        public void close() throws IOException {
+            bulkIndexer.close();
+            report(bulkIndexer.getResult(), unchanged.get());
+            if (symbols != null && !symbols.isEmpty()) {
+                Set<String> committed = Set.copyOf(symbols);
+                for (Consumer<Set<String>> listener : commitListeners) {
+                    listener.accept(committed);
+                }
+            }
+
+            if (writeMode == WriteMode.TIME_SERIES) {
+                try {
+                    List<String> dropped = indexManager.applyRetentionIfDue();
+                    if (!dropped.isEmpty()) {
+                        System.out.println("-->     Dropped expired indices: " + dropped);
+                    }
+                }
+                catch (IOException e) {
+                    // Удаление устаревших индексов будет выполнено в одном из следующих циклов
+                    System.out.println("-->     Failed to apply index retention: " + e.getMessage());
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,120 @@
+package com.cryptodatacollector.elastic;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Класс DocumentBufferPool хранит страницы байт, в которые документы сериализуются перед отправкой в _bulk запросах.
+ * Писатель JsonBytesWriter пишет документы подряд в свою страницу, документ передается в IndexRequest срезом страницы
+ * без копирования. Для каждой страницы ведется счетчик ссылок: одна ссылка у писателя-владельца и по одной на каждый
+ * неотправленный документ. Когда все документы страницы отправлены, владелец начинает писать в нее сначала,
+ * а страница, которую владелец уже покинул или освободил, возвращается в пул. Писатели принадлежат пакету индексации
+ * и освобождают свои страницы при его закрытии, поэтому между пакетами страницы не закреплены за потоками.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+final class DocumentBufferPool {
+    static final int PAGE_SIZE = 64 * 1024;
+
+    private final int maxIdlePages;
+    private final Queue<byte[]> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    // Массивы сравниваются по ссылке, поэтому ключом служит сама страница
+    private final Map<byte[], AtomicInteger> inUse = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор класса DocumentBufferPool.
+     *
+     * @param maxIdlePages Максимальное количество свободных страниц, которые хранятся для повторного использования.
+     */
+    DocumentBufferPool(int maxIdlePages) {
+        this.maxIdlePages = maxIdlePages;
+    }
+
+    /**
+     * Создает писателя, который берет страницы из этого пула. Страницу писателя нужно вернуть
+     * методом JsonBytesWriter.release, когда писатель больше не нужен.
+     *
+     * @return Объект JsonBytesWriter.
+     */
+    JsonBytesWriter newWriter() {
+        return new JsonBytesWriter(this);
+    }
+
+    /**
+     * Сериализует документ в страницу писателя. Писатель не должен использоваться одновременно несколькими потоками.
+     *
+     * @param writer   Писатель, созданный методом newWriter.
+     * @param document Функция, которая выводит документ.
+     * @return Байты документа. После отправки их нужно вернуть методом release.
+     */
+    BytesArray encode(JsonBytesWriter writer, Consumer<JsonBytesWriter> document) {
+        writer.reset();
+        try {
+            document.accept(writer);
+        }
+        catch (RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+        return writer.finish();
+    }
+
+    /**
+     * Освобождает документ, полученный методом encode. Байты, полученные не из пула, игнорируются.
+     *
+     * @param source Байты документа.
+     */
+    void release(BytesReference source) {
+        if (source instanceof BytesArray) {
+            release(((BytesArray) source).array());
+        }
+    }
+
+    /**
+     * Возвращает количество страниц, в которых есть неотправленные документы или которые принадлежат писателям.
+     *
+     * @return Количество страниц.
+     */
+    int getPagesInUse() {
+        return inUse.size();
+    }
+
+    byte[] take(int minSize) {
+        byte[] page = minSize <= PAGE_SIZE ? idle.poll() : null;
+        if (page != null) {
+            idleCount.decrementAndGet();
+        }
+        else {
+            page = new byte[Math.max(minSize, PAGE_SIZE)];
+        }
+        inUse.put(page, new AtomicInteger(1));
+        return page;
+    }
+
+    AtomicInteger references(byte[] page) {
+        return inUse.get(page);
+    }
+
+    void release(byte[] page) {
+        AtomicInteger references = inUse.get(page);
+        if (references == null || references.decrementAndGet() > 0) {
+            return;
+        }
+        inUse.remove(page);
+        if (page.length == PAGE_SIZE && idleCount.incrementAndGet() <= maxIdlePages) {
+            idle.offer(page);
+        }
+        else if (page.length == PAGE_SIZE) {
+            idleCount.decrementAndGet();
+        }
+    }
+}
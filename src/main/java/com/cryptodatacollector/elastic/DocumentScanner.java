@@ -0,0 +1,277 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.ClosePointInTimeResponse;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Класс DocumentScanner читает все документы, найденные запросом, страницами постоянного размера.
+ * Чтение выполняется по point in time с search_after, поэтому оно не ограничено 10000 документами,
+ * не зависит от документов, проиндексированных во время чтения, и не держит в памяти больше одной страницы
+ * на каждый срез. При нескольких срезах (sliced scroll) документы делятся между срезами на стороне Elasticsearch,
+ * и срезы читаются параллельно. Асинхронное чтение (scanAsync) не занимает потоки: следующая страница запрашивается
+ * из обработчика ответа на предыдущую.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class DocumentScanner {
+    private static final LatencyHistogram PAGE_LATENCY = Metrics.histogram("es_scan_page_seconds",
+            "Latency of reading one page of a full index scan");
+    private static final Counter DOCUMENTS = Metrics.counter("es_scan_documents_total",
+            "Documents read by full index scans");
+
+    private final RestHighLevelClient client;
+    private final ScanSettings settings;
+    private final AsyncRequestExecutor asyncExecutor;
+
+    /**
+     * Конструктор класса DocumentScanner.
+     *
+     * @param client   Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param settings Параметры чтения.
+     */
+    public DocumentScanner(RestHighLevelClient client, ScanSettings settings) {
+        this.client = client;
+        this.settings = settings;
+        this.asyncExecutor = AsyncRequestExecutor.of(client);
+    }
+
+    /**
+     * Читает все документы, найденные запросом, и передает их обработчику страницами.
+     * При нескольких срезах обработчик вызывается из нескольких потоков одновременно, порядок документов
+     * не определен. Ошибка в одном из срезов прерывает чтение остальных.
+     *
+     * @param index   Имя индекса или псевдонима.
+     * @param request Создает запрос с условием отбора и списком полей. Размер страницы, сортировка,
+     *                point in time и срез задаются сканером.
+     * @param handler Обработчик страниц.
+     * @return Количество прочитанных документов.
+     * @throws IOException Если произошла ошибка при чтении или обработке страницы.
+     */
+    public long scan(String index, Supplier<SearchSourceBuilder> request, PageHandler handler) throws IOException {
+        TimeValue keepAlive = TimeValue.timeValueMillis(settings.getKeepAliveMillis());
+        String pointInTimeId = client.openPointInTime(new OpenPointInTimeRequest(index).keepAlive(keepAlive),
+                RequestOptions.DEFAULT).getPointInTimeId();
+        try {
+            int slices = settings.getSlices();
+            if (slices <= 1) {
+                return scanSlice(pointInTimeId, request.get(), handler);
+            }
+            return scanSlices(pointInTimeId, request, handler, slices);
+        }
+        finally {
+            closePointInTime(pointInTimeId);
+        }
+    }
+
+    /**
+     * Закрывает point in time. В прерванном потоке запрос не отправляется: клиент не выполнит его и сбросит
+     * флаг прерывания, а point in time будет закрыт Elasticsearch по истечении SCAN_KEEP_ALIVE_MILLIS.
+     */
+    private void closePointInTime(String pointInTimeId) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        try {
+            client.closePointInTime(new ClosePointInTimeRequest(pointInTimeId), RequestOptions.DEFAULT);
+        }
+        catch (IOException e) {
+            // Point in time будет закрыт Elasticsearch по истечении SCAN_KEEP_ALIVE_MILLIS
+            System.out.println("-->     Failed to close point in time: " + e.getMessage());
+        }
+    }
+
+    private long scanSlices(String pointInTimeId, Supplier<SearchSourceBuilder> request, PageHandler handler,
+                            int slices) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(slices, runnable -> {
+            Thread thread = new Thread(runnable, "es-scan-slice");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int slice = 0; slice < slices; slice++) {
+                SearchSourceBuilder source = request.get().slice(new SliceBuilder(slice, slices));
+                futures.add(workers.submit(() -> scanSlice(pointInTimeId, source, handler)));
+            }
+            long documents = 0;
+            for (Future<Long> future : futures) {
+                documents += future.get();
+            }
+            return documents;
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning documents", e);
+        }
+        finally {
+            // Остальные срезы прерываются, если один из них завершился ошибкой
+            workers.shutdownNow();
+        }
+    }
+
+    private long scanSlice(String pointInTimeId, SearchSourceBuilder source, PageHandler handler) throws IOException {
+        TimeValue keepAlive = TimeValue.timeValueMillis(settings.getKeepAliveMillis());
+        prepare(source);
+
+        String id = pointInTimeId;
+        long documents = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Прочитана только часть среза, поэтому прерывание не должно выглядеть как завершение чтения
+                throw new InterruptedIOException("Interrupted while scanning documents after " + documents
+                        + " documents of the slice");
+            }
+            source.pointInTimeBuilder(new PointInTimeBuilder(id).setKeepAlive(keepAlive));
+            long startedAt = System.nanoTime();
+            SearchResponse response = client.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+            PAGE_LATENCY.recordSince(startedAt);
+
+            SearchHit[] hits = response.getHits().getHits();
+            if (hits.length == 0) {
+                break;
+            }
+            handler.accept(hits);
+            documents += hits.length;
+            DOCUMENTS.add(hits.length);
+            if (hits.length < settings.getPageSize()) {
+                break;
+            }
+            source.searchAfter(hits[hits.length - 1].getSortValues());
+            if (response.pointInTimeId() != null) {
+                id = response.pointInTimeId();
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Асинхронно читает все документы, найденные запросом, и передает их обработчику страницами.
+     * Срезы читаются одновременно, в каждом срезе следующая страница запрашивается после обработки предыдущей.
+     * Обработчик вызывается в потоках клиента Elasticsearch и не должен блокироваться. Ошибка в одном из срезов
+     * прерывает чтение остальных после текущей страницы.
+     *
+     * @param index   Имя индекса или псевдонима.
+     * @param request Создает запрос с условием отбора и списком полей. Размер страницы, сортировка,
+     *                point in time и срез задаются сканером.
+     * @param handler Обработчик страниц.
+     * @return Количество прочитанных документов.
+     */
+    public CompletableFuture<Long> scanAsync(String index, Supplier<SearchSourceBuilder> request, PageHandler handler) {
+        TimeValue keepAlive = TimeValue.timeValueMillis(settings.getKeepAliveMillis());
+        return asyncExecutor.<OpenPointInTimeResponse>execute(listener -> client.openPointInTimeAsync(
+                        new OpenPointInTimeRequest(index).keepAlive(keepAlive), RequestOptions.DEFAULT, listener))
+                .thenCompose(pointInTime -> {
+                    String pointInTimeId = pointInTime.getPointInTimeId();
+                    int slices = Math.max(1, settings.getSlices());
+                    AtomicBoolean failed = new AtomicBoolean();
+                    List<CompletableFuture<Long>> futures = new ArrayList<>(slices);
+                    for (int slice = 0; slice < slices; slice++) {
+                        SearchSourceBuilder source = slices == 1 ? request.get()
+                                : request.get().slice(new SliceBuilder(slice, slices));
+                        futures.add(scanSliceAsync(pointInTimeId, prepare(source), handler, 0, failed));
+                    }
+                    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(done -> futures.stream().mapToLong(CompletableFuture::join).sum())
+                            .whenComplete((documents, error) -> closePointInTimeAsync(pointInTimeId));
+                });
+    }
+
+    private CompletableFuture<Long> scanSliceAsync(String pointInTimeId, SearchSourceBuilder source,
+                                                   PageHandler handler, long documents, AtomicBoolean failed) {
+        source.pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId)
+                .setKeepAlive(TimeValue.timeValueMillis(settings.getKeepAliveMillis())));
+        long startedAt = System.nanoTime();
+        return asyncExecutor.<SearchResponse>execute(listener -> client.searchAsync(
+                        new SearchRequest().source(source), RequestOptions.DEFAULT, listener))
+                .thenCompose(response -> {
+                    PAGE_LATENCY.recordSince(startedAt);
+                    SearchHit[] hits = response.getHits().getHits();
+                    if (hits.length == 0) {
+                        return CompletableFuture.completedFuture(documents);
+                    }
+                    try {
+                        handler.accept(hits);
+                    }
+                    catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                    DOCUMENTS.add(hits.length);
+                    long total = documents + hits.length;
+                    if (hits.length < settings.getPageSize() || failed.get()) {
+                        return CompletableFuture.completedFuture(total);
+                    }
+                    source.searchAfter(hits[hits.length - 1].getSortValues());
+                    String nextId = response.pointInTimeId() != null ? response.pointInTimeId() : pointInTimeId;
+                    return scanSliceAsync(nextId, source, handler, total, failed);
+                })
+                .whenComplete((total, error) -> {
+                    if (error != null) {
+                        failed.set(true);
+                    }
+                });
+    }
+
+    private void closePointInTimeAsync(String pointInTimeId) {
+        asyncExecutor.<ClosePointInTimeResponse>execute(listener -> client.closePointInTimeAsync(
+                        new ClosePointInTimeRequest(pointInTimeId), RequestOptions.DEFAULT, listener))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        // Point in time будет закрыт Elasticsearch по истечении SCAN_KEEP_ALIVE_MILLIS
+                        System.out.println("-->     Failed to close point in time: " + error.getMessage());
+                    }
+                });
+    }
+
+    private SearchSourceBuilder prepare(SearchSourceBuilder source) {
+        // Сортировка по порядку документов в шардах - самая дешевая сортировка, пригодная для search_after
+        return source.size(settings.getPageSize())
+                .sort(SortBuilders.pitTiebreaker())
+                .trackTotalHits(false);
+    }
+
+    /**
+     * Обработчик страницы документов.
+     */
+    @FunctionalInterface
+    public interface PageHandler {
+        void accept(SearchHit[] hits) throws IOException;
+    }
+}
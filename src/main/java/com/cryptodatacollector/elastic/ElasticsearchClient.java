@@ -1,33 +1,52 @@
 package com.cryptodatacollector.elastic;
 
-
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Класс ElasticsearchClient предоставляет методы для взаимодействия с Elasticsearch.
- * Он позволяет создавать индексы, индексировать документы и выполнять поисковые запросы.
+ * Он позволяет создавать индексы, индексировать документы, выполнять поисковые запросы и читать индексы целиком.
+ * Методы с суффиксом Async не блокируют вызывающий поток и возвращают CompletableFuture; они выполняются
+ * через AsyncRequestExecutor клиента, который ограничивает количество одновременных запросов и их время.
+ * Синхронные методы ожидают результат соответствующих асинхронных.
  *
  * @author debugByPrintln
  * @version 1.0
  */
 public class ElasticsearchClient {
+    private static final LatencyHistogram INDEX_LATENCY = Metrics.histogram("es_index_seconds",
+            "Latency of single-document index requests");
+    private static final Counter INDEXED = Metrics.counter("es_index_documents_total",
+            "Documents written with single-document index requests");
+
     private final RestHighLevelClient client;
+    private final AsyncRequestExecutor asyncExecutor;
 
     /**
      * Конструктор класса ElasticsearchClient.
@@ -36,6 +55,7 @@ public class ElasticsearchClient {
      */
     public ElasticsearchClient(RestHighLevelClient client) {
         this.client = client;
+        this.asyncExecutor = AsyncRequestExecutor.of(client);
     }
 
     /**
@@ -45,9 +65,42 @@ public class ElasticsearchClient {
      * @throws IOException Если произошла ошибка при создании индекса.
      */
     public void createIndexIfNotExists(String indexName) throws IOException {
-        if (!client.indices().exists(new GetIndexRequest(indexName), RequestOptions.DEFAULT)) {
-            client.indices().create(new CreateIndexRequest(indexName), RequestOptions.DEFAULT);
-        }
+        createIndexIfNotExists(indexName, null);
+    }
+
+    /**
+     * Создает индекс с заданными mappings в Elasticsearch, если он еще не существует.
+     *
+     * @param indexName Имя индекса, который нужно создать.
+     * @param mappings  JSON с описанием полей индекса или null для динамических mappings.
+     * @throws IOException Если произошла ошибка при создании индекса.
+     */
+    public void createIndexIfNotExists(String indexName, String mappings) throws IOException {
+        AsyncRequestExecutor.await(createIndexIfNotExistsAsync(indexName, mappings));
+    }
+
+    /**
+     * Асинхронно создает индекс с заданными mappings в Elasticsearch, если он еще не существует.
+     *
+     * @param indexName Имя индекса, который нужно создать.
+     * @param mappings  JSON с описанием полей индекса или null для динамических mappings.
+     * @return Результат, который завершается после проверки и создания индекса.
+     */
+    public CompletableFuture<Void> createIndexIfNotExistsAsync(String indexName, String mappings) {
+        return asyncExecutor.<Boolean>execute(listener -> client.indices().existsAsync(
+                        new GetIndexRequest(indexName), RequestOptions.DEFAULT, listener))
+                .thenCompose(exists -> {
+                    if (exists) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    CreateIndexRequest request = new CreateIndexRequest(indexName);
+                    if (mappings != null) {
+                        request.mapping(mappings, XContentType.JSON);
+                    }
+                    return asyncExecutor.<CreateIndexResponse>execute(listener -> client.indices().createAsync(
+                                    request, RequestOptions.DEFAULT, listener))
+                            .thenApply(response -> null);
+                });
     }
 
     /**
@@ -59,31 +112,121 @@ public class ElasticsearchClient {
      * @throws IOException Если произошла ошибка при индексации документа.
      */
     public void indexDocument(String indexName, String id, String jsonString) throws IOException {
+        AsyncRequestExecutor.await(indexDocumentAsync(indexName, id, jsonString));
+    }
+
+    /**
+     * Асинхронно индексирует документ в Elasticsearch.
+     *
+     * @param indexName  Имя индекса, в который нужно добавить документ.
+     * @param id         Уникальный идентификатор документа.
+     * @param jsonString JSON строка с данными документа.
+     * @return Результат, который завершается после индексации документа.
+     */
+    public CompletableFuture<Void> indexDocumentAsync(String indexName, String id, String jsonString) {
         IndexRequest request = new IndexRequest(indexName).id(id).source(jsonString, XContentType.JSON);
-        IndexResponse response = client.index(request, RequestOptions.DEFAULT);
+        long startedAt = System.nanoTime();
+        return asyncExecutor.<IndexResponse>execute(listener -> client.indexAsync(request, RequestOptions.DEFAULT, listener))
+                .thenApply(response -> {
+                    INDEX_LATENCY.recordSince(startedAt);
+                    INDEXED.increment();
+                    return null;
+                });
+    }
 
-        System.out.println("-->     Indexed document with ID: " + response.getId());
+    /**
+     * Асинхронно выполняет поисковый запрос.
+     *
+     * @param request Поисковый запрос.
+     * @return Ответ Elasticsearch.
+     */
+    public CompletableFuture<SearchResponse> searchAsync(SearchRequest request) {
+        return asyncExecutor.execute(listener -> client.searchAsync(request, RequestOptions.DEFAULT, listener));
     }
 
     /**
-     * Выполняет поиск всех документов в указанном индексе.
+     * Асинхронно выполняет несколько поисковых запросов одним запросом _msearch.
+     *
+     * @param request Поисковые запросы.
+     * @return Ответ Elasticsearch. Ошибки отдельных запросов содержатся в элементах ответа.
+     */
+    public CompletableFuture<MultiSearchResponse> multiSearchAsync(MultiSearchRequest request) {
+        return asyncExecutor.execute(listener -> client.msearchAsync(request, RequestOptions.DEFAULT, listener));
+    }
+
+    /**
+     * Создает пакетный индексатор, который отправляет документы в Elasticsearch с помощью _bulk запросов.
+     * После добавления всех документов индексатор необходимо закрыть, чтобы дождаться отправки оставшихся пакетов.
+     *
+     * @param settings Параметры пакетной индексации.
+     * @return Объект BulkIndexer.
+     */
+    public BulkIndexer bulkIndexer(BulkIndexerSettings settings) {
+        return bulkIndexer(settings, failure -> { });
+    }
+
+    /**
+     * Создает пакетный индексатор с обработчиком ошибок индексации отдельных документов.
+     * Обработчик вызывается из потоков клиента Elasticsearch и должен быть потокобезопасным.
+     *
+     * @param settings        Параметры пакетной индексации.
+     * @param failureListener Обработчик документов, которые не удалось проиндексировать.
+     * @return Объект BulkIndexer.
+     */
+    public BulkIndexer bulkIndexer(BulkIndexerSettings settings, Consumer<BulkItemFailure> failureListener) {
+        return new BulkIndexer(client, settings, failureListener);
+    }
+
+    /**
+     * Читает все документы, найденные запросом, страницами через point in time и search_after.
+     * Обработчик получает исходные документы и при нескольких срезах вызывается из нескольких потоков.
+     *
+     * @param indexName Имя индекса или псевдонима.
+     * @param query     Условие отбора документов.
+     * @param settings  Параметры чтения.
+     * @param handler   Обработчик страниц.
+     * @return Количество прочитанных документов.
+     * @throws IOException Если произошла ошибка при чтении или обработке страницы.
+     */
+    public long scanDocuments(String indexName, QueryBuilder query, ScanSettings settings,
+                              DocumentScanner.PageHandler handler) throws IOException {
+        return new DocumentScanner(client, settings).scan(indexName, () -> new SearchSourceBuilder().query(query), handler);
+    }
+
+    /**
+     * Выполняет поиск всех документов в указанном индексе. Все документы загружаются в память,
+     * поэтому для больших индексов следует использовать scanDocuments.
      *
      * @param indexName Имя индекса, в котором нужно выполнить поиск.
      * @return JsonArray с найденными документами.
      * @throws IOException Если произошла ошибка при выполнении поискового запроса.
      */
     public JsonArray searchAllDocuments(String indexName) throws IOException {
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-        sourceBuilder.query(QueryBuilders.matchAllQuery());
-        searchRequest.source(sourceBuilder);
+        return AsyncRequestExecutor.await(searchAllDocumentsAsync(indexName));
+    }
 
-        SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+    /**
+     * Асинхронно выполняет поиск всех документов в указанном индексе. Все документы загружаются в память,
+     * поэтому для больших индексов следует использовать scanDocuments.
+     *
+     * @param indexName Имя индекса, в котором нужно выполнить поиск.
+     * @return JsonArray с найденными документами.
+     */
+    public CompletableFuture<JsonArray> searchAllDocumentsAsync(String indexName) {
         JsonArray hitsArray = new JsonArray();
-        for (SearchHit hit : searchResponse.getHits().getHits()) {
-            JsonElement jsonElement = JsonParser.parseString(hit.getSourceAsString());
-            hitsArray.add(jsonElement);
-        }
-        return hitsArray;
+        ScanSettings settings = ScanSettings.fromEnv();
+        // Страницы одного среза обрабатываются по очереди, поэтому массив заполняется без синхронизации
+        settings.setSlices(1);
+        return new DocumentScanner(client, settings).scanAsync(indexName,
+                        () -> new SearchSourceBuilder().query(QueryBuilders.matchAllQuery()), hits -> {
+                            for (SearchHit hit : hits) {
+                                // Документ разбирается прямо из байтов ответа, без промежуточной строки
+                                try (Reader reader = new InputStreamReader(hit.getSourceRef().streamInput(),
+                                        StandardCharsets.UTF_8)) {
+                                    hitsArray.add(JsonParser.parseReader(reader));
+                                }
+                            }
+                        })
+                .thenApply(documents -> hitsArray);
     }
-}
\ No newline at end of file
+}
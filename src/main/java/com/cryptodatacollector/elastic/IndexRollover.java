@@ -0,0 +1,64 @@
+package com.cryptodatacollector.elastic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Перечисление IndexRollover задает период, за который котировки хранятся в одном индексе.
+ * Имя индекса формируется из базового имени и начала периода, например crypto_data-2024.11.12.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum IndexRollover {
+    DAILY(DateTimeFormatter.ofPattern("yyyy.MM.dd"), ChronoUnit.DAYS),
+    HOURLY(DateTimeFormatter.ofPattern("yyyy.MM.dd.HH"), ChronoUnit.HOURS);
+
+    private final DateTimeFormatter formatter;
+    private final ChronoUnit unit;
+
+    IndexRollover(DateTimeFormatter formatter, ChronoUnit unit) {
+        this.formatter = formatter;
+        this.unit = unit;
+    }
+
+    /**
+     * Возвращает суффикс имени индекса для периода, в который попадает указанное время.
+     *
+     * @param time Время котировки в UTC.
+     * @return Суффикс имени индекса.
+     */
+    public String suffixFor(LocalDateTime time) {
+        return formatter.format(time.truncatedTo(unit));
+    }
+
+    /**
+     * Определяет время начала периода по суффиксу имени индекса.
+     *
+     * @param suffix Суффикс имени индекса.
+     * @return Время начала периода или null, если суффикс не соответствует формату.
+     */
+    public LocalDateTime parseSuffix(String suffix) {
+        try {
+            if (this == DAILY) {
+                return LocalDate.parse(suffix, formatter).atStartOfDay();
+            }
+            return LocalDateTime.parse(suffix + ".00", DateTimeFormatter.ofPattern("yyyy.MM.dd.HH.mm"));
+        }
+        catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Возвращает единицу времени, соответствующую периоду.
+     *
+     * @return Единица времени.
+     */
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+}
@@ -0,0 +1,250 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.util.IsoDateTime;
+import org.elasticsearch.common.bytes.BytesArray;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс JsonBytesWriter записывает JSON документ сразу в байты UTF-8, без промежуточной строки.
+ * Писатель, созданный DocumentBufferPool, пишет документы подряд в страницу пула и возвращает их как срезы страницы.
+ * Страница используется повторно, когда все документы в ней отправлены. Писатель, созданный конструктором
+ * без параметров, пишет в собственный буфер и годится для однократной сериализации и тестов.
+ * Экземпляр не потокобезопасен.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class JsonBytesWriter {
+    private static final int INITIAL_SIZE = 256;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final DocumentBufferPool pool;
+    private final StringBuilder scratch = new StringBuilder(32);
+    private byte[] buffer;
+    private AtomicInteger references;
+    private int start;
+    private int position;
+
+    /**
+     * Создает писатель с собственным буфером.
+     */
+    public JsonBytesWriter() {
+        this(null);
+    }
+
+    JsonBytesWriter(DocumentBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Начинает новый документ. Собственный буфер очищается, страница пула очищается, если в ней
+     * не осталось неотправленных документов.
+     *
+     * @return Этот писатель.
+     */
+    public JsonBytesWriter reset() {
+        if (pool == null || (references != null && references.get() == 1)) {
+            position = 0;
+        }
+        start = position;
+        return this;
+    }
+
+    /**
+     * Возвращает длину текущего документа в байтах.
+     *
+     * @return Длина документа.
+     */
+    public int length() {
+        return position - start;
+    }
+
+    /**
+     * Выводит строку без экранирования. Предназначен для имен полей и разделителей, состоящих из символов ASCII.
+     *
+     * @param ascii Строка ASCII.
+     * @return Этот писатель.
+     */
+    public JsonBytesWriter raw(String ascii) {
+        int length = ascii.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Выводит строковое значение JSON в кавычках с экранированием.
+     *
+     * @param value Строка.
+     * @return Этот писатель.
+     */
+    public JsonBytesWriter string(String value) {
+        int length = value.length();
+        // В худшем случае управляющий символ занимает 6 байт, а символ UTF-8 - 3 байта
+        ensure(length * 6 + 2);
+        buffer[position++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            }
+            else if (c < 0x20) {
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xF];
+            }
+            else if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+            else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            }
+            else {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        buffer[position++] = '"';
+        return this;
+    }
+
+    /**
+     * Выводит целое число.
+     *
+     * @param value Число.
+     * @return Этот писатель.
+     */
+    public JsonBytesWriter number(long value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        return flushScratch();
+    }
+
+    /**
+     * Выводит число FixedDecimal в десятичной записи без экспоненты.
+     *
+     * @param value Значение FixedDecimal.
+     * @return Этот писатель.
+     */
+    public JsonBytesWriter decimal(long value) {
+        scratch.setLength(0);
+        FixedDecimal.append(scratch, value);
+        return flushScratch();
+    }
+
+    /**
+     * Выводит время в формате ISO_LOCAL_DATE_TIME без кавычек.
+     *
+     * @param millis Время в миллисекундах UTC.
+     * @return Этот писатель.
+     */
+    public JsonBytesWriter isoLocal(long millis) {
+        scratch.setLength(0);
+        IsoDateTime.appendLocal(scratch, millis);
+        return flushScratch();
+    }
+
+    /**
+     * Возвращает текущий документ в виде строки.
+     *
+     * @return JSON документа.
+     */
+    @Override
+    public String toString() {
+        return buffer == null ? "" : new String(buffer, start, length(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Завершает документ в странице пула и возвращает его срез. Срез остается действительным,
+     * пока он не возвращен в пул методом DocumentBufferPool.release.
+     *
+     * @return Байты документа.
+     */
+    BytesArray finish() {
+        if (references != null) {
+            references.incrementAndGet();
+        }
+        return new BytesArray(buffer, start, length());
+    }
+
+    /**
+     * Отбрасывает недописанный документ.
+     */
+    void abort() {
+        position = start;
+    }
+
+    /**
+     * Отдает страницу пула: она вернется в пул, как только будут отправлены документы в ней.
+     * Следующий документ писатель начнет в новой странице.
+     */
+    void release() {
+        if (pool != null && buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+            references = null;
+            start = 0;
+            position = 0;
+        }
+    }
+
+    private JsonBytesWriter flushScratch() {
+        int length = scratch.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) scratch.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Гарантирует место для указанного количества байт. Если место закончилось, начатый документ переносится
+     * в новую страницу, а старая страница освобождается, как только будут отправлены документы в ней.
+     */
+    private void ensure(int bytes) {
+        if (buffer != null && position + bytes <= buffer.length) {
+            return;
+        }
+        int length = length();
+        byte[] next;
+        if (pool != null) {
+            next = pool.take(length + bytes);
+        }
+        else {
+            next = new byte[Math.max(INITIAL_SIZE, Math.max(length + bytes, length * 2))];
+        }
+        if (buffer != null) {
+            System.arraycopy(buffer, start, next, 0, length);
+        }
+        if (pool != null) {
+            if (buffer != null) {
+                pool.release(buffer);
+            }
+            references = pool.references(next);
+        }
+        buffer = next;
+        start = 0;
+        position = length;
+    }
+}
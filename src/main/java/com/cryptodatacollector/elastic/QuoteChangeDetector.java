@@ -0,0 +1,100 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.model.Quote;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Класс QuoteChangeDetector определяет, изменилась ли котировка криптовалюты с момента последней индексации.
+ * Для каждой криптовалюты хранится 64-битный отпечаток, вычисленный из времени обновления котировки в CoinMarketCap,
+ * цены, объема торгов и процентного изменения цены. Котировки с тем же отпечатком повторно не индексируются.
+ * Отпечатки хранятся в страницах AtomicLongArray по идентификатору криптовалюты в CoinMarketCap, поэтому проверка
+ * котировки не выделяет памяти; страницы создаются только для новых диапазонов идентификаторов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QuoteChangeDetector {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    // 0 означает, что отпечаток неизвестен, поэтому у настоящих отпечатков младший бит всегда установлен
+    private static final long UNKNOWN = 0;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[16];
+
+    /**
+     * Проверяет, отличается ли котировка от последней учтенной, и запоминает ее отпечаток.
+     *
+     * @param quote Котировка.
+     * @return true, если котировка новая или изменилась.
+     */
+    public boolean isChanged(Quote quote) {
+        if (quote.getCoinId() < 0) {
+            return true;
+        }
+        long fingerprint = fingerprint(quote);
+        AtomicLongArray page = page(quote.getCoinId(), true);
+        return page.getAndSet(quote.getCoinId() & PAGE_SIZE - 1, fingerprint) != fingerprint;
+    }
+
+    /**
+     * Забывает отпечаток криптовалюты, чтобы ее следующая котировка была проиндексирована,
+     * например, после неудачной индексации.
+     *
+     * @param coinId Идентификатор криптовалюты.
+     */
+    public void forget(String coinId) {
+        try {
+            forget(Integer.parseInt(coinId));
+        }
+        catch (NumberFormatException e) {
+            // У котировок с нечисловым идентификатором отпечаток не хранится
+        }
+    }
+
+    /**
+     * Забывает отпечаток криптовалюты, чтобы ее следующая котировка была проиндексирована.
+     *
+     * @param coinId Идентификатор криптовалюты в CoinMarketCap.
+     */
+    public void forget(int coinId) {
+        AtomicLongArray page = coinId >= 0 ? page(coinId, false) : null;
+        if (page != null) {
+            page.set(coinId & PAGE_SIZE - 1, UNKNOWN);
+        }
+    }
+
+    private AtomicLongArray page(int coinId, boolean create) {
+        int index = coinId >>> PAGE_BITS;
+        AtomicLongArray[] current = pages;
+        AtomicLongArray page = index < current.length ? current[index] : null;
+        if (page != null || !create) {
+            return page;
+        }
+        synchronized (this) {
+            current = pages;
+            if (index < current.length && current[index] != null) {
+                return current[index];
+            }
+            // Каталог страниц копируется при каждом изменении, чтобы читатели без блокировки видели его целиком
+            AtomicLongArray[] updated = Arrays.copyOf(current, Math.max(current.length, Integer.highestOneBit(index) * 2));
+            updated[index] = new AtomicLongArray(PAGE_SIZE);
+            pages = updated;
+            return updated[index];
+        }
+    }
+
+    private static long fingerprint(Quote quote) {
+        long hash = quote.getLastUpdated();
+        hash = mix(hash, quote.getPrice());
+        hash = mix(hash, quote.getVolume24h());
+        hash = mix(hash, quote.getPercentChange24h());
+        return hash | 1;
+    }
+
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0xFF51AFD7ED558CCDL;
+        return (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.InternTable;
+import com.cryptodatacollector.model.Quote;
+import org.elasticsearch.common.document.DocumentField;
+
+import java.util.Map;
+
+/**
+ * Класс QuoteDocumentCodec преобразует котировки Quote в документы Elasticsearch и обратно без рефлексии.
+ * Документ выводится сразу в байты UTF-8 через JsonBytesWriter.
+ * Документ совпадает с тем, что получался при сериализации CryptoCurrency через Gson: те же поля в том же порядке,
+ * время в формате ISO_LOCAL_DATE_TIME, отсутствующие значения не выводятся. Числа выводятся из FixedDecimal
+ * в десятичной записи без экспоненты, поэтому точность значений из API сохраняется.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class QuoteDocumentCodec {
+
+    private QuoteDocumentCodec() {
+    }
+
+    /**
+     * Выводит документ котировки.
+     *
+     * @param out   Писатель JSON.
+     * @param quote Котировка.
+     */
+    public static void write(JsonBytesWriter out, Quote quote) {
+        out.raw("{\"id\":\"").number(quote.getCoinId()).raw("\"");
+        if (quote.getNameId() >= 0) {
+            out.raw(",\"name\":").string(quote.getName());
+        }
+        out.raw(",\"symbol\":").string(quote.getSymbol());
+        writeDecimal(out, ",\"price\":", quote.getPrice());
+        writeDecimal(out, ",\"volume24h\":", quote.getVolume24h());
+        writeDecimal(out, ",\"percentChange24h\":", quote.getPercentChange24h());
+        out.raw(",\"timestamp\":\"").isoLocal(quote.getTimestamp())
+                .raw("\",\"lastUpdated\":\"").isoLocal(quote.getLastUpdated())
+                .raw("\"}");
+    }
+
+    /**
+     * Возвращает документ котировки в виде строки. Используется вне пути индексации: для локального буфера и тестов.
+     *
+     * @param quote Котировка.
+     * @return JSON документа.
+     */
+    public static String toJson(Quote quote) {
+        JsonBytesWriter out = new JsonBytesWriter();
+        write(out, quote);
+        return out.toString();
+    }
+
+    /**
+     * Создает котировку из значений doc_values документа.
+     *
+     * @param fields Поля документа, запрошенные через docvalue_fields. Даты ожидаются в формате epoch_millis.
+     * @return Объект Quote.
+     */
+    public static Quote fromDocValues(Map<String, DocumentField> fields) {
+        long timestamp = longValue(fields.get("timestamp"), 0);
+        return new Quote(
+                (int) Long.parseLong(fields.get("id").getValue().toString()),
+                fields.get("name") != null ? InternTable.NAMES.intern(fields.get("name").getValue().toString()) : -1,
+                InternTable.SYMBOLS.intern(fields.get("symbol").getValue().toString()),
+                decimalValue(fields.get("price")),
+                decimalValue(fields.get("volume24h")),
+                decimalValue(fields.get("percentChange24h")),
+                timestamp,
+                longValue(fields.get("lastUpdated"), timestamp)
+        );
+    }
+
+    private static void writeDecimal(JsonBytesWriter out, String field, long value) {
+        if (!FixedDecimal.isNull(value)) {
+            out.raw(field).decimal(value);
+        }
+    }
+
+    private static long decimalValue(DocumentField field) {
+        return field == null ? FixedDecimal.NULL : FixedDecimal.fromDouble(((Number) field.getValue()).doubleValue());
+    }
+
+    private static long longValue(DocumentField field, long defaultValue) {
+        if (field == null) {
+            return defaultValue;
+        }
+        Object value = field.getValue();
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+    }
+}
@@ -0,0 +1,33 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс ScanSettings содержит параметры полного чтения индекса: количество документов на странице,
+ * количество параллельно читаемых срезов и время, на которое Elasticsearch сохраняет point in time между страницами.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ScanSettings {
+    private int pageSize;
+    private int slices;
+    private long keepAliveMillis;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект ScanSettings.
+     */
+    public static ScanSettings fromEnv() {
+        return new ScanSettings(
+                EnvConfig.getInt("SCAN_PAGE_SIZE", 5000),
+                EnvConfig.getInt("SCAN_SLICES", 4),
+                EnvConfig.getLong("SCAN_KEEP_ALIVE_MILLIS", 60000)
+        );
+    }
+}
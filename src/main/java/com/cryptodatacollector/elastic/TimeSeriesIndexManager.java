@@ -0,0 +1,268 @@
+package com.cryptodatacollector.elastic;
+
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.PutComposableIndexTemplateRequest;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.cluster.metadata.ComposableIndexTemplate;
+import org.elasticsearch.cluster.metadata.Template;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.ElasticsearchStatusException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Класс TimeSeriesIndexManager управляет индексами котировок, разбитыми по времени.
+ * Каждый период (день или час) хранится в отдельном индексе вида crypto_data-YYYY.MM.DD.
+ * Все такие индексы входят в псевдоним для чтения. Котировки записываются напрямую в индекс своего периода,
+ * поэтому поздние котировки и загруженные архивы попадают в индекс прошедшего периода, а не текущего.
+ * Устаревшие данные удаляются целыми индексами, без delete_by_query.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class TimeSeriesIndexManager {
+    static final String MAPPINGS = "{\"properties\":{"
+            + "\"id\":{\"type\":\"keyword\"},"
+            + "\"name\":{\"type\":\"keyword\"},"
+            + "\"symbol\":{\"type\":\"keyword\"},"
+            + "\"price\":{\"type\":\"double\"},"
+            + "\"volume24h\":{\"type\":\"double\"},"
+            + "\"percentChange24h\":{\"type\":\"double\"},"
+            + "\"timestamp\":{\"type\":\"date\"},"
+            + "\"lastUpdated\":{\"type\":\"date\"}"
+            + "}}";
+    private static final Duration RETENTION_CHECK_INTERVAL = Duration.ofHours(1);
+
+    private final RestHighLevelClient client;
+    private final String baseName;
+    private final String readAlias;
+    private final IndexRollover rollover;
+    private final int retentionPeriods;
+    private final Set<String> knownIndices = ConcurrentHashMap.newKeySet();
+    private volatile boolean templateInstalled;
+    private volatile LocalDateTime nextRetentionCheck = LocalDateTime.MIN;
+    private volatile PeriodIndex lastPeriod;
+
+    /**
+     * Конструктор класса TimeSeriesIndexManager.
+     *
+     * @param client           Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param baseName         Базовое имя индексов, например crypto_data.
+     * @param readAlias        Псевдоним, через который выполняются поисковые запросы по всем периодам.
+     * @param rollover         Период, за который котировки хранятся в одном индексе.
+     * @param retentionPeriods Количество хранимых периодов. Значение 0 отключает удаление старых индексов.
+     */
+    public TimeSeriesIndexManager(RestHighLevelClient client, String baseName, String readAlias,
+                                  IndexRollover rollover, int retentionPeriods) {
+        this.client = client;
+        this.baseName = baseName;
+        this.readAlias = readAlias;
+        this.rollover = rollover;
+        this.retentionPeriods = retentionPeriods;
+    }
+
+    /**
+     * Возвращает имя индекса для котировки с указанным временем, при необходимости создавая его.
+     *
+     * @param quoteTime Время котировки в UTC.
+     * @return Имя индекса.
+     * @throws IOException Если произошла ошибка при создании индекса или шаблона.
+     */
+    public String indexFor(LocalDateTime quoteTime) throws IOException {
+        String indexName = indexNameFor(quoteTime);
+        ensureIndex(indexName);
+        return indexName;
+    }
+
+    /**
+     * Возвращает имя индекса для котировки с указанным временем, не обращаясь к Elasticsearch.
+     *
+     * @param quoteTime Время котировки в UTC.
+     * @return Имя индекса.
+     */
+    public String indexNameFor(LocalDateTime quoteTime) {
+        return baseName + "-" + rollover.suffixFor(quoteTime);
+    }
+
+    /**
+     * Возвращает имя индекса для котировки с указанным временем, при необходимости создавая его.
+     *
+     * @param quoteMillis Время котировки в миллисекундах UTC.
+     * @return Имя индекса.
+     * @throws IOException Если произошла ошибка при создании индекса или шаблона.
+     */
+    public String indexFor(long quoteMillis) throws IOException {
+        String indexName = indexNameFor(quoteMillis);
+        ensureIndex(indexName);
+        return indexName;
+    }
+
+    /**
+     * Возвращает имя индекса для котировки с указанным временем, не обращаясь к Elasticsearch.
+     * Имя индекса последнего периода запоминается, поэтому для котировок одного периода строка не создается заново.
+     *
+     * @param quoteMillis Время котировки в миллисекундах UTC.
+     * @return Имя индекса.
+     */
+    public String indexNameFor(long quoteMillis) {
+        PeriodIndex period = lastPeriod;
+        if (period != null && quoteMillis >= period.startMillis && quoteMillis < period.endMillis) {
+            return period.indexName;
+        }
+        long length = rollover.getUnit().getDuration().toMillis();
+        long start = Math.floorDiv(quoteMillis, length) * length;
+        period = new PeriodIndex(start, start + length,
+                indexNameFor(LocalDateTime.ofInstant(Instant.ofEpochMilli(start), ZoneOffset.UTC)));
+        lastPeriod = period;
+        return period.indexName;
+    }
+
+    /**
+     * Создает индекс периода, если он еще не создан.
+     *
+     * @param indexName Имя индекса периода.
+     * @throws IOException Если произошла ошибка при создании индекса или шаблона.
+     */
+    public void ensureIndex(String indexName) throws IOException {
+        if (knownIndices.contains(indexName)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!knownIndices.contains(indexName)) {
+                installTemplate();
+                createIndex(indexName);
+                knownIndices.add(indexName);
+            }
+        }
+    }
+
+    /**
+     * Удаляет индексы, период которых вышел за пределы срока хранения.
+     * Проверка выполняется не чаще одного раза в час.
+     *
+     * @return Список удаленных индексов.
+     * @throws IOException Если произошла ошибка при получении списка или удалении индексов.
+     */
+    public List<String> applyRetentionIfDue() throws IOException {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        if (retentionPeriods <= 0 || now.isBefore(nextRetentionCheck)) {
+            return Collections.emptyList();
+        }
+        nextRetentionCheck = now.plus(RETENTION_CHECK_INTERVAL);
+
+        String[] indices = client.indices()
+                .get(new GetIndexRequest(baseName + "-*"), RequestOptions.DEFAULT)
+                .getIndices();
+
+        List<String> expired = expiredIndices(indices, now);
+        if (!expired.isEmpty()) {
+            client.indices().delete(new DeleteIndexRequest(expired.toArray(new String[0])), RequestOptions.DEFAULT);
+            expired.forEach(knownIndices::remove);
+        }
+        return expired;
+    }
+
+    /**
+     * Выбирает индексы, период которых начался раньше последних retentionPeriods периодов, включая текущий.
+     * Индексы с именем, не соответствующим формату периода, не выбираются.
+     *
+     * @param indices Имена индексов вида baseName-суффикс.
+     * @param now     Текущее время в UTC.
+     * @return Список устаревших индексов.
+     */
+    List<String> expiredIndices(String[] indices, LocalDateTime now) {
+        LocalDateTime cutoff = now.truncatedTo(rollover.getUnit()).minus(retentionPeriods, rollover.getUnit());
+        List<String> expired = new ArrayList<>();
+        for (String index : indices) {
+            if (!index.startsWith(baseName + "-")) {
+                continue;
+            }
+            LocalDateTime periodStart = rollover.parseSuffix(index.substring(baseName.length() + 1));
+            if (periodStart != null && periodStart.isBefore(cutoff)) {
+                expired.add(index);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Возвращает псевдоним для чтения.
+     *
+     * @return Псевдоним для чтения.
+     */
+    public String getReadAlias() {
+        return readAlias;
+    }
+
+    private void installTemplate() throws IOException {
+        if (templateInstalled) {
+            return;
+        }
+
+        if (!client.indices().existsAlias(new GetAliasesRequest(readAlias), RequestOptions.DEFAULT)
+                && client.indices().exists(new GetIndexRequest(readAlias), RequestOptions.DEFAULT)) {
+            throw new IllegalStateException("Index [" + readAlias + "] already exists and cannot be used as a read alias. "
+                    + "Reindex or delete it, or set ELASTIC_READ_ALIAS to a different name");
+        }
+
+        Template template = new Template(
+                Settings.EMPTY,
+                new CompressedXContent(MAPPINGS),
+                Map.of(readAlias, AliasMetadata.builder(readAlias).build())
+        );
+        ComposableIndexTemplate indexTemplate = new ComposableIndexTemplate(
+                List.of(baseName + "-*"), template, null, null, null, null);
+        client.indices().putIndexTemplate(
+                new PutComposableIndexTemplateRequest().name(baseName).indexTemplate(indexTemplate),
+                RequestOptions.DEFAULT);
+        templateInstalled = true;
+    }
+
+    private void createIndex(String indexName) throws IOException {
+        if (client.indices().exists(new GetIndexRequest(indexName), RequestOptions.DEFAULT)) {
+            return;
+        }
+        try {
+            client.indices().create(new CreateIndexRequest(indexName), RequestOptions.DEFAULT);
+        }
+        catch (ElasticsearchStatusException e) {
+            // Индекс мог быть создан параллельно другим экземпляром приложения
+            if (e.status() != RestStatus.BAD_REQUEST || !e.getMessage().contains("resource_already_exists_exception")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Период и имя его индекса.
+     */
+    private static final class PeriodIndex {
+        private final long startMillis;
+        private final long endMillis;
+        private final String indexName;
+
+        private PeriodIndex(long startMillis, long endMillis, String indexName) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.indexName = indexName;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.cryptodatacollector.elastic;
+
+/**
+ * Перечисление WriteMode задает способ хранения котировок в Elasticsearch.
+ * SNAPSHOT - одна запись на криптовалюту в индексе crypto_data, которая перезаписывается при каждом сборе данных.
+ * TIME_SERIES - все котировки сохраняются в индексах, разбитых по времени, и доступны через псевдоним для чтения.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum WriteMode {
+    SNAPSHOT,
+    TIME_SERIES
+}
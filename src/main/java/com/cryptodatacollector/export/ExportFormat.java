@@ -0,0 +1,14 @@
+package com.cryptodatacollector.export;
+
+/**
+ * Перечисление ExportFormat задает формат файла выгрузки котировок.
+ * NDJSON - исходные документы Elasticsearch, по одному в строке. CSV - строка заголовка и по одной строке
+ * на котировку, значения читаются из doc values без разбора исходных документов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
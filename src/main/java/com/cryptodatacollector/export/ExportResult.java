@@ -0,0 +1,19 @@
+package com.cryptodatacollector.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс ExportResult содержит итоги выгрузки котировок: количество выгруженных документов,
+ * количество записанных байтов до сжатия и время выгрузки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ExportResult {
+    private long documents;
+    private long bytes;
+    private long elapsedMillis;
+}
@@ -0,0 +1,44 @@
+package com.cryptodatacollector.export;
+
+import com.cryptodatacollector.elastic.ScanSettings;
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Класс ExportSettings содержит параметры выгрузки котировок: индекс или псевдоним, формат файла,
+ * необязательный период по времени обновления котировок, интервал вывода скорости выгрузки и параметры чтения индекса.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class ExportSettings {
+    private String index;
+    private ExportFormat format;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long reportIntervalMillis;
+    private ScanSettings scanSettings;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект ExportSettings.
+     */
+    public static ExportSettings fromEnv() {
+        String from = EnvConfig.getString("EXPORT_FROM", null);
+        String to = EnvConfig.getString("EXPORT_TO", null);
+        return new ExportSettings(
+                EnvConfig.getString("EXPORT_INDEX", EnvConfig.getString("ELASTIC_READ_ALIAS", "crypto_data")),
+                ExportFormat.valueOf(EnvConfig.getString("EXPORT_FORMAT", ExportFormat.NDJSON.name())),
+                from != null ? LocalDateTime.parse(from) : null,
+                to != null ? LocalDateTime.parse(to) : null,
+                EnvConfig.getLong("EXPORT_REPORT_INTERVAL_MILLIS", 10000),
+                ScanSettings.fromEnv()
+        );
+    }
+}
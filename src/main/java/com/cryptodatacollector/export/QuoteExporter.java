@@ -0,0 +1,231 @@
+package com.cryptodatacollector.export;
+
+import com.cryptodatacollector.elastic.DocumentScanner;
+import com.cryptodatacollector.elastic.QuoteDocumentCodec;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.IsoDateTime;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Класс QuoteExporter выгружает котировки из Elasticsearch в файл NDJSON или CSV. Файл с расширением .gz сжимается gzip.
+ * Индекс читается DocumentScanner по point in time параллельными срезами, каждая страница кодируется в байты
+ * в потоке своего среза и записывается в файл целиком, поэтому память не зависит от количества котировок,
+ * а порядок строк в файле не определен. Файл пишется под временным именем и переименовывается после
+ * успешного завершения выгрузки. Во время выгрузки периодически выводится скорость в документах в секунду.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QuoteExporter {
+    static final String CSV_HEADER = "id,name,symbol,price,volume24h,percentChange24h,timestamp,lastUpdated\n";
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final DocumentScanner scanner;
+    private final ExportSettings settings;
+
+    /**
+     * Конструктор класса QuoteExporter.
+     *
+     * @param client   Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param settings Параметры выгрузки.
+     */
+    public QuoteExporter(RestHighLevelClient client, ExportSettings settings) {
+        this.scanner = new DocumentScanner(client, settings.getScanSettings());
+        this.settings = settings;
+    }
+
+    /**
+     * Выгружает котировки в файл.
+     *
+     * @param output Файл выгрузки. Существующий файл перезаписывается только после успешной выгрузки.
+     * @return Итоги выгрузки.
+     * @throws IOException Если произошла ошибка при чтении индекса или записи файла.
+     */
+    public ExportResult run(Path output) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Path partial = output.resolveSibling(output.getFileName() + ".part");
+        LongAdder documents = new LongAdder();
+        LongAdder bytes = new LongAdder();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "export-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(new ProgressReport(documents, bytes), settings.getReportIntervalMillis(),
+                settings.getReportIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        try (OutputStream out = open(partial, output.getFileName().toString().endsWith(".gz"))) {
+            if (settings.getFormat() == ExportFormat.CSV) {
+                write(out, CSV_HEADER.getBytes(StandardCharsets.UTF_8), bytes);
+            }
+            scanner.scan(settings.getIndex(), this::request, hits -> {
+                write(out, encode(settings.getFormat(), hits), bytes);
+                documents.add(hits.length);
+            });
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        finally {
+            reporter.shutdownNow();
+        }
+        Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long elapsedMillis = System.currentTimeMillis() - startedAt;
+        ExportResult result = new ExportResult(documents.sum(), bytes.sum(), elapsedMillis);
+        System.out.printf("-->     Export finished: %d quotes, %d bytes to %s in %d ms (%.0f docs/s) \n",
+                result.getDocuments(), result.getBytes(), output, elapsedMillis, rate(result.getDocuments(), elapsedMillis));
+        return result;
+    }
+
+    /**
+     * Кодирует страницу документов в байты файла выгрузки.
+     *
+     * @param format Формат файла.
+     * @param hits   Документы страницы.
+     * @return Строки файла.
+     * @throws IOException Если не удалось прочитать исходный документ.
+     */
+    static byte[] encode(ExportFormat format, SearchHit[] hits) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(hits.length * 256);
+            for (SearchHit hit : hits) {
+                hit.getSourceRef().writeTo(out);
+                out.write('\n');
+            }
+            return out.toByteArray();
+        }
+        StringBuilder out = new StringBuilder(hits.length * 128);
+        for (SearchHit hit : hits) {
+            appendCsv(out, QuoteDocumentCodec.fromDocValues(hit.getFields()));
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private SearchSourceBuilder request() {
+        SearchSourceBuilder source = new SearchSourceBuilder();
+        if (settings.getFrom() != null || settings.getTo() != null) {
+            RangeQueryBuilder range = QueryBuilders.rangeQuery("lastUpdated").format("epoch_millis");
+            if (settings.getFrom() != null) {
+                range.gte(toMillis(settings.getFrom()));
+            }
+            if (settings.getTo() != null) {
+                range.lt(toMillis(settings.getTo()));
+            }
+            source.query(QueryBuilders.boolQuery().filter(range));
+        }
+        if (settings.getFormat() == ExportFormat.CSV) {
+            source.fetchSource(false)
+                    .docValueField("id")
+                    .docValueField("name")
+                    .docValueField("symbol")
+                    .docValueField("price")
+                    .docValueField("volume24h")
+                    .docValueField("percentChange24h")
+                    .docValueField("timestamp", "epoch_millis")
+                    .docValueField("lastUpdated", "epoch_millis");
+        }
+        return source;
+    }
+
+    private static void write(OutputStream out, byte[] chunk, LongAdder bytes) throws IOException {
+        synchronized (out) {
+            out.write(chunk);
+        }
+        bytes.add(chunk.length);
+    }
+
+    private static OutputStream open(Path file, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    private static void appendCsv(StringBuilder out, Quote quote) {
+        out.append(quote.getCoinId()).append(',');
+        if (quote.getName() != null) {
+            appendCsvText(out, quote.getName());
+        }
+        out.append(',');
+        appendCsvText(out, quote.getSymbol());
+        out.append(',');
+        appendDecimal(out, quote.getPrice());
+        out.append(',');
+        appendDecimal(out, quote.getVolume24h());
+        out.append(',');
+        appendDecimal(out, quote.getPercentChange24h());
+        out.append(',');
+        IsoDateTime.appendLocal(out, quote.getTimestamp());
+        out.append(',');
+        IsoDateTime.appendLocal(out, quote.getLastUpdated());
+        out.append('\n');
+    }
+
+    private static void appendCsvText(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.append(value);
+            return;
+        }
+        out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void appendDecimal(StringBuilder out, long value) {
+        if (!FixedDecimal.isNull(value)) {
+            FixedDecimal.append(out, value);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static double rate(long count, long millis) {
+        return millis > 0 ? count * 1000.0 / millis : 0;
+    }
+
+    /**
+     * Периодический отчет о скорости выгрузки за последний интервал.
+     */
+    private static class ProgressReport implements Runnable {
+        private final LongAdder documents;
+        private final LongAdder bytes;
+        private long lastDocuments;
+        private long lastMillis = System.currentTimeMillis();
+
+        ProgressReport(LongAdder documents, LongAdder bytes) {
+            this.documents = documents;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis();
+            long total = documents.sum();
+            System.out.printf("-->     Export progress: %d quotes, %d bytes, %.0f docs/s \n",
+                    total, bytes.sum(), rate(total - lastDocuments, now - lastMillis));
+            lastDocuments = total;
+            lastMillis = now;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cryptodatacollector.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс Counter - монотонно возрастающий счетчик. Увеличение счетчика не выделяет память и не берет блокировок,
+ * поэтому его можно вызывать из любых потоков на горячем пути.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class Counter implements Metric {
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * Увеличивает счетчик на единицу.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Увеличивает счетчик на заданную величину.
+     *
+     * @param amount Величина увеличения.
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Возвращает текущее значение счетчика.
+     *
+     * @return Значение счетчика.
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public String type() {
+        return "counter";
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        MetricsRegistry.sample(out, name, labels, get());
+    }
+}
@@ -0,0 +1,56 @@
+package com.cryptodatacollector.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Класс CountingInputStream учитывает в счетчике количество байт, прочитанных из потока.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class CountingInputStream extends FilterInputStream {
+    private final Counter bytes;
+
+    /**
+     * Конструктор класса CountingInputStream.
+     *
+     * @param in    Исходный поток.
+     * @param bytes Счетчик прочитанных байт.
+     */
+    public CountingInputStream(InputStream in, Counter bytes) {
+        super(in);
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            bytes.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            bytes.add(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytes.add(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
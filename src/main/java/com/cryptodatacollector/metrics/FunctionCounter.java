@@ -0,0 +1,33 @@
+package com.cryptodatacollector.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Класс FunctionCounter - счетчик, значение которого хранит сам компонент, а реестр только читает его
+ * в момент вывода показателей. Подходит для счетчиков, которые компонент уже ведет для своих нужд.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class FunctionCounter implements Metric {
+    private final LongSupplier supplier;
+
+    /**
+     * Конструктор класса FunctionCounter.
+     *
+     * @param supplier Функция, возвращающая текущее значение счетчика. Вызывается из потока HTTP сервера показателей.
+     */
+    public FunctionCounter(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public String type() {
+        return "counter";
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        MetricsRegistry.sample(out, name, labels, supplier.getAsLong());
+    }
+}
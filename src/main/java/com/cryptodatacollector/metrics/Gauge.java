@@ -0,0 +1,32 @@
+package com.cryptodatacollector.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Класс Gauge - показатель, значение которого вычисляется в момент чтения показателей.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class Gauge implements Metric {
+    private final DoubleSupplier supplier;
+
+    /**
+     * Конструктор класса Gauge.
+     *
+     * @param supplier Функция, вычисляющая текущее значение. Вызывается из потока HTTP сервера показателей.
+     */
+    public Gauge(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public String type() {
+        return "gauge";
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        MetricsRegistry.sample(out, name, labels, supplier.getAsDouble());
+    }
+}
@@ -0,0 +1,142 @@
+package com.cryptodatacollector.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс LatencyHistogram - гистограмма задержек с логарифмически-линейными корзинами, как в HdrHistogram.
+ * Каждый интервал [2^k, 2^(k+1)) наносекунд делится на 16 равных корзин, поэтому относительная ошибка
+ * квантилей не превышает 1/16 на всем диапазоне от наносекунд до сотен лет. Запись значения - это одно
+ * атомарное увеличение корзины и двух счетчиков: она не выделяет память и не берет блокировок.
+ * Квантили вычисляются только при чтении показателей и выводятся как summary Prometheus в секундах.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class LatencyHistogram implements Metric {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Записывает задержку.
+     *
+     * @param nanos Задержка в наносекундах. Отрицательные значения записываются как ноль.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sumNanos.add(value);
+    }
+
+    /**
+     * Записывает время, прошедшее с момента start.
+     *
+     * @param startNanos Значение System.nanoTime() в начале измеряемой операции.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Возвращает количество записанных значений.
+     *
+     * @return Количество значений.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Оценивает квантиль записанных задержек. Результат - середина корзины, в которую попал квантиль.
+     *
+     * @param quantile Квантиль от 0 до 1.
+     * @return Задержка в наносекундах или 0, если значений еще нет.
+     */
+    public long quantile(double quantile) {
+        long[] snapshot = snapshot();
+        return quantile(snapshot, total(snapshot), quantile);
+    }
+
+    @Override
+    public String type() {
+        return "summary";
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        long[] snapshot = snapshot();
+        long total = total(snapshot);
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : QUANTILES) {
+            MetricsRegistry.sample(out, name, separator + "quantile=\"" + quantile + "\"",
+                    seconds(quantile(snapshot, total, quantile)));
+        }
+        MetricsRegistry.sample(out, name + "_sum", labels, seconds(sumNanos.sum()));
+        MetricsRegistry.sample(out, name + "_count", labels, total);
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    private static long total(long[] snapshot) {
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        return total;
+    }
+
+    private static long quantile(long[] snapshot, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return lowerBound(i) + (width(i) - 1) / 2;
+            }
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    private static long width(int bucket) {
+        return bucket < SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
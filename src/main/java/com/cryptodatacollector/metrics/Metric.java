@@ -0,0 +1,25 @@
+package com.cryptodatacollector.metrics;
+
+/**
+ * Интерфейс Metric описывает один показатель, который выводится в текстовом формате Prometheus.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public interface Metric {
+    /**
+     * Возвращает тип показателя в терминах Prometheus: counter, gauge или summary.
+     *
+     * @return Тип показателя.
+     */
+    String type();
+
+    /**
+     * Дописывает строки со значениями показателя.
+     *
+     * @param out    Буфер, в который выводятся значения.
+     * @param name   Имя показателя.
+     * @param labels Метки показателя в формате Prometheus без фигурных скобок или пустая строка.
+     */
+    void write(StringBuilder out, String name, String labels);
+}
@@ -0,0 +1,77 @@
+package com.cryptodatacollector.metrics;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Класс Metrics предоставляет доступ к общему реестру показателей приложения.
+ * Компоненты создают свои показатели один раз, обычно в статических полях, и затем только обновляют их.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class Metrics {
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private Metrics() {
+    }
+
+    /**
+     * Возвращает общий реестр показателей.
+     *
+     * @return Объект MetricsRegistry.
+     */
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Возвращает счетчик с заданными именем и метками, регистрируя его при первом обращении.
+     *
+     * @param name   Имя показателя, по соглашению Prometheus оканчивается на _total.
+     * @param help   Описание показателя.
+     * @param labels Пары имя-значение меток.
+     * @return Объект Counter.
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return REGISTRY.getOrRegister(name, help, labels, Counter::new);
+    }
+
+    /**
+     * Регистрирует счетчик, значение которого ведет сам компонент.
+     * Ранее зарегистрированный показатель с теми же именем и метками заменяется.
+     *
+     * @param name     Имя показателя, по соглашению Prometheus оканчивается на _total.
+     * @param help     Описание показателя.
+     * @param supplier Функция, возвращающая текущее значение счетчика.
+     * @param labels   Пары имя-значение меток.
+     */
+    public static void counter(String name, String help, LongSupplier supplier, String... labels) {
+        REGISTRY.register(name, help, new FunctionCounter(supplier), labels);
+    }
+
+    /**
+     * Возвращает гистограмму задержек с заданными именем и метками, регистрируя ее при первом обращении.
+     *
+     * @param name   Имя показателя, по соглашению Prometheus оканчивается на _seconds.
+     * @param help   Описание показателя.
+     * @param labels Пары имя-значение меток.
+     * @return Объект LatencyHistogram.
+     */
+    public static LatencyHistogram histogram(String name, String help, String... labels) {
+        return REGISTRY.getOrRegister(name, help, labels, LatencyHistogram::new);
+    }
+
+    /**
+     * Регистрирует показатель, значение которого вычисляется при чтении показателей.
+     * Ранее зарегистрированный показатель с теми же именем и метками заменяется.
+     *
+     * @param name     Имя показателя.
+     * @param help     Описание показателя.
+     * @param supplier Функция, вычисляющая текущее значение.
+     * @param labels   Пары имя-значение меток.
+     */
+    public static void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        REGISTRY.register(name, help, new Gauge(supplier), labels);
+    }
+}
@@ -0,0 +1,145 @@
+package com.cryptodatacollector.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Класс MetricsRegistry хранит зарегистрированные показатели и выводит их в текстовом формате Prometheus.
+ * Показатели с одинаковым именем и разными метками образуют одно семейство с общими строками HELP и TYPE.
+ * Регистрация выполняется редко и синхронизирована, а запись значений в показатели от реестра не зависит.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class MetricsRegistry {
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Возвращает зарегистрированный показатель с заданными именем и метками или регистрирует новый.
+     *
+     * @param name    Имя показателя.
+     * @param help    Описание показателя.
+     * @param labels  Пары имя-значение меток.
+     * @param factory Функция, создающая показатель, если он еще не зарегистрирован.
+     * @return Зарегистрированный показатель.
+     * @throws IllegalArgumentException Если показатель с таким именем уже зарегистрирован с другим типом.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Metric> T getOrRegister(String name, String help, String[] labels, Supplier<T> factory) {
+        String formattedLabels = formatLabels(labels);
+        Family family = families.get(name);
+        Metric existing = family == null ? null : family.children.get(formattedLabels);
+        if (existing != null) {
+            return (T) existing;
+        }
+        T metric = factory.get();
+        register(name, help, formattedLabels, metric);
+        return metric;
+    }
+
+    /**
+     * Регистрирует показатель, заменяя ранее зарегистрированный показатель с теми же именем и метками.
+     *
+     * @param name   Имя показателя.
+     * @param help   Описание показателя.
+     * @param metric Показатель.
+     * @param labels Пары имя-значение меток.
+     * @throws IllegalArgumentException Если показатель с таким именем уже зарегистрирован с другим типом.
+     */
+    public synchronized void register(String name, String help, Metric metric, String... labels) {
+        register(name, help, formatLabels(labels), metric);
+    }
+
+    /**
+     * Выводит все показатели в текстовом формате Prometheus.
+     *
+     * @return Текст с показателями.
+     */
+    public String scrape() {
+        List<Family> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(families.size());
+            for (Family family : families.values()) {
+                snapshot.add(new Family(family.name, family.help, family.type, new LinkedHashMap<>(family.children)));
+            }
+        }
+
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : snapshot) {
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            family.children.forEach((labels, metric) -> metric.write(out, family.name, labels));
+        }
+        return out.toString();
+    }
+
+    private void register(String name, String help, String formattedLabels, Metric metric) {
+        Family family = families.computeIfAbsent(name,
+                key -> new Family(name, help, metric.type(), new LinkedHashMap<>()));
+        if (!family.type.equals(metric.type())) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        family.children.put(formattedLabels, metric);
+    }
+
+    /**
+     * Выводит одну строку со значением показателя.
+     */
+    static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        }
+        else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        }
+        else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        }
+        else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name-value pairs");
+        }
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                formatted.append(',');
+            }
+            formatted.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return formatted.toString();
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final Map<String, Metric> children;
+
+        private Family(String name, String help, String type, Map<String, Metric> children) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.children = children;
+        }
+    }
+}
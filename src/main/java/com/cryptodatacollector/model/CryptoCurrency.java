@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 /**
  * Класс CryptoCurrency представляет модель данных для криптовалюты.
  * Он содержит информацию о идентификаторе, названии, символе, цене, объеме торгов за последние 24 часа,
- * процентном изменении цены за последние 24 часа и временной метке.
+ * процентном изменении цены за последние 24 часа, времени обновления котировки в CoinMarketCap и временной метке сбора данных.
  *
  * @author debugByPrintln
  * @version 1.0
@@ -24,4 +24,5 @@ public class CryptoCurrency {
     private BigDecimal volume24h;
     private BigDecimal percentChange24h;
     private LocalDateTime timestamp;
+    private LocalDateTime lastUpdated;
 }
@@ -0,0 +1,236 @@
+package com.cryptodatacollector.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Класс FixedDecimal кодирует десятичное число с фиксированной точкой в одном значении long:
+ * старшие 58 бит - мантисса со знаком, младшие 6 бит - количество знаков после запятой (от 0 до 63).
+ * Значение равно mantissa * 10^-scale. Мантисса вмещает 17 значащих цифр, поэтому цены, объемы торгов и процентные
+ * изменения из CoinMarketCap хранятся без потери точности и без выделения памяти, а BigDecimal создается
+ * только там, где он действительно нужен.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class FixedDecimal {
+    /**
+     * Значение, обозначающее отсутствующее число.
+     */
+    public static final long NULL = Long.MIN_VALUE;
+    /**
+     * Максимальная по модулю мантисса.
+     */
+    public static final long MAX_MANTISSA = (1L << 57) - 1;
+    /**
+     * Максимальное количество знаков после запятой.
+     */
+    public static final int MAX_SCALE = 63;
+
+    private static final int SCALE_BITS = 6;
+    private static final int MAX_DIGITS = 17;
+    private static final long[] LONG_POWERS = new long[19];
+    private static final double[] DOUBLE_POWERS = new double[MAX_SCALE + 1];
+
+    static {
+        LONG_POWERS[0] = 1;
+        for (int i = 1; i < LONG_POWERS.length; i++) {
+            LONG_POWERS[i] = LONG_POWERS[i - 1] * 10;
+        }
+        for (int i = 0; i < DOUBLE_POWERS.length; i++) {
+            DOUBLE_POWERS[i] = Double.parseDouble("1e" + i);
+        }
+    }
+
+    private FixedDecimal() {
+    }
+
+    /**
+     * Кодирует число. Незначащие нули в конце дробной части отбрасываются, поэтому одинаковые числа
+     * всегда имеют одинаковое представление.
+     *
+     * @param mantissa Мантисса.
+     * @param scale    Количество знаков после запятой.
+     * @return Закодированное число.
+     * @throws IllegalArgumentException Если мантисса или количество знаков вне допустимого диапазона.
+     */
+    public static long of(long mantissa, int scale) {
+        while (scale > 0 && mantissa % 10 == 0) {
+            mantissa /= 10;
+            scale--;
+        }
+        if (mantissa > MAX_MANTISSA || mantissa < -MAX_MANTISSA || scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Value " + mantissa + "e-" + scale + " does not fit FixedDecimal");
+        }
+        return mantissa << SCALE_BITS | scale;
+    }
+
+    /**
+     * Проверяет, обозначает ли значение отсутствующее число.
+     *
+     * @param value Закодированное число.
+     * @return true, если число отсутствует.
+     */
+    public static boolean isNull(long value) {
+        return value == NULL;
+    }
+
+    /**
+     * Возвращает мантиссу числа.
+     *
+     * @param value Закодированное число.
+     * @return Мантисса.
+     */
+    public static long mantissa(long value) {
+        return value >> SCALE_BITS;
+    }
+
+    /**
+     * Возвращает количество знаков после запятой.
+     *
+     * @param value Закодированное число.
+     * @return Количество знаков после запятой.
+     */
+    public static int scale(long value) {
+        return (int) (value & MAX_SCALE);
+    }
+
+    /**
+     * Преобразует число в double.
+     *
+     * @param value Закодированное число.
+     * @return Значение или NaN, если число отсутствует.
+     */
+    public static double toDouble(long value) {
+        if (value == NULL) {
+            return Double.NaN;
+        }
+        long mantissa = mantissa(value);
+        int scale = scale(value);
+        if (scale <= 22 && Math.abs(mantissa) < 1L << 53) {
+            // Оба операнда представлены в double точно, поэтому частное округлено корректно
+            return mantissa / DOUBLE_POWERS[scale];
+        }
+        return toBigDecimal(value).doubleValue();
+    }
+
+    /**
+     * Преобразует число в BigDecimal.
+     *
+     * @param value Закодированное число.
+     * @return Значение или null, если число отсутствует.
+     */
+    public static BigDecimal toBigDecimal(long value) {
+        return value == NULL ? null : BigDecimal.valueOf(mantissa(value), scale(value));
+    }
+
+    /**
+     * Кодирует BigDecimal. Цифры, не помещающиеся в мантиссу, округляются.
+     *
+     * @param value Число или null.
+     * @return Закодированное число.
+     * @throws IllegalArgumentException Если целая часть числа не помещается в мантиссу.
+     */
+    public static long fromBigDecimal(BigDecimal value) {
+        if (value == null) {
+            return NULL;
+        }
+        BigDecimal normalized = value.stripTrailingZeros();
+        if (normalized.scale() < 0) {
+            normalized = normalized.setScale(0, RoundingMode.UNNECESSARY);
+        }
+        if (normalized.precision() - normalized.scale() > MAX_DIGITS) {
+            throw new IllegalArgumentException("Value " + value + " does not fit FixedDecimal");
+        }
+        int excess = Math.max(normalized.precision() - MAX_DIGITS, normalized.scale() - MAX_SCALE);
+        if (excess > 0) {
+            normalized = normalized.setScale(Math.max(normalized.scale() - excess, 0), RoundingMode.HALF_EVEN);
+        }
+        return of(normalized.unscaledValue().longValueExact(), normalized.scale());
+    }
+
+    /**
+     * Кодирует double кратчайшим десятичным числом, которое преобразуется обратно в то же значение double.
+     *
+     * @param value Значение. NaN кодируется как отсутствующее число.
+     * @return Закодированное число.
+     * @throws IllegalArgumentException Если значение бесконечно или его целая часть не помещается в мантиссу.
+     */
+    public static long fromDouble(double value) {
+        if (Double.isNaN(value)) {
+            return NULL;
+        }
+        if (Double.isInfinite(value) || Math.abs(value) > MAX_MANTISSA) {
+            throw new IllegalArgumentException("Value " + value + " does not fit FixedDecimal");
+        }
+        for (int scale = 0; scale <= MAX_SCALE; scale++) {
+            double scaled = value * DOUBLE_POWERS[scale];
+            if (Math.abs(scaled) > MAX_MANTISSA) {
+                break;
+            }
+            long mantissa = Math.round(scaled);
+            if (mantissa / DOUBLE_POWERS[scale] == value) {
+                return of(mantissa, scale);
+            }
+        }
+        return fromBigDecimal(new BigDecimal(value));
+    }
+
+    /**
+     * Выводит число в десятичной записи без экспоненты.
+     *
+     * @param out   Буфер.
+     * @param value Закодированное число, не NULL.
+     */
+    public static void append(StringBuilder out, long value) {
+        long mantissa = mantissa(value);
+        int scale = scale(value);
+        if (mantissa < 0) {
+            out.append('-');
+            mantissa = -mantissa;
+        }
+        if (scale == 0) {
+            out.append(mantissa);
+            return;
+        }
+        int digits = digits(mantissa);
+        if (digits <= scale) {
+            out.append("0.");
+            for (int i = digits; i < scale; i++) {
+                out.append('0');
+            }
+            out.append(mantissa);
+            return;
+        }
+        long divisor = LONG_POWERS[scale];
+        out.append(mantissa / divisor).append('.');
+        long fraction = mantissa % divisor;
+        for (int i = digits(fraction); i < scale; i++) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    /**
+     * Возвращает число в десятичной записи без экспоненты.
+     *
+     * @param value Закодированное число.
+     * @return Строка или "null", если число отсутствует.
+     */
+    public static String toString(long value) {
+        if (value == NULL) {
+            return "null";
+        }
+        StringBuilder out = new StringBuilder(24);
+        append(out, value);
+        return out.toString();
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (digits < LONG_POWERS.length && value >= LONG_POWERS[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,137 @@
+package com.cryptodatacollector.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Класс InternTable присваивает строкам постоянные целочисленные идентификаторы. Символы и названия криптовалют
+ * повторяются в каждом цикле сбора данных, поэтому котировки хранят только идентификаторы, а сами строки
+ * создаются один раз. Поиск по байтам UTF-8 не выделяет памяти и не берет блокировок, блокировка нужна
+ * только при добавлении новой строки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class InternTable {
+    /**
+     * Символы криптовалют.
+     */
+    public static final InternTable SYMBOLS = new InternTable();
+    /**
+     * Названия криптовалют.
+     */
+    public static final InternTable NAMES = new InternTable();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private volatile AtomicReferenceArray<Entry> buckets = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Возвращает идентификатор строки, добавляя ее в таблицу при первом обращении.
+     *
+     * @param utf8   Буфер с байтами строки в UTF-8.
+     * @param offset Смещение строки в буфере.
+     * @param length Длина строки в байтах.
+     * @return Идентификатор строки.
+     */
+    public int intern(byte[] utf8, int offset, int length) {
+        int hash = hash(utf8, offset, length);
+        int id = find(buckets, utf8, offset, length, hash);
+        return id >= 0 ? id : add(Arrays.copyOfRange(utf8, offset, offset + length), hash);
+    }
+
+    /**
+     * Возвращает идентификатор строки, добавляя ее в таблицу при первом обращении.
+     *
+     * @param value Строка.
+     * @return Идентификатор строки.
+     */
+    public int intern(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        return intern(utf8, 0, utf8.length);
+    }
+
+    /**
+     * Возвращает строку по идентификатору.
+     *
+     * @param id Идентификатор, полученный из этой таблицы.
+     * @return Строка.
+     */
+    public String get(int id) {
+        return values[id];
+    }
+
+    private synchronized int add(byte[] utf8, int hash) {
+        AtomicReferenceArray<Entry> current = buckets;
+        int id = find(current, utf8, 0, utf8.length, hash);
+        if (id >= 0) {
+            return id;
+        }
+
+        id = size++;
+        String[] currentValues = values;
+        if (id == currentValues.length) {
+            currentValues = Arrays.copyOf(currentValues, currentValues.length * 2);
+        }
+        currentValues[id] = new String(utf8, StandardCharsets.UTF_8);
+        values = currentValues;
+
+        if (size > current.length() * 3 / 4) {
+            current = resize(current);
+        }
+        int bucket = hash & (current.length() - 1);
+        current.set(bucket, new Entry(utf8, hash, id, current.get(bucket)));
+        buckets = current;
+        return id;
+    }
+
+    /**
+     * Строит таблицу вдвое большего размера. Читатели, успевшие получить старую таблицу, продолжают работать с ней:
+     * она остается корректной, просто в нее больше не добавляются строки.
+     */
+    private static AtomicReferenceArray<Entry> resize(AtomicReferenceArray<Entry> current) {
+        AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(current.length() * 2);
+        for (int i = 0; i < current.length(); i++) {
+            for (Entry entry = current.get(i); entry != null; entry = entry.next) {
+                int bucket = entry.hash & (resized.length() - 1);
+                resized.set(bucket, new Entry(entry.utf8, entry.hash, entry.id, resized.get(bucket)));
+            }
+        }
+        return resized;
+    }
+
+    private static int find(AtomicReferenceArray<Entry> buckets, byte[] utf8, int offset, int length, int hash) {
+        for (Entry entry = buckets.get(hash & (buckets.length() - 1)); entry != null; entry = entry.next) {
+            if (entry.hash == hash
+                    && Arrays.equals(entry.utf8, 0, entry.utf8.length, utf8, offset, offset + length)) {
+                return entry.id;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(byte[] utf8, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ utf8[i]) * 0x01000193;
+        }
+        return hash ^ hash >>> 16;
+    }
+
+    private static final class Entry {
+        private final byte[] utf8;
+        private final int hash;
+        private final int id;
+        private final Entry next;
+
+        private Entry(byte[] utf8, int hash, int id, Entry next) {
+            this.utf8 = utf8;
+            this.hash = hash;
+            this.id = id;
+            this.next = next;
+        }
+    }
+}
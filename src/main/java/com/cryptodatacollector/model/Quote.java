@@ -0,0 +1,95 @@
+package com.cryptodatacollector.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Класс Quote - компактное представление котировки криптовалюты, которое используется на горячем пути
+ * от разбора ответа API до индексации. Вместо строк и BigDecimal котировка хранит идентификатор CoinMarketCap,
+ * идентификаторы названия и символа из InternTable, числа в формате FixedDecimal и время в миллисекундах UTC,
+ * поэтому занимает несколько десятков байт и не ссылается на другие объекты.
+ * CryptoCurrency создается из Quote только там, где нужна исходная модель данных.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class Quote {
+    private int coinId;
+    private int nameId;
+    private int symbolId;
+    /** Цена в формате FixedDecimal. */
+    private long price;
+    /** Объем торгов за 24 часа в формате FixedDecimal. */
+    private long volume24h;
+    /** Процентное изменение цены за 24 часа в формате FixedDecimal. */
+    private long percentChange24h;
+    /** Время сбора данных в миллисекундах UTC. */
+    private long timestamp;
+    /** Время обновления котировки в CoinMarketCap в миллисекундах UTC. */
+    private long lastUpdated;
+
+    /**
+     * Создает котировку из объекта CryptoCurrency.
+     *
+     * @param cryptoCurrency Объект CryptoCurrency с числовым идентификатором.
+     * @return Объект Quote.
+     * @throws NumberFormatException Если идентификатор криптовалюты не является числом.
+     */
+    public static Quote from(CryptoCurrency cryptoCurrency) {
+        long timestamp = cryptoCurrency.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return new Quote(
+                Integer.parseInt(cryptoCurrency.getId()),
+                cryptoCurrency.getName() != null ? InternTable.NAMES.intern(cryptoCurrency.getName()) : -1,
+                InternTable.SYMBOLS.intern(cryptoCurrency.getSymbol()),
+                FixedDecimal.fromBigDecimal(cryptoCurrency.getPrice()),
+                FixedDecimal.fromBigDecimal(cryptoCurrency.getVolume24h()),
+                FixedDecimal.fromBigDecimal(cryptoCurrency.getPercentChange24h()),
+                timestamp,
+                cryptoCurrency.getLastUpdated() != null
+                        ? cryptoCurrency.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli()
+                        : timestamp
+        );
+    }
+
+    /**
+     * Возвращает название криптовалюты.
+     *
+     * @return Название или null, если оно не было указано.
+     */
+    public String getName() {
+        return nameId >= 0 ? InternTable.NAMES.get(nameId) : null;
+    }
+
+    /**
+     * Возвращает символ криптовалюты.
+     *
+     * @return Символ.
+     */
+    public String getSymbol() {
+        return InternTable.SYMBOLS.get(symbolId);
+    }
+
+    /**
+     * Создает объект CryptoCurrency с теми же данными. BigDecimal создаются только здесь.
+     *
+     * @return Объект CryptoCurrency.
+     */
+    public CryptoCurrency toCryptoCurrency() {
+        return new CryptoCurrency(
+                String.valueOf(coinId),
+                getName(),
+                getSymbol(),
+                FixedDecimal.toBigDecimal(price),
+                FixedDecimal.toBigDecimal(volume24h),
+                FixedDecimal.toBigDecimal(percentChange24h),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(lastUpdated), ZoneOffset.UTC)
+        );
+    }
+}
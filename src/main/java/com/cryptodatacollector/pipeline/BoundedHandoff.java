@@ -0,0 +1,130 @@
+package com.cryptodatacollector.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс BoundedHandoff - ограниченная очередь, через которую одна стадия конвейера передает элементы следующей
+ * в рамках одного цикла сбора данных. При заполнении очереди применяется политика OverflowPolicy.
+ * Источник сообщает об окончании цикла методом close, а получатель, прекративший чтение, - методом abort,
+ * после чего источник больше не блокируется, а новые элементы отбрасываются.
+ *
+ * @param <T> Тип передаваемых элементов.
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class BoundedHandoff<T> {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final BlockingQueue<T> queue;
+    private final OverflowPolicy policy;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+    private volatile boolean aborted;
+
+    /**
+     * Конструктор класса BoundedHandoff.
+     *
+     * @param capacity Вместимость очереди.
+     * @param policy   Политика при заполнении очереди.
+     */
+    public BoundedHandoff(int capacity, OverflowPolicy policy) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+    }
+
+    /**
+     * Передает элемент следующей стадии. При политике BLOCK ожидает освобождения места в очереди.
+     * Если поток прерван во время ожидания, элемент отбрасывается, а флаг прерывания восстанавливается.
+     *
+     * @param item Элемент.
+     */
+    public void put(T item) {
+        if (aborted) {
+            dropped.incrementAndGet();
+            return;
+        }
+        switch (policy) {
+            case BLOCK:
+                try {
+                    while (!queue.offer(item, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (aborted) {
+                            dropped.incrementAndGet();
+                            return;
+                        }
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+                break;
+            case DROP_NEWEST:
+                if (!queue.offer(item)) {
+                    dropped.incrementAndGet();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(item)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Возвращает очередной элемент, ожидая его появления.
+     *
+     * @return Элемент или null, если источник завершил цикл и очередь пуста.
+     * @throws InterruptedException Если поток был прерван во время ожидания.
+     */
+    public T take() throws InterruptedException {
+        while (true) {
+            T item = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            if (closed && queue.isEmpty()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Сообщает, что источник завершил цикл и больше не будет передавать элементы.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Сообщает, что получатель прекратил чтение. Оставшиеся и новые элементы отбрасываются.
+     */
+    public void abort() {
+        aborted = true;
+        dropped.addAndGet(queue.size());
+        queue.clear();
+    }
+
+    /**
+     * Возвращает текущее количество элементов в очереди.
+     *
+     * @return Глубина очереди.
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Возвращает количество отброшенных элементов.
+     *
+     * @return Количество отброшенных элементов.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,232 @@
+package com.cryptodatacollector.pipeline;
+
+import com.cryptodatacollector.analysis.AnalyticsMetric;
+import com.cryptodatacollector.analysis.AnalyticsReport;
+import com.cryptodatacollector.analysis.AnalyticsWindow;
+import com.cryptodatacollector.analysis.CryptoDataAnalyzer;
+import com.cryptodatacollector.analysis.MarketMovers;
+import com.cryptodatacollector.analysis.SymbolAnalytics;
+import com.cryptodatacollector.api.QuoteScope;
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.service.CryptoDataService;
+import com.cryptodatacollector.sink.QuoteBatch;
+import com.cryptodatacollector.util.EnvConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Класс CollectionPipeline выполняет цикл сбора данных в виде конвейера из трех стадий:
+ * fetch (загрузка и разбор ответов API), index (статистика в памяти и индексация) и analyze (один пакетный
+ * аналитический запрос по всем отслеживаемым криптовалютам).
+ * Стадии работают одновременно в своих потоках. Котировки передаются из fetch в index через ограниченную очередь,
+ * поэтому медленная запись в Elasticsearch замедляет загрузку (политика BLOCK) или приводит к отбрасыванию котировок.
+ * Каждая стадия выполняет не более одного цикла одновременно. Если стадия fetch или index не успевает за расписанием,
+ * очередной цикл пропускается целиком.
+ * Части рынка, которые собираются с разными интервалами (уровни сбора), получают собственные стадии fetch и index,
+ * поэтому долгий цикл одного уровня не задерживает остальные. Стадия analyze общая для всех уровней.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class CollectionPipeline implements Closeable {
+    /**
+     * Уровень сбора, к которому относятся циклы, запущенные методом trigger.
+     */
+    public static final String DEFAULT_TIER = "default";
+    private static final int MOVERS_TOP_N = 5;
+    private static final LatencyHistogram CYCLE_LATENCY = Metrics.histogram("collection_cycle_seconds",
+            "Time from the start of a collection cycle until all its quotes are indexed");
+    private static final Counter CYCLES_STARTED = Metrics.counter("collection_cycles_total",
+            "Collection cycles by outcome of the trigger", "result", "started");
+    private static final Counter CYCLES_SKIPPED = Metrics.counter("collection_cycles_total",
+            "Collection cycles by outcome of the trigger", "result", "skipped");
+
+    private final CryptoDataService cryptoDataService;
+    private final CryptoDataAnalyzer cryptoDataAnalyzer;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final List<String> reportSymbols;
+    private final Map<String, TierStages> tiers = new LinkedHashMap<>();
+    private final PipelineStage analyzeStage = new PipelineStage("analyze");
+
+    /**
+     * Конструктор класса CollectionPipeline.
+     *
+     * @param cryptoDataService  Сервис для сбора и индексации данных о криптовалютах.
+     * @param cryptoDataAnalyzer Сервис для анализа данных о криптовалютах.
+     */
+    public CollectionPipeline(CryptoDataService cryptoDataService, CryptoDataAnalyzer cryptoDataAnalyzer) {
+        this.cryptoDataService = cryptoDataService;
+        this.cryptoDataAnalyzer = cryptoDataAnalyzer;
+        this.queueCapacity = EnvConfig.getInt("PIPELINE_QUEUE_CAPACITY", 10000);
+        this.overflowPolicy = OverflowPolicy.valueOf(
+                EnvConfig.getString("PIPELINE_OVERFLOW_POLICY", OverflowPolicy.BLOCK.name()));
+        this.reportSymbols = List.of(EnvConfig.getString("REPORT_SYMBOLS", "BTC").split(","));
+    }
+
+    /**
+     * Запускает очередной цикл сбора данных, не дожидаясь его завершения.
+     *
+     * @return true, если цикл запущен, false - если он пропущен, потому что предыдущие циклы еще выполняются.
+     */
+    public synchronized boolean trigger() {
+        return submit(DEFAULT_TIER, QuoteScope.ALL) != null;
+    }
+
+    /**
+     * Запускает очередной цикл сбора данных части рынка, не дожидаясь его завершения.
+     *
+     * @param tier  Имя уровня сбора. Циклы одного уровня выполняются по очереди, циклы разных уровней - одновременно.
+     * @param scope Диапазон рейтинга или список символов, котировки которых нужно собрать.
+     * @return Результат, который завершается количеством проиндексированных котировок после индексации,
+     * или null, если цикл пропущен, потому что предыдущие циклы уровня еще выполняются.
+     */
+    public synchronized CompletableFuture<Long> submit(String tier, QuoteScope scope) {
+        TierStages stages = tiers.computeIfAbsent(tier, TierStages::new);
+        if (!stages.fetch.hasCapacity() || !stages.index.hasCapacity()) {
+            (stages.fetch.hasCapacity() ? stages.index : stages.fetch).skip();
+            CYCLES_SKIPPED.increment();
+            System.out.println("-->     Collection cycle skipped (" + tier + "): previous cycles are still running "
+                    + getMetrics());
+            return null;
+        }
+
+        CYCLES_STARTED.increment();
+        long startedAt = System.nanoTime();
+        CompletableFuture<Long> indexed = new CompletableFuture<>();
+        BoundedHandoff<Quote> quotes = new BoundedHandoff<>(queueCapacity, overflowPolicy);
+        stages.index.submit(quotes, () -> {
+            try {
+                long count = index(quotes, startedAt);
+                indexed.complete(count);
+                return count;
+            }
+            catch (Exception e) {
+                indexed.completeExceptionally(e);
+                throw e;
+            }
+        });
+        stages.fetch.submit(null, () -> {
+            try {
+                return cryptoDataService.fetchData(scope, quotes::put).getListings();
+            }
+            finally {
+                quotes.close();
+            }
+        });
+        return indexed;
+    }
+
+    /**
+     * Возвращает текущие показатели всех стадий конвейера.
+     *
+     * @return Список показателей стадий.
+     */
+    public synchronized List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>();
+        for (TierStages stages : tiers.values()) {
+            metrics.add(stages.fetch.getMetrics());
+            metrics.add(stages.index.getMetrics());
+        }
+        metrics.add(analyzeStage.getMetrics());
+        return metrics;
+    }
+
+    /**
+     * Останавливает все стадии конвейера.
+     */
+    @Override
+    public synchronized void close() {
+        for (TierStages stages : tiers.values()) {
+            stages.fetch.close();
+            stages.index.close();
+        }
+        analyzeStage.close();
+    }
+
+    private long index(BoundedHandoff<Quote> quotes, long startedAt) throws IOException, InterruptedException {
+        long count = 0;
+        try (QuoteBatch batch = cryptoDataService.openBatch()) {
+            Quote quote;
+            while ((quote = quotes.take()) != null) {
+                cryptoDataService.indexQuote(batch, quote);
+                count++;
+            }
+        }
+        finally {
+            quotes.abort();
+            CYCLE_LATENCY.recordSince(startedAt);
+        }
+        if (quotes.getDropped() > 0) {
+            System.out.printf("-->     Dropped %d quotes: index stage fell behind (policy %s) \n",
+                    quotes.getDropped(), overflowPolicy);
+        }
+        analyzeStage.submit(null, this::analyze);
+        return count;
+    }
+
+    private long analyze() throws IOException {
+        Set<String> symbols = cryptoDataAnalyzer.getTrackedSymbols();
+        AnalyticsReport report = cryptoDataAnalyzer.getAnalytics(symbols, EnumSet.allOf(AnalyticsMetric.class),
+                AnalyticsWindow.ONE_HOUR.getLength(), MOVERS_TOP_N);
+
+        for (String symbol : reportSymbols) {
+            SymbolAnalytics analytics = report.getSymbols().get(symbol);
+            if (analytics != null) {
+                System.out.printf("-->     Average price of %s in the last hour: %f (min %f, max %f, %d quotes) \n",
+                        symbol, analytics.get(AnalyticsMetric.AVG_PRICE), analytics.get(AnalyticsMetric.MIN_PRICE),
+                        analytics.get(AnalyticsMetric.MAX_PRICE), analytics.getCount());
+            }
+        }
+
+        MarketMovers movers = report.getMovers();
+        if (!movers.getGainers().isEmpty()) {
+            CryptoCurrency maxPercentChangeCrypto = movers.getGainers().get(0);
+            System.out.printf("-->     Crypto with max percent change in the last day: %s with max percent change of: %f \n",
+                    maxPercentChangeCrypto.getSymbol(),
+                    maxPercentChangeCrypto.getPercentChange24h());
+            System.out.println("-->     Top gainers: " + symbols(movers.getGainers())
+                    + ", top losers: " + symbols(movers.getLosers()));
+        }
+        else {
+            System.out.println("No crypto with max percent change");
+        }
+
+        System.out.println("-->     Pipeline metrics: " + getMetrics());
+        return report.getSymbols().size();
+    }
+
+    /**
+     * Стадии fetch и index уровня сбора. Стадии уровня по умолчанию называются fetch и index,
+     * стадии остальных уровней - fetch-имя и index-имя.
+     */
+    private static final class TierStages {
+        private final PipelineStage fetch;
+        private final PipelineStage index;
+
+        TierStages(String tier) {
+            String suffix = DEFAULT_TIER.equals(tier) ? "" : "-" + tier;
+            this.fetch = new PipelineStage("fetch" + suffix);
+            this.index = new PipelineStage("index" + suffix);
+        }
+    }
+
+    private static String symbols(List<CryptoCurrency> cryptoCurrencies) {
+        return cryptoCurrencies.stream()
+                .map(cryptoCurrency -> cryptoCurrency.getSymbol() + " " + cryptoCurrency.getPercentChange24h() + "%")
+                .collect(Collectors.joining(", "));
+    }
+}
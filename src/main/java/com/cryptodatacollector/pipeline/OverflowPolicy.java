@@ -0,0 +1,15 @@
+package com.cryptodatacollector.pipeline;
+
+/**
+ * Перечисление OverflowPolicy задает поведение очереди между стадиями конвейера, когда следующая стадия не успевает
+ * обрабатывать элементы. BLOCK - источник ждет освобождения места (обратное давление), DROP_NEWEST - новый элемент
+ * отбрасывается, DROP_OLDEST - из очереди вытесняется самый старый элемент.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum OverflowPolicy {
+    BLOCK,
+    DROP_NEWEST,
+    DROP_OLDEST
+}
@@ -0,0 +1,152 @@
+package com.cryptodatacollector.pipeline;
+
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс PipelineStage - стадия конвейера сбора данных со своим рабочим потоком.
+ * Стадия выполняет не более одного цикла одновременно и держит в ожидании не более одного следующего цикла,
+ * поэтому циклы сбора данных никогда не пересекаются внутри одной стадии, а медленная стадия не накапливает очередь циклов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class PipelineStage implements Closeable {
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong completedCycles = new AtomicLong();
+    private final AtomicLong skippedCycles = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final LatencyHistogram cycleLatency;
+    private volatile BoundedHandoff<?> input;
+    private volatile long lastCycleMillis;
+    private volatile double lastCycleThroughput;
+
+    /**
+     * Интерфейс StageTask описывает работу стадии в одном цикле.
+     */
+    @FunctionalInterface
+    public interface StageTask {
+        /**
+         * Выполняет работу стадии.
+         *
+         * @return Количество обработанных элементов.
+         * @throws Exception Если произошла ошибка при выполнении цикла.
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * Конструктор класса PipelineStage.
+     *
+     * @param name Имя стадии, используется в именах потоков и в показателях.
+     */
+    public PipelineStage(String name) {
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> new Thread(runnable, "pipeline-" + name));
+        this.cycleLatency = Metrics.histogram("pipeline_stage_cycle_seconds",
+                "Duration of one collection cycle in a pipeline stage", "stage", name);
+        Metrics.gauge("pipeline_stage_queue_depth", "Items waiting in the input queue of a pipeline stage",
+                () -> {
+                    BoundedHandoff<?> current = input;
+                    return current == null ? 0 : current.depth();
+                }, "stage", name);
+        Metrics.counter("pipeline_stage_cycles_total", "Cycles completed by a pipeline stage",
+                completedCycles::get, "stage", name);
+        Metrics.counter("pipeline_stage_skipped_cycles_total",
+                "Cycles skipped because a pipeline stage fell behind the schedule", skippedCycles::get, "stage", name);
+        Metrics.counter("pipeline_stage_processed_total", "Items processed by a pipeline stage",
+                processed::get, "stage", name);
+        Metrics.counter("pipeline_stage_dropped_total", "Items dropped from the input queue of a pipeline stage",
+                () -> getMetrics().getDropped(), "stage", name);
+    }
+
+    /**
+     * Проверяет, может ли стадия принять еще один цикл.
+     *
+     * @return true, если место для ожидающего цикла свободно.
+     */
+    public boolean hasCapacity() {
+        return executor.getQueue().remainingCapacity() > 0;
+    }
+
+    /**
+     * Ставит цикл в очередь стадии. Если стадия уже выполняет цикл и еще один ожидает, цикл пропускается.
+     *
+     * @param input Входная очередь цикла или null, если у стадии нет входной очереди.
+     * @param task  Работа стадии.
+     * @return true, если цикл принят.
+     */
+    public boolean submit(BoundedHandoff<?> input, StageTask task) {
+        try {
+            executor.execute(() -> runCycle(input, task));
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            skip();
+            return false;
+        }
+    }
+
+    /**
+     * Учитывает цикл, пропущенный из-за того, что стадия не успевает за расписанием.
+     */
+    public void skip() {
+        skippedCycles.incrementAndGet();
+    }
+
+    /**
+     * Возвращает текущие показатели стадии.
+     *
+     * @return Объект StageMetrics.
+     */
+    public StageMetrics getMetrics() {
+        BoundedHandoff<?> current = input;
+        return new StageMetrics(name, current == null ? 0 : current.depth(), completedCycles.get(),
+                skippedCycles.get(), processed.get(), dropped.get() + (current == null ? 0 : current.getDropped()),
+                lastCycleMillis, lastCycleThroughput);
+    }
+
+    /**
+     * Прерывает выполняющийся цикл и останавливает рабочий поток стадии.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void runCycle(BoundedHandoff<?> cycleInput, StageTask task) {
+        input = cycleInput;
+        long start = System.nanoTime();
+        long count = 0;
+        try {
+            count = task.run();
+        }
+        catch (Exception e) {
+            System.out.println("-->     Pipeline stage " + name + " failed: " + e);
+            e.printStackTrace();
+        }
+        finally {
+            long elapsed = System.nanoTime() - start;
+            long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            cycleLatency.record(elapsed);
+            processed.addAndGet(count);
+            lastCycleMillis = millis;
+            lastCycleThroughput = count * 1000.0 / Math.max(millis, 1);
+            if (cycleInput != null) {
+                dropped.addAndGet(cycleInput.getDropped());
+            }
+            input = null;
+            completedCycles.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.cryptodatacollector.pipeline;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс StageMetrics содержит показатели стадии конвейера: глубину входной очереди, количество выполненных
+ * и пропущенных циклов, количество обработанных и отброшенных элементов и пропускную способность последнего цикла.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class StageMetrics {
+    private String stage;
+    private int queueDepth;
+    private long completedCycles;
+    private long skippedCycles;
+    private long processed;
+    private long dropped;
+    private long lastCycleMillis;
+    private double lastCycleThroughput;
+}
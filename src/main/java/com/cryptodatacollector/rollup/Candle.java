@@ -0,0 +1,29 @@
+package com.cryptodatacollector.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Класс Candle представляет свечу OHLCV одной криптовалюты за интервал.
+ * Помимо цен открытия, максимума, минимума и закрытия свеча хранит объем торгов за 24 часа на момент закрытия,
+ * количество котировок и сумму их цен, чтобы из свечей можно было точно вычислить среднюю цену за любой диапазон.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class Candle {
+    private String symbol;
+    private String resolution;
+    private LocalDateTime start;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
+    private long count;
+    private double priceSum;
+}
@@ -0,0 +1,84 @@
+package com.cryptodatacollector.rollup;
+
+import java.time.Duration;
+
+/**
+ * Перечисление CandleResolution задает разрешения свечей OHLCV. Свечи каждого разрешения хранятся в отдельном индексе
+ * и строятся из данных предыдущего, более мелкого разрешения: минутные - из котировок, часовые - из минутных,
+ * дневные - из часовых.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum CandleResolution {
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("1d", Duration.ofDays(1));
+
+    private static final String INDEX_PREFIX = "crypto_candles_";
+
+    private final String code;
+    private final Duration interval;
+
+    CandleResolution(String code, Duration interval) {
+        this.code = code;
+        this.interval = interval;
+    }
+
+    /**
+     * Возвращает краткое обозначение разрешения, например 1m. Оно же используется как fixed_interval в date_histogram.
+     *
+     * @return Обозначение разрешения.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Возвращает длительность одной свечи в миллисекундах.
+     *
+     * @return Длительность свечи.
+     */
+    public long getIntervalMillis() {
+        return interval.toMillis();
+    }
+
+    /**
+     * Возвращает имя индекса свечей этого разрешения.
+     *
+     * @return Имя индекса.
+     */
+    public String getIndexName() {
+        return INDEX_PREFIX + code;
+    }
+
+    /**
+     * Возвращает разрешение, из свечей которого строятся свечи этого разрешения.
+     *
+     * @return Более мелкое разрешение или null, если свечи строятся из котировок.
+     */
+    public CandleResolution getSource() {
+        return ordinal() == 0 ? null : values()[ordinal() - 1];
+    }
+
+    /**
+     * Округляет время вниз до начала свечи.
+     *
+     * @param epochMillis Время в миллисекундах UTC.
+     * @return Время начала свечи.
+     */
+    public long floor(long epochMillis) {
+        return Math.floorDiv(epochMillis, getIntervalMillis()) * getIntervalMillis();
+    }
+
+    /**
+     * Округляет время вверх до начала свечи.
+     *
+     * @param epochMillis Время в миллисекундах UTC.
+     * @return Время начала свечи.
+     */
+    public long ceil(long epochMillis) {
+        long floor = floor(epochMillis);
+        return floor == epochMillis ? floor : floor + getIntervalMillis();
+    }
+}
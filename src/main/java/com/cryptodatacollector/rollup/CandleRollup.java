@@ -0,0 +1,264 @@
+package com.cryptodatacollector.rollup;
+
+import com.cryptodatacollector.elastic.AsyncRequestExecutor;
+import com.cryptodatacollector.elastic.BulkIndexer;
+import com.cryptodatacollector.elastic.BulkIndexerSettings;
+import com.cryptodatacollector.elastic.BulkIndexingResult;
+import com.cryptodatacollector.elastic.ElasticsearchClient;
+import com.cryptodatacollector.util.EnvConfig;
+import com.cryptodatacollector.util.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.DateHistogramValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.metrics.Min;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.metrics.TopHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Класс CandleRollup инкрементально строит свечи OHLCV по каждой криптовалюте в разрешениях 1m, 1h и 1d.
+ * Минутные свечи строятся из котировок, часовые - из минутных, дневные - из часовых, поэтому каждый запуск читает
+ * только данные, появившиеся после предыдущего запуска. Прогресс каждого разрешения сохраняется в RollupCheckpointStore
+ * после успешной записи свечей. Идентификатор свечи состоит из символа, разрешения и времени начала,
+ * поэтому повторный запуск после сбоя перезаписывает те же документы и не создает дубликатов.
+ * Котировки, поступившие позже, чем через ROLLUP_LAG_MILLIS после своего времени, в свечи не попадают.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class CandleRollup {
+    static final String MAPPINGS = "{\"properties\":{"
+            + "\"symbol\":{\"type\":\"keyword\"},"
+            + "\"resolution\":{\"type\":\"keyword\"},"
+            + "\"start\":{\"type\":\"date\"},"
+            + "\"open\":{\"type\":\"double\"},"
+            + "\"high\":{\"type\":\"double\"},"
+            + "\"low\":{\"type\":\"double\"},"
+            + "\"close\":{\"type\":\"double\"},"
+            + "\"volume\":{\"type\":\"double\"},"
+            + "\"count\":{\"type\":\"long\"},"
+            + "\"priceSum\":{\"type\":\"double\"}"
+            + "}}";
+
+    private final RestHighLevelClient client;
+    private final ElasticsearchClient elasticsearchClient;
+    private final RollupCheckpointStore checkpointStore;
+    private final String rawIndex;
+    private final long lagMillis;
+    private final int pageSize;
+    private final BulkIndexerSettings bulkSettings;
+    private final Gson gson;
+    private volatile boolean indicesCreated;
+
+    /**
+     * Конструктор класса CandleRollup.
+     *
+     * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     */
+    public CandleRollup(RestHighLevelClient client) {
+        this.client = client;
+        this.elasticsearchClient = new ElasticsearchClient(client);
+        this.checkpointStore = new RollupCheckpointStore(client);
+        this.rawIndex = EnvConfig.getString("ELASTIC_READ_ALIAS", "crypto_data");
+        this.lagMillis = EnvConfig.getLong("ROLLUP_LAG_MILLIS", 300000);
+        this.pageSize = EnvConfig.getInt("ROLLUP_PAGE_SIZE", 1000);
+        this.bulkSettings = BulkIndexerSettings.fromEnv();
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+    }
+
+    /**
+     * Достраивает свечи всех разрешений до текущего момента. Свеча строится только после того, как ее интервал
+     * закончился, а для минутных свечей - еще и истекла задержка на поздние котировки.
+     *
+     * @throws IOException Если произошла ошибка при выполнении запросов к Elasticsearch.
+     */
+    public synchronized void run() throws IOException {
+        createIndices();
+        Map<CandleResolution, Long> checkpoints = checkpointStore.load();
+        long now = System.currentTimeMillis();
+
+        for (CandleResolution resolution : CandleResolution.values()) {
+            CandleResolution source = resolution.getSource();
+            long until;
+            if (source == null) {
+                until = resolution.floor(now - lagMillis);
+            }
+            else if (checkpoints.containsKey(source)) {
+                until = resolution.floor(checkpoints.get(source));
+            }
+            else {
+                continue;
+            }
+
+            Long from = checkpoints.get(resolution);
+            if (from == null) {
+                from = earliest(source);
+                if (from == null) {
+                    continue;
+                }
+                from = resolution.floor(from);
+            }
+            if (from >= until) {
+                continue;
+            }
+
+            long written = rollup(resolution, from, until);
+            checkpointStore.save(resolution, until);
+            checkpoints.put(resolution, until);
+            System.out.printf("-->     Rolled up %d %s candles until %s \n",
+                    written, resolution.getCode(), Instant.ofEpochMilli(until));
+        }
+    }
+
+    private void createIndices() throws IOException {
+        if (indicesCreated) {
+            return;
+        }
+        // Индексы разрешений не зависят друг от друга и создаются одновременно
+        List<CompletableFuture<Void>> created = new ArrayList<>();
+        for (CandleResolution resolution : CandleResolution.values()) {
+            created.add(elasticsearchClient.createIndexIfNotExistsAsync(resolution.getIndexName(), MAPPINGS));
+        }
+        AsyncRequestExecutor.await(CompletableFuture.allOf(created.toArray(new CompletableFuture<?>[0])));
+        indicesCreated = true;
+    }
+
+    /**
+     * Находит время самых ранних исходных данных для разрешения.
+     *
+     * @param source Разрешение исходных свечей или null для котировок.
+     * @return Время в миллисекундах UTC или null, если исходных данных нет.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    private Long earliest(CandleResolution source) throws IOException {
+        String timeField = source == null ? "lastUpdated" : "start";
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                .size(0)
+                .aggregation(AggregationBuilders.min("earliest").field(timeField));
+        SearchResponse response = client.search(
+                new SearchRequest(indexOf(source)).source(sourceBuilder), RequestOptions.DEFAULT);
+        Min min = response.getAggregations().get("earliest");
+        return Double.isInfinite(min.getValue()) ? null : (long) min.getValue();
+    }
+
+    /**
+     * Строит свечи разрешения за интервал [from, until) и записывает их в индекс свечей.
+     *
+     * @return Количество записанных свечей.
+     */
+    private long rollup(CandleResolution resolution, long from, long until) throws IOException {
+        CandleResolution source = resolution.getSource();
+        boolean raw = source == null;
+        String timeField = raw ? "lastUpdated" : "start";
+
+        CompositeAggregationBuilder candles = AggregationBuilders.composite("candles", List.of(
+                        new TermsValuesSourceBuilder("symbol").field("symbol"),
+                        new DateHistogramValuesSourceBuilder("start")
+                                .field(timeField)
+                                .fixedInterval(new DateHistogramInterval(resolution.getCode()))))
+                .size(pageSize)
+                .subAggregation(AggregationBuilders.topHits("open")
+                        .size(1)
+                        .sort(timeField, SortOrder.ASC)
+                        .fetchSource(false)
+                        .docValueField(raw ? "price" : "open"))
+                .subAggregation(AggregationBuilders.topHits("close")
+                        .size(1)
+                        .sort(timeField, SortOrder.DESC)
+                        .fetchSource(false)
+                        .docValueField(raw ? "price" : "close")
+                        .docValueField(raw ? "volume24h" : "volume"))
+                .subAggregation(AggregationBuilders.max("high").field(raw ? "price" : "high"))
+                .subAggregation(AggregationBuilders.min("low").field(raw ? "price" : "low"))
+                .subAggregation(raw
+                        ? AggregationBuilders.count("count").field("price")
+                        : AggregationBuilders.sum("count").field("count"))
+                .subAggregation(AggregationBuilders.sum("priceSum").field(raw ? "price" : "priceSum"));
+
+        long written = 0;
+        BulkIndexer bulkIndexer = elasticsearchClient.bulkIndexer(bulkSettings);
+        try (bulkIndexer) {
+            Map<String, Object> afterKey = null;
+            do {
+                if (afterKey != null) {
+                    candles.aggregateAfter(afterKey);
+                }
+                SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                        .size(0)
+                        .query(QueryBuilders.rangeQuery(timeField).gte(from).lt(until).format("epoch_millis"))
+                        .aggregation(candles);
+                SearchResponse response = client.search(
+                        new SearchRequest(indexOf(source)).source(sourceBuilder), RequestOptions.DEFAULT);
+
+                CompositeAggregation page = response.getAggregations().get("candles");
+                for (CompositeAggregation.Bucket bucket : page.getBuckets()) {
+                    Candle candle = toCandle(resolution, bucket, raw);
+                    long startMillis = ((Number) bucket.getKey().get("start")).longValue();
+                    bulkIndexer.add(resolution.getIndexName(),
+                            candle.getSymbol() + "_" + resolution.getCode() + "_" + startMillis,
+                            gson.toJson(candle));
+                    written++;
+                }
+                afterKey = page.getBuckets().isEmpty() ? null : page.afterKey();
+            } while (afterKey != null);
+        }
+
+        // Итоги окончательные только после закрытия, которое дожидается ответов на все _bulk запросы
+        BulkIndexingResult result = bulkIndexer.getResult();
+        if (result.hasFailures()) {
+            throw new IOException("Failed to write " + result.getFailed() + " " + resolution.getCode()
+                    + " candles: " + result.getFailures());
+        }
+        return written;
+    }
+
+    private Candle toCandle(CandleResolution resolution, CompositeAggregation.Bucket bucket, boolean raw) {
+        Aggregations aggregations = bucket.getAggregations();
+        SearchHit open = ((TopHits) aggregations.get("open")).getHits().getAt(0);
+        SearchHit close = ((TopHits) aggregations.get("close")).getHits().getAt(0);
+        long startMillis = ((Number) bucket.getKey().get("start")).longValue();
+
+        return new Candle(
+                bucket.getKey().get("symbol").toString(),
+                resolution.getCode(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), ZoneOffset.UTC),
+                ((Number) open.field(raw ? "price" : "open").getValue()).doubleValue(),
+                ((NumericMetricsAggregation.SingleValue) aggregations.get("high")).value(),
+                ((NumericMetricsAggregation.SingleValue) aggregations.get("low")).value(),
+                ((Number) close.field(raw ? "price" : "close").getValue()).doubleValue(),
+                close.field(raw ? "volume24h" : "volume") != null
+                        ? ((Number) close.field(raw ? "volume24h" : "volume").getValue()).doubleValue()
+                        : 0,
+                (long) ((NumericMetricsAggregation.SingleValue) aggregations.get("count")).value(),
+                ((NumericMetricsAggregation.SingleValue) aggregations.get("priceSum")).value()
+        );
+    }
+
+    private String indexOf(CandleResolution source) {
+        return source == null ? rawIndex : source.getIndexName();
+    }
+}
@@ -0,0 +1,58 @@
+package com.cryptodatacollector.rollup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс RangePlanner разбивает диапазон времени на части так, чтобы каждая часть читалась из самого крупного
+ * разрешения свечей, целиком ее покрывающего. Середина длинного диапазона читается из дневных свечей, края - из часовых
+ * и минутных, а из исходных котировок читаются только неполные минуты и данные, еще не обработанные свертками.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class RangePlanner {
+
+    private RangePlanner() {
+    }
+
+    /**
+     * Разбивает диапазон [fromMillis, toMillis) на части.
+     *
+     * @param fromMillis  Начало диапазона в миллисекундах UTC.
+     * @param toMillis    Конец диапазона в миллисекундах UTC, не включительно.
+     * @param checkpoints Время, до которого построены свечи каждого разрешения. Отсутствующие разрешения не используются.
+     * @return Список частей диапазона.
+     */
+    public static List<RangeSegment> plan(long fromMillis, long toMillis, Map<CandleResolution, Long> checkpoints) {
+        List<RangeSegment> segments = new ArrayList<>();
+        CandleResolution[] resolutions = CandleResolution.values();
+        plan(fromMillis, toMillis, checkpoints, resolutions.length - 1, segments);
+        return segments;
+    }
+
+    private static void plan(long from, long to, Map<CandleResolution, Long> checkpoints, int level,
+                             List<RangeSegment> segments) {
+        if (from >= to) {
+            return;
+        }
+        if (level < 0) {
+            segments.add(new RangeSegment(null, from, to));
+            return;
+        }
+
+        CandleResolution resolution = CandleResolution.values()[level];
+        Long checkpoint = checkpoints.get(resolution);
+        long alignedFrom = resolution.ceil(from);
+        long alignedTo = checkpoint == null ? alignedFrom : Math.min(resolution.floor(to), resolution.floor(checkpoint));
+        if (alignedFrom >= alignedTo) {
+            plan(from, to, checkpoints, level - 1, segments);
+            return;
+        }
+
+        plan(from, alignedFrom, checkpoints, level - 1, segments);
+        segments.add(new RangeSegment(resolution, alignedFrom, alignedTo));
+        plan(alignedTo, to, checkpoints, level - 1, segments);
+    }
+}
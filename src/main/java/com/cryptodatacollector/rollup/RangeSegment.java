@@ -0,0 +1,22 @@
+package com.cryptodatacollector.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс RangeSegment описывает часть временного диапазона запроса и источник данных для нее:
+ * индекс свечей определенного разрешения или исходные котировки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RangeSegment {
+    /**
+     * Разрешение свечей или null, если часть диапазона читается из исходных котировок.
+     */
+    private CandleResolution resolution;
+    private long fromMillis;
+    private long toMillis;
+}
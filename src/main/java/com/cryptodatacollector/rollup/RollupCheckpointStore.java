@@ -0,0 +1,101 @@
+package com.cryptodatacollector.rollup;
+
+import com.cryptodatacollector.elastic.AsyncRequestExecutor;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Класс RollupCheckpointStore хранит в Elasticsearch время, до которого построены свечи каждого разрешения.
+ * Каждому разрешению соответствует один документ служебного индекса, идентификатор документа - код разрешения.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class RollupCheckpointStore {
+    static final String INDEX_NAME = "crypto_candles_checkpoints";
+    private static final String FIELD = "processedUntil";
+
+    private final RestHighLevelClient client;
+
+    /**
+     * Конструктор класса RollupCheckpointStore.
+     *
+     * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     */
+    public RollupCheckpointStore(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Загружает checkpoint всех разрешений одним запросом.
+     *
+     * @return Время в миллисекундах UTC, до которого построены свечи, по разрешениям.
+     * Разрешения, для которых свечи еще не строились, отсутствуют.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    public Map<CandleResolution, Long> load() throws IOException {
+        return AsyncRequestExecutor.await(loadAsync());
+    }
+
+    /**
+     * Асинхронно загружает checkpoint всех разрешений одним запросом.
+     *
+     * @return Время в миллисекундах UTC, до которого построены свечи, по разрешениям.
+     */
+    public CompletableFuture<Map<CandleResolution, Long>> loadAsync() {
+        MultiGetRequest request = new MultiGetRequest();
+        for (CandleResolution resolution : CandleResolution.values()) {
+            request.add(INDEX_NAME, resolution.getCode());
+        }
+        return AsyncRequestExecutor.of(client)
+                .<MultiGetResponse>execute(listener -> client.mgetAsync(request, RequestOptions.DEFAULT, listener))
+                .thenApply(RollupCheckpointStore::parse);
+    }
+
+    private static Map<CandleResolution, Long> parse(MultiGetResponse response) {
+        Map<CandleResolution, Long> checkpoints = new EnumMap<>(CandleResolution.class);
+        for (MultiGetItemResponse item : response.getResponses()) {
+            // Отсутствие служебного индекса означает, что свертки еще не запускались
+            if (item.isFailed() || !item.getResponse().isExists()) {
+                continue;
+            }
+            Object value = item.getResponse().getSourceAsMap().get(FIELD);
+            if (value instanceof Number) {
+                checkpoints.put(byCode(item.getId()), ((Number) value).longValue());
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Сохраняет checkpoint разрешения.
+     *
+     * @param resolution     Разрешение.
+     * @param processedUntil Время в миллисекундах UTC, до которого построены свечи.
+     * @throws IOException Если произошла ошибка при выполнении запроса к Elasticsearch.
+     */
+    public void save(CandleResolution resolution, long processedUntil) throws IOException {
+        client.index(new IndexRequest(INDEX_NAME)
+                        .id(resolution.getCode())
+                        .source(Map.of("resolution", resolution.getCode(), FIELD, processedUntil)),
+                RequestOptions.DEFAULT);
+    }
+
+    private static CandleResolution byCode(String code) {
+        for (CandleResolution resolution : CandleResolution.values()) {
+            if (resolution.getCode().equals(code)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown candle resolution: " + code);
+    }
+}
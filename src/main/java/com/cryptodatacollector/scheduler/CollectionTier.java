@@ -0,0 +1,115 @@
+package com.cryptodatacollector.scheduler;
+
+import com.cryptodatacollector.api.QuoteScope;
+import com.cryptodatacollector.pipeline.CollectionPipeline;
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Класс CollectionTier описывает уровень сбора данных: часть рынка (диапазон рейтинга или список символов)
+ * и интервал, с которым собираются ее котировки.
+ * Уровни задаются параметром COLLECTION_TIERS в формате имя:часть:секунды, уровни разделяются точкой с запятой,
+ * например top:1-100:10;rest:101-:60;majors:BTC,ETH:5.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class CollectionTier {
+    private String name;
+    private QuoteScope scope;
+    private long intervalMillis;
+
+    /**
+     * Создает уровни сбора на основе параметров из .env файла. Если COLLECTION_TIERS не задан,
+     * весь рейтинг собирается одним уровнем с интервалом по умолчанию.
+     *
+     * @param defaultIntervalMillis Интервал сбора в миллисекундах, если уровни не заданы.
+     * @return Список уровней сбора.
+     */
+    public static List<CollectionTier> fromEnv(long defaultIntervalMillis) {
+        String spec = EnvConfig.getString("COLLECTION_TIERS", "");
+        if (spec.isBlank()) {
+            return List.of(new CollectionTier(CollectionPipeline.DEFAULT_TIER, QuoteScope.ALL, defaultIntervalMillis));
+        }
+        return parse(spec);
+    }
+
+    /**
+     * Разбирает описание уровней сбора.
+     *
+     * @param spec Описание уровней, например top:1-100:10;rest:101-:60;majors:BTC,ETH:5.
+     * @return Список уровней сбора.
+     * @throws IllegalArgumentException Если описание задано неверно.
+     */
+    public static List<CollectionTier> parse(String spec) {
+        List<CollectionTier> tiers = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String entry : spec.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Invalid collection tier, expected name:scope:seconds: " + entry);
+            }
+            String name = parts[0].trim();
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Duplicate collection tier: " + name);
+            }
+            long intervalMillis;
+            try {
+                intervalMillis = Long.parseLong(parts[2].trim()) * 1000L;
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid interval of collection tier " + name + ": " + parts[2]);
+            }
+            if (intervalMillis <= 0) {
+                throw new IllegalArgumentException("Invalid interval of collection tier " + name + ": " + parts[2]);
+            }
+            tiers.add(new CollectionTier(name, parseScope(parts[1].trim()), intervalMillis));
+        }
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("No collection tiers defined: " + spec);
+        }
+        return tiers;
+    }
+
+    private static QuoteScope parseScope(String scope) {
+        if (!scope.isEmpty() && Character.isDigit(scope.charAt(0))) {
+            int dash = scope.indexOf('-');
+            try {
+                if (dash < 0) {
+                    int rank = Integer.parseInt(scope);
+                    return QuoteScope.ranks(rank, rank);
+                }
+                int first = Integer.parseInt(scope.substring(0, dash));
+                String last = scope.substring(dash + 1);
+                return QuoteScope.ranks(first, last.isEmpty() ? 0 : Integer.parseInt(last));
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid rank range: " + scope);
+            }
+        }
+        List<String> symbols = Arrays.stream(scope.split(","))
+                .map(String::trim)
+                .filter(symbol -> !symbol.isEmpty())
+                .map(String::toUpperCase)
+                .collect(Collectors.toList());
+        return QuoteScope.symbols(symbols);
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + scope + ":" + intervalMillis / 1000 + "s";
+    }
+}
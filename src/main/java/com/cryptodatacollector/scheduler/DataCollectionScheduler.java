@@ -1,112 +1,145 @@
 package com.cryptodatacollector.scheduler;
 
-import com.cryptodatacollector.analysis.CryptoDataAnalyzer;
-import com.cryptodatacollector.model.CryptoCurrency;
-import com.cryptodatacollector.service.CryptoDataService;
+import com.cryptodatacollector.api.QuoteScope;
+import com.cryptodatacollector.cluster.ClusterCoordinator;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.pipeline.CollectionPipeline;
+import com.cryptodatacollector.rollup.CandleRollup;
+import com.cryptodatacollector.util.EnvConfig;
 import org.quartz.*;
 import org.quartz.impl.StdSchedulerFactory;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Класс DataCollectionScheduler отвечает за планирование и выполнение задач по сбору и анализу данных о криптовалютах.
- * Он использует Quartz Scheduler для периодического выполнения задачи сбора данных.
+ * Циклы сбора данных запускаются TieredCollectionScheduler отдельно для каждого уровня сбора,
+ * задача построения свечей OHLCV периодически выполняется Quartz Scheduler.
+ * Планировщик каждого экземпляра работает независимо: при совместной работе экземпляров задача сбора
+ * загружает только диапазоны текущего экземпляра, а свечи строит только ведущий экземпляр.
  *
  * @author debugByPrintln
  * @version 1.0
  */
 public class DataCollectionScheduler {
-    private final CryptoDataService cryptoDataService;
-    private final CryptoDataAnalyzer cryptoDataAnalyzer;
+    private static final LatencyHistogram ROLLUP_LAG = Metrics.histogram("scheduler_lag_seconds",
+            "Delay between the scheduled and the actual start of a job", "job", "rollup");
+    private final CollectionPipeline collectionPipeline;
+    private final CandleRollup candleRollup;
+    private final ClusterCoordinator clusterCoordinator;
 
     /**
      * Конструктор класса DataCollectionScheduler.
      *
-     * @param cryptoDataService  Сервис для сбора и индексации данных о криптовалютах.
-     * @param cryptoDataAnalyzer Сервис для анализа данных о криптовалютах.
+     * @param collectionPipeline Конвейер сбора, индексации и анализа данных о криптовалютах.
+     * @param candleRollup       Задача построения свечей OHLCV.
      */
-    public DataCollectionScheduler(CryptoDataService cryptoDataService, CryptoDataAnalyzer cryptoDataAnalyzer) {
-        this.cryptoDataService = cryptoDataService;
-        this.cryptoDataAnalyzer = cryptoDataAnalyzer;
+    public DataCollectionScheduler(CollectionPipeline collectionPipeline, CandleRollup candleRollup) {
+        this(collectionPipeline, candleRollup, null);
     }
 
     /**
-     * Запускает планировщик задач с указанным интервалом выполнения.
+     * Конструктор класса DataCollectionScheduler.
+     *
+     * @param collectionPipeline Конвейер сбора, индексации и анализа данных о криптовалютах.
+     * @param candleRollup       Задача построения свечей OHLCV.
+     * @param clusterCoordinator Координатор совместной работы экземпляров или null, если экземпляр работает один.
+     */
+    public DataCollectionScheduler(CollectionPipeline collectionPipeline, CandleRollup candleRollup,
+                                   ClusterCoordinator clusterCoordinator) {
+        this.collectionPipeline = collectionPipeline;
+        this.candleRollup = candleRollup;
+        this.clusterCoordinator = clusterCoordinator;
+    }
+
+    /**
+     * Запускает планировщик задач с указанным интервалом выполнения. Весь рейтинг собирается одним уровнем сбора.
+     *
+     * @param intervalMillis Интервал выполнения задачи в миллисекундах.
+     * @throws SchedulerException Если произошла ошибка при запуске планировщика.
+     */
+    public void startScheduler(long intervalMillis) throws SchedulerException {
+        startScheduler(List.of(new CollectionTier(CollectionPipeline.DEFAULT_TIER, QuoteScope.ALL, intervalMillis)));
+    }
+
+    /**
+     * Запускает планировщик задач: циклы каждого уровня сбора запускаются со своим интервалом,
+     * свечи строятся каждые ROLLUP_INTERVAL_IN_SECONDS секунд.
      *
-     * @param intervalInSeconds Интервал выполнения задачи в секундах.
+     * @param tiers Уровни сбора.
      * @throws SchedulerException Если произошла ошибка при запуске планировщика.
      */
-    public void startScheduler(int intervalInSeconds) throws SchedulerException {
-        JobDetail job = JobBuilder.newJob(DataCollectionJob.class)
-                .withIdentity("dataCollectionJob", "group1")
+    public void startScheduler(List<CollectionTier> tiers) throws SchedulerException {
+        JobDetail rollupJob = JobBuilder.newJob(RollupJob.class)
+                .withIdentity("rollupJob", "group1")
                 .build();
 
-        Trigger trigger = TriggerBuilder.newTrigger()
-                .withIdentity("dataCollectionTrigger", "group1")
+        Trigger rollupTrigger = TriggerBuilder.newTrigger()
+                .withIdentity("rollupTrigger", "group1")
                 .withSchedule(SimpleScheduleBuilder.simpleSchedule()
-                        .withIntervalInSeconds(intervalInSeconds)
+                        .withIntervalInSeconds(EnvConfig.getInt("ROLLUP_INTERVAL_IN_SECONDS", 60))
                         .repeatForever())
                 .build();
 
         Scheduler scheduler = new StdSchedulerFactory().getScheduler();
-        scheduler.getContext().put("cryptoDataService", cryptoDataService);
-        scheduler.getContext().put("cryptoDataAnalyzer", cryptoDataAnalyzer);
+        scheduler.getContext().put("candleRollup", candleRollup);
+        if (clusterCoordinator != null) {
+            scheduler.getContext().put("clusterCoordinator", clusterCoordinator);
+        }
         scheduler.start();
-        scheduler.scheduleJob(job, trigger);
+        scheduler.scheduleJob(rollupJob, rollupTrigger);
+
+        new TieredCollectionScheduler(collectionPipeline, SchedulerSettings.fromEnv()).start(tiers);
     }
 
     /**
-     * Внутренний класс, реализующий интерфейс Job для выполнения задачи сбора и анализа данных.
+     * Внутренний класс, реализующий интерфейс Job для построения свечей OHLCV по собранным котировкам.
+     * Ошибка построения не прерывает расписание: необработанный интервал будет обработан при следующем запуске.
+     * При совместной работе экземпляров свечи строит только ведущий экземпляр.
      */
-    public static class DataCollectionJob implements Job {
+    @DisallowConcurrentExecution
+    public static class RollupJob implements Job {
 
         /**
-         * Метод выполнения задачи сбора и анализа данных.
+         * Метод выполнения задачи построения свечей.
          *
          * @param context Контекст выполнения задачи.
-         * @throws JobExecutionException Если произошла ошибка при выполнении задачи.
+         * @throws JobExecutionException Если не удалось получить задачу из контекста планировщика.
          */
         @Override
         public void execute(JobExecutionContext context) throws JobExecutionException {
-            System.out.println("-->     Executing data collection job at: " + LocalDateTime.now());
-            CryptoDataService cryptoDataService = null;
-            CryptoDataAnalyzer cryptoDataAnalyzer = null;
+            recordLag(ROLLUP_LAG, context);
             try {
-                cryptoDataService = (CryptoDataService) context.getScheduler().getContext().get("cryptoDataService");
-                cryptoDataAnalyzer = (CryptoDataAnalyzer) context.getScheduler().getContext().get("cryptoDataAnalyzer");
-                cryptoDataService.collectAndIndexData();
-
-                String avgPriceCheckCryptoSymbol = "BTC";
-
-                try{
-                    double avgPrice = cryptoDataAnalyzer.getAveragePriceLastHour(avgPriceCheckCryptoSymbol);
-                    System.out.printf("-->     Average price of %s in the last hour: %f \n", avgPriceCheckCryptoSymbol, avgPrice);
+                ClusterCoordinator clusterCoordinator =
+                        (ClusterCoordinator) context.getScheduler().getContext().get("clusterCoordinator");
+                if (clusterCoordinator != null && !clusterCoordinator.isLeader()) {
+                    return;
                 }
-                catch (IOException e){
-                    e.printStackTrace();
-                }
-
-                try{
-                    CryptoCurrency maxPercentChangeCrypto = cryptoDataAnalyzer.getMaxPercentChangeCrypto();
-                    if (maxPercentChangeCrypto != null){
-                        System.out.printf("-->     Crypto with max percent change in the last day: %s with max percent change of: %f \n",
-                                maxPercentChangeCrypto.getSymbol(),
-                                maxPercentChangeCrypto.getPercentChange24h());
-                    }
-                    else{
-                        System.out.println("No crypto with max percent change");
-                    }
-                }
-                catch (IOException e){
-                    e.printStackTrace();
-                }
-
+                CandleRollup candleRollup = (CandleRollup) context.getScheduler().getContext().get("candleRollup");
+                candleRollup.run();
             }
-            catch (SchedulerException | IOException | URISyntaxException e) {
-                throw new RuntimeException(e);
+            catch (SchedulerException e) {
+                throw new JobExecutionException(e);
             }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Записывает задержку запуска задачи относительно расписания.
+     *
+     * @param histogram Гистограмма задержек задачи.
+     * @param context   Контекст выполнения задачи.
+     */
+    private static void recordLag(LatencyHistogram histogram, JobExecutionContext context) {
+        if (context.getScheduledFireTime() != null) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(
+                    context.getFireTime().getTime() - context.getScheduledFireTime().getTime()));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.cryptodatacollector.scheduler;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс SchedulerSettings содержит параметры расписания уровней сбора: наибольшую случайную задержку запуска
+ * в процентах от интервала и наибольшее замедление уровня, циклы которого не успевают за интервалом.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class SchedulerSettings {
+    private int jitterPercent;
+    private int maxSlowdown;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект SchedulerSettings.
+     */
+    public static SchedulerSettings fromEnv() {
+        return new SchedulerSettings(
+                EnvConfig.getInt("SCHEDULER_JITTER_PERCENT", 5),
+                EnvConfig.getInt("SCHEDULER_MAX_SLOWDOWN", 8)
+        );
+    }
+}
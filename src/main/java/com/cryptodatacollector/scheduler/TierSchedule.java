@@ -0,0 +1,109 @@
+package com.cryptodatacollector.scheduler;
+
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Класс TierSchedule вычисляет моменты запуска циклов одного уровня сбора.
+ * Моменты запуска лежат на сетке с шагом в интервал уровня и отсчитываются от сетки, а не от фактического запуска,
+ * поэтому задержки отдельных запусков не накапливаются. Случайная задержка в пределах SCHEDULER_JITTER_PERCENT
+ * процентов интервала добавляется к каждому моменту отдельно и тоже не сдвигает сетку.
+ * Если запуск опоздал больше чем на интервал, пропущенные моменты не наверстываются, а отбрасываются.
+ * Если цикл не успевает завершиться до следующего запуска, интервал удваивается, но не более чем
+ * в SCHEDULER_MAX_SLOWDOWN раз относительно заданного, а после быстрых циклов постепенно возвращается обратно.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+class TierSchedule {
+    private final long baseIntervalMillis;
+    private final long maxIntervalMillis;
+    private final int jitterPercent;
+    private final LongUnaryOperator jitter;
+    private long nominal;
+    private long intervalMillis;
+    private long missed;
+
+    /**
+     * Конструктор класса TierSchedule.
+     *
+     * @param baseIntervalMillis Заданный интервал уровня в миллисекундах.
+     * @param settings           Параметры расписания.
+     * @param jitter             Источник случайной задержки: по наибольшей задержке возвращает задержку от 0 до нее.
+     */
+    TierSchedule(long baseIntervalMillis, SchedulerSettings settings, LongUnaryOperator jitter) {
+        this.baseIntervalMillis = baseIntervalMillis;
+        this.maxIntervalMillis = baseIntervalMillis * Math.max(1, settings.getMaxSlowdown());
+        this.jitterPercent = Math.max(0, settings.getJitterPercent());
+        this.jitter = jitter;
+        this.intervalMillis = baseIntervalMillis;
+    }
+
+    /**
+     * Возвращает момент первого запуска и начинает сетку с текущего момента.
+     *
+     * @param now Текущее время в миллисекундах.
+     * @return Момент запуска в миллисекундах.
+     */
+    synchronized long first(long now) {
+        nominal = now;
+        return nominal + jitter();
+    }
+
+    /**
+     * Возвращает момент следующего запуска: следующий узел сетки, который еще не наступил.
+     *
+     * @param now Текущее время в миллисекундах.
+     * @return Момент запуска в миллисекундах.
+     */
+    synchronized long next(long now) {
+        nominal += intervalMillis;
+        if (nominal <= now) {
+            long behind = (now - nominal) / intervalMillis + 1;
+            nominal += behind * intervalMillis;
+            missed += behind;
+        }
+        return nominal + jitter();
+    }
+
+    /**
+     * Замедляет уровень после запуска, при котором предыдущий цикл еще выполнялся.
+     */
+    synchronized void overran() {
+        intervalMillis = Math.min(intervalMillis * 2, maxIntervalMillis);
+    }
+
+    /**
+     * Учитывает продолжительность завершенного цикла. Если цикл занял меньше половины текущего интервала,
+     * замедление уменьшается вдвое.
+     *
+     * @param durationMillis Продолжительность цикла в миллисекундах.
+     */
+    synchronized void completed(long durationMillis) {
+        if (intervalMillis > baseIntervalMillis && durationMillis < intervalMillis / 2) {
+            intervalMillis = Math.max(intervalMillis / 2, baseIntervalMillis);
+        }
+    }
+
+    /**
+     * Возвращает текущий интервал уровня с учетом замедления.
+     *
+     * @return Интервал в миллисекундах.
+     */
+    synchronized long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Возвращает количество моментов запуска, отброшенных из-за опоздания.
+     *
+     * @return Количество отброшенных запусков.
+     */
+    synchronized long getMissed() {
+        return missed;
+    }
+
+    private long jitter() {
+        long bound = intervalMillis * jitterPercent / 100;
+        return bound > 0 ? jitter.applyAsLong(bound) : 0;
+    }
+}
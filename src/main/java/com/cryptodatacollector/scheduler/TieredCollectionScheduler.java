@@ -0,0 +1,140 @@
+package com.cryptodatacollector.scheduler;
+
+import com.cryptodatacollector.metrics.Counter;
+import com.cryptodatacollector.metrics.LatencyHistogram;
+import com.cryptodatacollector.metrics.Metrics;
+import com.cryptodatacollector.pipeline.CollectionPipeline;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс TieredCollectionScheduler запускает циклы сбора данных каждого уровня сбора со своим интервалом.
+ * Запуски выполняются одним потоком планировщика, который только передает цикл конвейеру и не ждет
+ * его завершения. Если предыдущий цикл уровня еще выполняется, запуск пропускается, а уровень замедляется
+ * (см. TierSchedule). Уровни не влияют друг на друга: у каждого уровня свои стадии fetch и index в конвейере.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class TieredCollectionScheduler implements Closeable {
+    private final CollectionPipeline collectionPipeline;
+    private final SchedulerSettings settings;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "collection-scheduler"));
+
+    /**
+     * Конструктор класса TieredCollectionScheduler.
+     *
+     * @param collectionPipeline Конвейер сбора, индексации и анализа данных о криптовалютах.
+     * @param settings           Параметры расписания.
+     */
+    public TieredCollectionScheduler(CollectionPipeline collectionPipeline, SchedulerSettings settings) {
+        this.collectionPipeline = collectionPipeline;
+        this.settings = settings;
+    }
+
+    /**
+     * Запускает расписания уровней сбора. Первый цикл каждого уровня запускается сразу,
+     * с учетом случайной задержки.
+     *
+     * @param tiers Уровни сбора.
+     */
+    public void start(List<CollectionTier> tiers) {
+        for (CollectionTier tier : tiers) {
+            System.out.println("-->     Scheduling collection tier " + tier);
+            new ScheduledTier(tier).start();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Расписание и показатели одного уровня сбора. Все методы, кроме обработчика завершения цикла,
+     * выполняются в потоке планировщика.
+     */
+    private final class ScheduledTier {
+        private final CollectionTier tier;
+        private final TierSchedule schedule;
+        private final LatencyHistogram lag;
+        private final Counter skipped;
+        private CompletableFuture<Long> running;
+
+        ScheduledTier(CollectionTier tier) {
+            this.tier = tier;
+            this.schedule = new TierSchedule(tier.getIntervalMillis(), settings,
+                    bound -> ThreadLocalRandom.current().nextLong(bound + 1));
+            this.lag = Metrics.histogram("scheduler_lag_seconds",
+                    "Delay between the scheduled and the actual start of a job",
+                    "job", "collection", "tier", tier.getName());
+            this.skipped = Metrics.counter("scheduler_tier_skipped_total",
+                    "Collection cycles skipped because the previous cycle of the tier was still running",
+                    "tier", tier.getName());
+            Metrics.counter("scheduler_tier_missed_total",
+                    "Collection cycles dropped because the scheduler started them later than one interval",
+                    schedule::getMissed, "tier", tier.getName());
+            Metrics.gauge("scheduler_tier_interval_seconds",
+                    "Current collection interval of a tier, including the slowdown after overruns",
+                    () -> schedule.getIntervalMillis() / 1000.0, "tier", tier.getName());
+        }
+
+        void start() {
+            scheduleAt(schedule.first(now()));
+        }
+
+        private void scheduleAt(long fireAt) {
+            if (!executor.isShutdown()) {
+                executor.schedule(() -> fire(fireAt), Math.max(0, fireAt - now()), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void fire(long scheduledAt) {
+            lag.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, now() - scheduledAt)));
+            try {
+                CompletableFuture<Long> cycle = running == null || running.isDone()
+                        ? submit()
+                        : null;
+                if (cycle == null) {
+                    skipped.increment();
+                    schedule.overran();
+                    System.out.println("-->     Collection cycle of tier " + tier.getName()
+                            + " overran, interval is now " + schedule.getIntervalMillis() + " ms");
+                }
+                else {
+                    running = cycle;
+                }
+            }
+            catch (RuntimeException e) {
+                // Ошибка одного запуска не должна останавливать расписание уровня
+                e.printStackTrace();
+            }
+            finally {
+                scheduleAt(schedule.next(now()));
+            }
+        }
+
+        private CompletableFuture<Long> submit() {
+            System.out.println("-->     Executing data collection job (" + tier.getName() + ") at: "
+                    + LocalDateTime.now());
+            long startedAt = now();
+            CompletableFuture<Long> cycle = collectionPipeline.submit(tier.getName(), tier.getScope());
+            if (cycle != null) {
+                cycle.whenComplete((count, error) -> schedule.completed(now() - startedAt));
+            }
+            return cycle;
+        }
+    }
+}
@@ -1,33 +1,75 @@
 package com.cryptodatacollector.service;
 
+import com.cryptodatacollector.analysis.RollingWindowAnalytics;
 import com.cryptodatacollector.api.CoinMarketCapApiClient;
+import com.cryptodatacollector.api.ListingsFetchResult;
+import com.cryptodatacollector.api.QuoteScope;
+import com.cryptodatacollector.api.QuoteSource;
 import com.cryptodatacollector.elastic.CryptoDataIndexer;
-import com.google.gson.JsonArray;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.sink.CompositeQuoteSink;
+import com.cryptodatacollector.sink.QuoteBatch;
+import com.cryptodatacollector.sink.QuoteSink;
 import org.elasticsearch.client.RestHighLevelClient;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Класс CryptoDataService отвечает за сбор и индексацию данных о криптовалютах.
- * Он использует CoinMarketCapApiClient для получения данных и CryptoDataIndexer для их индексации в Elasticsearch.
+ * Он получает котировки из источника QuoteSource (по умолчанию CoinMarketCapApiClient)
+ * и индексирует их в Elasticsearch с помощью CryptoDataIndexer. Котировки можно дополнительно записывать
+ * в другие хранилища QuoteSink, например в локальное колоночное хранилище.
  *
  * @author debugByPrintln
  * @version 1.0
  */
-public class CryptoDataService {
-    private final CoinMarketCapApiClient apiClient;
+public class CryptoDataService implements Closeable {
+    private final QuoteSource quoteSource;
     private final CryptoDataIndexer indexer;
+    private final RollingWindowAnalytics rollingWindowAnalytics;
+    private final List<QuoteSink> sinks = new ArrayList<>();
+    private volatile QuoteSink sink;
 
     /**
      * Конструктор класса CryptoDataService.
      *
-     * @param apiKey API ключ для доступа к CoinMarketCap API.
      * @param client Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
      */
     public CryptoDataService(RestHighLevelClient client) {
-        this.apiClient = new CoinMarketCapApiClient();
+        this(client, new RollingWindowAnalytics());
+    }
+
+    /**
+     * Конструктор класса CryptoDataService.
+     *
+     * @param client                 Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param rollingWindowAnalytics Статистика котировок в памяти, которая обновляется каждой собранной котировкой.
+     */
+    public CryptoDataService(RestHighLevelClient client, RollingWindowAnalytics rollingWindowAnalytics) {
+        this(client, rollingWindowAnalytics, new CoinMarketCapApiClient());
+    }
+
+    /**
+     * Конструктор класса CryptoDataService.
+     *
+     * @param client                 Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param rollingWindowAnalytics Статистика котировок в памяти, которая обновляется каждой собранной котировкой.
+     * @param quoteSource            Источник котировок.
+     */
+    public CryptoDataService(RestHighLevelClient client, RollingWindowAnalytics rollingWindowAnalytics,
+                             QuoteSource quoteSource) {
+        this.quoteSource = quoteSource;
         this.indexer = new CryptoDataIndexer(client);
+        this.rollingWindowAnalytics = rollingWindowAnalytics;
+        this.sinks.add(indexer);
+        this.sink = indexer;
     }
 
     /**
@@ -37,12 +79,93 @@ public class CryptoDataService {
      * @throws URISyntaxException Если произошла ошибка при построении URI.
      */
     public void collectAndIndexData() throws IOException, URISyntaxException {
-        try {
-            JsonArray cryptoData = apiClient.fetchCryptoData();
-            indexer.indexCryptoData(cryptoData);
+        try (QuoteBatch batch = openBatch()) {
+            fetchData(quote -> indexQuote(batch, quote));
         }
         catch (IllegalArgumentException e) {
             e.printStackTrace();
         }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Получает котировки очередного цикла из источника и передает их обработчику по мере разбора.
+     *
+     * @param consumer Обработчик котировок. Может вызываться из нескольких потоков одновременно.
+     * @return Итоги загрузки.
+     * @throws IOException        Если произошла ошибка при получении котировок.
+     * @throws URISyntaxException Если произошла ошибка при построении URI.
+     */
+    public ListingsFetchResult fetchData(Consumer<Quote> consumer) throws IOException, URISyntaxException {
+        return fetchData(QuoteScope.ALL, consumer);
+    }
+
+    /**
+     * Получает котировки части рынка из источника и передает их обработчику по мере разбора.
+     *
+     * @param scope    Диапазон рейтинга или список символов.
+     * @param consumer Обработчик котировок. Может вызываться из нескольких потоков одновременно.
+     * @return Итоги загрузки.
+     * @throws IOException        Если произошла ошибка при получении котировок.
+     * @throws URISyntaxException Если произошла ошибка при построении URI.
+     */
+    public ListingsFetchResult fetchData(QuoteScope scope, Consumer<Quote> consumer) throws IOException, URISyntaxException {
+        ListingsFetchResult result = quoteSource.fetch(scope, consumer);
+        System.out.printf("-->     Fetched %d listings (%s) from %d pages in %d ms (%d failed pages, %d pages over credit budget, %d credits) \n",
+                result.getListings(), scope, result.getPages(), result.getElapsedMillis(),
+                result.getFailedPages(), result.getBudgetSkippedPages(), result.getCreditCount());
+        return result;
+    }
+
+    /**
+     * Открывает пакет индексации котировок во всех хранилищах.
+     *
+     * @return Объект QuoteBatch.
+     * @throws IOException Если произошла ошибка при подготовке индекса или хранилища.
+     */
+    public QuoteBatch openBatch() throws IOException {
+        return sink.openBatch();
+    }
+
+    /**
+     * Добавляет хранилище, в которое котировки записываются вместе с Elasticsearch.
+     * Хранилища добавляются до запуска сбора данных.
+     *
+     * @param additionalSink Дополнительное хранилище котировок.
+     */
+    public synchronized void addSink(QuoteSink additionalSink) {
+        sinks.add(additionalSink);
+        sink = new CompositeQuoteSink(sinks);
+    }
+
+    /**
+     * Добавляет слушателя, который вызывается после закрытия каждого пакета индексации
+     * с символами проиндексированных котировок.
+     *
+     * @param listener Слушатель.
+     */
+    public void addCommitListener(Consumer<Set<String>> listener) {
+        indexer.addCommitListener(listener);
+    }
+
+    /**
+     * Учитывает котировку в статистике в памяти и добавляет ее в пакет индексации.
+     *
+     * @param batch Пакет индексации.
+     * @param quote Котировка.
+     */
+    public void indexQuote(QuoteBatch batch, Quote quote) {
+        rollingWindowAnalytics.record(quote);
+        batch.add(quote);
+    }
+
+    /**
+     * Останавливает фоновую работу индексатора и освобождает локальный буфер документов.
+     */
+    @Override
+    public void close() {
+        indexer.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.cryptodatacollector.sink;
+
+import com.cryptodatacollector.model.Quote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Класс CompositeQuoteSink записывает котировки сразу в несколько хранилищ.
+ * Пакет открывается во всех хранилищах, каждая котировка добавляется в каждый из них, а при закрытии
+ * закрываются все пакеты, даже если закрытие одного из них завершилось ошибкой.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class CompositeQuoteSink implements QuoteSink {
+    private final List<QuoteSink> sinks;
+
+    /**
+     * Конструктор класса CompositeQuoteSink.
+     *
+     * @param sinks Хранилища. Первое из них считается основным: если его пакет не удалось открыть,
+     *              остальные пакеты не открываются.
+     */
+    public CompositeQuoteSink(List<QuoteSink> sinks) {
+        this.sinks = List.copyOf(sinks);
+    }
+
+    @Override
+    public QuoteBatch openBatch() throws IOException {
+        List<QuoteBatch> batches = new ArrayList<>(sinks.size());
+        try {
+            for (QuoteSink sink : sinks) {
+                batches.add(sink.openBatch());
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            for (QuoteBatch batch : batches) {
+                try {
+                    batch.close();
+                }
+                catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        return new Batch(batches);
+    }
+
+    /**
+     * Пакет, который добавляет котировки в пакеты всех хранилищ.
+     */
+    private static class Batch implements QuoteBatch {
+        private final List<QuoteBatch> batches;
+
+        Batch(List<QuoteBatch> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void add(Quote quote) {
+            // Ошибка записи в одно хранилище не мешает записи котировки в остальные
+            RuntimeException failure = null;
+            for (QuoteBatch batch : batches) {
+                try {
+                    batch.add(quote);
+                }
+                catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (QuoteBatch batch : batches) {
+                try {
+                    batch.close();
+                }
+                catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cryptodatacollector.sink;
+
+import com.cryptodatacollector.model.Quote;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Интерфейс QuoteBatch - пакет записи котировок в хранилище QuoteSink.
+ * Метод add можно вызывать из нескольких потоков одновременно. Закрытие пакета дожидается записи всех котировок.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public interface QuoteBatch extends Closeable {
+
+    /**
+     * Добавляет котировку в пакет.
+     *
+     * @param quote Котировка.
+     */
+    void add(Quote quote);
+
+    /**
+     * Дожидается записи всех котировок пакета.
+     *
+     * @throws IOException Если произошла ошибка при завершении записи.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,21 @@
+package com.cryptodatacollector.sink;
+
+import java.io.IOException;
+
+/**
+ * Интерфейс QuoteSink - хранилище, в которое записываются собранные котировки.
+ * Котировки записываются пакетами: пакет открывается на цикл сбора данных и закрывается после его завершения.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public interface QuoteSink {
+
+    /**
+     * Открывает пакет записи котировок.
+     *
+     * @return Объект QuoteBatch.
+     * @throws IOException Если хранилище не удалось подготовить к записи.
+     */
+    QuoteBatch openBatch() throws IOException;
+}
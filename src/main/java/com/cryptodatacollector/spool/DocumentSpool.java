@@ -0,0 +1,379 @@
+package com.cryptodatacollector.spool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Класс DocumentSpool - локальный буфер документов (write-ahead log), в который складываются документы,
+ * не записанные в Elasticsearch. Буфер состоит из сегментов фиксированного размера, отображенных в память,
+ * в которые записи только дописываются. Каждая запись имеет вид [длина][CRC32][данные], поэтому после аварийного
+ * завершения недописанный хвост сегмента отбрасывается при открытии.
+ * Позиция уже отправленных в Elasticsearch записей хранится в файле checkpoint, полностью отправленные сегменты удаляются.
+ * Каталог буфера захватывается блокировкой файла lock, поэтому открыть один и тот же буфер одновременно
+ * в двух процессах нельзя.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class DocumentSpool implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final SpoolSettings settings;
+    private final TreeSet<Long> segments = new TreeSet<>();
+    private final Map<Long, Integer> sealedEnds = new HashMap<>();
+    private final ScheduledExecutorService fsyncExecutor;
+    private final AtomicLong rejected = new AtomicLong();
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private long activeSegment;
+    private MappedByteBuffer activeBuffer;
+    private int writeOffset;
+    private long checkpointSegment;
+    private int checkpointOffset;
+
+    /**
+     * Открывает буфер в каталоге из настроек, восстанавливая позицию записи и checkpoint.
+     *
+     * @param settings Параметры буфера.
+     * @throws IOException Если каталог буфера занят другим процессом или произошла ошибка при работе с файлами буфера.
+     */
+    public DocumentSpool(SpoolSettings settings) throws IOException {
+        this.settings = settings;
+        Files.createDirectories(settings.getDirectory());
+        this.lockChannel = FileChannel.open(settings.getDirectory().resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.lock = tryLock(lockChannel);
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Spool directory " + settings.getDirectory() + " is used by another process");
+        }
+
+        try (Stream<Path> files = Files.list(settings.getDirectory())) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .forEach(segments::add);
+        }
+        if (segments.isEmpty()) {
+            segments.add(0L);
+        }
+
+        activeSegment = segments.last();
+        activeBuffer = map(activeSegment);
+        writeOffset = scanEnd(activeBuffer);
+        readCheckpoint();
+
+        if (settings.getFsyncPolicy() == FsyncPolicy.INTERVAL) {
+            fsyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "spool-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncExecutor.scheduleWithFixedDelay(this::force, settings.getFsyncIntervalMillis(),
+                    settings.getFsyncIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        else {
+            fsyncExecutor = null;
+        }
+    }
+
+    /**
+     * Дописывает документ в буфер. Если места в текущем сегменте недостаточно, создается новый сегмент.
+     * Если общий размер буфера достиг предела, документ отклоняется.
+     *
+     * @param record Документ.
+     * @return true, если документ записан, false - если буфер переполнен.
+     * @throws IOException Если произошла ошибка при создании сегмента.
+     */
+    public synchronized boolean append(SpoolRecord record) throws IOException {
+        byte[] payload = encode(record);
+        int recordBytes = RECORD_HEADER_BYTES + payload.length;
+        if (recordBytes > settings.getSegmentSizeBytes() - Integer.BYTES) {
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        // В конце сегмента всегда остается место под нулевую длину - признак конца записей
+        if (writeOffset + recordBytes > settings.getSegmentSizeBytes() - Integer.BYTES) {
+            if ((long) (segments.size() + 1) * settings.getSegmentSizeBytes() > settings.getMaxTotalBytes()) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            rotate();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = activeBuffer.duplicate();
+        buffer.position(writeOffset);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        writeOffset += recordBytes;
+
+        if (settings.getFsyncPolicy() == FsyncPolicy.ALWAYS) {
+            activeBuffer.force();
+        }
+        return true;
+    }
+
+    /**
+     * Читает очередную порцию документов начиная с последнего checkpoint. Позиция чтения не сдвигается,
+     * пока порция не будет подтверждена методом commit.
+     *
+     * @param maxRecords Максимальное количество документов.
+     * @return Порция документов.
+     * @throws IOException Если произошла ошибка при чтении сегмента.
+     */
+    public synchronized SpoolBatch read(int maxRecords) throws IOException {
+        List<SpoolRecord> records = new ArrayList<>();
+        long segment = checkpointSegment;
+        int offset = checkpointOffset;
+
+        while (records.size() < maxRecords) {
+            ByteBuffer buffer = segment == activeSegment ? activeBuffer.duplicate() : map(segment).duplicate();
+            int end = segment == activeSegment ? writeOffset : sealedEnd(segment, buffer);
+            while (records.size() < maxRecords && offset < end) {
+                buffer.position(offset);
+                int length = buffer.getInt();
+                buffer.getInt();
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                records.add(decode(payload));
+                offset += RECORD_HEADER_BYTES + length;
+            }
+
+            Long next = segments.higher(segment);
+            if (offset < end || next == null) {
+                break;
+            }
+            segment = next;
+            offset = 0;
+        }
+        return new SpoolBatch(records, segment, offset);
+    }
+
+    /**
+     * Подтверждает, что порция документов записана в Elasticsearch: сохраняет checkpoint
+     * и удаляет полностью отправленные сегменты.
+     *
+     * @param batch Порция документов, полученная методом read.
+     * @throws IOException Если произошла ошибка при записи checkpoint.
+     */
+    public synchronized void commit(SpoolBatch batch) throws IOException {
+        checkpointSegment = batch.getSegment();
+        checkpointOffset = batch.getOffset();
+        writeCheckpoint();
+
+        while (segments.first() < checkpointSegment) {
+            long segment = segments.pollFirst();
+            sealedEnds.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        // Если все записи отправлены, активный сегмент можно начать заново
+        if (checkpointSegment == activeSegment && checkpointOffset == writeOffset && writeOffset > 0) {
+            rotate();
+            long segment = segments.pollFirst();
+            sealedEnds.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+            checkpointSegment = activeSegment;
+            checkpointOffset = 0;
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Проверяет, есть ли в буфере неотправленные документы.
+     *
+     * @return true, если буфер пуст.
+     */
+    public synchronized boolean isEmpty() {
+        return checkpointSegment == activeSegment && checkpointOffset == writeOffset;
+    }
+
+    /**
+     * Возвращает количество документов, отклоненных из-за переполнения буфера.
+     *
+     * @return Количество отклоненных документов.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Сбрасывает записи активного сегмента на диск.
+     */
+    public synchronized void force() {
+        activeBuffer.force();
+    }
+
+    /**
+     * Сбрасывает буфер на диск и освобождает его каталог.
+     */
+    @Override
+    public synchronized void close() {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdown();
+        }
+        if (settings.getFsyncPolicy() != FsyncPolicy.NEVER) {
+            activeBuffer.force();
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        }
+        catch (IOException e) {
+            // Блокировка все равно снимается при завершении процесса
+            System.out.println("-->     Failed to release spool lock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Захватывает блокировку каталога буфера.
+     *
+     * @return Блокировка или null, если каталог уже занят, в том числе в этом же процессе.
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        }
+        catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        activeBuffer.force();
+        sealedEnds.put(activeSegment, writeOffset);
+        activeSegment++;
+        segments.add(activeSegment);
+        activeBuffer = map(activeSegment);
+        writeOffset = 0;
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, settings.getSegmentSizeBytes());
+        }
+    }
+
+    private int sealedEnd(long segment, ByteBuffer buffer) {
+        Integer end = sealedEnds.get(segment);
+        if (end == null) {
+            end = scanEnd(buffer);
+            sealedEnds.put(segment, end);
+        }
+        return end;
+    }
+
+    /**
+     * Находит конец корректно записанных данных сегмента: первую нулевую длину, выход за границу сегмента
+     * или несовпадение контрольной суммы.
+     */
+    private int scanEnd(ByteBuffer segment) {
+        ByteBuffer buffer = segment.duplicate();
+        int offset = 0;
+        while (offset + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            buffer.position(offset);
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path path = settings.getDirectory().resolve(CHECKPOINT_FILE);
+        checkpointSegment = segments.first();
+        checkpointOffset = 0;
+        if (Files.exists(path)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            long segment = buffer.getLong();
+            int offset = buffer.getInt();
+            if (segments.contains(segment)) {
+                checkpointSegment = segment;
+                checkpointOffset = segment == activeSegment ? Math.min(offset, writeOffset) : offset;
+            }
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path path = settings.getDirectory().resolve(CHECKPOINT_FILE);
+        Path temp = settings.getDirectory().resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        buffer.putLong(checkpointSegment).putInt(checkpointOffset).flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(buffer);
+            if (settings.getFsyncPolicy() != FsyncPolicy.NEVER) {
+                channel.force(true);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long segment) {
+        return settings.getDirectory().resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] encode(SpoolRecord record) {
+        byte[] index = record.getIndex().getBytes(StandardCharsets.UTF_8);
+        byte[] id = record.getId().getBytes(StandardCharsets.UTF_8);
+        byte[] source = record.getSource().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 * Integer.BYTES + index.length + id.length + source.length)
+                .putInt(index.length).put(index)
+                .putInt(id.length).put(id)
+                .put(source)
+                .array();
+    }
+
+    private static SpoolRecord decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String index = readString(buffer, buffer.getInt());
+        String id = readString(buffer, buffer.getInt());
+        String source = readString(buffer, buffer.remaining());
+        return new SpoolRecord(index, id, source);
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,14 @@
+package com.cryptodatacollector.spool;
+
+/**
+ * Перечисление FsyncPolicy задает, когда записи буфера DocumentSpool сбрасываются на диск.
+ * ALWAYS - после каждой записи, INTERVAL - периодически в фоновом потоке, NEVER - на усмотрение операционной системы.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public enum FsyncPolicy {
+    ALWAYS,
+    INTERVAL,
+    NEVER
+}
@@ -0,0 +1,21 @@
+package com.cryptodatacollector.spool;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Класс SpoolBatch содержит порцию документов, прочитанных из DocumentSpool, и позицию в буфере сразу после них.
+ * Позиция сохраняется в checkpoint после подтверждения записи порции в Elasticsearch.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class SpoolBatch {
+    private List<SpoolRecord> records;
+    private long segment;
+    private int offset;
+}
@@ -0,0 +1,18 @@
+package com.cryptodatacollector.spool;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Класс SpoolRecord представляет документ, сохраненный в локальном буфере: индекс, идентификатор и JSON документа.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class SpoolRecord {
+    private String index;
+    private String id;
+    private String source;
+}
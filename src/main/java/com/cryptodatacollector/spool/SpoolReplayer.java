@@ -0,0 +1,171 @@
+package com.cryptodatacollector.spool;
+
+import com.cryptodatacollector.elastic.BulkIndexer;
+import com.cryptodatacollector.elastic.BulkIndexerSettings;
+import com.cryptodatacollector.elastic.ElasticsearchClient;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс SpoolReplayer в фоновом потоке переносит документы из локального буфера DocumentSpool в Elasticsearch.
+ * Пока кластер недоступен, буфер только накапливается. После восстановления кластера документы отправляются
+ * крупными _bulk запросами, и checkpoint сдвигается только после того, как порция записана без временных ошибок.
+ * Идентификаторы документов детерминированы, поэтому повторная отправка порции не создает дубликатов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class SpoolReplayer implements Closeable {
+    private final RestHighLevelClient client;
+    private final ElasticsearchClient elasticsearchClient;
+    private final DocumentSpool spool;
+    private final IndexPreparer indexPreparer;
+    private final BulkIndexerSettings bulkSettings;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong replayed = new AtomicLong();
+
+    /**
+     * Интерфейс IndexPreparer создает индекс перед отправкой в него документов из буфера.
+     */
+    @FunctionalInterface
+    public interface IndexPreparer {
+        /**
+         * Создает индекс, если он еще не существует.
+         *
+         * @param indexName Имя индекса.
+         * @throws IOException Если произошла ошибка при создании индекса.
+         */
+        void ensureIndex(String indexName) throws IOException;
+    }
+
+    /**
+     * Конструктор класса SpoolReplayer.
+     *
+     * @param client        Экземпляр RestHighLevelClient для взаимодействия с Elasticsearch.
+     * @param spool         Локальный буфер документов.
+     * @param indexPreparer Обработчик, создающий индексы перед отправкой документов.
+     * @param bulkSettings  Параметры пакетной индексации. Количество документов в _bulk запросе
+     *                      увеличивается до размера порции повторной отправки.
+     * @param settings      Параметры буфера.
+     */
+    public SpoolReplayer(RestHighLevelClient client, DocumentSpool spool, IndexPreparer indexPreparer,
+                         BulkIndexerSettings bulkSettings, SpoolSettings settings) {
+        this.client = client;
+        this.elasticsearchClient = new ElasticsearchClient(client);
+        this.spool = spool;
+        this.indexPreparer = indexPreparer;
+        this.batchSize = settings.getReplayBatchSize();
+        this.bulkSettings = new BulkIndexerSettings(
+                Math.max(bulkSettings.getBulkActions(), batchSize),
+                bulkSettings.getBulkSizeInBytes(),
+                bulkSettings.getFlushIntervalMillis(),
+                bulkSettings.getConcurrentRequests(),
+                bulkSettings.getCloseTimeoutMillis()
+        );
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spool-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::replay, settings.getReplayIntervalMillis(),
+                settings.getReplayIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Возвращает количество документов, перенесенных из буфера в Elasticsearch.
+     *
+     * @return Количество документов.
+     */
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    /**
+     * Останавливает фоновую отправку и дожидается завершения текущей порции, но не дольше таймаута закрытия
+     * пакетной индексации. Неотправленные документы остаются в буфере до следующего запуска.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(bulkSettings.getCloseTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Отправляет содержимое буфера порциями, пока буфер не опустеет или очередная порция не вернет временную ошибку.
+     */
+    private void replay() {
+        if (spool.isEmpty()) {
+            return;
+        }
+        try {
+            if (!client.ping(RequestOptions.DEFAULT)) {
+                return;
+            }
+            while (!spool.isEmpty()) {
+                SpoolBatch batch = spool.read(batchSize);
+                if (batch.getRecords().isEmpty()) {
+                    // Остались только пустые сегменты, достаточно сдвинуть checkpoint
+                    spool.commit(batch);
+                    return;
+                }
+                if (!send(batch)) {
+                    return;
+                }
+                spool.commit(batch);
+                long total = replayed.addAndGet(batch.getRecords().size());
+                System.out.printf("-->     Replayed %d spooled documents (%d total) \n", batch.getRecords().size(), total);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // Кластер все еще недоступен, порция будет отправлена при следующей попытке
+            System.out.println("-->     Spool replay postponed: " + e.getMessage());
+        }
+    }
+
+    private boolean send(SpoolBatch batch) throws IOException {
+        Set<String> indices = new LinkedHashSet<>();
+        for (SpoolRecord record : batch.getRecords()) {
+            indices.add(record.getIndex());
+        }
+        for (String index : indices) {
+            indexPreparer.ensureIndex(index);
+        }
+
+        AtomicLong retriable = new AtomicLong();
+        try (BulkIndexer bulkIndexer = elasticsearchClient.bulkIndexer(bulkSettings, failure -> {
+            if (failure.isRetriable()) {
+                retriable.incrementAndGet();
+            }
+            else {
+                System.out.printf("-->     Dropped spooled document with ID: %s (status %d): %s \n",
+                        failure.getId(), failure.getStatus(), failure.getReason());
+            }
+        })) {
+            for (SpoolRecord record : batch.getRecords()) {
+                bulkIndexer.add(record.getIndex(), record.getId(), record.getSource());
+            }
+        }
+
+        if (retriable.get() > 0) {
+            System.out.printf("-->     Spool replay postponed: %d documents failed with a temporary error \n",
+                    retriable.get());
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cryptodatacollector.spool;
+
+import com.cryptodatacollector.util.EnvConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Класс SpoolSettings содержит параметры локального буфера документов: каталог, размер сегмента,
+ * ограничение на общий размер, политику сброса на диск и параметры повторной отправки в Elasticsearch.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class SpoolSettings {
+    private Path directory;
+    private int segmentSizeBytes;
+    private long maxTotalBytes;
+    private FsyncPolicy fsyncPolicy;
+    private long fsyncIntervalMillis;
+    private int replayBatchSize;
+    private long replayIntervalMillis;
+
+    /**
+     * Создает настройки на основе параметров из .env файла.
+     *
+     * @return Объект SpoolSettings.
+     */
+    public static SpoolSettings fromEnv() {
+        return new SpoolSettings(
+                Path.of(EnvConfig.getString("SPOOL_DIRECTORY", "spool")),
+                EnvConfig.getInt("SPOOL_SEGMENT_SIZE_BYTES", 64 * 1024 * 1024),
+                EnvConfig.getLong("SPOOL_MAX_TOTAL_BYTES", 2L * 1024 * 1024 * 1024),
+                FsyncPolicy.valueOf(EnvConfig.getString("SPOOL_FSYNC_POLICY", FsyncPolicy.INTERVAL.name())),
+                EnvConfig.getLong("SPOOL_FSYNC_INTERVAL_MILLIS", 1000),
+                EnvConfig.getInt("SPOOL_REPLAY_BATCH_SIZE", 5000),
+                EnvConfig.getLong("SPOOL_REPLAY_INTERVAL_MILLIS", 5000)
+        );
+    }
+}
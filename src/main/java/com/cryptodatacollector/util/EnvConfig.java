@@ -0,0 +1,69 @@
+package com.cryptodatacollector.util;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Класс EnvConfig предоставляет типизированный доступ к параметрам конфигурации из .env файла и переменных окружения.
+ * Системное свойство JVM с тем же именем (-DKEY=value) имеет приоритет, что позволяет переопределить параметры
+ * при запуске в одном процессе с тестовым окружением. Если параметр не задан, возвращается значение по умолчанию.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class EnvConfig {
+    private static final Dotenv DOTENV = Dotenv.configure().ignoreIfMissing().load();
+
+    private EnvConfig() {
+    }
+
+    /**
+     * Возвращает строковое значение параметра.
+     *
+     * @param key          Имя параметра.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение параметра или значение по умолчанию, если параметр не задан.
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = DOTENV.get(key);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Возвращает целочисленное значение параметра.
+     *
+     * @param key          Имя параметра.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение параметра или значение по умолчанию, если параметр не задан.
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Возвращает значение параметра типа long.
+     *
+     * @param key          Имя параметра.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение параметра или значение по умолчанию, если параметр не задан.
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Возвращает логическое значение параметра.
+     *
+     * @param key          Имя параметра.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение параметра или значение по умолчанию, если параметр не задан.
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
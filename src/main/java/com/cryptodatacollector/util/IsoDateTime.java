@@ -0,0 +1,173 @@
+package com.cryptodatacollector.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Класс IsoDateTime разбирает и выводит дату и время в формате ISO 8601 напрямую из байтов и в StringBuilder,
+ * без создания промежуточных объектов java.time. Используется на горячем пути обработки котировок,
+ * где время хранится в миллисекундах UTC.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public final class IsoDateTime {
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private IsoDateTime() {
+    }
+
+    /**
+     * Разбирает момент времени вида 2024-11-12T08:28:00.000Z. Дробная часть секунд и смещение часового пояса
+     * (Z или ±HH:MM) необязательны, строка без смещения считается временем UTC.
+     *
+     * @param bytes  Буфер с символами ASCII.
+     * @param offset Смещение строки в буфере.
+     * @param length Длина строки.
+     * @return Время в миллисекундах UTC.
+     * @throws IllegalArgumentException Если строка не соответствует формату.
+     */
+    public static long parseMillis(byte[] bytes, int offset, int length) {
+        if (length < 19 || bytes[offset + 4] != '-' || bytes[offset + 7] != '-' || bytes[offset + 10] != 'T'
+                || bytes[offset + 13] != ':' || bytes[offset + 16] != ':') {
+            throw invalid(bytes, offset, length);
+        }
+        int year = digits(bytes, offset, 4);
+        int month = digits(bytes, offset + 5, 2);
+        int day = digits(bytes, offset + 8, 2);
+        int hour = digits(bytes, offset + 11, 2);
+        int minute = digits(bytes, offset + 14, 2);
+        int second = digits(bytes, offset + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            throw invalid(bytes, offset, length);
+        }
+
+        int position = offset + 19;
+        int end = offset + length;
+        int millis = 0;
+        if (position < end && bytes[position] == '.') {
+            position++;
+            int fractionDigits = 0;
+            while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+                if (fractionDigits < 3) {
+                    millis = millis * 10 + (bytes[position] - '0');
+                }
+                fractionDigits++;
+                position++;
+            }
+            if (fractionDigits == 0) {
+                throw invalid(bytes, offset, length);
+            }
+            for (int i = fractionDigits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        long offsetMillis = 0;
+        if (position < end) {
+            byte zone = bytes[position];
+            if (zone == 'Z' && position + 1 == end) {
+                position++;
+            }
+            else if ((zone == '+' || zone == '-') && position + 6 == end && bytes[position + 3] == ':') {
+                int zoneHours = digits(bytes, position + 1, 2);
+                int zoneMinutes = digits(bytes, position + 4, 2);
+                if (zoneHours < 0 || zoneMinutes < 0) {
+                    throw invalid(bytes, offset, length);
+                }
+                offsetMillis = (zoneHours * 60L + zoneMinutes) * 60_000L * (zone == '+' ? 1 : -1);
+                position = end;
+            }
+            else {
+                throw invalid(bytes, offset, length);
+            }
+        }
+
+        return daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L + millis - offsetMillis;
+    }
+
+    /**
+     * Выводит время UTC в формате ISO_LOCAL_DATE_TIME (2024-11-12T08:28:00), как его выводит LocalDateTimeAdapter:
+     * миллисекунды выводятся только если они не равны нулю, незначащие нули в конце отбрасываются.
+     *
+     * @param out    Буфер.
+     * @param millis Время в миллисекундах UTC.
+     */
+    public static void appendLocal(StringBuilder out, long millis) {
+        long days = Math.floorDiv(millis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(millis, MILLIS_PER_DAY);
+
+        // Алгоритм civil_from_days Говарда Хиннанта
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthPart = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthPart + 2) / 5 + 1);
+        int month = (int) (monthPart < 10 ? monthPart + 3 : monthPart - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        pad(out, year, 4);
+        out.append('-');
+        pad(out, month, 2);
+        out.append('-');
+        pad(out, day, 2);
+        out.append('T');
+        pad(out, millisOfDay / 3_600_000, 2);
+        out.append(':');
+        pad(out, millisOfDay / 60_000 % 60, 2);
+        out.append(':');
+        pad(out, millisOfDay / 1000 % 60, 2);
+        int fraction = millisOfDay % 1000;
+        if (fraction != 0) {
+            out.append('.');
+            out.append((char) ('0' + fraction / 100));
+            if (fraction % 100 != 0) {
+                out.append((char) ('0' + fraction / 10 % 10));
+                if (fraction % 10 != 0) {
+                    out.append((char) ('0' + fraction % 10));
+                }
+            }
+        }
+    }
+
+    /**
+     * Алгоритм days_from_civil Говарда Хиннанта: количество дней от 1970-01-01 до указанной даты.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits(byte[] bytes, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void pad(StringBuilder out, long value, int width) {
+        for (long limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+
+    private static IllegalArgumentException invalid(byte[] bytes, int offset, int length) {
+        return new IllegalArgumentException("Invalid ISO date-time: "
+                + new String(bytes, offset, Math.min(length, 64), StandardCharsets.ISO_8859_1));
+    }
+}
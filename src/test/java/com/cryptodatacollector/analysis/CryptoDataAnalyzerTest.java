@@ -0,0 +1,248 @@
+package com.cryptodatacollector.analysis;
+
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс CryptoDataAnalyzerTest проверяет разбор ответов Elasticsearch аналитическими запросами.
+ * Вместо кластера используется HTTP сервер, который возвращает заранее подготовленные ответы
+ * и запоминает тела полученных запросов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class CryptoDataAnalyzerTest {
+    private static final String INFO = "{\"name\":\"stub\",\"cluster_name\":\"stub\",\"cluster_uuid\":\"stub\","
+            + "\"version\":{\"number\":\"7.17.0\",\"build_flavor\":\"default\",\"build_type\":\"docker\","
+            + "\"build_hash\":\"stub\",\"build_date\":\"2022-01-28T08:36:04.875279988Z\",\"build_snapshot\":false,"
+            + "\"lucene_version\":\"8.11.1\",\"minimum_wire_compatibility_version\":\"6.8.0\","
+            + "\"minimum_index_compatibility_version\":\"6.0.0-beta1\"},\"tagline\":\"You Know, for Search\"}";
+
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final Map<String, String> requests = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private RestHighLevelClient client;
+    private CryptoDataAnalyzer analyzer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(
+                new HttpHost("127.0.0.1", server.getAddress().getPort(), "http")));
+        analyzer = new CryptoDataAnalyzer(client);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    /**
+     * Тест проверяет, что лидеры роста и падения выбираются по последним котировкам из top_hits,
+     * котировки без процентного изменения не учитываются, а значения читаются из doc values.
+     * Котировки группируются по идентификатору, поэтому криптовалюты с одинаковым символом учитываются отдельно.
+     *
+     * @throws IOException Если запрос не выполнен.
+     */
+    @Test
+    public void testMoversFromLatestQuotes() throws IOException {
+        responses.put("_search", searchResponse(moversAggregation(
+                latest("1", "BTC", 88894.63, 9.55),
+                latest("1027", "ETH", 3181.5, -2.25),
+                latest("5426", "SOL", 218.1, 14.5),
+                latest("74", "DOGE", 0.38, null),
+                latest("52", "XRP", 0.71, -6.5),
+                latest("33333", "BTC", 0.01, -20.0))));
+
+        MarketMovers movers = analyzer.getMovers(Duration.ofHours(24), 2);
+
+        assertThat(movers.getGainers()).extracting(CryptoCurrency::getSymbol).containsExactly("SOL", "BTC");
+        assertThat(movers.getLosers()).extracting(CryptoCurrency::getSymbol).containsExactly("BTC", "XRP");
+        assertThat(movers.getLosers()).extracting(CryptoCurrency::getId).containsExactly("33333", "52");
+        CryptoCurrency bitcoin = movers.getGainers().get(1);
+        assertThat(bitcoin.getId()).isEqualTo("1");
+        assertThat(bitcoin.getName()).isEqualTo("Name 1");
+        assertThat(bitcoin.getPrice()).isEqualByComparingTo(new BigDecimal("88894.63"));
+        assertThat(bitcoin.getPercentChange24h()).isEqualByComparingTo(new BigDecimal("9.55"));
+        assertThat(bitcoin.getLastUpdated()).isEqualTo("2024-11-12T08:28:00");
+
+        String request = requests.get("_search");
+        assertThat(request).contains("\"terms\":{\"field\":\"id\"", "\"top_hits\"", "\"_source\":false",
+                "\"epoch_millis\"");
+    }
+
+    /**
+     * Тест проверяет, что криптовалюта с максимальным процентным изменением - первый лидер роста,
+     * а при отсутствии котировок возвращается null.
+     *
+     * @throws IOException Если запрос не выполнен.
+     */
+    @Test
+    public void testMaxPercentChange() throws IOException {
+        responses.put("_search", searchResponse(moversAggregation(
+                latest("1", "BTC", 88894.63, 9.55),
+                latest("5426", "SOL", 218.1, 14.5))));
+        assertThat(analyzer.getMaxPercentChangeCrypto().getSymbol()).isEqualTo("SOL");
+
+        responses.put("_search", searchResponse(moversAggregation()));
+        assertThat(analyzer.getMaxPercentChangeCrypto()).isNull();
+    }
+
+    /**
+     * Тест проверяет, что ответы _msearch сопоставляются запросам: показатели по символам берутся из первого ответа,
+     * лидеры роста и падения - из последнего, а без символов отправляется только запрос лидеров.
+     *
+     * @throws IOException Если запрос не выполнен.
+     */
+    @Test
+    public void testAnalyticsMapsMultiSearchResponses() throws IOException {
+        responses.put("_msearch", multiSearchResponse(
+                searchResponse("\"sterms#symbols\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+                        + "\"buckets\":["
+                        + "{\"key\":\"BTC\",\"doc_count\":3,\"avg#AVG_PRICE\":{\"value\":88000.5},"
+                        + "\"max#MAX_PRICE\":{\"value\":89000.0}},"
+                        + "{\"key\":\"ETH\",\"doc_count\":2,\"avg#AVG_PRICE\":{\"value\":3100.25},"
+                        + "\"max#MAX_PRICE\":{\"value\":3200.0}}]}"),
+                searchResponse(moversAggregation(
+                        latest("1", "BTC", 88894.63, 9.55),
+                        latest("1027", "ETH", 3181.5, -2.25)))));
+
+        AnalyticsReport report = analyzer.getAnalytics(List.of("BTC", "ETH", "SOL"),
+                EnumSet.of(AnalyticsMetric.AVG_PRICE, AnalyticsMetric.MAX_PRICE), Duration.ofHours(1), 1);
+
+        assertThat(report.getSymbols()).containsOnlyKeys("BTC", "ETH");
+        SymbolAnalytics bitcoin = report.getSymbols().get("BTC");
+        assertThat(bitcoin.getCount()).isEqualTo(3);
+        assertThat(bitcoin.get(AnalyticsMetric.AVG_PRICE)).isEqualTo(88000.5);
+        assertThat(bitcoin.get(AnalyticsMetric.MAX_PRICE)).isEqualTo(89000.0);
+        assertThat(bitcoin.get(AnalyticsMetric.MIN_PRICE)).isNaN();
+        assertThat(report.getSymbols().get("ETH").get(AnalyticsMetric.AVG_PRICE)).isEqualTo(3100.25);
+        assertThat(report.getMovers().getGainers()).extracting(CryptoCurrency::getSymbol).containsExactly("BTC");
+        assertThat(report.getMovers().getLosers()).extracting(CryptoCurrency::getSymbol).containsExactly("ETH");
+        assertThat(requests.get("_msearch").lines().filter(line -> line.contains("\"aggregations\"")).count())
+                .isEqualTo(2);
+
+        responses.put("_msearch", multiSearchResponse(searchResponse(moversAggregation(
+                latest("5426", "SOL", 218.1, 14.5)))));
+        report = analyzer.getAnalytics(List.of(), EnumSet.of(AnalyticsMetric.AVG_PRICE), Duration.ofHours(1), 1);
+
+        assertThat(report.getSymbols()).isEmpty();
+        assertThat(report.getMovers().getGainers()).extracting(CryptoCurrency::getSymbol).containsExactly("SOL");
+        assertThat(requests.get("_msearch").lines().filter(line -> line.contains("\"aggregations\"")).count())
+                .isEqualTo(1);
+    }
+
+    /**
+     * Тест проверяет, что ошибка любого запроса внутри _msearch завершает расчет показателей IOException.
+     */
+    @Test
+    public void testMultiSearchItemFailure() {
+        responses.put("_msearch", multiSearchResponse(
+                "{\"error\":{\"root_cause\":[],\"type\":\"index_not_found_exception\","
+                        + "\"reason\":\"no such index [crypto_data]\"},\"status\":404}",
+                searchResponse(moversAggregation())));
+
+        assertThatThrownBy(() -> analyzer.getAnalytics(List.of("BTC"), EnumSet.of(AnalyticsMetric.AVG_PRICE),
+                Duration.ofHours(1), 1))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Analytics search failed")
+                .hasMessageContaining("no such index");
+    }
+
+    /**
+     * Тест проверяет, что средняя цена за последний час запрашивается фильтром term по символу и диапазоном
+     * в epoch_millis, как и остальные запросы.
+     *
+     * @throws IOException Если запрос не выполнен.
+     */
+    @Test
+    public void testAveragePriceLastHourRequest() throws IOException {
+        responses.put("_search", searchResponse("\"avg#avg_price\":{\"value\":88500.25}"));
+
+        assertThat(analyzer.getAveragePriceLastHour("BTC")).isEqualTo(88500.25);
+
+        String request = requests.get("_search");
+        assertThat(request).contains("\"term\":{\"symbol\"", "\"format\":\"epoch_millis\"")
+                .doesNotContain("\"match\"", "now-1h");
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String endpoint = path.substring(path.lastIndexOf('/') + 1);
+        requests.put(endpoint, new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String body = endpoint.isEmpty() ? INFO : responses.get(endpoint);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String searchResponse(String aggregations) {
+        return "{\"took\":1,\"timed_out\":false,"
+                + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]},"
+                + "\"aggregations\":{" + aggregations + "}}";
+    }
+
+    private static String multiSearchResponse(String... items) {
+        StringBuilder body = new StringBuilder("{\"took\":1,\"responses\":[");
+        for (int i = 0; i < items.length; i++) {
+            String item = items[i];
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(item.startsWith("{\"error\"") ? item
+                    : item.substring(0, item.length() - 1) + ",\"status\":200}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private static String moversAggregation(String... buckets) {
+        return "\"sterms#coins\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+                + "\"buckets\":[" + String.join(",", buckets) + "]}";
+    }
+
+    private static String latest(String id, String symbol, double price, Double percentChange) {
+        return "{\"key\":\"" + id + "\",\"doc_count\":2,\"top_hits#latest\":{\"hits\":{"
+                + "\"total\":{\"value\":2,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[{"
+                + "\"_index\":\"crypto_data-2024.11.12\",\"_type\":\"_doc\",\"_id\":\"" + id + "_1731400080000\","
+                + "\"_score\":null,\"fields\":{"
+                + "\"id\":[\"" + id + "\"],\"name\":[\"Name " + id + "\"],\"symbol\":[\"" + symbol + "\"],"
+                + "\"price\":[" + price + "],\"volume24h\":[1.0E9],"
+                + (percentChange != null ? "\"percentChange24h\":[" + percentChange + "]," : "")
+                + "\"timestamp\":[\"1731400080000\"],\"lastUpdated\":[\"1731400080000\"]},"
+                + "\"sort\":[1731400080000]}]}}}";
+    }
+}
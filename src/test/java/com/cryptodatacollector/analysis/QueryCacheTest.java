@@ -0,0 +1,182 @@
+package com.cryptodatacollector.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс QueryCacheTest проверяет кэш результатов аналитических запросов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QueryCacheTest {
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Тест проверяет, что повторный запрос читается из кэша, пока не истекло время жизни записи.
+     */
+    @Test
+    public void testReturnsCachedResultUntilExpired() throws IOException {
+        QueryCache cache = new QueryCache(10, 30000, 1000, now::get);
+
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(1);
+        now.addAndGet(29999);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(1);
+        assertThat(cache.get(QueryKey.of("avg", "ETH"), List.of("ETH"), this::load)).isEqualTo(2);
+
+        now.addAndGet(1);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(3);
+    }
+
+    /**
+     * Тест проверяет, что при переполнении вытесняется запись, которую дольше всего не читали.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException {
+        QueryCache cache = new QueryCache(2, 30000, 1000, now::get);
+        cache.get(QueryKey.of("avg", "BTC"), null, this::load);
+        cache.get(QueryKey.of("avg", "ETH"), null, this::load);
+        cache.get(QueryKey.of("avg", "BTC"), null, this::load);
+
+        cache.get(QueryKey.of("avg", "SOL"), null, this::load);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), null, this::load)).isEqualTo(1);
+        assertThat(cache.get(QueryKey.of("avg", "ETH"), null, this::load)).isEqualTo(4);
+    }
+
+    /**
+     * Тест проверяет, что индексация котировок удаляет записи этих символов и записи по всему рынку,
+     * а записи других символов остаются в кэше.
+     */
+    @Test
+    public void testInvalidatesDependentEntries() throws IOException {
+        QueryCache cache = new QueryCache(10, 30000, 1000, now::get);
+        cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load);
+        cache.get(QueryKey.of("avg", "ETH"), List.of("ETH"), this::load);
+        cache.get(QueryKey.of("movers", 10), null, this::load);
+
+        cache.invalidate(Set.of("BTC", "DOGE"));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(QueryKey.of("avg", "ETH"), List.of("ETH"), this::load)).isEqualTo(2);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(4);
+        assertThat(cache.get(QueryKey.of("movers", 10), null, this::load)).isEqualTo(5);
+    }
+
+    /**
+     * Тест проверяет, что результат, вычисленный сразу после индексации, хранится только до конца интервала,
+     * за который новые котировки становятся видимы в поиске.
+     */
+    @Test
+    public void testResultComputedDuringSettleWindowExpiresEarly() throws IOException {
+        QueryCache cache = new QueryCache(10, 30000, 1000, now::get);
+        cache.invalidate(Set.of("BTC"));
+
+        now.addAndGet(200);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(1);
+        now.addAndGet(799);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(1);
+        now.addAndGet(1);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(2);
+        now.addAndGet(29999);
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), List.of("BTC"), this::load)).isEqualTo(2);
+    }
+
+    /**
+     * Тест проверяет, что ошибки запросов не кэшируются.
+     */
+    @Test
+    public void testFailuresAreNotCached() throws IOException {
+        QueryCache cache = new QueryCache(10, 30000, 1000, now::get);
+
+        assertThatThrownBy(() -> cache.get(QueryKey.of("avg", "BTC"), null, () -> {
+            throw new IOException("Elasticsearch is unavailable");
+        })).isInstanceOf(IOException.class).hasMessage("Elasticsearch is unavailable");
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(QueryKey.of("avg", "BTC"), null, this::load)).isEqualTo(1);
+    }
+
+    /**
+     * Тест проверяет, что одновременные одинаковые запросы выполняются в Elasticsearch один раз.
+     */
+    @Test
+    public void testConcurrentRequestsShareOneLoad() throws Exception {
+        QueryCache cache = new QueryCache(10, 30000, 1000, now::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(QueryKey.of("movers", 10), null, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return load();
+            })));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get(QueryKey.of("movers", 10), null, this::load)));
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+            assertThat(loads).hasValue(1);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Тест проверяет, что одновременные асинхронные запросы ждут один запрос к Elasticsearch,
+     * отмена результата одним вызывающим не влияет на остальных, а ошибка не кэшируется.
+     */
+    @Test
+    public void testSharesAsyncLoadsAndDoesNotCacheFailures() throws Exception {
+        QueryCache cache = new QueryCache(10, 30000, 1000, now::get);
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        CompletableFuture<Integer> first = cache.getAsync(QueryKey.of("avg", "BTC"), List.of("BTC"), () -> pending);
+        CompletableFuture<Integer> second = cache.getAsync(QueryKey.of("avg", "BTC"), List.of("BTC"),
+                () -> CompletableFuture.completedFuture(load()));
+
+        first.cancel(false);
+        pending.complete(7);
+        assertThat(second.get()).isEqualTo(7);
+        assertThat(loads.get()).isZero();
+
+        cache.invalidate(List.of("BTC"));
+        CompletableFuture<Integer> failed = cache.getAsync(QueryKey.of("avg", "BTC"), List.of("BTC"),
+                () -> CompletableFuture.failedFuture(new IOException("search failed")));
+        assertThatThrownBy(failed::get).hasCauseInstanceOf(IOException.class);
+        assertThat(cache.getAsync(QueryKey.of("avg", "BTC"), List.of("BTC"),
+                () -> CompletableFuture.completedFuture(load())).get()).isEqualTo(1);
+    }
+
+    private int load() {
+        return loads.incrementAndGet();
+    }
+}
@@ -0,0 +1,120 @@
+package com.cryptodatacollector.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Класс RollingWindowAnalyticsTest проверяет расчет статистики котировок в скользящих окнах.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class RollingWindowAnalyticsTest {
+
+    /**
+     * Тест проверяет расчет количества, среднего, VWAP, минимума, максимума и дисперсии.
+     */
+    @Test
+    public void testWindowStats() {
+        RollingWindow window = new RollingWindow(60_000, 20);
+        window.add(1_000, 10, 1);
+        window.add(2_000, 20, 3);
+        window.add(30_000, 30, 0);
+
+        WindowStats stats = window.stats(30_000);
+
+        assertThat(stats.getCount()).isEqualTo(3);
+        assertThat(stats.getAverage()).isCloseTo(20, within(1e-9));
+        assertThat(stats.getVwap()).isCloseTo(17.5, within(1e-9));
+        assertThat(stats.getMin()).isEqualTo(10);
+        assertThat(stats.getMax()).isEqualTo(30);
+        assertThat(stats.getVariance()).isCloseTo(200.0 / 3, within(1e-9));
+    }
+
+    /**
+     * Тест проверяет, что котировки, вышедшие за пределы окна, вытесняются, а слишком старые - игнорируются.
+     */
+    @Test
+    public void testExpiration() {
+        RollingWindow window = new RollingWindow(60_000, 20);
+        window.add(0, 100, 1);
+        window.add(59_000, 10, 1);
+
+        assertThat(window.stats(59_000).getCount()).isEqualTo(2);
+        assertThat(window.stats(65_000).getCount()).isEqualTo(1);
+        assertThat(window.stats(65_000).getMax()).isEqualTo(10);
+
+        window.add(1_000, 500, 1);
+        assertThat(window.stats(65_000).getCount()).isEqualTo(1);
+
+        assertThat(window.stats(10_000_000)).isNull();
+    }
+
+    /**
+     * Тест проверяет, что минимум и максимум окна совпадают с вычисленными перебором всех котировок окна
+     * при вытеснении корзин и котировках, приходящих с опозданием.
+     */
+    @Test
+    public void testMinMaxMatchBruteForce() {
+        int bucketCount = 10;
+        long bucketMillis = 1_000;
+        RollingWindow window = new RollingWindow(bucketCount * bucketMillis, bucketCount);
+        List<double[]> samples = new ArrayList<>();
+        Random random = new Random(7);
+        long now = 0;
+        long headBucket = 0;
+        for (int i = 0; i < 5_000; i++) {
+            now += random.nextInt(400);
+            // Каждая пятая котировка приходит с опозданием до 8 секунд
+            long time = i % 5 == 0 ? Math.max(0, now - random.nextInt(8_000)) : now;
+            double price = random.nextInt(1_000);
+            window.add(time, price, 1);
+            // Котировка, корзина которой уже вытеснена к моменту ее прихода, в окно не попадает
+            boolean accepted = time / bucketMillis > Math.max(headBucket, time / bucketMillis) - bucketCount;
+            samples.add(new double[]{time, price, accepted ? 1 : 0});
+
+            headBucket = now / bucketMillis;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            long count = 0;
+            for (double[] sample : samples) {
+                long bucket = (long) sample[0] / bucketMillis;
+                if (sample[2] == 1 && bucket > headBucket - bucketCount) {
+                    min = Math.min(min, sample[1]);
+                    max = Math.max(max, sample[1]);
+                    count++;
+                }
+            }
+            WindowStats stats = window.stats(now);
+            assertThat(stats.getCount()).isEqualTo(count);
+            assertThat(stats.getMin()).isEqualTo(min);
+            assertThat(stats.getMax()).isEqualTo(max);
+        }
+    }
+
+    /**
+     * Тест проверяет, что повторно полученная котировка с тем же временем не учитывается дважды.
+     */
+    @Test
+    public void testDuplicateQuoteIgnored() {
+        RollingWindowAnalytics analytics = new RollingWindowAnalytics(20);
+        long now = System.currentTimeMillis();
+        analytics.record("BTC", now, 100, 1);
+        analytics.record("BTC", now, 100, 1);
+        analytics.record("BTC", now + 1, 200, 1);
+        // Повтор более старой котировки после новой
+        analytics.record("BTC", now, 100, 1);
+
+        WindowStats stats = analytics.getStats("BTC", AnalyticsWindow.ONE_MINUTE);
+
+        assertThat(stats.getCount()).isEqualTo(2);
+        assertThat(analytics.covers("BTC", AnalyticsWindow.ONE_MINUTE)).isFalse();
+        assertThat(analytics.getStats("ETH", AnalyticsWindow.ONE_MINUTE)).isNull();
+    }
+}
@@ -0,0 +1,136 @@
+package com.cryptodatacollector.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс ApiHttpTransportTest проверяет таймаут на весь запрос: он отсчитывается от отправки запроса,
+ * а асинхронный запрос завершается только после завершения обработчика тела ответа.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ApiHttpTransportTest {
+    private HttpServer server;
+    private ExecutorService bodyExecutor;
+    private ApiHttpTransport transport;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/slow-headers", exchange -> {
+            sleep(2000);
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/slow-body", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("{\"data\":".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                sleep(2000);
+                out.write("[]}".getBytes(StandardCharsets.UTF_8));
+            }
+            catch (IOException ignored) {
+                // Клиент закрыл соединение по таймауту
+            }
+        });
+        server.createContext("/fast", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        bodyExecutor = Executors.newSingleThreadExecutor();
+        // Первый запрос загружает классы HTTP клиента, поэтому выполняется без короткого таймаута
+        new ApiHttpTransport(Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(10), bodyExecutor)
+                .get(uri("/fast"), Map.of(), InputStream::readAllBytes);
+        transport = new ApiHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMillis(500),
+                bodyExecutor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        bodyExecutor.shutdownNow();
+    }
+
+    /**
+     * Тест проверяет, что таймаут на весь запрос истекает, даже если заголовки ответа еще не получены,
+     * хотя таймаут на ожидание ответа больше.
+     */
+    @Test
+    public void testDeadlineStartsAtSend() {
+        long startedAt = System.nanoTime();
+        CompletableFuture<String> result = transport.getAsync(uri("/slow-headers"), Map.of(),
+                in -> new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("timed out after 500 ms");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isLessThan(1500);
+    }
+
+    /**
+     * Тест проверяет, что при таймауте во время чтения тела ответа результат завершается ошибкой только после того,
+     * как обработчик тела ответа завершил работу.
+     */
+    @Test
+    public void testCompletesAfterHandlerFinishes() throws Exception {
+        AtomicBoolean handlerFinished = new AtomicBoolean();
+        CompletableFuture<String> result = transport.getAsync(uri("/slow-body"), Map.of(), in -> {
+            try {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            finally {
+                handlerFinished.set(true);
+            }
+        });
+        CompletableFuture<Boolean> finishedOnCompletion = result.handle((value, error) -> handlerFinished.get());
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("timed out");
+        assertThat(finishedOnCompletion.get()).isTrue();
+
+        assertThat(transport.getAsync(uri("/fast"), Map.of(),
+                in -> new String(in.readAllBytes(), StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.cluster.ConsistentHashRing;
+import com.cryptodatacollector.cluster.ShardAssignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс CoinMarketCapApiClientTest проверяет разбиение загружаемой части рейтинга на страницы.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class CoinMarketCapApiClientTest {
+
+    /**
+     * Тест проверяет, что без других экземпляров страница включает не больше rangesPerPage диапазонов
+     * и не выходит за конец загружаемой части рейтинга, в том числе если начинается с середины диапазона.
+     */
+    @Test
+    public void testOwnedRunEndStandalone() {
+        ShardAssignment assignment = ShardAssignment.standalone(1000);
+
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(assignment, 0, 1, 5000)).isEqualTo(1000);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(assignment, 1000, 1, 5000)).isEqualTo(2000);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(assignment, 100, 1, 5000)).isEqualTo(1000);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(assignment, 0, 1, 3)).isEqualTo(3);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(assignment, 4000, 1, 4500)).isEqualTo(4500);
+
+        ShardAssignment small = ShardAssignment.standalone(100);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(small, 0, 10, 5000)).isEqualTo(1000);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(small, 950, 10, 5000)).isEqualTo(1900);
+        assertThat(CoinMarketCapApiClient.ownedRunEnd(small, 0, 10, 250)).isEqualTo(250);
+    }
+
+    /**
+     * Тест проверяет, что при совместной работе страница объединяет только подряд идущие диапазоны
+     * текущего экземпляра, а страницы всех экземпляров вместе покрывают рейтинг ровно один раз.
+     */
+    @Test
+    public void testOwnedRunEndClustered() {
+        List<String> nodes = List.of("collector-1", "collector-2", "collector-3");
+        ConsistentHashRing ring = new ConsistentHashRing(nodes, 128);
+        int rangeSize = 100;
+        int end = 10_000;
+        int rangesPerPage = 4;
+        int[] covered = new int[end];
+
+        for (String node : nodes) {
+            ShardAssignment assignment = new ShardAssignment(node, ring, rangeSize, end);
+            int position = 0;
+            while (position < end) {
+                int range = position / rangeSize;
+                if (!assignment.owns(range)) {
+                    position = (range + 1) * rangeSize;
+                    continue;
+                }
+                int pageEnd = CoinMarketCapApiClient.ownedRunEnd(assignment, position, rangesPerPage, end);
+                assertThat(pageEnd).isGreaterThan(position).isLessThanOrEqualTo(end);
+                assertThat(pageEnd - position).isLessThanOrEqualTo(rangesPerPage * rangeSize);
+                for (int i = position; i < pageEnd; i++) {
+                    assertThat(assignment.owns(i / rangeSize)).isTrue();
+                    covered[i]++;
+                }
+                position = pageEnd;
+            }
+        }
+        assertThat(covered).containsOnly(1);
+    }
+}
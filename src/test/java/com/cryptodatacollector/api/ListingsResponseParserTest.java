@@ -0,0 +1,156 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.Quote;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс ListingsResponseParserTest проверяет потоковый разбор ответа CoinMarketCap API.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ListingsResponseParserTest {
+    private static final String RESPONSE = "{"
+            + "\"data\":["
+            + "{\"id\":1,\"name\":\"Bitcoin\",\"symbol\":\"BTC\",\"tags\":[\"mineable\"],\"platform\":null,"
+            + "\"last_updated\":\"2024-11-12T08:27:00.000Z\","
+            + "\"quote\":{\"USD\":{\"price\":88894.63281234,\"volume_24h\":123456789.5,\"percent_change_24h\":9.551411,"
+            + "\"percent_change_7d\":20.1,\"last_updated\":\"2024-11-12T08:28:00.000Z\"}}},"
+            + "{\"id\":2,\"name\":\"Nothing\",\"symbol\":\"NIL\",\"quote\":{\"USD\":{\"price\":null}}}"
+            + "],"
+            + "\"status\":{\"error_code\":0,\"error_message\":null,\"credit_count\":1,\"total_count\":9876}"
+            + "}";
+
+    private final ListingsResponseParser parser = new ListingsResponseParser("USD");
+
+    /**
+     * Тест проверяет, что котировки и сводка по ответу извлекаются без построения дерева JSON.
+     *
+     * @throws IOException Если произошла ошибка при разборе ответа.
+     */
+    @Test
+    public void testParseListings() throws IOException {
+        List<CryptoCurrency> parsed = new ArrayList<>();
+        ListingsPage page = parser.parse(stream(RESPONSE), parsed::add);
+
+        assertThat(parsed).hasSize(1);
+        CryptoCurrency bitcoin = parsed.get(0);
+        assertThat(bitcoin.getId()).isEqualTo("1");
+        assertThat(bitcoin.getSymbol()).isEqualTo("BTC");
+        assertThat(bitcoin.getPrice()).isEqualByComparingTo(new BigDecimal("88894.63281234"));
+        assertThat(bitcoin.getVolume24h()).isEqualByComparingTo(new BigDecimal("123456789.5"));
+        assertThat(bitcoin.getPercentChange24h()).isEqualByComparingTo(new BigDecimal("9.551411"));
+        assertThat(bitcoin.getLastUpdated()).isEqualTo(LocalDateTime.parse("2024-11-12T08:28:00"));
+
+        assertThat(page.getListings()).isEqualTo(1);
+        assertThat(page.getSkipped()).isEqualTo(1);
+        assertThat(page.getTotalCount()).isEqualTo(9876);
+        assertThat(page.getCreditCount()).isEqualTo(1);
+    }
+
+    /**
+     * Тест проверяет разбор в компактное представление: числа в экспоненциальной записи,
+     * escape-последовательности в названиях и повторное использование идентификаторов символов.
+     *
+     * @throws IOException Если произошла ошибка при разборе ответа.
+     */
+    @Test
+    public void testParseQuotes() throws IOException {
+        String response = "{\"data\":["
+                + "{\"id\":7,\"name\":\"Tiny \\\"\\u00e9\\\"\",\"symbol\":\"TNY\","
+                + "\"quote\":{\"USD\":{\"price\":1.25e-7,\"volume_24h\":2E+3,\"percent_change_24h\":-0.5,"
+                + "\"last_updated\":\"2024-11-12T08:28:00.250Z\"}}},"
+                + "{\"id\":8,\"name\":\"Other\",\"symbol\":\"TNY\",\"quote\":{\"USD\":{\"price\":\"3\"}}}"
+                + "]}";
+        List<Quote> parsed = new ArrayList<>();
+        parser.parseQuotes(stream(response), parsed::add);
+
+        assertThat(parsed).hasSize(2);
+        Quote tiny = parsed.get(0);
+        assertThat(tiny.getCoinId()).isEqualTo(7);
+        assertThat(tiny.getName()).isEqualTo("Tiny \"\u00e9\"");
+        assertThat(FixedDecimal.toString(tiny.getPrice())).isEqualTo("0.000000125");
+        assertThat(FixedDecimal.toString(tiny.getVolume24h())).isEqualTo("2000");
+        assertThat(FixedDecimal.toString(tiny.getPercentChange24h())).isEqualTo("-0.5");
+        assertThat(tiny.getLastUpdated()).isEqualTo(Instant.parse("2024-11-12T08:28:00.250Z").toEpochMilli());
+        assertThat(parsed.get(1).getSymbolId()).isEqualTo(tiny.getSymbolId());
+        assertThat(FixedDecimal.isNull(parsed.get(1).getVolume24h())).isTrue();
+    }
+
+    /**
+     * Тест проверяет разбор ответа quotes/latest, в котором data - объект с котировками по символам:
+     * одна запись на символ в версии v1 или массив записей в версии v2.
+     *
+     * @throws IOException Если произошла ошибка при разборе ответа.
+     */
+    @Test
+    public void testParseQuotesBySymbol() throws IOException {
+        String response = "{\"data\":{"
+                + "\"BTC\":{\"id\":1,\"name\":\"Bitcoin\",\"symbol\":\"BTC\",\"quote\":{\"USD\":{\"price\":88894.6}}},"
+                + "\"ETH\":[{\"id\":1027,\"name\":\"Ethereum\",\"symbol\":\"ETH\",\"quote\":{\"USD\":{\"price\":3200}}},"
+                + "{\"id\":9999,\"name\":\"Fake\",\"symbol\":\"ETH\",\"quote\":{\"USD\":{\"price\":null}}}]"
+                + "},\"status\":{\"error_code\":0,\"credit_count\":1}}";
+        List<Quote> parsed = new ArrayList<>();
+        ListingsPage page = parser.parseQuotes(stream(response), parsed::add);
+
+        assertThat(parsed).extracting(Quote::getCoinId).containsExactly(1, 1027);
+        assertThat(FixedDecimal.toString(parsed.get(1).getPrice())).isEqualTo("3200");
+        assertThat(page.getListings()).isEqualTo(2);
+        assertThat(page.getSkipped()).isEqualTo(1);
+    }
+
+    /**
+     * Тест проверяет, что запись с числом, которое не помещается в FixedDecimal, пропускается,
+     * а соседние записи страницы разбираются.
+     *
+     * @throws IOException Если произошла ошибка при разборе ответа.
+     */
+    @Test
+    public void testSkipsListingWithOutOfRangeNumber() throws IOException {
+        String response = "{\"data\":["
+                + "{\"id\":1,\"name\":\"Bitcoin\",\"symbol\":\"BTC\",\"quote\":{\"USD\":{\"price\":88894.6}}},"
+                + "{\"id\":5,\"name\":\"Glitch\",\"symbol\":\"GLT\",\"quote\":{\"USD\":{\"price\":0.01,"
+                + "\"volume_24h\":1,\"percent_change_24h\":1.5e30,\"last_updated\":\"2024-11-12T08:28:00.000Z\"}}},"
+                + "{\"id\":6,\"name\":\"Huge\",\"symbol\":\"HUG\",\"quote\":{\"USD\":{\"price\":1,"
+                + "\"volume_24h\":\"987654321987654321987\"}}},"
+                + "{\"id\":1027,\"name\":\"Ethereum\",\"symbol\":\"ETH\",\"quote\":{\"USD\":{\"price\":3200}}}"
+                + "],\"status\":{\"error_code\":0,\"credit_count\":1}}";
+        List<Quote> parsed = new ArrayList<>();
+        ListingsPage page = parser.parseQuotes(stream(response), parsed::add);
+
+        assertThat(parsed).extracting(Quote::getCoinId).containsExactly(1, 1027);
+        assertThat(page.getListings()).isEqualTo(2);
+        assertThat(page.getSkipped()).isEqualTo(2);
+        assertThat(page.getCreditCount()).isEqualTo(1);
+    }
+
+    /**
+     * Тест проверяет, что ответ с ошибкой API без массива data отклоняется.
+     */
+    @Test
+    public void testParseErrorResponse() {
+        String error = "{\"status\":{\"error_code\":1002,\"error_message\":\"API key missing.\"}}";
+
+        assertThatThrownBy(() -> parser.parse(stream(error), cryptoCurrency -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("API key missing.");
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,222 @@
+package com.cryptodatacollector.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс StubWebSocketServer - минимальный WebSocket сервер (RFC 6455) для тестов потокового источника котировок.
+ * Поддерживает только текстовые сообщения без фрагментации: принимает сообщения клиентов, рассылает сообщения
+ * всем подключенным клиентам и может разорвать все соединения, имитируя сбой сервера.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+class StubWebSocketServer implements Closeable {
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket serverSocket;
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Запускает сервер на свободном локальном порту.
+     *
+     * @throws IOException Если не удалось открыть порт.
+     */
+    StubWebSocketServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "stub-websocket-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String getUrl() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/stream";
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Ждет очередное сообщение от клиента.
+     *
+     * @param timeoutMillis Время ожидания.
+     * @return Сообщение или null, если оно не пришло за отведенное время.
+     * @throws InterruptedException Если ожидание было прервано.
+     */
+    String nextMessage(long timeoutMillis) throws InterruptedException {
+        return received.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Отправляет текстовое сообщение всем подключенным клиентам.
+     *
+     * @param message Сообщение.
+     * @throws IOException Если не удалось отправить сообщение.
+     */
+    void send(String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 10);
+        frame.write(0x81);
+        if (payload.length < 126) {
+            frame.write(payload.length);
+        }
+        else if (payload.length < 65536) {
+            frame.write(126);
+            frame.write(payload.length >>> 8);
+            frame.write(payload.length);
+        }
+        else {
+            frame.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                frame.write((int) ((long) payload.length >>> shift));
+            }
+        }
+        frame.write(payload);
+        for (Socket client : clients) {
+            OutputStream out = client.getOutputStream();
+            synchronized (client) {
+                out.write(frame.toByteArray());
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Разрывает все соединения без закрывающего кадра.
+     *
+     * @throws IOException Если не удалось закрыть соединение.
+     */
+    void disconnectAll() throws IOException {
+        for (Socket client : clients) {
+            clients.remove(client);
+            client.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        disconnectAll();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                Thread reader = new Thread(() -> serve(client), "stub-websocket-client");
+                reader.setDaemon(true);
+                reader.start();
+            }
+            catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (client) {
+            handshake(client);
+            clients.add(client);
+            connections.incrementAndGet();
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            while (true) {
+                int opcode = in.readUnsignedByte() & 0x0F;
+                int second = in.readUnsignedByte();
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                }
+                else if (length == 127) {
+                    length = in.readLong();
+                }
+                byte[] mask = new byte[4];
+                if ((second & 0x80) != 0) {
+                    in.readFully(mask);
+                }
+                byte[] payload = new byte[(int) length];
+                in.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+                if (opcode == 0x1) {
+                    received.add(new String(payload, StandardCharsets.UTF_8));
+                }
+                else if (opcode == 0x8) {
+                    return;
+                }
+            }
+        }
+        catch (IOException e) {
+            // Соединение разорвано клиентом или методом disconnectAll
+        }
+        finally {
+            clients.remove(client);
+        }
+    }
+
+    private static void handshake(Socket client) throws IOException {
+        InputStream in = client.getInputStream();
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            throw new IOException("Sec-WebSocket-Key header is missing");
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+        OutputStream out = client.getOutputStream();
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("Connection closed during handshake");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String accept(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.cryptodatacollector.api;
+
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.Quote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс WebSocketQuoteSourceTest проверяет потоковый источник котировок на локальном WebSocket сервере.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class WebSocketQuoteSourceTest {
+    private static final String SUBSCRIBE = "{\"method\":\"subscribe\",\"channel\":\"listings\"}";
+
+    private StubWebSocketServer server;
+    private WebSocketQuoteSource source;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new StubWebSocketServer();
+        source = new WebSocketQuoteSource(URI.create(server.getUrl()), SUBSCRIBE, null, 20, 100, 10000);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        source.close();
+        server.close();
+    }
+
+    /**
+     * Тест проверяет, что источник подписывается на поток и передает только последнюю котировку
+     * каждой криптовалюты, полученную с прошлого цикла, пропуская служебные сообщения.
+     */
+    @Test
+    public void testConflatesTicksToLatestQuote() throws Exception {
+        source.start();
+        assertThat(server.nextMessage(5000)).isEqualTo(SUBSCRIBE);
+
+        server.send("{\"result\":\"subscribed\"}");
+        server.send(tick(1, "BTC", "100.5", "2024-11-12T08:28:00.000Z"));
+        server.send(tick(1, "BTC", "101.25", "2024-11-12T08:28:01.000Z"));
+        server.send(tick(2, "ETH", "3000", "2024-11-12T08:28:00.500Z"));
+        // Запоздавшее обновление не должно заменить более свежую котировку
+        server.send(tick(1, "BTC", "99", "2024-11-12T08:27:59.000Z"));
+        server.send(tick(3, "SOL", "150", "2024-11-12T08:28:00.000Z"));
+        // Сообщения одного соединения обрабатываются по порядку, поэтому котировка SOL приходит последней
+        awaitTrue(() -> source.getPendingQuotes() == 3);
+
+        Map<Integer, Quote> quotes = new HashMap<>();
+        ListingsFetchResult result = source.fetch(quote -> quotes.put(quote.getCoinId(), quote));
+
+        assertThat(result.getListings()).isEqualTo(3);
+        assertThat(result.getPages()).isEqualTo(6);
+        assertThat(quotes).containsOnlyKeys(1, 2, 3);
+        assertThat(FixedDecimal.toString(quotes.get(1).getPrice())).isEqualTo("101.25");
+        assertThat(FixedDecimal.toString(quotes.get(2).getPrice())).isEqualTo("3000");
+        assertThat(source.fetch(quote -> { }).getListings()).isZero();
+    }
+
+    /**
+     * Тест проверяет, что после разрыва соединения источник переподключается и повторно подписывается на поток.
+     */
+    @Test
+    public void testReconnectsAndResubscribes() throws Exception {
+        source.start();
+        assertThat(server.nextMessage(5000)).isEqualTo(SUBSCRIBE);
+        awaitTrue(source::isConnected);
+
+        server.disconnectAll();
+
+        assertThat(server.nextMessage(5000)).isEqualTo(SUBSCRIBE);
+        assertThat(server.getConnections()).isEqualTo(2);
+        server.send(tick(5, "SOL", "150", "2024-11-12T08:28:00.000Z"));
+
+        List<Quote> quotes = new ArrayList<>();
+        awaitTrue(() -> {
+            source.fetch(quotes::add);
+            return !quotes.isEmpty();
+        });
+        assertThat(quotes).extracting(Quote::getCoinId).containsExactly(5);
+    }
+
+    private static String tick(int id, String symbol, String price, String lastUpdated) {
+        return "{\"data\":[{\"id\":" + id + ",\"name\":\"" + symbol + "\",\"symbol\":\"" + symbol + "\","
+                + "\"quote\":{\"USD\":{\"price\":" + price + ",\"volume_24h\":1000,\"percent_change_24h\":0.5,"
+                + "\"last_updated\":\"" + lastUpdated + "\"}}}]}";
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition was not met in time").isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
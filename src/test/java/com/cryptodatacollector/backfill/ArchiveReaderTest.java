@@ -0,0 +1,66 @@
+package com.cryptodatacollector.backfill;
+
+import com.cryptodatacollector.api.ListingsResponseParser;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.IsoDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс ArchiveReaderTest проверяет чтение архивов ответов API и сохранение времени котировок из архива.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ArchiveReaderTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Тест проверяет сжатый архив с ответом в каждой строке: пустые строки пропускаются, время сбора данных
+     * берется из status.timestamp, а при его отсутствии - из времени обновления котировки.
+     */
+    @Test
+    public void testReadsGzippedNdjson() throws IOException {
+        Path archive = directory.resolve("2024-06-01.ndjson.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            out.write((response("2024-06-01T00:00:05.000Z", "2024-06-01T00:00:00.000Z") + "\n\n"
+                    + response(null, "2024-06-01T00:01:00.000Z")).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Quote> quotes = new ArrayList<>();
+        assertThat(ArchiveReader.isArchive(archive)).isTrue();
+        assertThat(ArchiveReader.isArchive(directory.resolve("notes.txt"))).isFalse();
+        assertThat(ArchiveReader.read(archive, new ListingsResponseParser("USD"), quotes::add)).isEqualTo(2);
+
+        assertThat(quotes).hasSize(2);
+        assertThat(quotes.get(0).getTimestamp()).isEqualTo(millis("2024-06-01T00:00:05.000Z"));
+        assertThat(quotes.get(0).getLastUpdated()).isEqualTo(millis("2024-06-01T00:00:00.000Z"));
+        assertThat(quotes.get(1).getTimestamp()).isEqualTo(millis("2024-06-01T00:01:00.000Z"));
+        assertThat(quotes.get(1).getSymbol()).isEqualTo("BTC");
+    }
+
+    private static String response(String timestamp, String lastUpdated) {
+        return "{\"status\":{" + (timestamp != null ? "\"timestamp\":\"" + timestamp + "\"," : "")
+                + "\"error_code\":0,\"credit_count\":1},\"data\":[{\"id\":1,\"name\":\"Bitcoin\",\"symbol\":\"BTC\","
+                + "\"quote\":{\"USD\":{\"price\":67000.5,\"volume_24h\":1.5E10,\"percent_change_24h\":-1.25,"
+                + "\"last_updated\":\"" + lastUpdated + "\"}}}]}";
+    }
+
+    private static long millis(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        return IsoDateTime.parseMillis(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,171 @@
+package com.cryptodatacollector.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс ClusterCoordinatorTest проверяет распределение диапазонов рейтинга между экземплярами сборщика.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ClusterCoordinatorTest {
+    private static final int RANGES = 300;
+
+    private final InMemoryMembershipStore store = new InMemoryMembershipStore();
+    private final List<ClusterCoordinator> coordinators = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        coordinators.forEach(ClusterCoordinator::close);
+    }
+
+    /**
+     * Тест проверяет, что каждый диапазон загружает ровно один экземпляр, а доля экземпляра не превышает
+     * равную долю больше, чем допускает ограничение нагрузки.
+     */
+    @Test
+    public void testEveryRangeHasExactlyOneOwner() throws Exception {
+        List<ShardAssignment> assignments = assignments(join("collector-a", "collector-b", "collector-c"));
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (int range = 0; range < RANGES; range++) {
+            int owners = 0;
+            for (int i = 0; i < assignments.size(); i++) {
+                if (assignments.get(i).owns(range)) {
+                    owners++;
+                    owned.merge("node-" + i, 1, Integer::sum);
+                }
+            }
+            assertThat(owners).as("owners of range %d", range).isEqualTo(1);
+        }
+        assertThat(owned.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(RANGES);
+        assertThat(owned.values()).allSatisfy(count -> assertThat(count)
+                .isLessThanOrEqualTo((int) Math.ceil(RANGES * ConsistentHashRing.LOAD_FACTOR / 3)));
+        assertThat(assignments).filteredOn(ShardAssignment::isLeader).hasSize(1);
+    }
+
+    /**
+     * Тест проверяет, что диапазоны остановленного экземпляра переходят к остальным после истечения его отметки.
+     */
+    @Test
+    public void testFailedNodeRangesAreTakenOver() throws Exception {
+        List<ClusterCoordinator> nodes = join("collector-a", "collector-b", "collector-c");
+
+        // Экземпляр collector-c перестает записывать отметки, как при аварийной остановке
+        nodes.get(2).close();
+        store.heartbeat(new ClusterMember("collector-c", System.currentTimeMillis() - 1000, 0));
+
+        List<ShardAssignment> after = List.of(nodes.get(0).assignment(), nodes.get(1).assignment());
+        assertThat(after.get(0).getMembers()).containsExactly("collector-a", "collector-b");
+        for (int range = 0; range < RANGES; range++) {
+            int owner = after.get(0).owns(range) ? 0 : 1;
+            assertThat(after.get(1 - owner).owns(range)).isFalse();
+            assertThat(after.get(owner).owns(range)).isTrue();
+        }
+    }
+
+    /**
+     * Тест проверяет, что экземпляр, отметка которого отсутствует в хранилище, ничего не загружает,
+     * а размер рынка передается остальным через отметки.
+     */
+    @Test
+    public void testUnregisteredNodeOwnsNothing() throws Exception {
+        List<ClusterCoordinator> nodes = join("collector-a");
+        nodes.get(0).publishUniverse(5000);
+        awaitTrue(() -> nodes.get(0).assignment().getUniverse() == 5000);
+
+        ClusterCoordinator outsider = new ClusterCoordinator(store, settings("collector-z"));
+        coordinators.add(outsider);
+        ShardAssignment assignment = outsider.assignment();
+
+        assertThat(assignment.getMembers()).containsExactly("collector-a");
+        assertThat(assignment.getUniverse()).isEqualTo(5000);
+        for (int range = 0; range < RANGES; range++) {
+            assertThat(assignment.owns(range)).isFalse();
+        }
+        assertThat(assignment.isLeader()).isFalse();
+    }
+
+    /**
+     * Тест проверяет, что при добавлении или удалении экземпляра другому владельцу переходит около 1/N
+     * диапазонов (N - большее из количеств экземпляров до и после изменения), а не все распределение.
+     */
+    @Test
+    public void testMembershipChangeMovesAboutOneNth() {
+        for (int size = 3; size <= 5; size++) {
+            List<String> nodes = new ArrayList<>();
+            for (int i = 1; i <= size; i++) {
+                nodes.add("collector-" + i);
+            }
+            ConsistentHashRing before = new ConsistentHashRing(nodes, 128);
+
+            List<String> grown = new ArrayList<>(nodes);
+            grown.add("collector-" + (size + 1));
+            assertThat(moved(before, new ConsistentHashRing(grown, 128))).as("moved after adding to %s", nodes)
+                    .isLessThanOrEqualTo(RANGES * 3 / 2 / (size + 1));
+
+            for (String node : nodes) {
+                List<String> shrunk = new ArrayList<>(nodes);
+                shrunk.remove(node);
+                assertThat(moved(before, new ConsistentHashRing(shrunk, 128)))
+                        .as("moved after removing %s from %s", node, nodes)
+                        .isLessThanOrEqualTo(RANGES * 3 / 2 / size);
+            }
+        }
+    }
+
+    private static int moved(ConsistentHashRing before, ConsistentHashRing after) {
+        int moved = 0;
+        for (int range = 0; range < RANGES; range++) {
+            if (!before.ownerOf(range).equals(after.ownerOf(range))) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private List<ClusterCoordinator> join(String... nodeIds) throws Exception {
+        List<ClusterCoordinator> nodes = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            ClusterCoordinator coordinator = new ClusterCoordinator(store, settings(nodeId)).start();
+            coordinators.add(coordinator);
+            nodes.add(coordinator);
+        }
+        awaitTrue(() -> store.members().size() == nodeIds.length);
+        return nodes;
+    }
+
+    private static List<ShardAssignment> assignments(List<ClusterCoordinator> nodes) throws IOException {
+        List<ShardAssignment> assignments = new ArrayList<>();
+        for (ClusterCoordinator node : nodes) {
+            assignments.add(node.assignment());
+        }
+        return assignments;
+    }
+
+    private static ClusterSettings settings(String nodeId) {
+        return new ClusterSettings(nodeId, 50, 500, 128, 200);
+    }
+
+    private static void awaitTrue(Condition condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.check()) {
+            assertThat(System.nanoTime()).as("condition was not met in time").isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private interface Condition {
+        boolean check() throws IOException;
+    }
+}
@@ -0,0 +1,175 @@
+package com.cryptodatacollector.columnar;
+
+import com.cryptodatacollector.analysis.WindowStats;
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.InternTable;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.sink.QuoteBatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Класс ColumnarQuoteStoreTest проверяет сжатие блоков, статистику за диапазон и восстановление колоночного хранилища.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class ColumnarQuoteStoreTest {
+    private static final long START = 1731400080000L;
+    private static final long STEP = 30000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Тест проверяет, что блок распаковывается без потерь и сжимается в несколько раз по сравнению с исходными колонками.
+     */
+    @Test
+    public void testBlockRoundTrip() {
+        int count = 1024;
+        long[] times = new long[count];
+        double[] prices = new double[count];
+        double[] volumes = new double[count];
+        Random random = new Random(42);
+        double price = 88894.63;
+        for (int i = 0; i < count; i++) {
+            times[i] = START + i * STEP + (i % 7 == 0 ? random.nextInt(1000) : 0);
+            price = Math.round((price + random.nextGaussian() * 5) * 100) / 100.0;
+            prices[i] = i % 3 == 0 ? price : prices[Math.max(0, i - 1)];
+            volumes[i] = 1_000_000 + i / 100;
+        }
+
+        byte[] block = BlockCodec.encode(times, prices, volumes, count);
+        long[] decodedTimes = new long[count];
+        double[] decodedPrices = new double[count];
+        double[] decodedVolumes = new double[count];
+        BlockCodec.decode(ByteBuffer.wrap(block), 0, count, decodedTimes, decodedPrices, decodedVolumes);
+
+        assertThat(decodedTimes).isEqualTo(times);
+        assertThat(decodedPrices).isEqualTo(prices);
+        assertThat(decodedVolumes).isEqualTo(volumes);
+        assertThat(block.length).isLessThan(count * 24 / 3);
+    }
+
+    /**
+     * Тест проверяет, что статистика за диапазон, захватывающий целые блоки, края блоков и несжатые котировки,
+     * совпадает с вычисленной напрямую и сохраняется после повторного открытия хранилища.
+     */
+    @Test
+    public void testRangeStatsMatchAndSurviveReopen() throws IOException {
+        ColumnarStoreSettings settings = new ColumnarStoreSettings(directory, 100);
+        ColumnarQuoteStore store = new ColumnarQuoteStore(settings);
+        try (QuoteBatch batch = store.openBatch()) {
+            for (int i = 0; i < 350; i++) {
+                batch.add(quote(1, "BTC", 100 + i, 10 + i % 5, START + i * STEP));
+                batch.add(quote(2, "ETH", 5000, 1, START + i * STEP));
+            }
+        }
+        assertThat(Files.size(directory.resolve("BTC").resolve(SymbolColumns.INDEX_FILE))).isEqualTo(3 * 80);
+
+        long from = START + 50 * STEP;
+        long to = START + 320 * STEP;
+        assertStats(store.getStats("BTC", from, to), 50, 320);
+        assertThat(store.getStats("BTC", START, START + 350 * STEP).getCount()).isEqualTo(350);
+        assertThat(store.getStats("ETH", from, to).getAverage()).isEqualTo(5000);
+        assertThat(store.getStats("DOGE", from, to)).isNull();
+        store.close();
+        assertThatThrownBy(() -> store.getStats("BTC", from, to)).isInstanceOf(IOException.class);
+
+        ColumnarQuoteStore reopened = new ColumnarQuoteStore(settings);
+        assertStats(reopened.getStats("BTC", from, to), 50, 320);
+        assertThat(reopened.covers(System.currentTimeMillis())).isTrue();
+        assertThat(reopened.covers(START)).isFalse();
+        reopened.close();
+    }
+
+    /**
+     * Тест проверяет, что повторно полученная котировка не записывается, а недописанная при аварийном
+     * завершении запись отбрасывается при открытии хранилища.
+     */
+    @Test
+    public void testSkipsRepeatedQuotesAndRecoversTornTail() throws IOException {
+        ColumnarStoreSettings settings = new ColumnarStoreSettings(directory, 100);
+        ColumnarQuoteStore store = new ColumnarQuoteStore(settings);
+        try (QuoteBatch batch = store.openBatch()) {
+            batch.add(quote(1, "BTC", 100, 1, START));
+            batch.add(quote(1, "BTC", 100, 1, START));
+            batch.add(quote(1, "BTC", 102, 1, START + STEP));
+        }
+        store.close();
+        Files.write(directory.resolve("BTC").resolve(SymbolColumns.TAIL_FILE), new byte[]{1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        ColumnarQuoteStore reopened = new ColumnarQuoteStore(settings);
+        try (QuoteBatch batch = reopened.openBatch()) {
+            batch.add(quote(1, "BTC", 104, 1, START + 2 * STEP));
+        }
+        WindowStats stats = reopened.getStats("BTC", START, START + 3 * STEP);
+        assertThat(stats.getCount()).isEqualTo(3);
+        assertThat(stats.getAverage()).isEqualTo(102);
+        reopened.close();
+    }
+
+    /**
+     * Тест проверяет, что запись индекса, которая ссылается за конец blocks.dat, как после сбоя операционной
+     * системы, отбрасывается при открытии хранилища, и чтение и запись продолжают работать.
+     */
+    @Test
+    public void testDropsIndexEntriesPastDataEnd() throws IOException {
+        ColumnarStoreSettings settings = new ColumnarStoreSettings(directory, 100);
+        ColumnarQuoteStore store = new ColumnarQuoteStore(settings);
+        try (QuoteBatch batch = store.openBatch()) {
+            for (int i = 0; i < 250; i++) {
+                batch.add(quote(1, "BTC", 100 + i, 1, START + i * STEP));
+            }
+        }
+        store.close();
+        Path data = directory.resolve("BTC").resolve(SymbolColumns.DATA_FILE);
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        ColumnarQuoteStore reopened = new ColumnarQuoteStore(settings);
+        assertThat(reopened.getStats("BTC", START, START + 250 * STEP).getCount()).isEqualTo(100);
+        try (QuoteBatch batch = reopened.openBatch()) {
+            batch.add(quote(1, "BTC", 1000, 1, START + 300 * STEP));
+        }
+        assertThat(reopened.getStats("BTC", START, START + 400 * STEP).getCount()).isEqualTo(101);
+        assertThat(Files.size(directory.resolve("BTC").resolve(SymbolColumns.INDEX_FILE))).isEqualTo(80);
+        reopened.close();
+    }
+
+    private static void assertStats(WindowStats stats, int fromIndex, int toIndex) {
+        double priceSum = 0;
+        double priceVolumeSum = 0;
+        double volumeSum = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            priceSum += 100 + i;
+            priceVolumeSum += (100 + i) * (10 + i % 5);
+            volumeSum += 10 + i % 5;
+        }
+        int count = toIndex - fromIndex;
+        assertThat(stats.getCount()).isEqualTo(count);
+        assertThat(stats.getAverage()).isCloseTo(priceSum / count, within(1e-9));
+        assertThat(stats.getVwap()).isCloseTo(priceVolumeSum / volumeSum, within(1e-9));
+        assertThat(stats.getMin()).isEqualTo(100 + fromIndex);
+        assertThat(stats.getMax()).isEqualTo(100 + toIndex - 1);
+    }
+
+    private static Quote quote(int coinId, String symbol, double price, double volume, long lastUpdated) {
+        return new Quote(coinId, -1, InternTable.SYMBOLS.intern(symbol), FixedDecimal.fromDouble(price),
+                FixedDecimal.fromDouble(volume), FixedDecimal.NULL, lastUpdated, lastUpdated);
+    }
+}
@@ -0,0 +1,112 @@
+package com.cryptodatacollector.elastic;
+
+import org.elasticsearch.action.ActionListener;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс AsyncRequestExecutorTest проверяет ограничение количества одновременных асинхронных запросов,
+ * тайм-ауты, отмену и переполнение очереди.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class AsyncRequestExecutorTest {
+
+    /**
+     * Тест проверяет, что одновременно выполняется не больше запросов, чем разрешено, а остальные отправляются
+     * по мере завершения выполняемых.
+     */
+    @Test
+    public void testLimitsRequestsInFlight() throws Exception {
+        AsyncRequestExecutor executor = new AsyncRequestExecutor(new AsyncSettings(2, 100, 0));
+        List<ActionListener<Integer>> started = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.execute(listener -> {
+                started.add(listener);
+                return null;
+            }));
+        }
+        assertThat(started).hasSize(2);
+        assertThat(executor.getInFlight()).isEqualTo(2);
+        assertThat(executor.getQueued()).isEqualTo(3);
+
+        started.get(0).onResponse(0);
+        assertThat(results.get(0).get()).isZero();
+        assertThat(started).hasSize(3);
+
+        started.get(1).onFailure(new IOException("node unavailable"));
+        assertThat(started).hasSize(4);
+        assertThatThrownBy(() -> AsyncRequestExecutor.await(results.get(1)))
+                .isInstanceOf(IOException.class)
+                .hasMessage("node unavailable");
+
+        for (int i = 2; i < 5; i++) {
+            started.get(i).onResponse(i);
+        }
+        assertThat(started).hasSize(5);
+        assertThat(results.get(4).get()).isEqualTo(4);
+        assertThat(executor.getInFlight()).isZero();
+        assertThat(executor.getQueued()).isZero();
+    }
+
+    /**
+     * Тест проверяет, что запрос, не завершившийся вовремя, завершается тайм-аутом и освобождает место
+     * для следующего запроса, а отмененный запрос из очереди не отправляется.
+     */
+    @Test
+    public void testTimesOutAndSkipsCancelledRequests() throws Exception {
+        AsyncRequestExecutor executor = new AsyncRequestExecutor(new AsyncSettings(1, 100, 200));
+        List<Integer> started = new ArrayList<>();
+        CompletableFuture<Integer> slow = executor.execute(listener -> {
+            started.add(0);
+            return null;
+        });
+        CompletableFuture<Integer> cancelled = executor.execute(listener -> {
+            started.add(1);
+            return null;
+        });
+        CompletableFuture<Integer> next = executor.execute(listener -> {
+            started.add(2);
+            listener.onResponse(2);
+            return null;
+        });
+        cancelled.cancel(false);
+
+        assertThatThrownBy(() -> slow.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(started).containsExactly(0, 2);
+        assertThat(executor.getInFlight()).isZero();
+        assertThatThrownBy(() -> AsyncRequestExecutor.await(slow))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Elasticsearch request timed out");
+    }
+
+    /**
+     * Тест проверяет, что запрос отклоняется, если очередь заполнена.
+     */
+    @Test
+    public void testRejectsRequestsWhenQueueIsFull() {
+        AsyncRequestExecutor executor = new AsyncRequestExecutor(new AsyncSettings(1, 1, 0));
+        executor.execute(listener -> null);
+        CompletableFuture<Object> queued = executor.execute(listener -> null);
+        CompletableFuture<Object> rejected = executor.execute(listener -> null);
+
+        assertThat(queued).isNotDone();
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.cryptodatacollector.elastic;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс BulkIndexerTest проверяет подсчет проиндексированных и неудачных документов и описание ошибок
+ * для ошибок отдельных документов и для _bulk запроса, не дошедшего до Elasticsearch.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class BulkIndexerTest {
+
+    /**
+     * Тест проверяет итоги индексации: успешные документы, отклоненные документы с разными статусами
+     * и документы запроса, который завершился ошибкой целиком. У документа, отклоненного после повторных
+     * отправок, сохраняется его собственный JSON, хотя в ответе он стоит после успешного документа.
+     *
+     * @throws IOException Если индексация не завершилась.
+     */
+    @Test
+    public void testCountsIndexedAndFailedDocuments() throws IOException {
+        List<BulkItemFailure> reported = new ArrayList<>();
+        BulkIndexer indexer = new BulkIndexer(BulkIndexerTest::respond,
+                new BulkIndexerSettings(2, 1024 * 1024, 60000, 0, 10000),
+                BackoffPolicy.constantBackoff(TimeValue.timeValueMillis(1), 2), reported::add);
+
+        indexer.add("crypto_data", "ok-1", "{\"n\":1}");
+        indexer.add("crypto_data", "bad-2", out -> out.raw("{\"n\":2}"));
+        indexer.add("crypto_data", "busy-3", "{\"n\":3}");
+        indexer.add("crypto_data", "ok-4", out -> out.raw("{\"n\":4}"));
+        indexer.add("crypto_data", "down-5", "{\"n\":5}");
+        indexer.add("crypto_data", "ok-6", "{\"n\":6}");
+        indexer.close();
+
+        BulkIndexingResult result = indexer.getResult();
+        assertThat(result.getIndexed()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.hasFailures()).isTrue();
+        assertThat(result.getFailures()).extracting(BulkItemFailure::getId)
+                .containsExactly("bad-2", "busy-3", "down-5", "ok-6");
+        assertThat(reported).isEqualTo(result.getFailures());
+
+        BulkItemFailure rejected = result.getFailures().get(0);
+        assertThat(rejected.getStatus()).isEqualTo(400);
+        assertThat(rejected.isRetriable()).isFalse();
+        assertThat(rejected.getSource()).isEqualTo("{\"n\":2}");
+
+        BulkItemFailure busy = result.getFailures().get(1);
+        assertThat(busy.getStatus()).isEqualTo(429);
+        assertThat(busy.isRetriable()).isTrue();
+        assertThat(busy.getSource()).isEqualTo("{\"n\":3}");
+
+        BulkItemFailure lost = result.getFailures().get(3);
+        assertThat(lost.getStatus()).isZero();
+        assertThat(lost.isRetriable()).isTrue();
+        assertThat(lost.getIndex()).isEqualTo("crypto_data");
+        assertThat(lost.getReason()).isEqualTo("Connection refused");
+        assertThat(lost.getSource()).isEqualTo("{\"n\":6}");
+    }
+
+    /**
+     * Отвечает на _bulk запрос: документы с идентификатором bad-* отклоняются с ошибкой разбора (400),
+     * busy-* - из-за перегрузки (429), а запрос с документом down-* завершается ошибкой соединения целиком.
+     */
+    private static void respond(BulkRequest request, ActionListener<BulkResponse> listener) {
+        List<DocWriteRequest<?>> requests = request.requests();
+        if (requests.stream().anyMatch(item -> item.id().startsWith("down"))) {
+            listener.onFailure(new ConnectException("Connection refused"));
+            return;
+        }
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> item = requests.get(i);
+            if (item.id().startsWith("bad")) {
+                items[i] = BulkItemResponse.failure(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure(
+                        item.index(), "_doc", item.id(), new MapperParsingException("failed to parse")));
+            }
+            else if (item.id().startsWith("busy")) {
+                items[i] = BulkItemResponse.failure(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure(
+                        item.index(), "_doc", item.id(), new EsRejectedExecutionException("queue is full")));
+            }
+            else {
+                items[i] = BulkItemResponse.success(i, DocWriteRequest.OpType.INDEX, new IndexResponse(
+                        new ShardId(item.index(), "_na_", 0), "_doc", item.id(), 1, 1, 1, true));
+            }
+        }
+        listener.onResponse(new BulkResponse(items, 1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.cryptodatacollector.elastic;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс DocumentBufferPoolTest проверяет, что документы из пула не перезаписываются до освобождения,
+ * освобожденные страницы используются повторно, а писатель не удерживает страницу после освобождения.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class DocumentBufferPoolTest {
+
+    /**
+     * Тест проверяет документы, которые не помещаются в одну страницу, и повторное использование страниц.
+     */
+    @Test
+    public void testReusesReleasedPages() {
+        DocumentBufferPool pool = new DocumentBufferPool(4);
+        JsonBytesWriter writer = pool.newWriter();
+        List<BytesArray> documents = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int number = i;
+            documents.add(pool.encode(writer, out -> out.raw("{\"n\":").number(number).raw(",\"s\":").string("x".repeat(number % 50)).raw("}")));
+        }
+        assertThat(pool.getPagesInUse()).isGreaterThan(1);
+        for (int i = 0; i < documents.size(); i++) {
+            assertThat(documents.get(i).utf8ToString()).isEqualTo("{\"n\":" + i + ",\"s\":\"" + "x".repeat(i % 50) + "\"}");
+        }
+
+        documents.forEach(pool::release);
+        assertThat(pool.getPagesInUse()).isEqualTo(1);
+
+        BytesArray first = pool.encode(writer, out -> out.raw("{}"));
+        assertThat(first.toBytesRef().offset).isZero();
+        pool.release(first);
+        assertThat(pool.getPagesInUse()).isEqualTo(1);
+
+        writer.release();
+        assertThat(pool.getPagesInUse()).isZero();
+    }
+
+    /**
+     * Тест проверяет, что освобожденная писателем страница с неотправленными документами возвращается в пул
+     * только после их отправки, а документы до этого не перезаписываются.
+     */
+    @Test
+    public void testWriterReleaseKeepsUnsentDocuments() {
+        DocumentBufferPool pool = new DocumentBufferPool(4);
+        JsonBytesWriter writer = pool.newWriter();
+        BytesArray unsent = pool.encode(writer, out -> out.raw("{\"n\":1}"));
+
+        writer.release();
+        assertThat(pool.getPagesInUse()).isEqualTo(1);
+        BytesArray next = pool.encode(pool.newWriter(), out -> out.raw("{\"n\":2}"));
+        assertThat(unsent.utf8ToString()).isEqualTo("{\"n\":1}");
+        assertThat(next.array()).isNotSameAs(unsent.array());
+
+        pool.release(unsent);
+        assertThat(pool.getPagesInUse()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.cryptodatacollector.elastic;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс DocumentScannerTest проверяет чтение индекса страницами по point in time. Вместо кластера используется
+ * HTTP сервер, который на каждый поисковый запрос возвращает полную страницу документов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class DocumentScannerTest {
+    private static final String INFO = "{\"name\":\"stub\",\"cluster_name\":\"stub\",\"cluster_uuid\":\"stub\","
+            + "\"version\":{\"number\":\"7.17.0\",\"build_flavor\":\"default\",\"build_type\":\"docker\","
+            + "\"build_hash\":\"stub\",\"build_date\":\"2022-01-28T08:36:04.875279988Z\",\"build_snapshot\":false,"
+            + "\"lucene_version\":\"8.11.1\",\"minimum_wire_compatibility_version\":\"6.8.0\","
+            + "\"minimum_index_compatibility_version\":\"6.0.0-beta1\"},\"tagline\":\"You Know, for Search\"}";
+
+    private final AtomicInteger searches = new AtomicInteger();
+    private HttpServer server;
+    private RestHighLevelClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(
+                new HttpHost("127.0.0.1", server.getAddress().getPort(), "http")));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // Флаг прерывания сбрасывается, чтобы закрытие клиента не было прервано
+        Thread.interrupted();
+        client.close();
+        server.stop(0);
+    }
+
+    /**
+     * Тест проверяет, что прерывание во время чтения завершает его ошибкой, а не возвращает количество
+     * документов прочитанной части как результат полного чтения, и флаг прерывания потока сохраняется.
+     */
+    @Test
+    public void testInterruptIsAnError() {
+        DocumentScanner scanner = new DocumentScanner(client, new ScanSettings(2, 1, 60000));
+        AtomicInteger pages = new AtomicInteger();
+
+        assertThatThrownBy(() -> scanner.scan("crypto_data", SearchSourceBuilder::new, hits -> {
+            assertThat(hits).hasSize(2);
+            if (pages.incrementAndGet() == 2) {
+                Thread.currentThread().interrupt();
+            }
+        }))
+                .isInstanceOf(InterruptedIOException.class)
+                .hasMessageContaining("after 4 documents");
+        assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        assertThat(searches.get()).isEqualTo(2);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        exchange.getRequestBody().readAllBytes();
+        String body;
+        if (path.equals("/")) {
+            body = INFO;
+        }
+        else if (path.endsWith("/_pit")) {
+            body = exchange.getRequestMethod().equals("DELETE") ? "{\"succeeded\":true,\"num_freed\":1}"
+                    : "{\"id\":\"pit-1\"}";
+        }
+        else {
+            body = page(searches.incrementAndGet());
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String page(int number) {
+        return "{\"took\":1,\"timed_out\":false,\"pit_id\":\"pit-1\","
+                + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":100,\"relation\":\"eq\"},\"max_score\":null,\"hits\":["
+                + hit(number * 2 - 1) + "," + hit(number * 2) + "]}}";
+    }
+
+    private static String hit(int id) {
+        return "{\"_index\":\"crypto_data\",\"_type\":\"_doc\",\"_id\":\"" + id + "\",\"_score\":null,"
+                + "\"_source\":{\"id\":\"" + id + "\"},\"sort\":[" + id + "]}";
+    }
+}
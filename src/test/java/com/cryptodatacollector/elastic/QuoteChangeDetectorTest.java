@@ -0,0 +1,102 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.model.FixedDecimal;
+import com.cryptodatacollector.model.InternTable;
+import com.cryptodatacollector.model.Quote;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс QuoteChangeDetectorTest проверяет, какие котировки считаются изменившимися: первая котировка
+ * криптовалюты, повтор без изменений, изменение любого из учитываемых полей на наименьшую величину,
+ * обновление котировки в источнике без изменения значений и повторная индексация после forget.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QuoteChangeDetectorTest {
+    private static final long UPDATED = 1731400080000L;
+
+    /**
+     * Тест проверяет, что первая котировка криптовалюты индексируется, а ее точный повтор - нет,
+     * причем криптовалюты с одинаковыми котировками не влияют друг на друга.
+     */
+    @Test
+    public void testFirstSightingAndUnchangedRepeat() {
+        QuoteChangeDetector detector = new QuoteChangeDetector();
+
+        assertThat(detector.isChanged(quote(1, "88894.63", "123456789.5", "9.55", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(1, "88894.63", "123456789.5", "9.55", UPDATED))).isFalse();
+        assertThat(detector.isChanged(quote(2, "88894.63", "123456789.5", "9.55", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(2, "88894.63", "123456789.5", "9.55", UPDATED))).isFalse();
+        // Идентификаторы на разных страницах каталога отпечатков
+        assertThat(detector.isChanged(quote(1_000_000, "1", "1", "1", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(1_000_000, "1", "1", "1", UPDATED))).isFalse();
+        assertThat(detector.isChanged(quote(1, "88894.63", "123456789.5", "9.55", UPDATED))).isFalse();
+    }
+
+    /**
+     * Тест проверяет, что порога нет: изменение цены, объема или процентного изменения на наименьшую
+     * представимую величину считается изменением, как и возврат к прежнему значению.
+     */
+    @Test
+    public void testSmallestChangeOfEachFieldIsDetected() {
+        QuoteChangeDetector detector = new QuoteChangeDetector();
+        detector.isChanged(quote(1, "100.00000000", "5000", "1.5", UPDATED));
+
+        assertThat(detector.isChanged(quote(1, "100.00000001", "5000", "1.5", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(1, "100.00000001", "5000.00000001", "1.5", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(1, "100.00000001", "5000.00000001", "1.50000001", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(1, "100.00000001", "5000.00000001", "1.50000001", UPDATED))).isFalse();
+        assertThat(detector.isChanged(quote(1, "100.00000000", "5000", "1.5", UPDATED))).isTrue();
+    }
+
+    /**
+     * Тест проверяет, что котировка, обновленная в источнике (новое время last_updated) без изменения значений,
+     * индексируется, поэтому у каждой криптовалюты есть документ за каждое обновление в CoinMarketCap.
+     * Отсутствующие значения тоже учитываются.
+     */
+    @Test
+    public void testSourceRefreshWithSameValuesIsIndexed() {
+        QuoteChangeDetector detector = new QuoteChangeDetector();
+        detector.isChanged(quote(1, "100", "5000", "1.5", UPDATED));
+
+        assertThat(detector.isChanged(quote(1, "100", "5000", "1.5", UPDATED + 60_000))).isTrue();
+        assertThat(detector.isChanged(quote(1, "100", "5000", "1.5", UPDATED + 60_000))).isFalse();
+        assertThat(detector.isChanged(new Quote(1, -1, InternTable.SYMBOLS.intern("C1"), FixedDecimal.fromBigDecimal(
+                new BigDecimal("100")), FixedDecimal.NULL, FixedDecimal.NULL, UPDATED + 60_000,
+                UPDATED + 60_000))).isTrue();
+    }
+
+    /**
+     * Тест проверяет, что после forget следующая котировка индексируется, даже если она не изменилась,
+     * а котировки без идентификатора в CoinMarketCap индексируются всегда.
+     */
+    @Test
+    public void testForgetAndUnknownIds() {
+        QuoteChangeDetector detector = new QuoteChangeDetector();
+        detector.isChanged(quote(7, "1", "1", "1", UPDATED));
+
+        detector.forget("7");
+        assertThat(detector.isChanged(quote(7, "1", "1", "1", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(7, "1", "1", "1", UPDATED))).isFalse();
+        detector.forget(7);
+        assertThat(detector.isChanged(quote(7, "1", "1", "1", UPDATED))).isTrue();
+
+        detector.forget("not-a-number");
+        detector.forget(999_999);
+        assertThat(detector.isChanged(quote(-1, "1", "1", "1", UPDATED))).isTrue();
+        assertThat(detector.isChanged(quote(-1, "1", "1", "1", UPDATED))).isTrue();
+    }
+
+    private static Quote quote(int coinId, String price, String volume, String percentChange, long lastUpdated) {
+        return new Quote(coinId, -1, InternTable.SYMBOLS.intern("C" + coinId),
+                FixedDecimal.fromBigDecimal(new BigDecimal(price)),
+                FixedDecimal.fromBigDecimal(new BigDecimal(volume)),
+                FixedDecimal.fromBigDecimal(new BigDecimal(percentChange)),
+                lastUpdated, lastUpdated);
+    }
+}
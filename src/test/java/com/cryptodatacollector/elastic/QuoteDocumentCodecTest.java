@@ -0,0 +1,48 @@
+package com.cryptodatacollector.elastic;
+
+import com.cryptodatacollector.model.CryptoCurrency;
+import com.cryptodatacollector.model.Quote;
+import com.cryptodatacollector.util.LocalDateTimeAdapter;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс QuoteDocumentCodecTest проверяет, что документ котировки совпадает с документом,
+ * который получался при сериализации CryptoCurrency через Gson.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QuoteDocumentCodecTest {
+
+    /**
+     * Тест проверяет совпадение документов, включая отсутствующие значения, миллисекунды во времени
+     * и символы за пределами ASCII.
+     */
+    @Test
+    public void testMatchesGsonDocument() {
+        CryptoCurrency[] cryptoCurrencies = {
+                new CryptoCurrency("1", "Bitcoin", "BTC", new BigDecimal("88894.63281234"),
+                        new BigDecimal("123456789.5"), new BigDecimal("-9.551411"),
+                        LocalDateTime.parse("2024-11-12T08:28:29.856"), LocalDateTime.parse("2024-11-12T08:28:00")),
+                new CryptoCurrency("2", "Quote \"\\ Coin", "Q", new BigDecimal("0.00000001"), null, null,
+                        LocalDateTime.parse("1999-12-31T23:59:59.5"), LocalDateTime.parse("2000-02-29T00:00:00.01")),
+                new CryptoCurrency("3", "Монета \u20ac \uD83D\uDE80\t", "МОН", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ZERO,
+                        LocalDateTime.parse("2024-01-01T00:00:00"), LocalDateTime.parse("2024-01-01T00:00:00"))
+        };
+        GsonBuilder gson = new GsonBuilder().registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
+
+        for (CryptoCurrency cryptoCurrency : cryptoCurrencies) {
+            Quote quote = Quote.from(cryptoCurrency);
+            assertThat(JsonParser.parseString(QuoteDocumentCodec.toJson(quote)))
+                    .isEqualTo(JsonParser.parseString(gson.create().toJson(cryptoCurrency)));
+            assertThat(quote.toCryptoCurrency()).isEqualTo(cryptoCurrency);
+        }
+    }
+}
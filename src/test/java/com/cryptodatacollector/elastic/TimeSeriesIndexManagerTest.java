@@ -0,0 +1,73 @@
+package com.cryptodatacollector.elastic;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс TimeSeriesIndexManagerTest проверяет имена индексов периодов и выбор индексов, вышедших за срок хранения.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class TimeSeriesIndexManagerTest {
+
+    /**
+     * Тест проверяет, что котировка попадает в индекс периода, в котором она обновлена, включая границы периода
+     * и возврат к более раннему периоду после запомненного.
+     */
+    @Test
+    public void testIndexNames() {
+        TimeSeriesIndexManager daily = manager(IndexRollover.DAILY, 30);
+        long midnight = Instant.parse("2024-11-12T00:00:00Z").toEpochMilli();
+
+        assertThat(daily.indexNameFor(midnight)).isEqualTo("crypto_data-2024.11.12");
+        assertThat(daily.indexNameFor(midnight - 1)).isEqualTo("crypto_data-2024.11.11");
+        assertThat(daily.indexNameFor(midnight + 86_399_999L)).isEqualTo("crypto_data-2024.11.12");
+        assertThat(daily.indexNameFor(midnight + 86_400_000L)).isEqualTo("crypto_data-2024.11.13");
+        assertThat(daily.indexNameFor(LocalDateTime.parse("2024-11-12T23:59:59"))).isEqualTo("crypto_data-2024.11.12");
+
+        TimeSeriesIndexManager hourly = manager(IndexRollover.HOURLY, 30);
+        assertThat(hourly.indexNameFor(midnight + 3_600_000L + 1)).isEqualTo("crypto_data-2024.11.12.01");
+        assertThat(hourly.indexNameFor(midnight - 1)).isEqualTo("crypto_data-2024.11.11.23");
+    }
+
+    /**
+     * Тест проверяет, что удаляются только индексы периодов, начавшихся раньше чем за INDEX_RETENTION_PERIODS
+     * периодов до текущего, а индексы с другими именами не затрагиваются.
+     */
+    @Test
+    public void testExpiredIndices() {
+        String[] indices = {
+                "crypto_data-2024.11.08", "crypto_data-2024.11.09", "crypto_data-2024.11.10",
+                "crypto_data-2024.11.12", "crypto_data-backup", "crypto_candles_1m", "crypto_data-2024.11.09.10"
+        };
+        LocalDateTime now = LocalDateTime.parse("2024-11-12T15:30:00");
+
+        assertThat(manager(IndexRollover.DAILY, 3).expiredIndices(indices, now))
+                .containsExactly("crypto_data-2024.11.08");
+
+        String[] hourly = {"crypto_data-2024.11.12.12", "crypto_data-2024.11.12.13", "crypto_data-2024.11.12.15"};
+        assertThat(manager(IndexRollover.HOURLY, 2).expiredIndices(hourly, now))
+                .containsExactly("crypto_data-2024.11.12.12");
+    }
+
+    /**
+     * Тест проверяет, что при INDEX_RETENTION_PERIODS=0, как у индексатора загрузки архивов,
+     * индексы не удаляются и Elasticsearch не запрашивается.
+     *
+     * @throws IOException Если произошла ошибка при обращении к Elasticsearch.
+     */
+    @Test
+    public void testRetentionDisabled() throws IOException {
+        assertThat(manager(IndexRollover.DAILY, 0).applyRetentionIfDue()).isEmpty();
+    }
+
+    private static TimeSeriesIndexManager manager(IndexRollover rollover, int retentionPeriods) {
+        return new TimeSeriesIndexManager(null, "crypto_data", "crypto_data", rollover, retentionPeriods);
+    }
+}
@@ -0,0 +1,82 @@
+package com.cryptodatacollector.export;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс QuoteExporterTest проверяет кодирование страниц документов в строки файла выгрузки.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class QuoteExporterTest {
+
+    /**
+     * Тест проверяет, что в формате NDJSON исходные документы выводятся без изменений, по одному в строке.
+     */
+    @Test
+    public void testEncodesSourceDocumentsAsNdjson() throws Exception {
+        SearchHit[] hits = {
+                sourceHit("{\"id\":\"1\",\"symbol\":\"BTC\",\"price\":100.5}"),
+                sourceHit("{\"id\":\"2\",\"symbol\":\"ETH\",\"price\":3000}")
+        };
+
+        String encoded = new String(QuoteExporter.encode(ExportFormat.NDJSON, hits), StandardCharsets.UTF_8);
+
+        assertThat(encoded).isEqualTo("{\"id\":\"1\",\"symbol\":\"BTC\",\"price\":100.5}\n"
+                + "{\"id\":\"2\",\"symbol\":\"ETH\",\"price\":3000}\n");
+    }
+
+    /**
+     * Тест проверяет, что в формате CSV котировки выводятся из doc values в порядке заголовка,
+     * текст с запятыми и кавычками экранируется, а отсутствующие значения выводятся пустыми.
+     */
+    @Test
+    public void testEncodesDocValuesAsCsv() throws Exception {
+        SearchHit[] hits = {
+                docValuesHit("1", "Bitcoin", "BTC", 100.5, 1000.0, 0.5),
+                docValuesHit("2", "Wrapped \"Ether\", bridged", "WETH", 3000.0, null, null)
+        };
+
+        String encoded = new String(QuoteExporter.encode(ExportFormat.CSV, hits), StandardCharsets.UTF_8);
+
+        assertThat(QuoteExporter.CSV_HEADER.split(",")).hasSize(8);
+        assertThat(encoded).isEqualTo(
+                "1,Bitcoin,BTC,100.5,1000,0.5,2024-11-12T08:28:00,2024-11-12T08:28:00.5\n"
+                        + "2,\"Wrapped \"\"Ether\"\", bridged\",WETH,3000,,,2024-11-12T08:28:00,2024-11-12T08:28:00.5\n");
+    }
+
+    private static SearchHit sourceHit(String source) {
+        return new SearchHit(0, null, null, Map.of(), Map.of())
+                .sourceRef(new BytesArray(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static SearchHit docValuesHit(String id, String name, String symbol, Double price, Double volume,
+                                          Double percentChange) {
+        Map<String, DocumentField> fields = new HashMap<>();
+        put(fields, "id", id);
+        put(fields, "name", name);
+        put(fields, "symbol", symbol);
+        put(fields, "price", price);
+        put(fields, "volume24h", volume);
+        put(fields, "percentChange24h", percentChange);
+        put(fields, "timestamp", "1731400080000");
+        put(fields, "lastUpdated", "1731400080500");
+        return new SearchHit(0, id, null, fields, Map.of());
+    }
+
+    private static void put(Map<String, DocumentField> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, new DocumentField(name, List.of(value)));
+        }
+    }
+}
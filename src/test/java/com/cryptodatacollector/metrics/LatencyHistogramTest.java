@@ -0,0 +1,72 @@
+package com.cryptodatacollector.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Класс LatencyHistogramTest проверяет точность квантилей гистограммы задержек и вывод показателей в формате Prometheus.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Тест проверяет, что каждое значение попадает в корзину, границы которой его содержат.
+     */
+    @Test
+    public void testBucketBoundsContainValue() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.lowerBound(bucket)).isLessThanOrEqualTo(value);
+            if (value < Long.MAX_VALUE) {
+                assertThat(LatencyHistogram.lowerBound(bucket + 1)).isGreaterThan(value);
+            }
+        }
+    }
+
+    /**
+     * Тест проверяет, что относительная ошибка квантилей не превышает 1/16.
+     */
+    @Test
+    public void testQuantileAccuracy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat((double) histogram.quantile(0.5)).isCloseTo(500_000, within(500_000 / 16.0));
+        assertThat((double) histogram.quantile(0.99)).isCloseTo(990_000, within(990_000 / 16.0));
+        assertThat(new LatencyHistogram().quantile(0.5)).isZero();
+    }
+
+    /**
+     * Тест проверяет, что показатели одного семейства выводятся с общими строками HELP и TYPE.
+     */
+    @Test
+    public void testScrapeFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter started = registry.getOrRegister("cycles_total", "Cycles", new String[]{"result", "started"}, Counter::new);
+        Counter skipped = registry.getOrRegister("cycles_total", "Cycles", new String[]{"result", "skipped"}, Counter::new);
+        LatencyHistogram latency = registry.getOrRegister("fetch_seconds", "Fetch", new String[0], LatencyHistogram::new);
+        started.add(3);
+        skipped.increment();
+        latency.record(TimeUnit.MILLISECONDS.toNanos(2));
+
+        assertThat(registry.getOrRegister("cycles_total", "Cycles", new String[]{"result", "started"}, Counter::new))
+                .isSameAs(started);
+        assertThat(registry.scrape()).contains(
+                "# HELP cycles_total Cycles\n# TYPE cycles_total counter\n"
+                        + "cycles_total{result=\"started\"} 3\ncycles_total{result=\"skipped\"} 1\n",
+                "# TYPE fetch_seconds summary\n",
+                "fetch_seconds{quantile=\"0.5\"} 0.00",
+                "fetch_seconds_sum 0.002\n",
+                "fetch_seconds_count 1\n");
+    }
+}
@@ -0,0 +1,45 @@
+package com.cryptodatacollector.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс FixedDecimalTest проверяет кодирование чисел с фиксированной точкой.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class FixedDecimalTest {
+
+    /**
+     * Тест проверяет, что числа из BigDecimal и double кодируются без потери точности и выводятся без экспоненты.
+     */
+    @Test
+    public void testRoundTrip() {
+        String[] values = {"88894.63281234", "0.00000001234", "-3.5", "123456789.5", "0", "42", "12345678901234567"};
+        for (String value : values) {
+            long encoded = FixedDecimal.fromBigDecimal(new BigDecimal(value));
+            assertThat(FixedDecimal.toBigDecimal(encoded)).isEqualByComparingTo(value);
+            assertThat(FixedDecimal.toString(encoded)).isEqualTo(new BigDecimal(value).stripTrailingZeros().toPlainString());
+        }
+        // double хранит не больше 15 значащих цифр без потерь
+        for (String value : new String[]{"88894.63281234", "0.00000001234", "-3.5", "123456789.5"}) {
+            long encoded = FixedDecimal.fromBigDecimal(new BigDecimal(value));
+            assertThat(FixedDecimal.fromDouble(FixedDecimal.toDouble(encoded))).isEqualTo(encoded);
+        }
+        assertThat(FixedDecimal.fromBigDecimal(new BigDecimal("1.50"))).isEqualTo(FixedDecimal.of(15, 1));
+        assertThat(FixedDecimal.fromBigDecimal(null)).isEqualTo(FixedDecimal.NULL);
+    }
+
+    /**
+     * Тест проверяет, что цифры сверх 17 значащих округляются.
+     */
+    @Test
+    public void testRoundsExcessDigits() {
+        long encoded = FixedDecimal.fromBigDecimal(new BigDecimal("0.123456789012345678"));
+        assertThat(FixedDecimal.toString(encoded)).isEqualTo("0.12345678901234568");
+    }
+}
@@ -0,0 +1,75 @@
+package com.cryptodatacollector.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс BoundedHandoffTest проверяет политики переполнения очереди между стадиями конвейера.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class BoundedHandoffTest {
+
+    /**
+     * Тест проверяет, что политика DROP_OLDEST вытесняет самые старые элементы.
+     */
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        BoundedHandoff<Integer> handoff = new BoundedHandoff<>(2, OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 5; i++) {
+            handoff.put(i);
+        }
+        handoff.close();
+
+        assertThat(drain(handoff)).containsExactly(4, 5);
+        assertThat(handoff.getDropped()).isEqualTo(3);
+    }
+
+    /**
+     * Тест проверяет, что политика DROP_NEWEST отбрасывает новые элементы.
+     */
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        BoundedHandoff<Integer> handoff = new BoundedHandoff<>(2, OverflowPolicy.DROP_NEWEST);
+        for (int i = 1; i <= 5; i++) {
+            handoff.put(i);
+        }
+        handoff.close();
+
+        assertThat(drain(handoff)).containsExactly(1, 2);
+        assertThat(handoff.getDropped()).isEqualTo(3);
+    }
+
+    /**
+     * Тест проверяет, что при политике BLOCK источник ждет получателя и ни один элемент не теряется.
+     */
+    @Test
+    public void testBlockDeliversEverything() throws InterruptedException {
+        BoundedHandoff<Integer> handoff = new BoundedHandoff<>(2, OverflowPolicy.BLOCK);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                handoff.put(i);
+            }
+            handoff.close();
+        });
+        producer.start();
+
+        assertThat(drain(handoff)).hasSize(1000);
+        assertThat(handoff.getDropped()).isZero();
+        producer.join();
+    }
+
+    private List<Integer> drain(BoundedHandoff<Integer> handoff) throws InterruptedException {
+        List<Integer> items = new ArrayList<>();
+        Integer item;
+        while ((item = handoff.take()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,59 @@
+package com.cryptodatacollector.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Класс RangePlannerTest проверяет выбор разрешения свечей для частей диапазона запроса.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class RangePlannerTest {
+    private static final long MINUTE = CandleResolution.ONE_MINUTE.getIntervalMillis();
+    private static final long HOUR = CandleResolution.ONE_HOUR.getIntervalMillis();
+    private static final long DAY = CandleResolution.ONE_DAY.getIntervalMillis();
+
+    /**
+     * Тест проверяет, что середина длинного диапазона читается из дневных свечей, края - из более мелких разрешений,
+     * а данные после checkpoint - из исходных котировок.
+     */
+    @Test
+    public void testCoarsestResolutionCoversMiddle() {
+        long day0 = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+        long from = day0 + 22 * HOUR + 30 * MINUTE + 15_000;
+        long to = day0 + 10 * DAY + 5 * HOUR;
+
+        Map<CandleResolution, Long> checkpoints = new EnumMap<>(CandleResolution.class);
+        checkpoints.put(CandleResolution.ONE_MINUTE, day0 + 10 * DAY + 3 * HOUR + 10 * MINUTE);
+        checkpoints.put(CandleResolution.ONE_HOUR, day0 + 10 * DAY + 3 * HOUR);
+        checkpoints.put(CandleResolution.ONE_DAY, day0 + 10 * DAY);
+
+        List<RangeSegment> segments = RangePlanner.plan(from, to, checkpoints);
+
+        assertThat(segments).containsExactly(
+                new RangeSegment(null, from, day0 + 22 * HOUR + 31 * MINUTE),
+                new RangeSegment(CandleResolution.ONE_MINUTE, day0 + 22 * HOUR + 31 * MINUTE, day0 + 23 * HOUR),
+                new RangeSegment(CandleResolution.ONE_HOUR, day0 + 23 * HOUR, day0 + DAY),
+                new RangeSegment(CandleResolution.ONE_DAY, day0 + DAY, day0 + 10 * DAY),
+                new RangeSegment(CandleResolution.ONE_HOUR, day0 + 10 * DAY, day0 + 10 * DAY + 3 * HOUR),
+                new RangeSegment(CandleResolution.ONE_MINUTE, day0 + 10 * DAY + 3 * HOUR, day0 + 10 * DAY + 3 * HOUR + 10 * MINUTE),
+                new RangeSegment(null, day0 + 10 * DAY + 3 * HOUR + 10 * MINUTE, to));
+    }
+
+    /**
+     * Тест проверяет, что без построенных свечей весь диапазон читается из исходных котировок.
+     */
+    @Test
+    public void testWithoutCheckpointsUsesRawQuotes() {
+        List<RangeSegment> segments = RangePlanner.plan(0, 5 * DAY, new EnumMap<>(CandleResolution.class));
+
+        assertThat(segments).containsExactly(new RangeSegment(null, 0, 5 * DAY));
+    }
+}
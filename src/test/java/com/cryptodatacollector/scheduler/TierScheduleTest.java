@@ -0,0 +1,102 @@
+package com.cryptodatacollector.scheduler;
+
+import com.cryptodatacollector.api.QuoteScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс TierScheduleTest проверяет разбор уровней сбора и расписание уровня: запуски без накопления задержек,
+ * пределы случайной задержки, отбрасывание опоздавших запусков и замедление после пересечения циклов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class TierScheduleTest {
+
+    /**
+     * Тест проверяет разбор диапазонов рейтинга, открытого диапазона и списка символов.
+     */
+    @Test
+    public void testParseTiers() {
+        List<CollectionTier> tiers = CollectionTier.parse("top:1-100:10; rest:101-:60;majors:btc, ETH:5;");
+
+        assertThat(tiers).extracting(CollectionTier::getName).containsExactly("top", "rest", "majors");
+        assertThat(tiers.get(0).getScope()).isEqualTo(QuoteScope.ranks(1, 100));
+        assertThat(tiers.get(0).getIntervalMillis()).isEqualTo(10000);
+        assertThat(tiers.get(1).getScope()).isEqualTo(QuoteScope.ranks(101, 0));
+        assertThat(tiers.get(2).getScope().getSymbols()).containsExactly("BTC", "ETH");
+
+        assertThatThrownBy(() -> CollectionTier.parse("top:100-1:10"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CollectionTier.parse("top:1-100:10;top:BTC:5"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Duplicate");
+        assertThatThrownBy(() -> CollectionTier.parse("top:1-100"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Тест проверяет, что запуски остаются на сетке интервала, даже если каждый запуск происходит с опозданием,
+     * а случайная задержка не выходит за заданный процент интервала и не сдвигает сетку.
+     */
+    @Test
+    public void testFiresOnGridWithBoundedJitter() {
+        TierSchedule schedule = new TierSchedule(1000, new SchedulerSettings(5, 8), bound -> bound);
+
+        long fireAt = schedule.first(0);
+        assertThat(fireAt).isEqualTo(50);
+        for (int i = 1; i <= 100; i++) {
+            // Каждый запуск опаздывает на 30 мс, но следующий все равно приходится на узел сетки
+            fireAt = schedule.next(fireAt + 30);
+            assertThat(fireAt).isEqualTo(i * 1000L + 50);
+        }
+        assertThat(schedule.getMissed()).isZero();
+
+        TierSchedule withoutJitter = new TierSchedule(1000, new SchedulerSettings(0, 8), bound -> bound);
+        assertThat(withoutJitter.first(0)).isZero();
+    }
+
+    /**
+     * Тест проверяет, что при опоздании больше чем на интервал пропущенные запуски отбрасываются,
+     * а следующий запуск приходится на ближайший будущий узел сетки.
+     */
+    @Test
+    public void testDropsMissedSlots() {
+        TierSchedule schedule = new TierSchedule(1000, new SchedulerSettings(0, 8), bound -> 0);
+
+        schedule.first(0);
+        assertThat(schedule.next(3500)).isEqualTo(4000);
+        assertThat(schedule.getMissed()).isEqualTo(3);
+        assertThat(schedule.next(4000)).isEqualTo(5000);
+    }
+
+    /**
+     * Тест проверяет, что после пересечения циклов интервал удваивается не больше заданного предела,
+     * а после быстрых циклов возвращается к заданному.
+     */
+    @Test
+    public void testSlowsDownAndRecovers() {
+        TierSchedule schedule = new TierSchedule(1000, new SchedulerSettings(0, 4), bound -> 0);
+        schedule.first(0);
+
+        schedule.overran();
+        assertThat(schedule.getIntervalMillis()).isEqualTo(2000);
+        schedule.overran();
+        schedule.overran();
+        assertThat(schedule.getIntervalMillis()).isEqualTo(4000);
+        assertThat(schedule.next(0)).isEqualTo(4000);
+
+        // Цикл продолжительностью 1,5 интервала не успел бы при интервале 2000 мс
+        schedule.completed(1500);
+        assertThat(schedule.getIntervalMillis()).isEqualTo(2000);
+        schedule.completed(1500);
+        assertThat(schedule.getIntervalMillis()).isEqualTo(2000);
+        schedule.completed(200);
+        schedule.completed(200);
+        assertThat(schedule.getIntervalMillis()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,87 @@
+package com.cryptodatacollector.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Класс DocumentSpoolTest проверяет запись, чтение и восстановление локального буфера документов.
+ *
+ * @author debugByPrintln
+ * @version 1.0
+ */
+public class DocumentSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Тест проверяет, что документы переживают повторное открытие буфера, а подтвержденные документы не читаются снова.
+     */
+    @Test
+    public void testCheckpointSurvivesReopen() throws IOException {
+        SpoolSettings settings = settings(1024, 1024 * 1024);
+        try (DocumentSpool spool = new DocumentSpool(settings)) {
+            for (int i = 0; i < 30; i++) {
+                assertThat(spool.append(new SpoolRecord("crypto_data-2024.01.01", "1_" + i, "{\"price\":" + i + "}"))).isTrue();
+            }
+            SpoolBatch batch = spool.read(10);
+            assertThat(batch.getRecords()).hasSize(10);
+            spool.commit(batch);
+        }
+
+        try (DocumentSpool spool = new DocumentSpool(settings)) {
+            SpoolBatch batch = spool.read(100);
+            assertThat(batch.getRecords()).hasSize(20);
+            assertThat(batch.getRecords().get(0))
+                    .isEqualTo(new SpoolRecord("crypto_data-2024.01.01", "1_10", "{\"price\":10}"));
+            spool.commit(batch);
+            assertThat(spool.isEmpty()).isTrue();
+        }
+    }
+
+    /**
+     * Тест проверяет, что при достижении предельного размера новые документы отклоняются.
+     */
+    @Test
+    public void testRejectsWhenFull() throws IOException {
+        try (DocumentSpool spool = new DocumentSpool(settings(256, 512))) {
+            int accepted = 0;
+            for (int i = 0; i < 100; i++) {
+                if (spool.append(new SpoolRecord("crypto_data", String.valueOf(i), "{\"price\":1}"))) {
+                    accepted++;
+                }
+            }
+            assertThat(accepted).isBetween(1, 99);
+            assertThat(spool.getRejected()).isEqualTo(100 - accepted);
+            assertThat(spool.read(1000).getRecords()).hasSize(accepted);
+        }
+    }
+
+    /**
+     * Тест проверяет, что каталог открытого буфера нельзя открыть повторно, а после закрытия буфера - можно.
+     */
+    @Test
+    public void testDirectoryIsLocked() throws IOException {
+        SpoolSettings settings = settings(1024, 1024 * 1024);
+        try (DocumentSpool spool = new DocumentSpool(settings)) {
+            spool.append(new SpoolRecord("crypto_data", "1", "{\"price\":1}"));
+            assertThatThrownBy(() -> new DocumentSpool(settings))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("is used by another process");
+        }
+
+        try (DocumentSpool spool = new DocumentSpool(settings)) {
+            assertThat(spool.read(10).getRecords()).hasSize(1);
+        }
+    }
+
+    private SpoolSettings settings(int segmentSize, long maxTotal) {
+        return new SpoolSettings(directory, segmentSize, maxTotal, FsyncPolicy.NEVER, 1000, 100, 1000);
+    }
+}